@@ -0,0 +1,122 @@
+package org.openpnp.benchmark;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares two JMH JSON result files, usually one from the build being tested and one kept from an
+ * earlier build, and prints the change of every benchmark found in both.
+ *
+ * Usage: BenchmarkCompare thresholdPercent current.json [baseline.json]
+ *
+ * Exits with status 1 if any benchmark got slower than the threshold. Without a baseline it only
+ * prints the current results, so it can be run unconditionally from the build.
+ */
+public class BenchmarkCompare {
+    static class Score {
+        final double score;
+        final double error;
+        final String unit;
+        final boolean higherIsBetter;
+
+        Score(double score, double error, String unit, boolean higherIsBetter) {
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println(
+                    "Usage: BenchmarkCompare thresholdPercent current.json [baseline.json]");
+            System.exit(2);
+        }
+        double threshold = Double.parseDouble(args[0]);
+        Map<String, Score> current = read(new File(args[1]));
+        if (args.length < 3 || args[2].trim().isEmpty()) {
+            for (Entry<String, Score> entry : current.entrySet()) {
+                Score s = entry.getValue();
+                System.out.println(String.format(Locale.US, "%-90s %12.3f +/- %.3f %s",
+                        entry.getKey(), s.score, s.error, s.unit));
+            }
+            System.out.println("No baseline given, nothing to compare.");
+            return;
+        }
+        Map<String, Score> baseline = read(new File(args[2]));
+
+        int regressions = 0;
+        for (Entry<String, Score> entry : current.entrySet()) {
+            Score c = entry.getValue();
+            Score b = baseline.get(entry.getKey());
+            if (b == null || b.score == 0 || !b.unit.equals(c.unit)) {
+                System.out.println(String.format(Locale.US, "%-90s %12.3f %s (new)",
+                        entry.getKey(), c.score, c.unit));
+                continue;
+            }
+            // Positive is slower, whichever way the mode counts.
+            double change = (c.score - b.score) / b.score * 100;
+            if (c.higherIsBetter) {
+                change = -change;
+            }
+            boolean regressed = change > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.println(String.format(Locale.US, "%-90s %12.3f -> %12.3f %s %+7.1f%%%s",
+                    entry.getKey(), b.score, c.score, c.unit, change,
+                    regressed ? "  REGRESSION" : ""));
+        }
+        if (regressions > 0) {
+            System.out.println(String.format(Locale.US,
+                    "%d benchmark(s) slower than the baseline by more than %.1f%%.", regressions,
+                    threshold));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads a JMH JSON result file into a map keyed by benchmark name, mode and parameters.
+     */
+    static Map<String, Score> read(File file) throws Exception {
+        JsonArray results;
+        try (Reader reader = new FileReader(file)) {
+            results = new JsonParser().parse(reader).getAsJsonArray();
+        }
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonElement element : results) {
+            JsonObject result = element.getAsJsonObject();
+            String mode = result.get("mode").getAsString();
+            StringBuilder key = new StringBuilder(result.get("benchmark").getAsString());
+            key.append(" ").append(mode);
+            if (result.has("params")) {
+                Map<String, String> params = new TreeMap<>();
+                for (Entry<String, JsonElement> param : result.getAsJsonObject("params")
+                        .entrySet()) {
+                    params.put(param.getKey(), param.getValue().getAsString());
+                }
+                key.append(" ").append(params);
+            }
+            JsonObject metric = result.getAsJsonObject("primaryMetric");
+            JsonElement error = metric.get("scoreError");
+            scores.put(key.toString(),
+                    new Score(metric.get("score").getAsDouble(),
+                            error == null || !error.isJsonPrimitive() ? 0 : error.getAsDouble(),
+                            metric.get("scoreUnit").getAsString(),
+                            mode.equals("thrpt")));
+        }
+        return scores;
+    }
+}
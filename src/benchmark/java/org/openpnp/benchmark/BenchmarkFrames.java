@@ -0,0 +1,66 @@
+package org.openpnp.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import org.opencv.core.Mat;
+import org.openpnp.model.Configuration;
+import org.openpnp.util.OpenCvUtils;
+
+/**
+ * Input shared by the benchmarks. The frame is the pnp-test sample that ships with OpenPnP unless
+ * the openpnp.benchmark.frame system property names a recorded camera frame to use instead, so
+ * that results from a particular machine's camera can be compared between builds.
+ */
+public class BenchmarkFrames {
+    public static final String FRAME_PROPERTY = "openpnp.benchmark.frame";
+    public static final String SAMPLE_FRAME = "/samples/pnp-test/pnp-test.png";
+
+    static {
+        nu.pattern.OpenCV.loadShared();
+    }
+
+    public static BufferedImage loadImage() throws Exception {
+        String path = System.getProperty(FRAME_PROPERTY);
+        BufferedImage image;
+        if (path != null && !path.isEmpty()) {
+            image = ImageIO.read(new File(path));
+        }
+        else {
+            try (InputStream in = BenchmarkFrames.class.getResourceAsStream(SAMPLE_FRAME)) {
+                image = ImageIO.read(in);
+            }
+        }
+        if (image == null) {
+            throw new Exception("Unable to read benchmark frame " + (path == null ? SAMPLE_FRAME : path));
+        }
+        // Normalize to the type the cameras deliver.
+        BufferedImage frame =
+                new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        frame.getGraphics().drawImage(image, 0, 0, null);
+        return frame;
+    }
+
+    public static Mat loadMat() throws Exception {
+        return OpenCvUtils.toMat(loadImage());
+    }
+
+    /**
+     * Cameras register with the Configuration when they are created, so benchmarks that create one
+     * need an instance. It is given an empty scratch directory and is never loaded or saved.
+     */
+    public static synchronized void initializeConfiguration() throws Exception {
+        try {
+            Configuration.get();
+        }
+        catch (Error e) {
+            File directory = Files.createTempDirectory("openpnp-benchmark").toFile();
+            directory.deleteOnExit();
+            Configuration.initialize(directory);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.openpnp.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpnp.model.Board;
+import org.openpnp.model.CompactBoardFormat;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.Part;
+import org.openpnp.model.Placement;
+
+/**
+ * Times reading and writing a board with the given number of placements in the XML and the
+ * compact board formats. The compact reads include creating the placements, which the format
+ * otherwise puts off until they are used.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BoardFileBenchmark {
+    @Param({"100", "12000"})
+    public int placementCount;
+
+    private File directory;
+    private Board board;
+    private File xmlFile;
+    private File compactFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("openpnp-benchmark").toFile();
+        Configuration.initialize(new File(directory, ".openpnp"));
+        for (int i = 0; i < 50; i++) {
+            Configuration.get().addPart(new Part("PART-" + i));
+        }
+        board = new Board();
+        board.setName("Benchmark");
+        for (int i = 0; i < placementCount; i++) {
+            Placement placement = new Placement("R" + (i + 1));
+            placement.setPart(Configuration.get().getPart("PART-" + (i % 50)));
+            placement.setLocation(new Location(LengthUnit.Millimeters, (i % 100) * 2.54,
+                    (i / 100) * 2.54, 0, (i % 4) * 90));
+            board.addPlacement(placement);
+        }
+        xmlFile = new File(directory, "benchmark.board.xml");
+        Files.write(xmlFile.toPath(), toXml());
+        compactFile = new File(directory, "benchmark" + CompactBoardFormat.EXTENSION);
+        Files.write(compactFile.toPath(), CompactBoardFormat.write(board));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        xmlFile.delete();
+        compactFile.delete();
+    }
+
+    private byte[] toXml() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Configuration.createSerializer().write(board, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object readXml() throws Exception {
+        return Configuration.createSerializer().read(Board.class, xmlFile).getPlacements();
+    }
+
+    @Benchmark
+    public Object readCompact() throws Exception {
+        return CompactBoardFormat.read(compactFile).getPlacements();
+    }
+
+    @Benchmark
+    public byte[] writeXml() throws Exception {
+        return toXml();
+    }
+
+    @Benchmark
+    public byte[] writeCompact() throws Exception {
+        return CompactBoardFormat.write(board);
+    }
+}
@@ -0,0 +1,101 @@
+package org.openpnp.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpnp.gui.importer.EagleBoardParser;
+import org.openpnp.gui.importer.rs274x.Rs274xParser;
+import org.openpnp.model.Board;
+import org.openpnp.model.eagle.EagleLoader;
+
+/**
+ * Times the board importers on the EAGLE sample board in src/test/resources/samples/eagle, with
+ * its element repeated to the given count, and on a generated Gerber paste layer with the same
+ * number of pads. The JAXB load the EAGLE importer used to do is timed alongside for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BoardImportBenchmark {
+    @Param({"1", "1000"})
+    public int elementCount;
+
+    private File boardFile;
+    private File gerberFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        String sample = new String(Files.readAllBytes(Paths.get(
+                ClassLoader.getSystemResource("samples/eagle/eagle.brd").toURI())),
+                StandardCharsets.UTF_8);
+        int start = sample.indexOf("<element ");
+        int end = sample.indexOf("</elements>");
+        String element = sample.substring(start, end);
+        StringBuilder elements = new StringBuilder();
+        for (int i = 0; i < elementCount; i++) {
+            elements.append(element.replace("name=\"R1\"", "name=\"R" + (i + 1) + "\""));
+        }
+        boardFile = File.createTempFile("openpnp-benchmark", ".brd");
+        Files.write(boardFile.toPath(),
+                (sample.substring(0, start) + elements + sample.substring(end))
+                        .getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder gerber = new StringBuilder();
+        gerber.append("%FSLAX24Y24*%\n%MOIN*%\n%ADD10R,0.0500X0.0300*%\n%ADD11C,0.0400*%\n");
+        for (int i = 0; i < elementCount; i++) {
+            gerber.append(i % 2 == 0 ? "D10*\n" : "D11*\n");
+            gerber.append(String.format(Locale.US, "X%06dY%06dD03*\n", (i % 40) * 1000,
+                    (i / 40) * 1000));
+        }
+        gerber.append("M02*\n");
+        gerberFile = File.createTempFile("openpnp-benchmark", ".gbr");
+        Files.write(gerberFile.toPath(), gerber.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        boardFile.delete();
+        gerberFile.delete();
+    }
+
+    @Benchmark
+    public Board eagleStreaming() throws Exception {
+        Board board = new Board();
+        new EagleBoardParser(null, false).parse(boardFile, board, null);
+        return board;
+    }
+
+    @Benchmark
+    public Object eagleJaxbLoad() throws Exception {
+        try (InputStream in = new FileInputStream(boardFile)) {
+            return new EagleLoader(in).board;
+        }
+    }
+
+    @Benchmark
+    public Object gerberPaste() throws Exception {
+        return new Rs274xParser().parseSolderPastePads(gerberFile);
+    }
+}
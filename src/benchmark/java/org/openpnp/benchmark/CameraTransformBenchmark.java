@@ -0,0 +1,72 @@
+package org.openpnp.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpnp.machine.reference.BenchmarkCamera;
+
+/**
+ * Times ReferenceCamera.transformImage() with the combinations of settings machines commonly use.
+ * None is the cost of the conversions to and from Mat alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CameraTransformBenchmark {
+    @Param({"None", "Rotate", "ScaleFlip", "CropRotateFlip", "Deinterlace"})
+    public String transform;
+
+    private BenchmarkCamera camera;
+    private BufferedImage frame;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkFrames.initializeConfiguration();
+        frame = BenchmarkFrames.loadImage();
+        camera = new BenchmarkCamera(frame);
+        switch (transform) {
+            case "None":
+                break;
+            case "Rotate":
+                camera.setRotation(90);
+                break;
+            case "ScaleFlip":
+                camera.setScaleWidth(frame.getWidth() / 2);
+                camera.setScaleHeight(frame.getHeight() / 2);
+                camera.setFlipX(true);
+                break;
+            case "CropRotateFlip":
+                camera.setCropWidth(frame.getWidth() * 3 / 4);
+                camera.setCropHeight(frame.getHeight() * 3 / 4);
+                camera.setRotation(12.5);
+                camera.setFlipX(true);
+                camera.setFlipY(true);
+                break;
+            case "Deinterlace":
+                camera.setDeinterlace(true);
+                break;
+            default:
+                throw new Exception("Unknown transform " + transform);
+        }
+    }
+
+    @Benchmark
+    public BufferedImage transformImage() {
+        return camera.transform(frame);
+    }
+}
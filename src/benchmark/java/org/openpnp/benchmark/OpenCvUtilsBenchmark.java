@@ -0,0 +1,55 @@
+package org.openpnp.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpnp.util.OpenCvUtils;
+
+/**
+ * Times the conversions between BufferedImage and Mat that every captured frame goes through at
+ * least twice.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class OpenCvUtilsBenchmark {
+    private BufferedImage image;
+    private Mat mat;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        image = BenchmarkFrames.loadImage();
+        mat = OpenCvUtils.toMat(image);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mat.release();
+    }
+
+    @Benchmark
+    public void toMat() {
+        OpenCvUtils.toMat(image).release();
+    }
+
+    @Benchmark
+    public BufferedImage toBufferedImage() {
+        return OpenCvUtils.toBufferedImage(mat);
+    }
+}
@@ -0,0 +1,77 @@
+package org.openpnp.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration.ModelBasedRunoutCompensation;
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration.RunoutCompensation;
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration.TableBasedRunoutCompensation;
+import org.openpnp.machine.reference.RunoutCompensationTable;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+
+/**
+ * Times looking up the runout compensation for a nozzle move, evaluating the calibrated
+ * compensation directly and through its lookup table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RunoutCompensationBenchmark {
+    @Param({"ModelBased", "TableBased"})
+    public String algorithm;
+
+    private RunoutCompensation compensation;
+    private RunoutCompensationTable table;
+    private double angle;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Location> locations = new ArrayList<>();
+        for (int angle = -180; angle < 180; angle += 30) {
+            double a = Math.toRadians(angle - 20);
+            locations.add(new Location(LengthUnit.Millimeters, 0.3 + 0.05 * Math.cos(a),
+                    -0.1 + 0.05 * Math.sin(a), 0, angle));
+        }
+        compensation = algorithm.equals("ModelBased") ? new ModelBasedRunoutCompensation(locations)
+                : new TableBasedRunoutCompensation(locations);
+        table = new RunoutCompensationTable(compensation);
+    }
+
+    private double nextAngle() {
+        angle += 7.3;
+        if (angle > 180) {
+            angle -= 360;
+        }
+        return angle;
+    }
+
+    @Benchmark
+    public Location getOffset() {
+        return compensation.getOffset(nextAngle());
+    }
+
+    @Benchmark
+    public void table(Blackhole blackhole) {
+        double angle = nextAngle();
+        blackhole.consume(table.getOffsetX(angle));
+        blackhole.consume(table.getOffsetY(angle));
+    }
+}
@@ -0,0 +1,109 @@
+package org.openpnp.benchmark;
+
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openpnp.model.Board;
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.Placement;
+import org.openpnp.model.Point;
+import org.openpnp.util.Utils2D;
+
+/**
+ * Times the board to machine transforms used while planning and running a job, over a board with
+ * the given number of placements.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class Utils2DBenchmark {
+    @Param({"100", "1000"})
+    public int placementCount;
+
+    private BoardLocation boardLocation;
+    private Location boardOrigin;
+    private List<Placement> placements;
+    private Point[] points;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        boardOrigin = new Location(LengthUnit.Millimeters, 120.5, 80.25, -1.6, 12.5);
+        boardLocation = new BoardLocation(new Board());
+        boardLocation.setLocation(boardOrigin);
+        boardLocation.setSide(Side.Bottom);
+
+        placements = new ArrayList<>();
+        points = new Point[placementCount];
+        for (int i = 0; i < placementCount; i++) {
+            Placement placement = new Placement("R" + i);
+            double x = (i % 40) * 2.54;
+            double y = (i / 40) * 2.54;
+            placement.setLocation(new Location(LengthUnit.Millimeters, x, y, 0, (i % 4) * 90));
+            placements.add(placement);
+            points[i] = new Point(x, y);
+        }
+    }
+
+    @Benchmark
+    public void calculateBoardPlacementLocation(Blackhole blackhole) {
+        for (Placement placement : placements) {
+            blackhole.consume(Utils2D.calculateBoardPlacementLocation(boardOrigin, Side.Bottom,
+                    100, placement.getLocation()));
+        }
+    }
+
+    @Benchmark
+    public void calculateBoardPlacementLocationInverse(Blackhole blackhole) {
+        for (Placement placement : placements) {
+            blackhole.consume(Utils2D.calculateBoardPlacementLocationInverse(boardOrigin,
+                    Side.Bottom, 100, placement.getLocation()));
+        }
+    }
+
+    @Benchmark
+    public void calculateBoardPlacementLocationCached(Blackhole blackhole) {
+        for (Placement placement : placements) {
+            blackhole.consume(
+                    Utils2D.calculateBoardPlacementLocation(boardLocation, placement.getLocation()));
+        }
+    }
+
+    @Benchmark
+    public List<Location> calculateBoardPlacementLocations() {
+        return Utils2D.calculateBoardPlacementLocations(boardLocation, placements);
+    }
+
+    @Benchmark
+    public void rotateTranslateScalePoint(Blackhole blackhole) {
+        for (Point point : points) {
+            blackhole.consume(Utils2D.rotateTranslateScalePoint(point, 12.5, 10, 20, 1.01, 0.99));
+        }
+    }
+
+    @Benchmark
+    public AffineTransform deriveAffineTransform() {
+        return Utils2D.deriveAffineTransform(0, 0, 100, 0, 0, 50, 120.5, 80.25, 218.1, 101.9,
+                109.7, 129.1);
+    }
+}
@@ -0,0 +1,158 @@
+package org.openpnp.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.RotatedRect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpnp.machine.reference.BenchmarkCamera;
+import org.openpnp.vision.pipeline.CvPipeline;
+import org.openpnp.vision.pipeline.CvStage;
+import org.openpnp.vision.pipeline.CvStage.Result;
+import org.openpnp.vision.pipeline.stages.DetectFixedCirclesHough;
+import org.openpnp.vision.pipeline.stages.FindContours;
+import org.openpnp.vision.pipeline.stages.MaskHsv;
+import org.openpnp.vision.pipeline.stages.MatchPartTemplate;
+
+/**
+ * Times single pipeline stages on the benchmark frame. Each pipeline starts with an input stage
+ * that hands over a copy of a frame prepared the way the stage expects it (HSV for MaskHsv, a
+ * binary image for FindContours, gray for the Hough transform), so the Input case is the cost to
+ * subtract from the others.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class VisionStageBenchmark {
+    @Param({"Input", "MaskHsv", "FindContours", "MatchPartTemplate", "DetectFixedCirclesHough"})
+    public String stage;
+
+    private CvPipeline pipeline;
+    private Mat frame;
+    private Mat input;
+    private Mat template;
+
+    /**
+     * Returns a copy of a prepared image, and optionally a model, as a real capture stage would.
+     */
+    public static class InputStage extends CvStage {
+        private final Mat image;
+        private final Object model;
+
+        public InputStage(Mat image, Object model) {
+            this.image = image;
+            this.model = model;
+        }
+
+        @Override
+        public Result process(CvPipeline pipeline) throws Exception {
+            return new Result(image.clone(), model);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkFrames.initializeConfiguration();
+        frame = BenchmarkFrames.loadMat();
+        input = new Mat();
+        pipeline = new CvPipeline();
+
+        switch (stage) {
+            case "Input": {
+                frame.copyTo(input);
+                pipeline.add("input", new InputStage(input, null));
+                break;
+            }
+            case "MaskHsv": {
+                Imgproc.cvtColor(frame, input, Imgproc.COLOR_BGR2HSV_FULL);
+                pipeline.add("input", new InputStage(input, null));
+                MaskHsv maskHsv = new MaskHsv();
+                maskHsv.setInvert(false);
+                pipeline.add("stage", maskHsv);
+                break;
+            }
+            case "FindContours": {
+                Imgproc.cvtColor(frame, input, Imgproc.COLOR_BGR2GRAY);
+                Imgproc.threshold(input, input, 0, 255, Imgproc.THRESH_BINARY | Imgproc.THRESH_OTSU);
+                pipeline.add("input", new InputStage(input, null));
+                pipeline.add("stage", new FindContours());
+                break;
+            }
+            case "MatchPartTemplate": {
+                // Match the middle of the frame against itself, the way bottom vision matches a
+                // part's footprint against the rectangle found around it.
+                Size size = new Size(frame.cols() / 4, frame.rows() / 4);
+                Point center = new Point(frame.cols() / 2, frame.rows() / 2);
+                template = new Mat(frame, new Rect((int) (center.x - size.width / 2),
+                        (int) (center.y - size.height / 2), (int) size.width, (int) size.height))
+                                .clone();
+                frame.copyTo(input);
+                pipeline.add("input", new InputStage(input, null));
+                pipeline.add("template", new InputStage(template, null));
+                pipeline.add("model", new InputStage(input, new RotatedRect(center, size, 15)));
+                MatchPartTemplate match = new MatchPartTemplate();
+                match.setTemplateStageName("template");
+                match.setModelStageName("model");
+                pipeline.add("stage", match);
+                break;
+            }
+            case "DetectFixedCirclesHough": {
+                Imgproc.cvtColor(frame, input, Imgproc.COLOR_BGR2GRAY);
+                pipeline.add("input", new InputStage(input, null));
+                pipeline.add("stage", new DetectFixedCirclesHough());
+                // The stage only needs a camera to be present.
+                pipeline.setProperty("camera", new BenchmarkCamera(null));
+                pipeline.setProperty("DetectFixedCirclesHough.minDistance", 20);
+                pipeline.setProperty("DetectFixedCirclesHough.minDiameter", 10);
+                pipeline.setProperty("DetectFixedCirclesHough.maxDiameter", 40);
+                break;
+            }
+            default:
+                throw new Exception("Unknown stage " + stage);
+        }
+
+        // A stage that fails stores its exception as the model. Make sure nothing is timing that.
+        pipeline.process();
+        for (CvStage s : pipeline.getStages()) {
+            Result result = pipeline.getResult(s);
+            if (result != null && result.model instanceof Exception) {
+                throw (Exception) result.model;
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.release();
+        frame.release();
+        input.release();
+        if (template != null) {
+            template.release();
+        }
+    }
+
+    @Benchmark
+    public Object process() {
+        pipeline.process();
+        return pipeline.getWorkingModel();
+    }
+}
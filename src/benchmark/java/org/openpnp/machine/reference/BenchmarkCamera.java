@@ -0,0 +1,42 @@
+package org.openpnp.machine.reference;
+
+import java.awt.image.BufferedImage;
+
+import org.openpnp.gui.support.Wizard;
+import org.openpnp.spi.PropertySheetHolder;
+
+/**
+ * A camera that always returns the same frame. It lives in this package so that the benchmarks can
+ * reach ReferenceCamera's protected transformImage().
+ */
+public class BenchmarkCamera extends ReferenceCamera {
+    private final BufferedImage frame;
+
+    public BenchmarkCamera(BufferedImage frame) {
+        this.frame = frame;
+    }
+
+    @Override
+    protected BufferedImage internalCapture() {
+        return frame;
+    }
+
+    public BufferedImage transform(BufferedImage image) {
+        return transformImage(image);
+    }
+
+    @Override
+    public Wizard getConfigurationWizard() {
+        return null;
+    }
+
+    @Override
+    public String getPropertySheetHolderTitle() {
+        return getClass().getSimpleName() + " " + getName();
+    }
+
+    @Override
+    public PropertySheetHolder[] getChildPropertySheetHolders() {
+        return null;
+    }
+}
@@ -0,0 +1,77 @@
+package org.openpnp.machine.reference.driver;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times the rendering of G-code commands from their templates, as GcodeDriver.moveTo() does for
+ * every move. It lives in this package to reach the protected substituteVariable().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GcodeDriverBenchmark {
+    /**
+     * The default MOVE_TO_COMMAND.
+     */
+    public String moveToCommand =
+            "G0 {X:X%.4f} {Y:Y%.4f} {Z:Z%.4f} {Rotation:E%.4f} F{FeedRate:%.0f} ; Send standard Gcode move\nM400 ; Wait for moves to complete before returning";
+
+    /**
+     * A move with backlash compensation, which has several more variables to substitute.
+     */
+    public String backlashMoveToCommand =
+            "G0 {BacklashOffsetX:X%.4f} {BacklashOffsetY:Y%.4f} {Z:Z%.4f} {Rotation:E%.4f} F{BacklashFeedRate:%.0f}\nG1 {X:X%.4f} {Y:Y%.4f} F{FeedRate:%.0f}\nM400";
+
+    public double x = 123.4567;
+    public double y = 89.0123;
+    public double z = -12.5;
+    public double rotation = 45;
+
+    @Benchmark
+    public String substituteMove() {
+        String command = moveToCommand;
+        command = GcodeDriver.substituteVariable(command, "Id", "N1");
+        command = GcodeDriver.substituteVariable(command, "Name", "N1");
+        command = GcodeDriver.substituteVariable(command, "FeedRate", 50000.0);
+        command = GcodeDriver.substituteVariable(command, "X", x);
+        command = GcodeDriver.substituteVariable(command, "Y", y);
+        command = GcodeDriver.substituteVariable(command, "Z", z);
+        command = GcodeDriver.substituteVariable(command, "Rotation", rotation);
+        return command;
+    }
+
+    @Benchmark
+    public String substituteBacklashMove() {
+        String command = backlashMoveToCommand;
+        command = GcodeDriver.substituteVariable(command, "Id", "N1");
+        command = GcodeDriver.substituteVariable(command, "Name", "N1");
+        command = GcodeDriver.substituteVariable(command, "FeedRate", 50000.0);
+        command = GcodeDriver.substituteVariable(command, "BacklashFeedRate", 5000.0);
+        command = GcodeDriver.substituteVariable(command, "X", x);
+        command = GcodeDriver.substituteVariable(command, "XF", x);
+        command = GcodeDriver.substituteVariable(command, "BacklashOffsetX", x - 0.2);
+        command = GcodeDriver.substituteVariable(command, "XDecreasing", null);
+        command = GcodeDriver.substituteVariable(command, "XIncreasing", true);
+        command = GcodeDriver.substituteVariable(command, "Y", y);
+        command = GcodeDriver.substituteVariable(command, "YF", y);
+        command = GcodeDriver.substituteVariable(command, "BacklashOffsetY", y - 0.2);
+        command = GcodeDriver.substituteVariable(command, "YDecreasing", true);
+        command = GcodeDriver.substituteVariable(command, "YIncreasing", null);
+        command = GcodeDriver.substituteVariable(command, "Z", z);
+        command = GcodeDriver.substituteVariable(command, "Rotation", rotation);
+        return command;
+    }
+}
@@ -26,7 +26,9 @@ import java.util.Locale;
 import javax.swing.UIManager;
 
 import org.openpnp.gui.MainFrame;
+import org.openpnp.logging.AsyncWriter;
 import org.openpnp.logging.ConsoleWriter;
+import org.openpnp.logging.LogSubsystem;
 import org.openpnp.logging.SystemLogger;
 import org.openpnp.model.Configuration;
 import org.pmw.tinylog.Configurator;
@@ -58,14 +60,18 @@ public class Main {
     private static void configureLogging(File configurationDirectory) {
         File logDirectory = new File(configurationDirectory, "log");
         File logFile = new File(logDirectory, "OpenPnP.log");
+        // The file and console are written from a background thread so that logging doesn't
+        // hold up the machine. The file is buffered and flushed whenever the writer catches up.
         Configurator
             .currentConfig()
-            .writer(new RollingFileWriter(logFile.getAbsolutePath(), 100))
-            .addWriter(new ConsoleWriter(System.out, System.err))
+            .writer(new AsyncWriter(
+                    new RollingFileWriter(logFile.getAbsolutePath(), 100, true),
+                    new ConsoleWriter(System.out, System.err)))
             .activate();
         Configurator.currentConfig()
             .formatPattern("{date:yyyy-MM-dd HH:mm:ss.SSS} {class_name} {level}: {message}")
             .activate();
+        LogSubsystem.activateAll();
 
         // Redirect the stdout and stderr to the LogPanel
         SystemLogger out = new SystemLogger(System.out, Level.INFO);
@@ -151,7 +157,7 @@ public class Main {
                 try {
                     MainFrame frame = new MainFrame(configuration);
                     frame.setVisible(true);
-                    Logger.debug(String.format("Bienvenue, Bienvenido, Willkommen, Hello, Namaskar, Welkom, Bonjour to OpenPnP version %s.", Main.getVersion()));
+                    Logger.debug("Bienvenue, Bienvenido, Willkommen, Hello, Namaskar, Welkom, Bonjour to OpenPnP version {}.", Main.getVersion());
                     configuration.getScripting().on("Startup", null);
                 }
                 catch (Exception e) {
@@ -307,13 +307,13 @@ public class Scripting {
     }
 
     public void on(String event, Map<String, Object> globals) throws Exception {
-        Logger.trace("Scripting.on " + event);
+        Logger.trace("Scripting.on {}", event);
         for (File script : FileUtils.listFiles(eventsDirectory, extensions, false)) {
             if (!script.isFile()) {
                 continue;
             }
             if (FilenameUtils.getBaseName(script.getName()).equals(event)) {
-                Logger.trace("Scripting.on found " + script.getName());
+                Logger.trace("Scripting.on found {}", script.getName());
                 execute(script, globals);
             }
         }
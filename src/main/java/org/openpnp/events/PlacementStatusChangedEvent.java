@@ -0,0 +1,23 @@
+package org.openpnp.events;
+
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Placement;
+import org.openpnp.spi.PnpJobProcessor.JobPlacement;
+
+/**
+ * Posted by the job processor whenever the status of a JobPlacement changes. Listeners can use
+ * this to update a single placement instead of refreshing everything.
+ */
+public class PlacementStatusChangedEvent {
+    final public JobPlacement jobPlacement;
+    final public Placement placement;
+    final public BoardLocation boardLocation;
+    final public JobPlacement.Status status;
+
+    public PlacementStatusChangedEvent(JobPlacement jobPlacement) {
+        this.jobPlacement = jobPlacement;
+        this.placement = jobPlacement.getPlacement();
+        this.boardLocation = jobPlacement.getBoardLocation();
+        this.status = jobPlacement.getStatus();
+    }
+}
@@ -82,6 +82,7 @@ import org.openpnp.model.Board;
 import org.openpnp.model.Board.Side;
 import org.openpnp.model.BoardLocation;
 import org.openpnp.model.BoardPad;
+import org.openpnp.model.CompactBoardFormat;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.Job;
 import org.openpnp.model.Location;
@@ -149,7 +150,7 @@ public class JobPanel extends JPanel {
                         captureToolBoardLocationAction, moveCameraToBoardLocationAction,
                         moveCameraToBoardLocationNextAction, moveToolToBoardLocationAction,
                         twoPointLocateBoardLocationAction, fiducialCheckAction, panelizeAction,
-                        setEnabledAction,setCheckFidsAction, setSideAction);
+                        setEnabledAction,setCheckFidsAction, setSideAction, saveBoardAsAction);
         singleSelectionActionGroup.setEnabled(false);
         
         multiSelectionActionGroup = new ActionGroup(removeBoardAction, setEnabledAction, setCheckFidsAction, setSideAction);
@@ -414,6 +415,9 @@ public class JobPanel extends JPanel {
         setCheckFidsMenu.add(new SetCheckFidsAction(false));
         popupMenu.add(setCheckFidsMenu);
 
+        popupMenu.addSeparator();
+        popupMenu.add(saveBoardAsAction);
+
         table.setComponentPopupMenu(popupMenu);
 
         Configuration.get().getBus().register(this);
@@ -761,9 +765,7 @@ public class JobPanel extends JPanel {
             Board importedBoard = boardImporter.importBoard((Frame) getTopLevelAncestor());
             if (importedBoard != null) {
                 Board existingBoard = getSelection().getBoard();
-                for (Placement placement : importedBoard.getPlacements()) {
-                    existingBoard.addPlacement(placement);
-                }
+                existingBoard.addPlacements(importedBoard.getPlacements());
                 for (BoardPad pad : importedBoard.getSolderPastePads()) {
                     // TODO: This is a temporary hack until we redesign the
                     // importer
@@ -772,8 +774,8 @@ public class JobPanel extends JPanel {
                     // try to get it closer to what the user expects to see.
                     pad.setLocation(pad.getLocation()
                             .convertToUnits(getSelection().getLocation().getUnits()));
-                    existingBoard.addSolderPastePad(pad);
                 }
+                existingBoard.addSolderPastePads(importedBoard.getSolderPastePads());
                 jobPlacementsPanel.setBoardLocation(getSelection());
             }
         }
@@ -1090,6 +1092,30 @@ public class JobPanel extends JPanel {
         public void actionPerformed(ActionEvent arg0) {}
     };
 
+    private final FilenameFilter boardFilenameFilter = new FilenameFilter() {
+        @Override
+        public boolean accept(File dir, String name) {
+            return name.toLowerCase().endsWith(".board.xml") //$NON-NLS-1$
+                    || name.toLowerCase().endsWith(CompactBoardFormat.EXTENSION);
+        }
+    };
+
+    /**
+     * Returns the board file chosen in a save dialog, with the XML board extension added when
+     * the name has neither that nor the compact board extension, or null if none was chosen.
+     */
+    private static File getBoardFile(FileDialog fileDialog) {
+        String filename = fileDialog.getFile();
+        if (filename == null) {
+            return null;
+        }
+        if (!filename.toLowerCase().endsWith(".board.xml") //$NON-NLS-1$
+                && !filename.toLowerCase().endsWith(CompactBoardFormat.EXTENSION)) {
+            filename = filename + ".board.xml"; //$NON-NLS-1$
+        }
+        return new File(new File(fileDialog.getDirectory()), filename);
+    }
+
     public final Action addNewBoardAction = new AbstractAction() {
         {
             putValue(NAME, Translations.getString("JobPanel.Action.Job.AddBoard.NewBoard")); //$NON-NLS-1$
@@ -1100,22 +1126,13 @@ public class JobPanel extends JPanel {
         @Override
         public void actionPerformed(ActionEvent arg0) {
             FileDialog fileDialog = new FileDialog(frame, "Save New Board As...", FileDialog.SAVE); //$NON-NLS-1$
-            fileDialog.setFilenameFilter(new FilenameFilter() {
-                @Override
-                public boolean accept(File dir, String name) {
-                    return name.toLowerCase().endsWith(".board.xml"); //$NON-NLS-1$
-                }
-            });
+            fileDialog.setFilenameFilter(boardFilenameFilter);
             fileDialog.setVisible(true);
             try {
-                String filename = fileDialog.getFile();
-                if (filename == null) {
+                File file = getBoardFile(fileDialog);
+                if (file == null) {
                     return;
                 }
-                if (!filename.toLowerCase().endsWith(".board.xml")) { //$NON-NLS-1$
-                    filename = filename + ".board.xml"; //$NON-NLS-1$
-                }
-                File file = new File(new File(fileDialog.getDirectory()), filename);
 
                 Board board = configuration.getBoard(file);
                 BoardLocation boardLocation = new BoardLocation(board);
@@ -1142,12 +1159,7 @@ public class JobPanel extends JPanel {
         @Override
         public void actionPerformed(ActionEvent arg0) {
             FileDialog fileDialog = new FileDialog(frame);
-            fileDialog.setFilenameFilter(new FilenameFilter() {
-                @Override
-                public boolean accept(File dir, String name) {
-                    return name.toLowerCase().endsWith(".board.xml"); //$NON-NLS-1$
-                }
-            });
+            fileDialog.setFilenameFilter(boardFilenameFilter);
             fileDialog.setVisible(true);
             try {
                 if (fileDialog.getFile() == null) {
@@ -1171,6 +1183,42 @@ public class JobPanel extends JPanel {
         }
     };
 
+    public final Action saveBoardAsAction = new AbstractAction("Save Board As...") { //$NON-NLS-1$
+        {
+            putValue(SHORT_DESCRIPTION, "Save the selected board to a new file. Name it " //$NON-NLS-1$
+                    + CompactBoardFormat.EXTENSION + " to convert it to the compact board format."); //$NON-NLS-1$
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent arg0) {
+            Board board = getSelection().getBoard();
+            FileDialog fileDialog = new FileDialog(frame, "Save Board As...", FileDialog.SAVE); //$NON-NLS-1$
+            fileDialog.setFilenameFilter(boardFilenameFilter);
+            fileDialog.setVisible(true);
+            try {
+                File file = getBoardFile(fileDialog);
+                if (file == null) {
+                    return;
+                }
+                if (file.exists()) {
+                    int ret = JOptionPane.showConfirmDialog(getTopLevelAncestor(),
+                            file.getName() + " already exists. Do you want to replace it?", //$NON-NLS-1$
+                            "Replace file?", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE); //$NON-NLS-1$
+                    if (ret != JOptionPane.YES_OPTION) {
+                        return;
+                    }
+                }
+                configuration.saveBoardAs(board, file);
+                // The job has to be saved to refer to the new file.
+                getJob().setDirty(true);
+                tableModel.fireTableDataChanged();
+            }
+            catch (Exception e) {
+                MessageBoxes.errorBox(frame, "Board Save Error", e.getMessage()); //$NON-NLS-1$
+            }
+        }
+    };
+
     public final Action removeBoardAction = new AbstractAction("Remove Board") { //$NON-NLS-1$
         {
             putValue(SMALL_ICON, Icons.delete);
@@ -1549,7 +1597,9 @@ public class JobPanel extends JPanel {
     	    if (!boardLocation.isEnabled()) {
     	        continue;
     	    }
-        	for (Placement placement : boardLocation.getBoard().getPlacements()) {
+        	List<Placement> placements = boardLocation.getBoard().getPlacements();
+        	for (int i = 0; i < placements.size(); i++) {
+        	    Placement placement = placements.get(i);
                 if (placement.getType() != Type.Placement) {
                     continue;
                 }
@@ -1559,7 +1609,7 @@ public class JobPanel extends JPanel {
         	    if (placement.getSide() != boardLocation.getSide()) {
         	        continue;
         	    }
-        		if (!boardLocation.getPlaced(placement.getId())) {
+        		if (!boardLocation.getPlaced(i)) {
     				return false;
         		}
         	}
@@ -40,8 +40,10 @@ import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableRowSorter;
 
 import org.openpnp.events.PlacementSelectedEvent;
+import org.openpnp.events.PlacementStatusChangedEvent;
 import org.openpnp.gui.components.AutoSelectTextTable;
 import org.openpnp.gui.support.ActionGroup;
+import org.openpnp.gui.support.CoalescingUpdater;
 import org.openpnp.gui.support.Helpers;
 import org.openpnp.gui.support.Icons;
 import org.openpnp.gui.support.IdentifiableListCellRenderer;
@@ -66,6 +68,8 @@ import org.openpnp.util.MovableUtils;
 import org.openpnp.util.UiUtils;
 import org.openpnp.util.Utils2D;
 
+import com.google.common.eventbus.Subscribe;
+
 public class JobPlacementsPanel extends JPanel {
     private JTable table;
     private PlacementsTableModel tableModel;
@@ -84,9 +88,24 @@ public class JobPlacementsPanel extends JPanel {
     private static Color statusColorError = new Color(255, 157, 157);
     private static Color statusColorDisabled = new Color(180, 180, 180);
 
+    /**
+     * Minimum time between table updates caused by placement status changes. While a job is
+     * running status changes arrive in bursts and there is no value in repainting more often
+     * than this.
+     */
+    private static final int statusUpdateIntervalMs = 250;
+
+    /**
+     * Placements whose status changed since the last update. Added by the job thread, updated
+     * on the EDT.
+     */
+    private final CoalescingUpdater<Placement> statusUpdater =
+            new CoalescingUpdater<>(statusUpdateIntervalMs, this::updateStatus);
+
     public JobPlacementsPanel(JobPanel jobPanel) {
     	this.jobPanel = jobPanel;
         createUi();
+        Configuration.get().getBus().register(this);
     }
     private void createUi() {
         setBorder(new TitledBorder(null, "Placements", TitledBorder.LEADING, TitledBorder.TOP, null, null));
@@ -296,6 +315,30 @@ public class JobPlacementsPanel extends JPanel {
     private void search() {
         updateRowFilter();
     }
+
+    @Subscribe
+    public void placementStatusChanged(PlacementStatusChangedEvent event) {
+        statusUpdater.add(event.placement);
+    }
+
+    private void updateStatus(List<Placement> placements) {
+        for (Placement placement : placements) {
+            tableModel.firePlacementUpdated(placement);
+        }
+        updateActivePlacements();
+    }
+
+    /**
+     * Fire row updates for just the selected placements rather than refreshing the entire
+     * table.
+     */
+    private void fireSelectionUpdated() {
+        for (int selectedRow : table.getSelectedRows()) {
+            int row = table.convertRowIndexToModel(selectedRow);
+            tableModel.fireTableRowsUpdated(row, row);
+        }
+        updateActivePlacements();
+    }
     
     public void refresh() {
         tableModel.fireTableDataChanged();
@@ -605,9 +648,8 @@ public class JobPlacementsPanel extends JPanel {
         public void actionPerformed(ActionEvent arg0) {
             for (Placement placement : getSelections()) {
                 placement.setType(type);
-                tableModel.fireTableDataChanged();
-                updateActivePlacements();
             }
+            fireSelectionUpdated();
         }
     };
 
@@ -634,9 +676,10 @@ public class JobPlacementsPanel extends JPanel {
         public void actionPerformed(ActionEvent arg0) {
             for (Placement placement : getSelections()) {
                 placement.setSide(side);
-                tableModel.fireTableDataChanged();
-                updateActivePlacements();
             }
+            // Side changes affect the row filter, so this needs a full refresh.
+            tableModel.fireTableDataChanged();
+            updateActivePlacements();
         }
     };
     
@@ -663,9 +706,8 @@ public class JobPlacementsPanel extends JPanel {
         public void actionPerformed(ActionEvent arg0) {
             for (Placement placement : getSelections()) {
                 placement.setErrorHandling(errorHandling);
-                tableModel.fireTableDataChanged();
-                updateActivePlacements();
             }
+            fireSelectionUpdated();
         }
     };
     
@@ -693,9 +735,8 @@ public class JobPlacementsPanel extends JPanel {
         public void actionPerformed(ActionEvent arg0) {
             for (Placement placement : getSelections()) {
                 boardLocation.setPlaced(placement.getId(), placed);
-                tableModel.fireTableDataChanged();   
-                updateActivePlacements();
             }
+            fireSelectionUpdated();
         }
     };
 
@@ -724,9 +765,8 @@ public class JobPlacementsPanel extends JPanel {
         public void actionPerformed(ActionEvent arg0) {
             for (Placement placement : getSelections()) {
                 placement.setEnabled(enabled);
-                tableModel.fireTableDataChanged();   
-                updateActivePlacements();
             }
+            fireSelectionUpdated();
         }
     };
 
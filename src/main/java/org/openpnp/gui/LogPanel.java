@@ -20,6 +20,7 @@ import javax.swing.border.TitledBorder;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 
+import org.openpnp.logging.LogSubsystem;
 import org.openpnp.logging.SystemLogger;
 import org.pmw.tinylog.Configurator;
 import org.pmw.tinylog.Level;
@@ -71,6 +72,7 @@ public class LogPanel extends JPanel {
                 "Global Logging Settings", TitledBorder.LEADING, TitledBorder.TOP, null, new Color(0, 0, 0)));
 
         settingsPanel.add(createGlobalLogLevelPanel());
+        settingsPanel.add(createSubsystemLogLevelPanel());
 
         settingsAndFilterPanel.add(settingsPanel, BorderLayout.NORTH);
 
@@ -243,6 +245,35 @@ public class LogPanel extends JPanel {
         return globalLogLevelPanel;
     }
 
+    private JPanel createSubsystemLogLevelPanel() {
+        final String global = "Global";
+        JPanel subsystemLogLevelPanel = new JPanel();
+        subsystemLogLevelPanel.add(new JLabel("Subsystem:"));
+        JComboBox<LogSubsystem> subsystemComboBox = new JComboBox<>(LogSubsystem.values());
+        subsystemLogLevelPanel.add(subsystemComboBox);
+        JComboBox<String> logLevelComboBox = new JComboBox<>();
+        logLevelComboBox.addItem(global);
+        for (Level level : Level.values()) {
+            logLevelComboBox.addItem(level.toString());
+        }
+        Runnable showLevel = () -> {
+            Level level = ((LogSubsystem) subsystemComboBox.getSelectedItem()).getLevel();
+            logLevelComboBox.setSelectedItem(level == null ? global : level.toString());
+        };
+        showLevel.run();
+        subsystemComboBox.addActionListener(e -> showLevel.run());
+        logLevelComboBox.addActionListener(e -> {
+            LogSubsystem subsystem = (LogSubsystem) subsystemComboBox.getSelectedItem();
+            String selected = (String) logLevelComboBox.getSelectedItem();
+            Level level = global.equals(selected) ? null : Level.valueOf(selected);
+            if (!Objects.equals(level, subsystem.getLevel())) {
+                subsystem.setLevel(level);
+            }
+        });
+        subsystemLogLevelPanel.add(logLevelComboBox);
+        return subsystemLogLevelPanel;
+    }
+
     private void copyStringToClipboard(String s) {
         StringSelection selection = new StringSelection(s);
         Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
@@ -58,6 +58,8 @@ import org.openpnp.spi.Camera;
 import org.openpnp.spi.Head;
 import org.openpnp.spi.HeadMountable;
 import org.openpnp.spi.Machine;
+import org.openpnp.spi.MachineActivity;
+import org.openpnp.spi.MachineActivityListener;
 import org.openpnp.spi.MachineListener;
 import org.openpnp.spi.Nozzle;
 import org.openpnp.util.BeanUtils;
@@ -331,13 +333,18 @@ public class MachineControlsPanel extends JPanel {
                 enabled ? Icons.powerOff : Icons.powerOn);
     }
 
-    private MachineListener machineListener = new MachineListener.Adapter() {
-        @Override
-        public void machineHeadActivity(Machine machine, Head head) {
-            EventQueue.invokeLater(() -> updateDros());
-            EventQueue.invokeLater(() -> comboBoxHeadMountable.repaint());
-        }
+    /**
+     * The DROs follow the machine at this many updates per second at most, no matter how fast
+     * the machine reports activity.
+     */
+    private static final int DRO_UPDATES_PER_SECOND = 20;
 
+    private MachineActivityListener activityListener = (machine, heads, activities) -> {
+        updateDros();
+        comboBoxHeadMountable.repaint();
+    };
+
+    private MachineListener machineListener = new MachineListener.Adapter() {
         @Override
         public void machineEnabled(Machine machine) {
             updateStartStopButton(machine.isEnabled());
@@ -388,6 +395,7 @@ public class MachineControlsPanel extends JPanel {
             Machine machine = configuration.getMachine();
             if (machine != null) {
                 machine.removeListener(machineListener);
+                machine.removeActivityListener(activityListener);
             }
 
             for (Head head : machine.getHeads()) {
@@ -407,6 +415,8 @@ public class MachineControlsPanel extends JPanel {
             setSelectedTool(((HeadMountableItem) comboBoxHeadMountable.getItemAt(0)).getItem());
 
             machine.addListener(machineListener);
+            machine.addActivityListener(activityListener, DRO_UPDATES_PER_SECOND, true,
+                    MachineActivity.Motion, MachineActivity.NozzleTipChange);
 
             updateStartStopButton(machine.isEnabled());
 
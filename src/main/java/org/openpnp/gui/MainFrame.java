@@ -847,23 +847,28 @@ public class MainFrame extends JFrame {
             MessageBoxes.errorBox(MainFrame.this, "Save Preferences", e); //$NON-NLS-1$
         }
         
-        try {
-            configuration.save();
-        }
-        catch (Exception e) {
-			String message = "There was a problem saving the configuration. The reason was:\n\n" + e.getMessage() //$NON-NLS-1$
-					+ "\n\n"; //$NON-NLS-1$
-			message = message.replaceAll("\n", "<br/>"); //$NON-NLS-1$ //$NON-NLS-2$
-			message = message.replaceAll("\r", ""); //$NON-NLS-1$ //$NON-NLS-2$
-			message = "<html><body width=\"400\">" + message + "</body></html>"; //$NON-NLS-1$ //$NON-NLS-2$
-			JOptionPane.showMessageDialog(this, message, "Configuration Save Error", JOptionPane.ERROR_MESSAGE); //$NON-NLS-1$
-			return false;
-        }
-
-        Logger.debug("Config saved successfully!"); //$NON-NLS-1$
+        // The files are serialized and written in the background so the GUI doesn't wait on them.
+        // Errors are reported when the save finishes.
+        configuration.saveInBackground().whenComplete((result, e) -> {
+            if (e != null) {
+                SwingUtilities.invokeLater(() -> showSaveConfigError(e));
+            }
+            else {
+                Logger.debug("Config saved successfully!"); //$NON-NLS-1$
+            }
+        });
         return true;
     }
 
+    private void showSaveConfigError(Throwable e) {
+        String message = "There was a problem saving the configuration. The reason was:\n\n" + e.getMessage() //$NON-NLS-1$
+                + "\n\n"; //$NON-NLS-1$
+        message = message.replaceAll("\n", "<br/>"); //$NON-NLS-1$ //$NON-NLS-2$
+        message = message.replaceAll("\r", ""); //$NON-NLS-1$ //$NON-NLS-2$
+        message = "<html><body width=\"400\">" + message + "</body></html>"; //$NON-NLS-1$ //$NON-NLS-2$
+        JOptionPane.showMessageDialog(this, message, "Configuration Save Error", JOptionPane.ERROR_MESSAGE); //$NON-NLS-1$
+    }
+
     public boolean quit() {
         Logger.info("Shutting down..."); //$NON-NLS-1$
         try {
@@ -0,0 +1,548 @@
+/*
+ * Copyright (C) 2015 Douglas Pearless <Douglas.Pearless@gmail.com>
+ *
+ * This file is part of OpenPnP.
+ *
+ * OpenPnP is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * OpenPnP is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with OpenPnP. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * For more information about OpenPnP visit http://openpnp.org
+ */
+
+package org.openpnp.gui.importer;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import javax.swing.SwingUtilities;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import org.openpnp.model.Board;
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardPad;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.Package;
+import org.openpnp.model.Pad;
+import org.openpnp.model.Part;
+import org.openpnp.model.Placement;
+import org.openpnp.model.Point;
+import org.openpnp.util.Utils2D;
+import org.pmw.tinylog.Logger;
+
+/**
+ * Reads placements and solder paste pads from an EAGLE .brd file in a single streaming pass.
+ *
+ * Only the parts of the file the import needs are kept: the layer numbers, the extent of the
+ * board outline, the cream frame design rules and the SMD pads and cream polygons of each library
+ * package. EAGLE writes all of those before the elements, so each element is turned into a
+ * placement and its pads as soon as it is read, and everything else, signals in particular, is
+ * skipped without being built into objects. Placements and pads are added to the board in
+ * batches.
+ */
+public class EagleBoardParser {
+    static final int BATCH_SIZE = 256;
+
+    private static final double MIL_TO_MM = 0.0254;
+
+    private final Side side;
+    private final boolean createMissingParts;
+
+    private String source;
+    private Board board;
+
+    private String dimensionLayer = "";
+    private String topLayer = "";
+    private String bottomLayer = "";
+    private String tCreamLayer = "";
+    private String bCreamLayer = "";
+
+    private double xBoundary;
+    private double minCreamFrame;
+    private double maxCreamFrame;
+
+    /**
+     * Pads and cream polygons of each library package, keyed by library and package name.
+     */
+    private final Map<String, List<Object>> packages = new HashMap<>();
+    private final Map<String, Part> parts = new HashMap<>();
+
+    private final List<Placement> placements = new ArrayList<>();
+    private final List<Placement> pendingPlacements = new ArrayList<>();
+    private final List<BoardPad> pendingPads = new ArrayList<>();
+
+    /**
+     * @param side The side to import, or null for both.
+     * @param createMissingParts Add parts and packages that are not in the configuration yet.
+     */
+    public EagleBoardParser(Side side, boolean createMissingParts) {
+        this.side = side;
+        this.createMissingParts = createMissingParts;
+    }
+
+    /**
+     * Parse the given file into the board, reporting the percentage read to progress if it is not
+     * null. Interrupting the calling thread cancels the parse.
+     *
+     * @return The placements that were added to the board.
+     */
+    public List<Placement> parse(File file, Board board, IntConsumer progress) throws Exception {
+        try (InputStream in = new ImportProgressInputStream(
+                new BufferedInputStream(new FileInputStream(file)), file.length(), progress)) {
+            return parse(in, file.toString(), board);
+        }
+    }
+
+    public List<Placement> parse(InputStream in, String source, Board board) throws Exception {
+        this.source = source;
+        this.board = board;
+
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // The file names eagle.dtd, which we neither have nor need.
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+        try {
+            read(reader);
+        }
+        finally {
+            reader.close();
+        }
+        flush();
+        return placements;
+    }
+
+    private void read(XMLStreamReader reader) throws Exception {
+        boolean inPlain = false;
+        boolean inDesignRules = false;
+        boolean inElements = false;
+        String library = null;
+        List<Object> packagePrimitives = null;
+        PolygonPrimitive polygon = null;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "plain":
+                        inPlain = false;
+                        break;
+                    case "designrules":
+                        inDesignRules = false;
+                        break;
+                    case "elements":
+                        inElements = false;
+                        break;
+                    case "library":
+                        library = null;
+                        break;
+                    case "package":
+                        packagePrimitives = null;
+                        break;
+                    case "polygon":
+                        polygon = null;
+                        break;
+                }
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (reader.getLocalName()) {
+                case "layer":
+                    layer(reader);
+                    break;
+                case "plain":
+                    inPlain = true;
+                    break;
+                case "wire":
+                    // Only the board outline, not the wires of packages or signals.
+                    if (inPlain && dimensionLayer.equalsIgnoreCase(attribute(reader, "layer"))) {
+                        xBoundary = Math.max(xBoundary, number(reader, "x1"));
+                        xBoundary = Math.max(xBoundary, number(reader, "x2"));
+                    }
+                    break;
+                case "library":
+                    library = attribute(reader, "name");
+                    break;
+                case "package":
+                    if (library != null) {
+                        String key = key(library, attribute(reader, "name"));
+                        packagePrimitives = packages.get(key);
+                        if (packagePrimitives == null) {
+                            packagePrimitives = new ArrayList<>();
+                            packages.put(key, packagePrimitives);
+                        }
+                    }
+                    break;
+                case "smd":
+                    if (packagePrimitives != null) {
+                        packagePrimitives.add(new SmdPrimitive(reader));
+                    }
+                    break;
+                case "polygon":
+                    if (packagePrimitives != null) {
+                        polygon = new PolygonPrimitive(attribute(reader, "layer"));
+                        packagePrimitives.add(polygon);
+                    }
+                    break;
+                case "vertex":
+                    if (polygon != null) {
+                        polygon.add(number(reader, "x"), number(reader, "y"));
+                    }
+                    break;
+                case "designrules":
+                    inDesignRules = true;
+                    break;
+                case "param":
+                    if (inDesignRules) {
+                        designRule(attribute(reader, "name"), attribute(reader, "value"));
+                    }
+                    break;
+                case "elements":
+                    inElements = true;
+                    break;
+                case "element":
+                    if (inElements) {
+                        element(reader);
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void layer(XMLStreamReader reader) {
+        // Establish which are the Dimension, Top, Bottom, tCream and bCream layers in case the
+        // board has non-standard layer numbering.
+        String name = attribute(reader, "name");
+        String number = attribute(reader, "number");
+        if (name == null) {
+            return;
+        }
+        if (name.equalsIgnoreCase("Dimension")) {
+            dimensionLayer = number;
+        }
+        else if (name.equalsIgnoreCase("Top")) {
+            topLayer = number;
+        }
+        else if (name.equalsIgnoreCase("Bottom")) {
+            bottomLayer = number;
+        }
+        else if (name.equalsIgnoreCase("tCream")) {
+            tCreamLayer = number;
+        }
+        else if (name.equalsIgnoreCase("bCream")) {
+            bCreamLayer = number;
+        }
+    }
+
+    private void designRule(String name, String value) throws Exception {
+        if (name == null || value == null) {
+            return;
+        }
+        if (name.equalsIgnoreCase("mlMinCreamFrame")) {
+            minCreamFrame = creamFrame(name, value);
+        }
+        else if (name.equalsIgnoreCase("mlMaxCreamFrame")) {
+            maxCreamFrame = creamFrame(name, value);
+        }
+    }
+
+    /**
+     * Returns a cream frame design rule in mm. EAGLE writes them either in mil or in mm.
+     */
+    private static double creamFrame(String name, String value) throws Exception {
+        double number = Double.parseDouble(value.replaceAll("[A-Za-z ]", ""));
+        if (value.toUpperCase().endsWith("MIL")) {
+            return number * MIL_TO_MM;
+        }
+        else if (value.toUpperCase().endsWith("MM")) {
+            return number;
+        }
+        // Force the importer to abort, something is very wrong
+        throw new Exception(name + " must either be in mil or mm");
+    }
+
+    private void element(XMLStreamReader reader) throws Exception {
+        // The part is mirrored, and therefore on the bottom of the board, if its rotation
+        // starts with M.
+        String rot = attribute(reader, "rot", "R0");
+        Side elementSide = rot.toUpperCase().startsWith("M") ? Side.Bottom : Side.Top;
+        if (side != null && side != elementSide) {
+            return;
+        }
+
+        String name = attribute(reader, "name");
+        String libraryId = attribute(reader, "library", "");
+        String packageId = attribute(reader, "package", "");
+        String value = attribute(reader, "value", "");
+        double rotation = rotation(rot);
+        double x = number(reader, "x");
+        double y = number(reader, "y");
+
+        Placement placement = new Placement(name);
+        placement.setLocation(new Location(LengthUnit.Millimeters, x, y, 0, rotation));
+        if (createMissingParts && Configuration.get() != null) {
+            placement.setPart(part(libraryId, packageId, value));
+        }
+
+        List<Object> primitives = packages.get(key(libraryId, packageId));
+        if (primitives != null) {
+            for (Object primitive : primitives) {
+                if (primitive instanceof SmdPrimitive) {
+                    SmdPrimitive smd = (SmdPrimitive) primitive;
+                    if (smd.cream) {
+                        addPad(smdPad(name, smd, elementSide, x, y, rotation));
+                    }
+                }
+                else if (primitive instanceof PolygonPrimitive) {
+                    PolygonPrimitive polygon = (PolygonPrimitive) primitive;
+                    if (tCreamLayer.equalsIgnoreCase(polygon.layer)
+                            || bCreamLayer.equalsIgnoreCase(polygon.layer)) {
+                        addPad(polygonPad(name, polygon, x, y));
+                    }
+                }
+            }
+        }
+
+        placement.setSide(elementSide);
+        placements.add(placement);
+        pendingPlacements.add(placement);
+        if (pendingPlacements.size() >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Paste the SMD pad, shrunk to halfway between the minimum and maximum cream frame. In
+     * practice these are usually 0, which means we paste the entire pad.
+     */
+    private BoardPad smdPad(String elementName, SmdPrimitive smd, Side elementSide, double x,
+            double y, double rotation) {
+        Pad.RoundRectangle pad = new Pad.RoundRectangle();
+        pad.setUnits(LengthUnit.Millimeters);
+        // TODO check that these reduce the pad to the halfway between the minimum & maximum
+        // tolerances
+        pad.setHeight(smd.dx - (maxCreamFrame - minCreamFrame) / 2);
+        pad.setWidth(smd.dy - (maxCreamFrame - minCreamFrame) / 2);
+        pad.setRoundness(smd.roundness);
+
+        // Rotate the pad by its own rotation, without turning through 360 degrees.
+        double padRotation = rotation + smd.rotation % 360;
+
+        Point a = new Point(smd.x + x, smd.y + y);
+        Point partCenter = new Point(x, y);
+        if (elementSide == Side.Top) {
+            a = Utils2D.rotateTranslateCenterPoint(a, rotation > 180 ? rotation : -rotation, 0, 0,
+                    partCenter);
+        }
+        else {
+            a = Utils2D.rotateTranslateCenterPoint(a,
+                    rotation > 180 ? rotation : -(180 - rotation), 0, 0, partCenter);
+            // Mirror left to right across the center of the board, and top to bottom across the
+            // center of the part.
+            double centerX = xBoundary / 2;
+            a.setX(2 * centerX - a.getX());
+            a.setY(2 * y - a.getY());
+        }
+
+        // TODO Need to write the logic for pad rotation
+        BoardPad boardPad = new BoardPad(pad,
+                new Location(LengthUnit.Millimeters, a.getX(), a.getY(), 0, padRotation));
+        boardPad.setName(elementName + "-" + smd.name);
+
+        // A pad on the same layer as its part stays on the side of the part, one on the other
+        // layer goes to the other side.
+        if (topLayer.equalsIgnoreCase(smd.layer)) {
+            boardPad.setSide(elementSide == Side.Top ? Side.Top : Side.Bottom);
+        }
+        else if (bottomLayer.equalsIgnoreCase(smd.layer)) {
+            boardPad.setSide(elementSide == Side.Top ? Side.Bottom : Side.Top);
+        }
+        else {
+            Logger.info("Warning: " + source
+                    + " contains a SMD pad that is not on a topLayer or bottomLayer");
+        }
+        return boardPad;
+    }
+
+    /**
+     * Paste a cream polygon as its bounding rectangle.
+     */
+    private BoardPad polygonPad(String elementName, PolygonPrimitive polygon, double x,
+            double y) {
+        // TODO implement polygon pad in Pad.java
+        Pad.RoundRectangle pad = new Pad.RoundRectangle();
+        pad.setUnits(LengthUnit.Millimeters);
+        pad.setRoundness(0);
+        pad.setHeight(polygon.maxY - polygon.minY);
+        pad.setWidth(polygon.maxX - polygon.minX);
+
+        BoardPad boardPad = new BoardPad(pad, new Location(LengthUnit.Millimeters,
+                x + (polygon.maxX + polygon.minX) / 2, y + (polygon.maxY + polygon.minY) / 2, 0,
+                0));
+        Logger.info("Warning: " + source
+                + " contains a Polygon pad - this functionality has been implmented as the smallest bounded rectangle and may over paste the area");
+        Logger.debug("Pad generated width is {} height {} centered at x = {} y = {}",
+                pad.getWidth(), pad.getHeight(), boardPad.getLocation().getX(),
+                boardPad.getLocation().getY());
+        // Polygons are not named so just name it as "Polygon"
+        boardPad.setName(elementName + "-" + "Polygon ");
+        boardPad.setSide(tCreamLayer.equalsIgnoreCase(polygon.layer) ? Side.Top : Side.Bottom);
+        return boardPad;
+    }
+
+    private void addPad(BoardPad pad) {
+        pendingPads.add(pad);
+        if (pendingPads.size() >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        board.addPlacements(pendingPlacements);
+        pendingPlacements.clear();
+        board.addSolderPastePads(pendingPads);
+        pendingPads.clear();
+    }
+
+    /**
+     * Finds or creates the part for an element. The configuration notifies the GUI of new parts
+     * and packages, so when parsing in the background they are created on the event dispatch
+     * thread.
+     */
+    private Part part(String libraryId, String packageId, String value) throws Exception {
+        String partId = libraryId + "-" + packageId;
+        if (value.trim().length() > 0) {
+            partId += "-" + value;
+        }
+        Part part = parts.get(partId);
+        if (part == null) {
+            final String id = partId;
+            if (SwingUtilities.isEventDispatchThread()) {
+                part = createPart(id, libraryId + "-" + packageId);
+            }
+            else {
+                Part[] created = new Part[1];
+                SwingUtilities.invokeAndWait(
+                        () -> created[0] = createPart(id, libraryId + "-" + packageId));
+                part = created[0];
+            }
+            parts.put(partId, part);
+        }
+        return part;
+    }
+
+    private static Part createPart(String partId, String pkgId) {
+        Configuration cfg = Configuration.get();
+        Part part = cfg.getPart(partId);
+        Package pkg = cfg.getPackage(pkgId);
+        if (pkg == null) {
+            pkg = new Package(pkgId);
+            cfg.addPackage(pkg);
+            if (part != null) {
+                // we have to remove the part so we can re-add it with the correct package
+                cfg.removePart(part);
+                part = null;
+            }
+        }
+        if (part == null) {
+            part = new Part(partId);
+            part.setPackage(pkg);
+            // TODO part.setLibrary(libraryId);
+            cfg.addPart(part);
+        }
+        return part;
+    }
+
+    private static String key(String library, String pkg) {
+        return (library + "\n" + pkg).toLowerCase();
+    }
+
+    private static String attribute(XMLStreamReader reader, String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+    private static String attribute(XMLStreamReader reader, String name, String defaultValue) {
+        String value = reader.getAttributeValue(null, name);
+        return value == null ? defaultValue : value;
+    }
+
+    private static double number(XMLStreamReader reader, String name) {
+        return Double.parseDouble(attribute(reader, name));
+    }
+
+    /**
+     * Returns the angle of an EAGLE rotation such as R90, MR180 or SMR45.
+     */
+    static double rotation(String rot) {
+        int i = 0;
+        while (i < rot.length() && (Character.isLetter(rot.charAt(i)) || rot.charAt(i) == ' ')) {
+            i++;
+        }
+        return Double.parseDouble(rot.substring(i));
+    }
+
+    static class SmdPrimitive {
+        final String name;
+        final String layer;
+        final double x;
+        final double y;
+        final double dx;
+        final double dy;
+        final double roundness;
+        final double rotation;
+        final boolean cream;
+
+        SmdPrimitive(XMLStreamReader reader) {
+            name = attribute(reader, "name");
+            layer = attribute(reader, "layer");
+            x = number(reader, "x");
+            y = number(reader, "y");
+            dx = number(reader, "dx");
+            dy = number(reader, "dy");
+            roundness = Double.parseDouble(attribute(reader, "roundness", "0"));
+            rotation = rotation(attribute(reader, "rot", "R0"));
+            // if cream="no" then we do not paste this pad
+            cream = !attribute(reader, "cream", "yes").equalsIgnoreCase("no");
+        }
+    }
+
+    static class PolygonPrimitive {
+        final String layer;
+        // The bounds start at the package origin, as they always have.
+        double minX;
+        double maxX;
+        double minY;
+        double maxY;
+
+        PolygonPrimitive(String layer) {
+            this.layer = layer;
+        }
+
+        void add(double x, double y) {
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.openpnp.gui.importer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.function.IntConsumer;
+
+/**
+ * Wraps the stream an importer parses so that it can report how far through the file it is and
+ * be cancelled. Progress is reported as a percentage of the given length, only when it changes,
+ * and a read on an interrupted thread throws InterruptedIOException.
+ */
+public class ImportProgressInputStream extends FilterInputStream {
+    private final long length;
+    private final IntConsumer progress;
+    private long position;
+    private int percent = -1;
+
+    public ImportProgressInputStream(InputStream in, long length, IntConsumer progress) {
+        super(in);
+        this.length = length;
+        this.progress = progress;
+        update(0);
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkInterrupted();
+        int ch = super.read();
+        if (ch != -1) {
+            update(1);
+        }
+        return ch;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkInterrupted();
+        int count = super.read(b, off, len);
+        if (count > 0) {
+            update(count);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        checkInterrupted();
+        long count = super.skip(n);
+        update(count);
+        return count;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Import cancelled.");
+        }
+    }
+
+    private void update(long count) {
+        position += count;
+        if (progress == null || length <= 0) {
+            return;
+        }
+        int percent = (int) Math.min(100, position * 100 / length);
+        if (percent != this.percent) {
+            this.percent = percent;
+            progress.accept(percent);
+        }
+    }
+}
@@ -45,8 +45,10 @@ public class SolderPasteGerberImporter implements BoardImporter {
 
     @Override
     public Board importBoard(Frame parent) throws Exception {
+        board = null;
         SolderPasteGerberImporterDlg dlg = new SolderPasteGerberImporterDlg(this, parent);
         dlg.setVisible(true);
+        dlg.stopImport();
         return board;
     }
 }
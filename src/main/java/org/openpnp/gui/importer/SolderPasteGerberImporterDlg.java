@@ -7,6 +7,11 @@ import java.awt.event.ActionEvent;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -17,10 +22,12 @@ import javax.swing.JComponent;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JRootPane;
 import javax.swing.JSeparator;
 import javax.swing.JTextField;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import javax.swing.border.TitledBorder;
 
 import org.openpnp.gui.importer.rs274x.Rs274xParser;
@@ -42,6 +49,8 @@ class SolderPasteGerberImporterDlg extends JDialog {
     private final Action browseBottomFileAction = new SwingAction_1();
     private final Action importAction = new SwingAction_2();
     private final Action cancelAction = new SwingAction_3();
+    private JProgressBar progressBar;
+    private Thread thread;
 
     public SolderPasteGerberImporterDlg(SolderPasteGerberImporter solderPasteGerberImporter,
             Frame parent) {
@@ -82,6 +91,10 @@ class SolderPasteGerberImporterDlg extends JDialog {
         btnBrowse_1.setAction(browseBottomFileAction);
         panel.add(btnBrowse_1, "6, 4");
 
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        getContentPane().add(progressBar);
+
         JSeparator separator = new JSeparator();
         getContentPane().add(separator);
 
@@ -161,40 +174,90 @@ class SolderPasteGerberImporterDlg extends JDialog {
         }
 
         public void actionPerformed(ActionEvent e) {
-            SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.topFile =
-                    new File(textFieldTopFile.getText());
-            SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.bottomFile =
-                    new File(textFieldBottomFile.getText());
-            SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.board = new Board();
-            List<BoardPad> pads = new ArrayList<>();
-            try {
-                if (SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.topFile.exists()) {
-                    List<BoardPad> topPads = new Rs274xParser().parseSolderPastePads(
-                            SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.topFile);
-                    for (BoardPad pad : topPads) {
-                        pad.setSide(Side.Top);
+            File topFile = new File(textFieldTopFile.getText());
+            File bottomFile = new File(textFieldBottomFile.getText());
+            solderPasteGerberImporter.topFile = topFile;
+            solderPasteGerberImporter.bottomFile = bottomFile;
+
+            // Parse the layers in the background and in parallel with each other, keeping the
+            // dialog responsive. Cancel interrupts the parse.
+            importAction.setEnabled(false);
+            progressBar.setValue(0);
+            thread = new Thread(() -> {
+                Thread worker = Thread.currentThread();
+                try {
+                    Board board = new Board();
+                    board.addSolderPastePads(parse(topFile, bottomFile));
+                    SwingUtilities.invokeLater(() -> {
+                        if (thread != worker) {
+                            return;
+                        }
+                        thread = null;
+                        solderPasteGerberImporter.board = board;
+                        setVisible(false);
+                    });
+                }
+                catch (Exception e1) {
+                    SwingUtilities.invokeLater(() -> {
+                        if (thread != worker) {
+                            return;
+                        }
+                        thread = null;
+                        importAction.setEnabled(true);
+                        progressBar.setValue(0);
+                        MessageBoxes.errorBox(SolderPasteGerberImporterDlg.this, "Import Error",
+                                e1);
+                    });
+                }
+            }, "SolderPasteGerberImporter");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private List<BoardPad> parse(File topFile, File bottomFile) throws Exception {
+        File[] files = new File[] {topFile, bottomFile};
+        Side[] sides = new Side[] {Side.Top, Side.Bottom};
+        AtomicIntegerArray percents = new AtomicIntegerArray(files.length);
+        List<Future<List<BoardPad>>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(files.length);
+        try {
+            for (int i = 0; i < files.length; i++) {
+                if (!files[i].exists()) {
+                    percents.set(i, 100);
+                    continue;
+                }
+                final int index = i;
+                futures.add(executor.submit(() -> {
+                    List<BoardPad> pads =
+                            new Rs274xParser().parseSolderPastePads(files[index], percent -> {
+                                percents.set(index, percent);
+                                int total = (percents.get(0) + percents.get(1)) / files.length;
+                                SwingUtilities.invokeLater(() -> progressBar.setValue(total));
+                            });
+                    for (BoardPad pad : pads) {
+                        pad.setSide(sides[index]);
                     }
-                    pads.addAll(topPads);
+                    return pads;
+                }));
+            }
+            List<BoardPad> pads = new ArrayList<>();
+            for (Future<List<BoardPad>> future : futures) {
+                try {
+                    pads.addAll(future.get());
                 }
-                if (SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.bottomFile
-                        .exists()) {
-                    List<BoardPad> bottomPads = new Rs274xParser().parseSolderPastePads(
-                            SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.bottomFile);
-                    for (BoardPad pad : bottomPads) {
-                        pad.setSide(Side.Bottom);
+                catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
                     }
-                    pads.addAll(bottomPads);
+                    throw e;
                 }
             }
-            catch (Exception e1) {
-                MessageBoxes.errorBox(SolderPasteGerberImporterDlg.this, "Import Error", e1);
-                return;
-            }
-            for (BoardPad pad : pads) {
-                SolderPasteGerberImporterDlg.this.solderPasteGerberImporter.board
-                        .addSolderPastePad(pad);
-            }
-            setVisible(false);
+            return pads;
+        }
+        finally {
+            // Stops the other layer if one failed or the import was cancelled.
+            executor.shutdownNow();
         }
     }
 
@@ -205,7 +268,15 @@ class SolderPasteGerberImporterDlg extends JDialog {
         }
 
         public void actionPerformed(ActionEvent e) {
+            stopImport();
             setVisible(false);
         }
     }
+
+    void stopImport() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
 }
@@ -0,0 +1,135 @@
+package org.openpnp.gui.importer.rs274x;
+
+import java.io.Reader;
+
+/**
+ * Splits RS-274X input into the characters and numbers the parser consumes. Input is read a block
+ * at a time into a private buffer, line breaks are dropped as they are reached and integers are
+ * accumulated directly from the digits, so the parser does no per character stream calls or
+ * string building on the coordinate data that makes up most of a file.
+ */
+class Rs274xLexer {
+    private final Reader reader;
+    private final char[] buffer = new char[16 * 1024];
+    private int position;
+    private int limit;
+    private int lineNumber = 1;
+
+    Rs274xLexer(Reader reader) {
+        this.reader = reader;
+    }
+
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Read the next character in the stream, skipping any \r or \n that precede it.
+     */
+    int read() throws Exception {
+        int ch = peek();
+        position++;
+        return ch;
+    }
+
+    /**
+     * Peek at the next character in the stream, skipping any \r or \n that precede it.
+     */
+    int peek() throws Exception {
+        while (true) {
+            if (position == limit) {
+                fill();
+            }
+            char ch = buffer[position];
+            if (ch == '\n') {
+                lineNumber++;
+                position++;
+            }
+            else if (ch == '\r') {
+                position++;
+            }
+            else {
+                return ch;
+            }
+        }
+    }
+
+    /**
+     * Read an optionally signed integer.
+     */
+    int readInteger() throws Exception {
+        boolean negative = false;
+        int ch = peek();
+        if (ch == '-') {
+            negative = true;
+            position++;
+        }
+        else if (ch == '+') {
+            position++;
+        }
+        long value = 0;
+        int digits = 0;
+        while ((ch = peek()) >= '0' && ch <= '9') {
+            value = value * 10 + (ch - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw error("Integer out of range");
+            }
+            position++;
+            digits++;
+        }
+        if (digits == 0) {
+            throw error("Expected an integer");
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * Read an optionally signed decimal number.
+     */
+    double readDecimal() throws Exception {
+        boolean negative = false;
+        int ch = peek();
+        if (ch == '-') {
+            negative = true;
+            position++;
+        }
+        else if (ch == '+') {
+            position++;
+        }
+        StringBuilder sb = new StringBuilder();
+        while (((ch = peek()) >= '0' && ch <= '9') || ch == '.') {
+            sb.append((char) ch);
+            position++;
+        }
+        return (negative ? -1 : 1) * Double.parseDouble(sb.toString());
+    }
+
+    /**
+     * Read up to, but not including, the given character.
+     */
+    String readUntil(int ch) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = peek()) != ch) {
+            sb.append((char) c);
+            position++;
+        }
+        return sb.toString();
+    }
+
+    private void fill() throws Exception {
+        int count;
+        do {
+            count = reader.read(buffer, 0, buffer.length);
+        } while (count == 0);
+        if (count == -1) {
+            throw error("Unexpected end of stream");
+        }
+        position = 0;
+        limit = count;
+    }
+
+    Exception error(String s) {
+        return new Exception("ERROR: " + lineNumber + ": " + s);
+    }
+}
@@ -1,9 +1,11 @@
 package org.openpnp.gui.importer.rs274x;
 
 import java.awt.geom.Point2D;
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -11,7 +13,9 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntConsumer;
 
+import org.openpnp.gui.importer.ImportProgressInputStream;
 import org.openpnp.model.BoardPad;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
@@ -33,7 +37,16 @@ public class Rs274xParser {
         Linear, Clockwise, CounterClockwise
     }
 
-    private BufferedReader reader;
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private Rs274xLexer lexer;
 
     // Context
     private LengthUnit unit;
@@ -54,7 +67,6 @@ public class Rs274xParser {
     private Map<Integer, Integer> apertureUseCounts = new HashMap<>();
 
     private boolean stopped;
-    private int lineNumber;
     private ParseStatistics parseStatistics;
     private boolean regionStarted;
 
@@ -73,8 +85,25 @@ public class Rs274xParser {
      * @throws Exception
      */
     public List<BoardPad> parseSolderPastePads(File file) throws Exception {
+        return parseSolderPastePads(file, null);
+    }
+
+    /**
+     * Parse the given File for solder paste pads, reporting the percentage read to progress if it
+     * is not null. Interrupting the calling thread cancels the parse.
+     * 
+     * @see #parseSolderPastePads(Reader)
+     * @param file
+     * @param progress
+     * @return
+     * @throws Exception
+     */
+    public List<BoardPad> parseSolderPastePads(File file, IntConsumer progress) throws Exception {
         Logger.info("Parsing " + file);
-        return parseSolderPastePads(new FileReader(file));
+        try (Reader reader = new InputStreamReader(new ImportProgressInputStream(
+                new BufferedInputStream(new FileInputStream(file)), file.length(), progress))) {
+            return parseSolderPastePads(reader);
+        }
     }
 
     /**
@@ -95,13 +124,16 @@ public class Rs274xParser {
     public List<BoardPad> parseSolderPastePads(Reader reader) throws Exception {
         reset();
 
-        this.reader = new BufferedReader(reader);
+        this.lexer = new Rs274xLexer(reader);
 
         try {
             while (!stopped) {
                 readCommand();
             }
         }
+        catch (InterruptedIOException e) {
+            throw e;
+        }
         catch (Exception e) {
             parseStatistics.errored = true;
             error("Uncaught error: " + e.getMessage());
@@ -742,11 +774,7 @@ public class Rs274xParser {
     }
 
     private String readUntil(int ch) throws Exception {
-        StringBuffer sb = new StringBuffer();
-        while (peek() != ch) {
-            sb.append((char) read());
-        }
-        return sb.toString();
+        return lexer.readUntil(ch);
     }
 
     private String readString(int length) throws Exception {
@@ -758,39 +786,11 @@ public class Rs274xParser {
     }
 
     private double readDecimal() throws Exception {
-        boolean negative = false;
-        int ch = peek();
-        if (ch == '-') {
-            negative = true;
-            read();
-        }
-        else if (ch == '+') {
-            read();
-        }
-        StringBuffer sb = new StringBuffer();
-        String allowed = "0123456789.";
-        while (allowed.indexOf(peek()) != -1) {
-            sb.append((char) read());
-        }
-        return (negative ? -1 : 1) * Double.parseDouble(sb.toString());
+        return lexer.readDecimal();
     }
 
     private int readInteger() throws Exception {
-        boolean negative = false;
-        int ch = peek();
-        if (ch == '-') {
-            negative = true;
-            read();
-        }
-        else if (ch == '+') {
-            read();
-        }
-        StringBuffer sb = new StringBuffer();
-        String allowed = "0123456789";
-        while (allowed.indexOf(peek()) != -1) {
-            sb.append((char) read());
-        }
-        return (negative ? -1 : 1) * Integer.parseInt(sb.toString());
+        return lexer.readInteger();
     }
 
     private double readCoordinateValue() throws Exception {
@@ -807,6 +807,15 @@ public class Rs274xParser {
         // something that isn't an integer character, then pad it out and then
         // break up the components.
         int value = readInteger();
+        long absValue = Math.abs((long) value);
+        int length = coordinateFormatIntegerLength + coordinateFormatDecimalLength;
+        if (coordinateFormatDecimalLength > 1 && length < POWERS_OF_TEN.length
+                && absValue < POWERS_OF_TEN[length]) {
+            // The same value the string form below gives, the integer digits and all but the
+            // last decimal digit, without building the strings for every coordinate.
+            return (value < 0 ? -1 : 1) * ((absValue / 10)
+                    / (double) POWERS_OF_TEN[coordinateFormatDecimalLength - 1]);
+        }
         String sValue = Integer.toString(Math.abs(value));
         while (sValue.length() < coordinateFormatIntegerLength + coordinateFormatDecimalLength) {
             sValue = "0" + sValue;
@@ -824,12 +833,7 @@ public class Rs274xParser {
      * @throws Exception
      */
     private int read() throws Exception {
-        skipCrLf();
-        int ch = reader.read();
-        if (ch == -1) {
-            error("Unexpected end of stream");
-        }
-        return ch;
+        return lexer.read();
     }
 
     /**
@@ -839,45 +843,7 @@ public class Rs274xParser {
      * @throws Exception
      */
     private int peek() throws Exception {
-        skipCrLf();
-        return peekInternal();
-    }
-
-    /**
-     * Consume any number of \r or \n, stopping when another character is found.
-     * 
-     * @throws Exception
-     */
-    private void skipCrLf() throws Exception {
-        while (true) {
-            int ch = peekInternal();
-            if (ch == '\n') {
-                lineNumber++;
-                reader.read();
-            }
-            else if (ch == '\r') {
-                reader.read();
-            }
-            else {
-                return;
-            }
-        }
-    }
-
-    /**
-     * Return the next character in the reader without consuming it.
-     * 
-     * @return
-     * @throws Exception
-     */
-    private int peekInternal() throws Exception {
-        reader.mark(1);
-        int ch = reader.read();
-        if (ch == -1) {
-            error("Unexpected end of stream");
-        }
-        reader.reset();
-        return ch;
+        return lexer.peek();
     }
 
     private void reset() {
@@ -898,7 +864,7 @@ public class Rs274xParser {
         coordinateFormatTrailingZeroOmission = false;
         coordinateFormatIncremental = false;
         apertures = new HashMap<>();
-        lineNumber = 1;
+        lexer = null;
         pads = new ArrayList<>();
         regionStarted = false;
         apertureUseCounts = new HashMap<>();
@@ -907,23 +873,27 @@ public class Rs274xParser {
     }
 
     private void warn(String s) {
-        Logger.warn("WARNING: " + lineNumber + ": " + s);
+        Logger.warn("WARNING: " + getLineNumber() + ": " + s);
     }
 
     private void warn(String fmt, Object o1) {
-        Logger.warn("WARNING: " + lineNumber + ": " + fmt, o1);
+        Logger.warn("WARNING: " + getLineNumber() + ": " + fmt, o1);
     }
 
     private void warn(String fmt, Object o1, Object o2) {
-        Logger.warn("WARNING: " + lineNumber + ": " + fmt, o1, o2);
+        Logger.warn("WARNING: " + getLineNumber() + ": " + fmt, o1, o2);
     }
 
     private void warn(String fmt, Object[] o) {
-        Logger.warn("WARNING: " + lineNumber + ": " + fmt, o);
+        Logger.warn("WARNING: " + getLineNumber() + ": " + fmt, o);
     }
 
     private void error(String s) throws Exception {
-        throw new Exception("ERROR: " + lineNumber + ": " + s);
+        throw new Exception("ERROR: " + getLineNumber() + ": " + s);
+    }
+
+    private int getLineNumber() {
+        return lexer == null ? 0 : lexer.getLineNumber();
     }
 
     public static void main(String[] args) throws Exception {
@@ -0,0 +1,57 @@
+package org.openpnp.gui.support;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Collects items from any thread and hands them to the update on the EDT, at most once per
+ * interval. The first item of a burst starts the timer and every item added before it fires is
+ * handled by the same update, each item once.
+ */
+public class CoalescingUpdater<T> {
+    private final Set<T> pending = new LinkedHashSet<>();
+    private final Consumer<List<T>> update;
+    private final Timer timer;
+
+    public CoalescingUpdater(int intervalMs, Consumer<List<T>> update) {
+        this.update = update;
+        timer = new Timer(intervalMs, e -> flush());
+        timer.setRepeats(false);
+    }
+
+    /**
+     * Add an item for the next update. May be called from any thread.
+     */
+    public void add(T item) {
+        boolean first;
+        synchronized (pending) {
+            first = pending.isEmpty();
+            pending.add(item);
+        }
+        if (first) {
+            // The timer is only ever started and stopped on the EDT.
+            SwingUtilities.invokeLater(() -> {
+                if (!timer.isRunning()) {
+                    timer.start();
+                }
+            });
+        }
+    }
+
+    private void flush() {
+        List<T> items;
+        synchronized (pending) {
+            items = new ArrayList<>(pending);
+            pending.clear();
+        }
+        if (!items.isEmpty()) {
+            update.accept(items);
+        }
+    }
+}
@@ -19,6 +19,11 @@
 
 package org.openpnp.gui.tablemodel;
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
 
 import org.openpnp.gui.JobPlacementsPanel;
@@ -58,6 +63,12 @@ public class PlacementsTableModel extends AbstractTableModel {
     private Board board;
     private BoardLocation boardLocation;
     private JobPlacementsPanel jobPlacementsPanel;
+    
+    /**
+     * Maps each Placement to its row so that single placements can be updated without firing
+     * a full data change. Rebuilt lazily whenever the rows change structurally.
+     */
+    private Map<Placement, Integer> rowIndexes;
 
     public PlacementsTableModel(Configuration configuration) {
         this.configuration = configuration;
@@ -82,6 +93,51 @@ public class PlacementsTableModel extends AbstractTableModel {
         return board.getPlacements().get(index);
     }
 
+    /**
+     * Get the row index of the given Placement, or -1 if it is not part of the current board.
+     * 
+     * @param placement
+     * @return
+     */
+    public int getRowIndex(Placement placement) {
+        if (board == null) {
+            return -1;
+        }
+        if (rowIndexes == null) {
+            List<Placement> placements = board.getPlacements();
+            rowIndexes = new IdentityHashMap<>(placements.size());
+            for (int i = 0; i < placements.size(); i++) {
+                rowIndexes.put(placements.get(i), i);
+            }
+        }
+        Integer index = rowIndexes.get(placement);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Fire a row update for a single Placement. Does nothing if the Placement is not shown by
+     * this model.
+     * 
+     * @param placement
+     */
+    public void firePlacementUpdated(Placement placement) {
+        int index = getRowIndex(placement);
+        if (index != -1) {
+            fireTableRowsUpdated(index, index);
+        }
+    }
+
+    @Override
+    public void fireTableChanged(TableModelEvent e) {
+        // Anything other than a bounded row update may have added, removed or reordered
+        // placements, so the row index cache is no longer trustworthy.
+        if (e.getType() != TableModelEvent.UPDATE || e.getFirstRow() == TableModelEvent.HEADER_ROW
+                || e.getLastRow() == Integer.MAX_VALUE) {
+            rowIndexes = null;
+        }
+        super.fireTableChanged(e);
+    }
+
     @Override
     public String getColumnName(int column) {
         return columnNames[column];
@@ -214,11 +270,9 @@ public class PlacementsTableModel extends AbstractTableModel {
             case 7:
                 return placement.getType();
             case 8:
-                // TODO STOPSHIP: Both of these are huge performance hogs and do not belong
-                // in the render process. At the least we should cache this information but it
-                // would be better if the information was updated out of band by a listener.
-            	jobPlacementsPanel.updateActivePlacements();
-            	return boardLocation.getPlaced(placement.getId());
+                // Active placement counts are updated out of band by JobPlacementsPanel when
+                // placed status changes, not during rendering.
+                return boardLocation.getPlaced(placement.getId());
             case 9:
                 return getPlacementStatus(placement);
             case 10:
@@ -39,10 +39,14 @@ import org.openpnp.gui.MainFrame;
 import org.openpnp.gui.components.CameraView;
 import org.openpnp.gui.components.ComponentDecorators;
 import org.openpnp.gui.support.AbstractConfigurationWizard;
+import org.openpnp.gui.support.DoubleConverter;
+import org.openpnp.gui.support.IntegerConverter;
 import org.openpnp.gui.support.LengthConverter;
 import org.openpnp.gui.support.LongConverter;
 import org.openpnp.gui.support.MutableLocationProxy;
 import org.openpnp.spi.Camera;
+import org.openpnp.spi.base.AbstractCamera;
+import org.openpnp.spi.base.AbstractCamera.SettleTimeoutAction;
 
 import com.jgoodies.forms.layout.ColumnSpec;
 import com.jgoodies.forms.layout.FormLayout;
@@ -155,14 +159,52 @@ public class CameraConfigurationWizard extends AbstractConfigurationWizard {
         panelVision.setLayout(new FormLayout(
                 new ColumnSpec[] {FormSpecs.RELATED_GAP_COLSPEC, FormSpecs.DEFAULT_COLSPEC,
                         FormSpecs.RELATED_GAP_COLSPEC, FormSpecs.DEFAULT_COLSPEC,},
-                new RowSpec[] {FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,}));
+                new RowSpec[] {FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
+                        FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
+                        FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
+                        FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,
+                        FormSpecs.RELATED_GAP_ROWSPEC, FormSpecs.DEFAULT_ROWSPEC,}));
 
         lblSettleTimems = new JLabel("Settle Time (ms)");
+        lblSettleTimems.setToolTipText(
+                "Positive values wait a fixed time. Negative values enable auto settle, using the absolute value as the pixel difference threshold.");
         panelVision.add(lblSettleTimems, "2, 2, right, default");
 
         textFieldSettleTime = new JTextField();
         panelVision.add(textFieldSettleTime, "4, 2, fill, default");
         textFieldSettleTime.setColumns(10);
+
+        lblSettleTimeout = new JLabel("Auto Settle Timeout (ms)");
+        lblSettleTimeout.setToolTipText("Longest time auto settle will wait. 0 waits forever.");
+        panelVision.add(lblSettleTimeout, "2, 4, right, default");
+
+        textFieldSettleTimeout = new JTextField();
+        panelVision.add(textFieldSettleTimeout, "4, 4, fill, default");
+        textFieldSettleTimeout.setColumns(10);
+
+        lblSettleTimeoutAction = new JLabel("On Timeout");
+        panelVision.add(lblSettleTimeoutAction, "2, 6, right, default");
+
+        settleTimeoutActionCb = new JComboBox(SettleTimeoutAction.values());
+        panelVision.add(settleTimeoutActionCb, "4, 6, fill, default");
+
+        lblSettleRoi = new JLabel("Auto Settle ROI Fraction");
+        lblSettleRoi.setToolTipText(
+                "Fraction of the image, centered, that is compared. 1 compares the whole image.");
+        panelVision.add(lblSettleRoi, "2, 8, right, default");
+
+        textFieldSettleRoi = new JTextField();
+        panelVision.add(textFieldSettleRoi, "4, 8, fill, default");
+        textFieldSettleRoi.setColumns(10);
+
+        lblSettleDownscale = new JLabel("Auto Settle Downscale");
+        lblSettleDownscale.setToolTipText(
+                "Factor the compared region is shrunk by before comparing. 1 compares at full resolution.");
+        panelVision.add(lblSettleDownscale, "2, 10, right, default");
+
+        textFieldSettleDownscale = new JTextField();
+        panelVision.add(textFieldSettleDownscale, "4, 10, fill, default");
+        textFieldSettleDownscale.setColumns(10);
     }
 
     @Override
@@ -179,6 +221,16 @@ public class CameraConfigurationWizard extends AbstractConfigurationWizard {
         addWrappedBinding(unitsPerPixel, "lengthY", textFieldUppY, "text", lengthConverter);
 
         addWrappedBinding(camera, "settleTimeMs", textFieldSettleTime, "text", longConverter);
+        if (camera instanceof AbstractCamera) {
+            addWrappedBinding(camera, "settleTimeoutMs", textFieldSettleTimeout, "text",
+                    longConverter);
+            addWrappedBinding(camera, "settleTimeoutAction", settleTimeoutActionCb,
+                    "selectedItem");
+            addWrappedBinding(camera, "settleRoiFraction", textFieldSettleRoi, "text",
+                    new DoubleConverter("%.2f"));
+            addWrappedBinding(camera, "settleDownscale", textFieldSettleDownscale, "text",
+                    new IntegerConverter());
+        }
 
         ComponentDecorators.decorateWithAutoSelect(textFieldUppX);
         ComponentDecorators.decorateWithAutoSelect(textFieldUppY);
@@ -189,6 +241,9 @@ public class CameraConfigurationWizard extends AbstractConfigurationWizard {
         ComponentDecorators.decorateWithAutoSelect(textFieldWidth);
         ComponentDecorators.decorateWithAutoSelect(textFieldHeight);
         ComponentDecorators.decorateWithAutoSelect(textFieldSettleTime);
+        ComponentDecorators.decorateWithAutoSelect(textFieldSettleTimeout);
+        ComponentDecorators.decorateWithAutoSelect(textFieldSettleRoi);
+        ComponentDecorators.decorateWithAutoSelect(textFieldSettleDownscale);
     }
 
     private Action measureAction = new AbstractAction("Measure") {
@@ -237,6 +292,14 @@ public class CameraConfigurationWizard extends AbstractConfigurationWizard {
     private JPanel panelVision;
     private JLabel lblSettleTimems;
     private JTextField textFieldSettleTime;
+    private JLabel lblSettleTimeout;
+    private JTextField textFieldSettleTimeout;
+    private JLabel lblSettleTimeoutAction;
+    private JComboBox settleTimeoutActionCb;
+    private JLabel lblSettleRoi;
+    private JTextField textFieldSettleRoi;
+    private JLabel lblSettleDownscale;
+    private JTextField textFieldSettleDownscale;
     private JPanel panel;
     private JLabel lblName;
     private JLabel lblLooking;
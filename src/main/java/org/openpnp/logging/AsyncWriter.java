@@ -0,0 +1,184 @@
+package org.openpnp.logging;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pmw.tinylog.Configuration;
+import org.pmw.tinylog.Level;
+import org.pmw.tinylog.LogEntry;
+import org.pmw.tinylog.Logger;
+import org.pmw.tinylog.writers.LogEntryValue;
+import org.pmw.tinylog.writers.PropertiesSupport;
+import org.pmw.tinylog.writers.Writer;
+
+/**
+ * Hands log entries to a background thread which writes them to the wrapped writers, so that
+ * code logging on the machine thread doesn't wait for the disk or the console.
+ *
+ * Entries are queued in a bounded buffer. When the buffer is full DEBUG and TRACE entries are
+ * dropped and counted, while INFO and above wait for room so that nothing important is lost. The
+ * number of dropped entries is logged as a warning once the writer catches up.
+ *
+ * Note that tinylog still renders the entry on the thread that logs it; only the writing is moved
+ * off that thread. Use LogSubsystem to keep a subsystem's entries from being rendered at all.
+ */
+@PropertiesSupport(name = "async", properties = {})
+public final class AsyncWriter implements Writer {
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final int BATCH_SIZE = 256;
+
+    private final Writer[] writers;
+    private final ArrayBlockingQueue<LogEntry> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final PrintStream stderr = System.err;
+
+    private Thread thread;
+    private volatile boolean closed;
+
+    public AsyncWriter(Writer... writers) {
+        this(DEFAULT_CAPACITY, writers);
+    }
+
+    public AsyncWriter(int capacity, Writer... writers) {
+        this.writers = writers;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Returns the number of entries dropped since the last report.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public Set<LogEntryValue> getRequiredLogEntryValues() {
+        Set<LogEntryValue> values = EnumSet.of(LogEntryValue.LEVEL);
+        for (Writer writer : writers) {
+            values.addAll(writer.getRequiredLogEntryValues());
+        }
+        return values;
+    }
+
+    @Override
+    public synchronized void init(final Configuration configuration) throws Exception {
+        // tinylog calls init again for writers that carry over into a new configuration, but the
+        // wrapped writers and the thread only need starting once.
+        if (thread != null) {
+            return;
+        }
+        for (Writer writer : writers) {
+            writer.init(configuration);
+        }
+        thread = new Thread(this::run, "AsyncWriter");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+    }
+
+    @Override
+    public void write(final LogEntry logEntry) throws Exception {
+        if (closed) {
+            return;
+        }
+        if (queue.offer(logEntry)) {
+            return;
+        }
+        // The writer thread must never wait on its own queue.
+        if (logEntry.getLevel().compareTo(Level.INFO) < 0 || Thread.currentThread() == thread) {
+            dropped.incrementAndGet();
+            return;
+        }
+        queue.put(logEntry);
+    }
+
+    @Override
+    public void flush() {
+        // The writer thread flushes whenever it has emptied the queue.
+    }
+
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            thread = this.thread;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(3000);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<LogEntry> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        writeBatch(batch);
+        flushWriters();
+        for (Writer writer : writers) {
+            try {
+                writer.close();
+            }
+            catch (Exception e) {
+                e.printStackTrace(stderr);
+            }
+        }
+    }
+
+    private void run() {
+        List<LogEntry> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (!closed) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                writeBatch(batch);
+                batch.clear();
+                if (queue.isEmpty()) {
+                    flushWriters();
+                    long count = dropped.getAndSet(0);
+                    if (count > 0) {
+                        Logger.warn("{} DEBUG and TRACE log entries were dropped because the log writer fell behind.", count);
+                    }
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            // closed, the remaining entries are written by close()
+        }
+    }
+
+    private void writeBatch(List<LogEntry> batch) {
+        for (LogEntry logEntry : batch) {
+            for (Writer writer : writers) {
+                try {
+                    writer.write(logEntry);
+                }
+                catch (Exception e) {
+                    e.printStackTrace(stderr);
+                }
+            }
+        }
+    }
+
+    private void flushWriters() {
+        for (Writer writer : writers) {
+            try {
+                writer.flush();
+            }
+            catch (Exception e) {
+                e.printStackTrace(stderr);
+            }
+        }
+    }
+}
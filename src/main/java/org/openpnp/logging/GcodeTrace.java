@@ -0,0 +1,279 @@
+package org.openpnp.logging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pmw.tinylog.Logger;
+
+/**
+ * Records the lines sent to and received from a controller in a compact binary file, for offline
+ * analysis of G-code traffic that is too fast to follow in the text log at TRACE level. Lines are
+ * queued to a background thread which writes them through a buffered stream, so recording costs
+ * the sending thread little more than a timestamp. If the queue fills up lines are dropped and a
+ * record with the number dropped is written in their place.
+ *
+ * The file, written with DataOutputStream, is a header followed by records:
+ *
+ * <pre>
+ * header: "OPGT" (4 bytes), version (byte), start time (long, epoch milliseconds)
+ * record: direction (byte), time since start (long, nanoseconds), then
+ *         for Sent and Received, the line (writeUTF), or
+ *         for Dropped, the number of lines dropped (long)
+ * </pre>
+ *
+ * A trace can be decoded with read(), or printed with:
+ * java -cp openpnp.jar org.openpnp.logging.GcodeTrace trace.bin
+ */
+public class GcodeTrace implements Closeable {
+    public static final int DEFAULT_CAPACITY = 16384;
+
+    private static final byte[] MAGIC = {'O', 'P', 'G', 'T'};
+    private static final int VERSION = 1;
+
+    public enum Direction {
+        Sent,
+        Received,
+        Dropped
+    }
+
+    public static class Record {
+        private final Direction direction;
+        private final long nanos;
+        private final String line;
+        private final long dropped;
+
+        public Record(Direction direction, long nanos, String line, long dropped) {
+            this.direction = direction;
+            this.nanos = nanos;
+            this.line = line;
+            this.dropped = dropped;
+        }
+
+        public Direction getDirection() {
+            return direction;
+        }
+
+        /**
+         * Returns the time of the record in nanoseconds since the trace was started.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Returns the line sent or received, or null for a Dropped record.
+         */
+        public String getLine() {
+            return line;
+        }
+
+        /**
+         * Returns the number of lines dropped for a Dropped record, otherwise 0.
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        @Override
+        public String toString() {
+            switch (direction) {
+                case Sent:
+                    return String.format("%12.3f >> %s", nanos / 1e6, line);
+                case Received:
+                    return String.format("%12.3f << %s", nanos / 1e6, line);
+                default:
+                    return String.format("%12.3f -- %d lines dropped", nanos / 1e6, dropped);
+            }
+        }
+    }
+
+    private final File file;
+    private final DataOutputStream out;
+    private final long startNanos = System.nanoTime();
+    private final ArrayBlockingQueue<Record> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    public GcodeTrace(File file) throws IOException {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    public GcodeTrace(File file, int capacity) throws IOException {
+        this.file = file;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(System.currentTimeMillis());
+        thread = new Thread(this::run, "GcodeTrace " + file.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void sent(String line) {
+        record(Direction.Sent, line);
+    }
+
+    public void received(String line) {
+        record(Direction.Received, line);
+    }
+
+    private void record(Direction direction, String line) {
+        if (closed) {
+            return;
+        }
+        if (!queue.offer(new Record(direction, System.nanoTime() - startNanos, line, 0))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Write out everything recorded so far and close the file.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        thread.interrupt();
+        try {
+            thread.join(3000);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                Record record;
+                try {
+                    record = queue.take();
+                }
+                catch (InterruptedException e) {
+                    break;
+                }
+                write(record);
+                if (queue.isEmpty()) {
+                    writeDropped();
+                    out.flush();
+                }
+            }
+            Record record;
+            while ((record = queue.poll()) != null) {
+                write(record);
+            }
+            writeDropped();
+        }
+        catch (IOException e) {
+            Logger.warn("G-code trace {} failed: {}", file, e.getMessage());
+        }
+        finally {
+            try {
+                out.close();
+            }
+            catch (IOException e) {
+                Logger.warn("G-code trace {} failed: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private void writeDropped() throws IOException {
+        long count = dropped.getAndSet(0);
+        if (count > 0) {
+            write(new Record(Direction.Dropped, System.nanoTime() - startNanos, null, count));
+        }
+    }
+
+    private void write(Record record) throws IOException {
+        out.writeByte(record.direction.ordinal());
+        out.writeLong(record.nanos);
+        if (record.direction == Direction.Dropped) {
+            out.writeLong(record.dropped);
+        }
+        else {
+            out.writeUTF(record.line);
+        }
+    }
+
+    /**
+     * Decode a trace. A trace cut short, for instance by a crash, is read up to its last complete
+     * record.
+     *
+     * @param in
+     * @return
+     * @throws IOException if the stream is not a G-code trace.
+     */
+    public static List<Record> read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        byte[] magic = new byte[MAGIC.length];
+        data.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("Not a G-code trace.");
+            }
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported G-code trace version " + version + ".");
+        }
+        data.readLong();
+        Direction[] directions = Direction.values();
+        List<Record> records = new ArrayList<>();
+        try {
+            while (true) {
+                int type = data.read();
+                if (type == -1) {
+                    break;
+                }
+                if (type >= directions.length) {
+                    throw new IOException("Invalid G-code trace record type " + type + ".");
+                }
+                Direction direction = directions[type];
+                long nanos = data.readLong();
+                if (direction == Direction.Dropped) {
+                    records.add(new Record(direction, nanos, null, data.readLong()));
+                }
+                else {
+                    records.add(new Record(direction, nanos, data.readUTF(), 0));
+                }
+            }
+        }
+        catch (EOFException e) {
+            // truncated trace, keep what was read
+        }
+        return records;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: GcodeTrace <trace file>");
+            System.exit(1);
+        }
+        try (InputStream in = new FileInputStream(args[0])) {
+            for (Record record : read(in)) {
+                System.out.println(record);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.openpnp.logging;
+
+import java.util.prefs.Preferences;
+
+import org.pmw.tinylog.Configurator;
+import org.pmw.tinylog.Level;
+
+/**
+ * Groups of packages whose log level can be set apart from the global level, so that for
+ * instance driver traffic can be logged at TRACE while the rest of the application stays at
+ * INFO, or the vision pipeline can be quieted during a job. Entries below a subsystem's level
+ * are discarded before they are rendered.
+ *
+ * The levels are stored in the user preferences. A null level means the subsystem follows the
+ * global level.
+ *
+ * Note that while any subsystem is set more verbose than the global level, tinylog has to look
+ * up the calling class of every entry at that level to decide whether to keep it.
+ */
+public enum LogSubsystem {
+    Driver(
+            "org.openpnp.machine.reference.driver",
+            "org.openpnp.machine.neoden4",
+            "org.openpnp.machine.openbuilds"),
+    Vision(
+            "org.openpnp.vision",
+            "org.openpnp.machine.reference.vision"),
+    Camera(
+            "org.openpnp.machine.reference.camera"),
+    Feeder(
+            "org.openpnp.machine.reference.feeder");
+
+    private static final String PREF_LOG_LEVEL = "LogSubsystem.%s.logLevel";
+
+    private final String[] packages;
+
+    private LogSubsystem(String... packages) {
+        this.packages = packages;
+    }
+
+    public String[] getPackages() {
+        return packages.clone();
+    }
+
+    /**
+     * Returns the stored level for this subsystem, or null if it follows the global level.
+     */
+    public Level getLevel() {
+        String value = getPreferences().get(String.format(PREF_LOG_LEVEL, name()), null);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Level.valueOf(value);
+        }
+        catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Store and activate the level for this subsystem. Pass null to have it follow the global
+     * level again.
+     */
+    public void setLevel(Level level) {
+        String key = String.format(PREF_LOG_LEVEL, name());
+        if (level == null) {
+            getPreferences().remove(key);
+        }
+        else {
+            getPreferences().put(key, level.toString());
+        }
+        apply(Configurator.currentConfig(), level).activate();
+    }
+
+    private Configurator apply(Configurator configurator, Level level) {
+        for (String packageName : packages) {
+            configurator.level(packageName, level);
+        }
+        return configurator;
+    }
+
+    /**
+     * Activate the stored levels of all subsystems.
+     */
+    public static void activateAll() {
+        Configurator configurator = Configurator.currentConfig();
+        for (LogSubsystem subsystem : values()) {
+            subsystem.apply(configurator, subsystem.getLevel());
+        }
+        configurator.activate();
+    }
+
+    private static Preferences getPreferences() {
+        return Preferences.userNodeForPackage(LogSubsystem.class);
+    }
+}
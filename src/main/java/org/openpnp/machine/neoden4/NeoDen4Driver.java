@@ -2,7 +2,6 @@ package org.openpnp.machine.neoden4;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.TimeoutException;
 
 import org.openpnp.gui.support.PropertySheetWizardAdapter;
 import org.openpnp.machine.reference.ReferenceActuator;
@@ -15,68 +14,15 @@ import org.openpnp.model.Configuration;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.model.Named;
+import org.openpnp.spi.MachineActivity;
 import org.openpnp.spi.Nozzle;
 import org.pmw.tinylog.Logger;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Root;
 
 @Root
-public class NeoDen4Driver extends AbstractReferenceDriver implements Named {
-    // So, turns out it's just CRC16-CCITT
-    // https://www.embeddedrelated.com/showthread/msp430/29689-1.php
-    static short checksumLookupTable[] = {0, (short) 0x1021, (short) 0x2042, (short) 0x3063, (short) 0x4084,
-            (short) 0x50A5, (short) 0x60C6, (short) 0x70E7, (short) 0x8108, (short) 0x9129,
-            (short) 0x0A14A, (short) 0x0B16B, (short) 0x0C18C, (short) 0x0D1AD, (short) 0x0E1CE,
-            (short) 0x0F1EF, (short) 0x1231, (short) 0x210, (short) 0x3273, (short) 0x2252,
-            (short) 0x52B5, (short) 0x4294, (short) 0x72F7, (short) 0x62D6, (short) 0x9339,
-            (short) 0x8318, (short) 0x0B37B, (short) 0x0A35A, (short) 0x0D3BD, (short) 0x0C39C,
-            (short) 0x0F3FF, (short) 0x0E3DE, (short) 0x2462, (short) 0x3443, (short) 0x420,
-            (short) 0x1401, (short) 0x64E6, (short) 0x74C7, (short) 0x44A4, (short) 0x5485,
-            (short) 0x0A56A, (short) 0x0B54B, (short) 0x8528, (short) 0x9509, (short) 0x0E5EE,
-            (short) 0x0F5CF, (short) 0x0C5AC, (short) 0x0D58D, (short) 0x3653, (short) 0x2672,
-            (short) 0x1611, (short) 0x630, (short) 0x76D7, (short) 0x66F6, (short) 0x5695,
-            (short) 0x46B4, (short) 0x0B75B, (short) 0x0A77A, (short) 0x9719, (short) 0x8738,
-            (short) 0x0F7DF, (short) 0x0E7FE, (short) 0x0D79D, (short) 0x0C7BC, (short) 0x48C4,
-            (short) 0x58E5, (short) 0x6886, (short) 0x78A7, (short) 0x840, (short) 0x1861,
-            (short) 0x2802, (short) 0x3823, (short) 0x0C9CC, (short) 0x0D9ED, (short) 0x0E98E,
-            (short) 0x0F9AF, (short) 0x8948, (short) 0x9969, (short) 0x0A90A, (short) 0x0B92B,
-            (short) 0x5AF5, (short) 0x4AD4, (short) 0x7AB7, (short) 0x6A96, (short) 0x1A71,
-            (short) 0x0A50, (short) 0x3A33, (short) 0x2A12, (short) 0x0DBFD, (short) 0x0CBDC,
-            (short) 0x0FBBF, (short) 0x0EB9E, (short) 0x9B79, (short) 0x8B58, (short) 0x0BB3B,
-            (short) 0x0AB1A, (short) 0x6CA6, (short) 0x7C87, (short) 0x4CE4, (short) 0x5CC5,
-            (short) 0x2C22, (short) 0x3C03, (short) 0x0C60, (short) 0x1C41, (short) 0x0EDAE,
-            (short) 0x0FD8F, (short) 0x0CDEC, (short) 0x0DDCD, (short) 0x0AD2A, (short) 0x0BD0B,
-            (short) 0x8D68, (short) 0x9D49, (short) 0x7E97, (short) 0x6EB6, (short) 0x5ED5,
-            (short) 0x4EF4, (short) 0x3E13, (short) 0x2E32, (short) 0x1E51, (short) 0x0E70,
-            (short) 0x0FF9F, (short) 0x0EFBE, (short) 0x0DFDD, (short) 0x0CFFC, (short) 0x0BF1B,
-            (short) 0x0AF3A, (short) 0x9F59, (short) 0x8F78, (short) 0x9188, (short) 0x81A9,
-            (short) 0x0B1CA, (short) 0x0A1EB, (short) 0x0D10C, (short) 0x0C12D, (short) 0x0F14E,
-            (short) 0x0E16F, (short) 0x1080, (short) 0x0A1, (short) 0x30C2, (short) 0x20E3,
-            (short) 0x5004, (short) 0x4025, (short) 0x7046, (short) 0x6067, (short) 0x83B9,
-            (short) 0x9398, (short) 0x0A3FB, (short) 0x0B3DA, (short) 0x0C33D, (short) 0x0D31C,
-            (short) 0x0E37F, (short) 0x0F35E, (short) 0x2B1, (short) 0x1290, (short) 0x22F3,
-            (short) 0x32D2, (short) 0x4235, (short) 0x5214, (short) 0x6277, (short) 0x7256,
-            (short) 0x0B5EA, (short) 0x0A5CB, (short) 0x95A8, (short) 0x8589, (short) 0x0F56E,
-            (short) 0x0E54F, (short) 0x0D52C, (short) 0x0C50D, (short) 0x34E2, (short) 0x24C3,
-            (short) 0x14A0, (short) 0x481, (short) 0x7466, (short) 0x6447, (short) 0x5424,
-            (short) 0x4405, (short) 0x0A7DB, (short) 0x0B7FA, (short) 0x8799, (short) 0x97B8,
-            (short) 0x0E75F, (short) 0x0F77E, (short) 0x0C71D, (short) 0x0D73C, (short) 0x26D3,
-            (short) 0x36F2, (short) 0x691, (short) 0x16B0, (short) 0x6657, (short) 0x7676,
-            (short) 0x4615, (short) 0x5634, (short) 0x0D94C, (short) 0x0C96D, (short) 0x0F90E,
-            (short) 0x0E92F, (short) 0x99C8, (short) 0x89E9, (short) 0x0B98A, (short) 0x0A9AB,
-            (short) 0x5844, (short) 0x4865, (short) 0x7806, (short) 0x6827, (short) 0x18C0,
-            (short) 0x8E1, (short) 0x3882, (short) 0x28A3, (short) 0x0CB7D, (short) 0x0DB5C,
-            (short) 0x0EB3F, (short) 0x0FB1E, (short) 0x8BF9, (short) 0x9BD8, (short) 0x0ABBB,
-            (short) 0x0BB9A, (short) 0x4A75, (short) 0x5A54, (short) 0x6A37, (short) 0x7A16,
-            (short) 0x0AF1, (short) 0x1AD0, (short) 0x2AB3, (short) 0x3A92, (short) 0x0FD2E,
-            (short) 0x0ED0F, (short) 0x0DD6C, (short) 0x0CD4D, (short) 0x0BDAA, (short) 0x0AD8B,
-            (short) 0x9DE8, (short) 0x8DC9, (short) 0x7C26, (short) 0x6C07, (short) 0x5C64,
-            (short) 0x4C45, (short) 0x3CA2, (short) 0x2C83, (short) 0x1CE0, (short) 0x0CC1,
-            (short) 0x0EF1F, (short) 0x0FF3E, (short) 0x0CF5D, (short) 0x0DF7C, (short) 0x0AF9B,
-            (short) 0x0BFBA, (short) 0x8FD9, (short) 0x9FF8, (short) 0x6E17, (short) 0x7E36,
-            (short) 0x4E55, (short) 0x5E74, (short) 0x2E93, (short) 0x3EB2, (short) 0x0ED1,
-            (short) 0x1EF0};
-
+public class NeoDen4Driver extends AbstractReferenceDriver
+        implements Named, NeoDen4Protocol.Settings {
     @Attribute(required = false)
     protected LengthUnit units = LengthUnit.Millimeters;
 
@@ -85,11 +31,24 @@ public class NeoDen4Driver extends AbstractReferenceDriver implements Named {
 
     @Attribute(required = false)
     protected int connectWaitTimeMilliseconds = 3000;
+
+    /**
+     * How long to wait for homing or a move to complete.
+     */
+    @Attribute(required = false)
+    protected int motionTimeoutMilliseconds = 60000;
+
+    /**
+     * How many times a read is retried when the controller's response fails its checksum.
+     */
+    @Attribute(required = false)
+    protected int maxRetries = 3;
     
     @Attribute(required = false)
     protected String name = "NeoDen4Driver";
 
     private boolean connected;
+    private NeoDen4Protocol protocol;
     private Set<Nozzle> pickedNozzles = new HashSet<>();
     
     double x = 0, y = 0;
@@ -251,6 +210,7 @@ public class NeoDen4Driver extends AbstractReferenceDriver implements Named {
         createMachineObjects();
         
         getCommunications().connect();
+        protocol = new NeoDen4Protocol(getCommunications(), this);
 
         connected = false;
 
@@ -275,79 +235,11 @@ public class NeoDen4Driver extends AbstractReferenceDriver implements Named {
         }
     }
 
-    int read() throws Exception {
-        return read(true);
-    }
-    
-    int read(boolean log) throws Exception {
-        while (true) {
-            try {
-                int d = getCommunications().read();
-                if (log) {
-                    Logger.trace(String.format("< %02x", d & 0xff));
-                }
-                return d;
-            }
-            catch (TimeoutException e) {
-                continue;
-            }
-        }
-    }
-    
-    void write(int d) throws Exception {
-        write(d, true);
-    }
-    
-    void write(int d, boolean log) throws Exception {
-        d = d & 0xff;
-        if (log) {
-            Logger.trace(String.format("> %02x", d));
-        }
-        getCommunications().write(d);
-    }
-    
-    void writeWithChecksum(byte[] b) throws Exception {
-        StringBuffer sb = new StringBuffer();
-        for (int i = 0; i < b.length; i++) {
-            sb.append(String.format("%02x", b[i] & 0xff));
-        }
-        sb.append(String.format("%02x", checksum(b) & 0xff));
-        Logger.trace("> " + sb.toString());
-        for (int i = 0; i < b.length; i++) {
-            write(b[i], false);
-        }
-        getCommunications().write(checksum(b) & 0xff);
-    }
-    
-    byte[] readWithChecksum(int length) throws Exception {
-        byte[] b = new byte[length];
-        for (int i = 0; i < length; i++) {
-            b[i] = (byte) (read(false) & 0xff);
-        }
-        int checksum = read(false);
-        // TODO STOPSHIP verify checksum
-        StringBuffer sb = new StringBuffer();
-        for (int i = 0; i < b.length; i++) {
-            sb.append(String.format("%02x", b[i] & 0xff));
-        }
-        sb.append(String.format("%02x", checksum & 0xff));
-        Logger.trace("< " + sb.toString());
-        return b;
-    }
-    
-    int expect(int expected) throws Exception {
-        int received = read();
-        if (received != expected) {
-            throw new Exception(String.format("Expected %02x but received %02x.", expected, received));
-        }
-        return received;
-    }
-    
-    int pollFor(int command, int response) throws Exception {
-        do {
-            write(command);
-        } while (read() != response);
-        return response;
+    /**
+     * Read the vacuum status of all four nozzles, one byte per nozzle.
+     */
+    private byte[] readVacuumStatus() throws Exception {
+        return protocol.read(new int[] {0x40, 0x00, 0x80}, new int[] {0x0c, 0x11, 0x19});
     }
 
     void putInt32(int value, byte[] buffer, int position) throws Exception {
@@ -362,42 +254,17 @@ public class NeoDen4Driver extends AbstractReferenceDriver implements Named {
         buffer[position + 1] = (byte) ((value >> 8) & 0xff);
     }
     
-    int checksum(byte[] b) {
-        short result;
-
-        if (b.length == 0) {
-            return 0;
-        }
-        result = 0;
-        for (int i = 0; i < b.length; i++) {
-            short result_l = (short) (result << 8);
-            short result_r = (short) (result >> 8);
-            short tmp = result_l;
-            tmp = (short) (checksumLookupTable[(b[i] ^ result_r) & 0xff] ^ result_l);
-            result = tmp;
-        }
-        return result;
-    }
-    
     @Override
     public void home(ReferenceHead head) throws Exception {
-        write(0x47);
-        expect(0x0b);
-        
-        write(0xc7);
-        expect(0x03);
-
         byte[] b = new byte[8];
         putInt32(0x01, b, 0);
         putInt32(0x00, b, 4);
-        writeWithChecksum(b);
-        
-        pollFor(0x07, 0x43);
+        protocol.send(0x47, 0x0b, 0x03, b, 0x07, 0x43);
         
         this.x = -437.;
         this.y = 437.;
         ReferenceMachine machine = ((ReferenceMachine) Configuration.get().getMachine());
-        machine.fireMachineHeadActivity(head);
+        machine.fireMachineHeadActivity(head, MachineActivity.Motion);
     }
 
     @Override
@@ -416,18 +283,10 @@ public class NeoDen4Driver extends AbstractReferenceDriver implements Named {
     }
     
     private void moveXy(double x, double y) throws Exception {
-      write(0x48);
-      expect(0x05);
-      
-      write(0xc8);
-      expect(0x0d);
-
       byte[] b = new byte[8];
       putInt32((int) (x * 100), b, 0);
       putInt32((int) (y * 100), b, 4);
-      writeWithChecksum(b);
-      
-      pollFor(0x08, 0x4d);
+      protocol.send(0x48, 0x05, 0x0d, b, 0x08, 0x4d);
     }
     
     private void moveZ(int nozzle, double z) throws Exception {
@@ -435,35 +294,19 @@ public class NeoDen4Driver extends AbstractReferenceDriver implements Named {
       
         z = -z;
         
-        write(0x42);
-        expect(0x0e);
-        
-        write(0xc2);
-        expect(0x06);
-
         byte[] b = new byte[8];
         putInt16((int) (z * 1000.), b, 0);
         b[2] = 0x32;
         b[3] = (byte) nozzle;
-        writeWithChecksum(b);
-        
-        pollFor(0x02, 0x46);
+        protocol.send(0x42, 0x0e, 0x06, b, 0x02, 0x46);
     }
     
     private void moveC(int nozzle, double c) throws Exception {
-        write(0x41);
-        expect(0x0d);
-        
-        write(0xc1);
-        expect(0x05);
-
         byte[] b = new byte[8];
         putInt16((int) (c * 10.), b, 0);
         b[2] = 0x32;
         b[3] = (byte) nozzle;
-        writeWithChecksum(b);
-        
-        pollFor(0x01, 0x45);
+        protocol.send(0x41, 0x0d, 0x05, b, 0x01, 0x45);
     }
 
     @Override
@@ -588,91 +431,43 @@ public class NeoDen4Driver extends AbstractReferenceDriver implements Named {
     public void actuate(ReferenceActuator actuator, double value) throws Exception {
         switch (actuator.getName()) {
             case "N1-Air": {
-                write(0x43);
-                expect(0x0f);
-                
-                write(0xc3);
-                expect(0x07);
-                
                 byte[] b = new byte[8];
                 b[0] = (byte) value;
                 b[1] = 1;
-                writeWithChecksum(b);
-                
-                pollFor(0x03,  0x47);
+                protocol.send(0x43, 0x0f, 0x07, b, 0x03, 0x47);
                 break;
             }
             case "N2-Air": {
-                write(0x43);
-                expect(0x0f);
-                
-                write(0xc3);
-                expect(0x07);
-                
                 byte[] b = new byte[8];
                 b[0] = (byte) value;
                 b[1] = 2;
-                writeWithChecksum(b);
-                
-                pollFor(0x03,  0x47);
+                protocol.send(0x43, 0x0f, 0x07, b, 0x03, 0x47);
                 break;
             }
             case "N3-Air": {
-                write(0x43);
-                expect(0x0f);
-                
-                write(0xc3);
-                expect(0x07);
-                
                 byte[] b = new byte[8];
                 b[0] = (byte) value;
                 b[1] = 3;
-                writeWithChecksum(b);
-                
-                pollFor(0x03,  0x47);
+                protocol.send(0x43, 0x0f, 0x07, b, 0x03, 0x47);
                 break;
             }
             case "N4-Air": {
-                write(0x43);
-                expect(0x0f);
-                
-                write(0xc3);
-                expect(0x07);
-                
                 byte[] b = new byte[8];
                 b[0] = (byte) value;
                 b[1] = 4;
-                writeWithChecksum(b);
-                
-                pollFor(0x03,  0x47);
+                protocol.send(0x43, 0x0f, 0x07, b, 0x03, 0x47);
                 break;
             }
             case "Lights-Down": {
-                write(0x44);
-                expect(0x08);
-                
-                write(0xc4);
-                expect(0x00);
-                
                 byte[] b = new byte[8];
                 b[0] = (byte) value;
-                writeWithChecksum(b);
-                
-                pollFor(0x04,  0x40);
+                protocol.send(0x44, 0x08, 0x00, b, 0x04, 0x40);
               break;
             }
             case "Lights-Up": {
-                write(0x47);
-                expect(0x0b);
-                
-                write(0xc7);
-                expect(0x03);
-                
                 byte[] b = new byte[8];
                 b[4] = (byte) value;
-                writeWithChecksum(b);
-                
-                pollFor(0x07,  0x43);
+                protocol.send(0x47, 0x0b, 0x03, b, 0x07, 0x43);
                 break;
             }
         }
@@ -682,55 +477,19 @@ public class NeoDen4Driver extends AbstractReferenceDriver implements Named {
     public String actuatorRead(ReferenceActuator actuator) throws Exception {
         switch (actuator.getName()) {
             case "N1-Air": {
-                write(0x40);
-                expect(0x0c);
-                
-                write(0x00);
-                expect(0x11);
-                
-                write(0x80);
-                expect(0x19);
-                
-                byte[] payload = readWithChecksum(8);
+                byte[] payload = readVacuumStatus();
                 return Integer.toString(payload[0]);
             }
             case "N2-Air": {
-                write(0x40);
-                expect(0x0c);
-                
-                write(0x00);
-                expect(0x11);
-                
-                write(0x80);
-                expect(0x19);
-                
-                byte[] payload = readWithChecksum(8);
+                byte[] payload = readVacuumStatus();
                 return Integer.toString(payload[1]);
             }
             case "N3-Air": {
-                write(0x40);
-                expect(0x0c);
-                
-                write(0x00);
-                expect(0x11);
-                
-                write(0x80);
-                expect(0x19);
-                
-                byte[] payload = readWithChecksum(8);
+                byte[] payload = readVacuumStatus();
                 return Integer.toString(payload[2]);
             }
             case "N4-Air": {
-                write(0x40);
-                expect(0x0c);
-                
-                write(0x00);
-                expect(0x11);
-                
-                write(0x80);
-                expect(0x19);
-                
-                byte[] payload = readWithChecksum(8);
+                byte[] payload = readVacuumStatus();
                 return Integer.toString(payload[3]);
             }
         }
@@ -772,6 +531,7 @@ public class NeoDen4Driver extends AbstractReferenceDriver implements Named {
         this.units = units;
     }
 
+    @Override
     public int getTimeoutMilliseconds() {
         return timeoutMilliseconds;
     }
@@ -787,4 +547,22 @@ public class NeoDen4Driver extends AbstractReferenceDriver implements Named {
     public void setConnectWaitTimeMilliseconds(int connectWaitTimeMilliseconds) {
         this.connectWaitTimeMilliseconds = connectWaitTimeMilliseconds;
     }
+
+    @Override
+    public int getMotionTimeoutMilliseconds() {
+        return motionTimeoutMilliseconds;
+    }
+
+    public void setMotionTimeoutMilliseconds(int motionTimeoutMilliseconds) {
+        this.motionTimeoutMilliseconds = motionTimeoutMilliseconds;
+    }
+
+    @Override
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
 }
@@ -0,0 +1,344 @@
+package org.openpnp.machine.neoden4;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+import org.openpnp.machine.reference.driver.ReferenceDriverCommunications;
+import org.pmw.tinylog.Logger;
+
+/**
+ * The framing of the NeoDen4 controller protocol. Every operation is a short exchange: a command
+ * byte that the controller acknowledges, the same command with the high bit set that is
+ * acknowledged again, an 8 byte payload followed by a checksum byte, and then polling with a
+ * status command until the controller reports that it is done. Reads replace the payload with an
+ * 8 byte response, also followed by a checksum byte.
+ *
+ * Packets are written to the port in a single call and read back in bulk, and every wait is
+ * bounded: reads give up after the timeout, polling backs off between attempts and gives up
+ * after the motion timeout, and responses that fail their checksum are retried a limited number
+ * of times. Before a retry, and after a response that timed out, whatever else the controller
+ * sent is discarded so that the next exchange starts in step with it.
+ */
+public class NeoDen4Protocol {
+    public static final int PAYLOAD_LENGTH = 8;
+
+    /**
+     * The longest the poll loop sleeps between attempts.
+     */
+    private static final long MAX_POLL_BACKOFF_MS = 20;
+
+    // So, turns out it's just CRC16-CCITT
+    // https://www.embeddedrelated.com/showthread/msp430/29689-1.php
+    static short checksumLookupTable[] = {0, (short) 0x1021, (short) 0x2042, (short) 0x3063, (short) 0x4084,
+            (short) 0x50A5, (short) 0x60C6, (short) 0x70E7, (short) 0x8108, (short) 0x9129,
+            (short) 0x0A14A, (short) 0x0B16B, (short) 0x0C18C, (short) 0x0D1AD, (short) 0x0E1CE,
+            (short) 0x0F1EF, (short) 0x1231, (short) 0x210, (short) 0x3273, (short) 0x2252,
+            (short) 0x52B5, (short) 0x4294, (short) 0x72F7, (short) 0x62D6, (short) 0x9339,
+            (short) 0x8318, (short) 0x0B37B, (short) 0x0A35A, (short) 0x0D3BD, (short) 0x0C39C,
+            (short) 0x0F3FF, (short) 0x0E3DE, (short) 0x2462, (short) 0x3443, (short) 0x420,
+            (short) 0x1401, (short) 0x64E6, (short) 0x74C7, (short) 0x44A4, (short) 0x5485,
+            (short) 0x0A56A, (short) 0x0B54B, (short) 0x8528, (short) 0x9509, (short) 0x0E5EE,
+            (short) 0x0F5CF, (short) 0x0C5AC, (short) 0x0D58D, (short) 0x3653, (short) 0x2672,
+            (short) 0x1611, (short) 0x630, (short) 0x76D7, (short) 0x66F6, (short) 0x5695,
+            (short) 0x46B4, (short) 0x0B75B, (short) 0x0A77A, (short) 0x9719, (short) 0x8738,
+            (short) 0x0F7DF, (short) 0x0E7FE, (short) 0x0D79D, (short) 0x0C7BC, (short) 0x48C4,
+            (short) 0x58E5, (short) 0x6886, (short) 0x78A7, (short) 0x840, (short) 0x1861,
+            (short) 0x2802, (short) 0x3823, (short) 0x0C9CC, (short) 0x0D9ED, (short) 0x0E98E,
+            (short) 0x0F9AF, (short) 0x8948, (short) 0x9969, (short) 0x0A90A, (short) 0x0B92B,
+            (short) 0x5AF5, (short) 0x4AD4, (short) 0x7AB7, (short) 0x6A96, (short) 0x1A71,
+            (short) 0x0A50, (short) 0x3A33, (short) 0x2A12, (short) 0x0DBFD, (short) 0x0CBDC,
+            (short) 0x0FBBF, (short) 0x0EB9E, (short) 0x9B79, (short) 0x8B58, (short) 0x0BB3B,
+            (short) 0x0AB1A, (short) 0x6CA6, (short) 0x7C87, (short) 0x4CE4, (short) 0x5CC5,
+            (short) 0x2C22, (short) 0x3C03, (short) 0x0C60, (short) 0x1C41, (short) 0x0EDAE,
+            (short) 0x0FD8F, (short) 0x0CDEC, (short) 0x0DDCD, (short) 0x0AD2A, (short) 0x0BD0B,
+            (short) 0x8D68, (short) 0x9D49, (short) 0x7E97, (short) 0x6EB6, (short) 0x5ED5,
+            (short) 0x4EF4, (short) 0x3E13, (short) 0x2E32, (short) 0x1E51, (short) 0x0E70,
+            (short) 0x0FF9F, (short) 0x0EFBE, (short) 0x0DFDD, (short) 0x0CFFC, (short) 0x0BF1B,
+            (short) 0x0AF3A, (short) 0x9F59, (short) 0x8F78, (short) 0x9188, (short) 0x81A9,
+            (short) 0x0B1CA, (short) 0x0A1EB, (short) 0x0D10C, (short) 0x0C12D, (short) 0x0F14E,
+            (short) 0x0E16F, (short) 0x1080, (short) 0x0A1, (short) 0x30C2, (short) 0x20E3,
+            (short) 0x5004, (short) 0x4025, (short) 0x7046, (short) 0x6067, (short) 0x83B9,
+            (short) 0x9398, (short) 0x0A3FB, (short) 0x0B3DA, (short) 0x0C33D, (short) 0x0D31C,
+            (short) 0x0E37F, (short) 0x0F35E, (short) 0x2B1, (short) 0x1290, (short) 0x22F3,
+            (short) 0x32D2, (short) 0x4235, (short) 0x5214, (short) 0x6277, (short) 0x7256,
+            (short) 0x0B5EA, (short) 0x0A5CB, (short) 0x95A8, (short) 0x8589, (short) 0x0F56E,
+            (short) 0x0E54F, (short) 0x0D52C, (short) 0x0C50D, (short) 0x34E2, (short) 0x24C3,
+            (short) 0x14A0, (short) 0x481, (short) 0x7466, (short) 0x6447, (short) 0x5424,
+            (short) 0x4405, (short) 0x0A7DB, (short) 0x0B7FA, (short) 0x8799, (short) 0x97B8,
+            (short) 0x0E75F, (short) 0x0F77E, (short) 0x0C71D, (short) 0x0D73C, (short) 0x26D3,
+            (short) 0x36F2, (short) 0x691, (short) 0x16B0, (short) 0x6657, (short) 0x7676,
+            (short) 0x4615, (short) 0x5634, (short) 0x0D94C, (short) 0x0C96D, (short) 0x0F90E,
+            (short) 0x0E92F, (short) 0x99C8, (short) 0x89E9, (short) 0x0B98A, (short) 0x0A9AB,
+            (short) 0x5844, (short) 0x4865, (short) 0x7806, (short) 0x6827, (short) 0x18C0,
+            (short) 0x8E1, (short) 0x3882, (short) 0x28A3, (short) 0x0CB7D, (short) 0x0DB5C,
+            (short) 0x0EB3F, (short) 0x0FB1E, (short) 0x8BF9, (short) 0x9BD8, (short) 0x0ABBB,
+            (short) 0x0BB9A, (short) 0x4A75, (short) 0x5A54, (short) 0x6A37, (short) 0x7A16,
+            (short) 0x0AF1, (short) 0x1AD0, (short) 0x2AB3, (short) 0x3A92, (short) 0x0FD2E,
+            (short) 0x0ED0F, (short) 0x0DD6C, (short) 0x0CD4D, (short) 0x0BDAA, (short) 0x0AD8B,
+            (short) 0x9DE8, (short) 0x8DC9, (short) 0x7C26, (short) 0x6C07, (short) 0x5C64,
+            (short) 0x4C45, (short) 0x3CA2, (short) 0x2C83, (short) 0x1CE0, (short) 0x0CC1,
+            (short) 0x0EF1F, (short) 0x0FF3E, (short) 0x0CF5D, (short) 0x0DF7C, (short) 0x0AF9B,
+            (short) 0x0BFBA, (short) 0x8FD9, (short) 0x9FF8, (short) 0x6E17, (short) 0x7E36,
+            (short) 0x4E55, (short) 0x5E74, (short) 0x2E93, (short) 0x3EB2, (short) 0x0ED1,
+            (short) 0x1EF0};
+
+    /**
+     * The timeouts and retries of the protocol. They are read for every exchange, so changes take
+     * effect without reconnecting.
+     */
+    public interface Settings {
+        /**
+         * How long to wait for an acknowledgement or a response packet.
+         */
+        int getTimeoutMilliseconds();
+
+        /**
+         * How long to poll for a command to complete. Homing and long moves take a lot longer
+         * than the controller takes to respond.
+         */
+        int getMotionTimeoutMilliseconds();
+
+        /**
+         * How many times to retry a read whose response fails its checksum.
+         */
+        int getMaxRetries();
+    }
+
+    private final ReferenceDriverCommunications communications;
+    private final Settings settings;
+
+    // Reused for every packet; the protocol is strictly one exchange at a time.
+    private final byte[] frame = new byte[PAYLOAD_LENGTH + 1];
+
+    public NeoDen4Protocol(ReferenceDriverCommunications communications, Settings settings) {
+        this.communications = communications;
+        this.settings = settings;
+    }
+
+    /**
+     * Send a command with a payload and wait for the controller to finish it.
+     *
+     * @param command The command byte. It is sent as is and again with the high bit set.
+     * @param ack The acknowledgement of the command.
+     * @param payloadAck The acknowledgement of the command with the high bit set.
+     * @param payload The 8 byte payload.
+     * @param poll The status command to poll with.
+     * @param done The response to the status command that says the command is complete.
+     * @throws Exception
+     */
+    public synchronized void send(int command, int ack, int payloadAck, byte[] payload, int poll,
+            int done) throws Exception {
+        exchange(command, ack);
+        exchange(command | 0x80, payloadAck);
+        writePacket(payload);
+        poll(poll, done);
+    }
+
+    /**
+     * Run a read command and return the controller's verified 8 byte response. The whole exchange
+     * is retried if the response fails its checksum.
+     *
+     * @param commands The command bytes to send, in order.
+     * @param acks The acknowledgement expected for each command.
+     * @return
+     * @throws Exception
+     */
+    public synchronized byte[] read(int[] commands, int[] acks) throws Exception {
+        for (int attempt = 0;; attempt++) {
+            for (int i = 0; i < commands.length; i++) {
+                exchange(commands[i], acks[i]);
+            }
+            try {
+                return readPacket();
+            }
+            catch (ChecksumException e) {
+                if (attempt >= settings.getMaxRetries()) {
+                    throw e;
+                }
+                Logger.debug("NeoDen4 {}, retrying.", e.getMessage());
+                // A corrupt response may also be a misaligned one.
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Write a single command byte and check the controller's one byte response.
+     */
+    public synchronized void exchange(int command, int expected) throws Exception {
+        writeByte(command);
+        int received = readByte(deadline(settings.getTimeoutMilliseconds()));
+        if (received != (expected & 0xff)) {
+            throw new Exception(
+                    String.format("Expected %02x but received %02x.", expected & 0xff, received));
+        }
+    }
+
+    /**
+     * Send the status command until the controller gives the expected response. The first
+     * attempts follow each other immediately, after that the delay between attempts doubles up
+     * to MAX_POLL_BACKOFF_MS. Gives up with an Exception after the motion timeout.
+     */
+    public synchronized void poll(int command, int expected) throws Exception {
+        long deadline = deadline(settings.getMotionTimeoutMilliseconds());
+        long backoff = 0;
+        int attempts = 0;
+        while (true) {
+            attempts++;
+            writeByte(command);
+            int received = readByte(deadline);
+            if (received == (expected & 0xff)) {
+                return;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new Exception(String.format(
+                        "Timed out polling with %02x for %02x after %d attempts, last received %02x.",
+                        command & 0xff, expected & 0xff, attempts, received));
+            }
+            if (backoff > 0) {
+                Thread.sleep(backoff);
+            }
+            backoff = attempts < 2 ? 0 : Math.min(MAX_POLL_BACKOFF_MS, Math.max(1, backoff * 2));
+        }
+    }
+
+    /**
+     * Write the payload and its checksum in a single write.
+     */
+    public synchronized void writePacket(byte[] payload) throws Exception {
+        if (payload.length != PAYLOAD_LENGTH) {
+            throw new IllegalArgumentException("Payload must be " + PAYLOAD_LENGTH + " bytes.");
+        }
+        System.arraycopy(payload, 0, frame, 0, PAYLOAD_LENGTH);
+        frame[PAYLOAD_LENGTH] = (byte) checksum(payload, PAYLOAD_LENGTH);
+        Logger.trace("> {}", new Hex(frame));
+        communications.write(frame);
+    }
+
+    /**
+     * Read an 8 byte response and its checksum in bulk and verify the checksum. The bytes may
+     * arrive in several parts, and the ones already read are kept while waiting for the rest.
+     */
+    public synchronized byte[] readPacket() throws Exception {
+        long deadline = deadline(settings.getTimeoutMilliseconds());
+        int count = 0;
+        while (count < frame.length) {
+            try {
+                count += communications.read(frame, count, frame.length - count);
+            }
+            catch (TimeoutException e) {
+                if (System.currentTimeMillis() >= deadline) {
+                    // The rest of the packet may still come, so it must not be taken for the
+                    // response to the next exchange.
+                    drain();
+                    throw new Exception(String.format(
+                            "Timed out reading response packet, received %d of %d bytes.", count,
+                            frame.length));
+                }
+            }
+        }
+        Logger.trace("< {}", new Hex(frame));
+        int expected = checksum(frame, PAYLOAD_LENGTH) & 0xff;
+        int received = frame[PAYLOAD_LENGTH] & 0xff;
+        if (expected != received) {
+            throw new ChecksumException(expected, received);
+        }
+        byte[] payload = new byte[PAYLOAD_LENGTH];
+        System.arraycopy(frame, 0, payload, 0, PAYLOAD_LENGTH);
+        return payload;
+    }
+
+    private void writeByte(int d) throws IOException {
+        d = d & 0xff;
+        Logger.trace("> {}", new Hex(d));
+        communications.write(d);
+    }
+
+    private int readByte(long deadline) throws Exception {
+        while (true) {
+            try {
+                int d = communications.read() & 0xff;
+                Logger.trace("< {}", new Hex(d));
+                return d;
+            }
+            catch (TimeoutException e) {
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new Exception("Timed out waiting for a response.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Read and discard bytes until none arrive for the communications' read timeout, or for at
+     * most the protocol timeout.
+     */
+    private void drain() throws IOException {
+        long deadline = deadline(settings.getTimeoutMilliseconds());
+        int count = 0;
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                communications.read();
+                count++;
+            }
+        }
+        catch (TimeoutException e) {
+        }
+        if (count > 0) {
+            Logger.debug("NeoDen4 discarded {} unexpected bytes.", count);
+        }
+    }
+
+    private static long deadline(long timeoutMilliseconds) {
+        return System.currentTimeMillis() + timeoutMilliseconds;
+    }
+
+    /**
+     * The protocol's checksum, CRC16-CCITT. Only the low byte is sent on the wire.
+     */
+    public static int checksum(byte[] b, int length) {
+        short result = 0;
+        for (int i = 0; i < length; i++) {
+            short result_l = (short) (result << 8);
+            short result_r = (short) (result >> 8);
+            result = (short) (checksumLookupTable[(b[i] ^ result_r) & 0xff] ^ result_l);
+        }
+        return result;
+    }
+
+    public static class ChecksumException extends IOException {
+        public ChecksumException(int expected, int received) {
+            super(String.format("response checksum %02x does not match %02x", received, expected));
+        }
+    }
+
+    /**
+     * Formats bytes as hex only if the log entry is actually written.
+     */
+    private static class Hex {
+        private final byte[] bytes;
+        private final int d;
+
+        Hex(byte[] bytes) {
+            this.bytes = bytes;
+            this.d = 0;
+        }
+
+        Hex(int d) {
+            this.bytes = null;
+            this.d = d;
+        }
+
+        @Override
+        public String toString() {
+            if (bytes == null) {
+                return String.format("%02x", d);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : bytes) {
+                sb.append(String.format("%02x", b & 0xff));
+            }
+            return sb.toString();
+        }
+    }
+}
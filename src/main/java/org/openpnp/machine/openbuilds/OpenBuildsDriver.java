@@ -431,7 +431,7 @@ public class OpenBuildsDriver extends AbstractReferenceDriver implements Runnabl
         // Send the command, if one was specified
         if (command != null) {
             Logger.debug("sendCommand({}, {})", command, timeout);
-            Logger.debug(">> " + command);
+            Logger.debug(">> {}", command);
             getCommunications().writeLine(command);
         }
 
@@ -472,7 +472,7 @@ public class OpenBuildsDriver extends AbstractReferenceDriver implements Runnabl
                 return;
             }
             line = line.trim();
-            Logger.debug("<< " + line);
+            Logger.debug("<< {}", line);
             responseQueue.offer(line);
             if (line.startsWith("ok") || line.startsWith("error: ")) {
                 // This is the end of processing for a command
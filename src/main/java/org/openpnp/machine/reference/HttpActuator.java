@@ -27,6 +27,7 @@ import java.net.URL;
 
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.wizards.HttpActuatorConfigurationWizard;
+import org.openpnp.spi.MachineActivity;
 import org.pmw.tinylog.Logger;
 import org.simpleframework.xml.Element;
 
@@ -80,7 +81,7 @@ public class HttpActuator extends ReferenceActuator implements ReferenceHeadMoun
         Logger.debug("{}.HTTPActuate response: {} )", getName(), response);
         this.on = on;
 
-        getMachine().fireMachineHeadActivity(head);
+        getMachine().fireMachineHeadActivity(head, MachineActivity.Actuation);
     }
 
     @Override
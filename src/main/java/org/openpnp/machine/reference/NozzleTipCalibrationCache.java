@@ -0,0 +1,226 @@
+package org.openpnp.machine.reference;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration.IncrementalRunoutFit;
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration.RunoutCompensation;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.pmw.tinylog.Logger;
+import org.simpleframework.xml.Attribute;
+import org.simpleframework.xml.Element;
+import org.simpleframework.xml.ElementList;
+import org.simpleframework.xml.Root;
+import org.simpleframework.xml.Serializer;
+
+/**
+ * Nozzle tip calibration results per nozzle and nozzle tip pair, kept in their own file in the
+ * configuration directory and written whenever a calibration finishes, so that they survive a
+ * restart even when the machine configuration is not saved.
+ *
+ * Besides the runout compensation each entry stores a circle model fitted to the raw
+ * measurements, which predicts what a single verification capture should see, and the camera
+ * and nozzle positions it was made with, so that a changed setup invalidates it.
+ */
+@Root(name = "nozzle-tip-calibrations")
+public class NozzleTipCalibrationCache {
+    public static final String FILE_NAME = "nozzle-tip-calibrations.xml";
+
+    private static NozzleTipCalibrationCache instance;
+
+    @ElementList(required = false)
+    private List<Entry> entries = new ArrayList<>();
+
+    private File file;
+
+    public static synchronized NozzleTipCalibrationCache get() {
+        if (instance == null) {
+            instance = load(new File(Configuration.get().getConfigurationDirectory(), FILE_NAME));
+        }
+        return instance;
+    }
+
+    public static NozzleTipCalibrationCache load(File file) {
+        NozzleTipCalibrationCache cache = null;
+        if (file.exists()) {
+            try {
+                cache = Configuration.createSerializer().read(NozzleTipCalibrationCache.class, file);
+            }
+            catch (Exception e) {
+                Logger.warn("Unable to read nozzle tip calibrations from {}, starting empty: {}",
+                        file, e);
+            }
+        }
+        if (cache == null) {
+            cache = new NozzleTipCalibrationCache();
+        }
+        cache.file = file;
+        return cache;
+    }
+
+    public synchronized Entry getEntry(String nozzleId, String nozzleTipId) {
+        for (Entry entry : entries) {
+            if (entry.nozzleId.equals(nozzleId) && entry.nozzleTipId.equals(nozzleTipId)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    public synchronized void putEntry(Entry entry) {
+        removeEntries(entry.nozzleId, entry.nozzleTipId);
+        entries.add(entry);
+        save();
+    }
+
+    /**
+     * Removes the entries of a nozzle tip. A null nozzleId removes those of every nozzle.
+     */
+    public synchronized void remove(String nozzleId, String nozzleTipId) {
+        if (removeEntries(nozzleId, nozzleTipId)) {
+            save();
+        }
+    }
+
+    private boolean removeEntries(String nozzleId, String nozzleTipId) {
+        boolean removed = false;
+        for (Iterator<Entry> i = entries.iterator(); i.hasNext();) {
+            Entry entry = i.next();
+            if ((nozzleId == null || entry.nozzleId.equals(nozzleId))
+                    && entry.nozzleTipId.equals(nozzleTipId)) {
+                i.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    private void save() {
+        if (file == null) {
+            return;
+        }
+        try {
+            Serializer serializer = Configuration.createSerializer();
+            // A crash while writing must not leave a truncated file that fails to load.
+            Configuration.writeAtomically(file, out -> serializer.write(this, out));
+        }
+        catch (Exception e) {
+            Logger.warn("Unable to write nozzle tip calibrations to {}: {}", file, e);
+        }
+    }
+
+    public static class Entry {
+        @Attribute
+        private String nozzleId;
+
+        @Attribute
+        private String nozzleTipId;
+
+        @Attribute
+        private long timestamp;
+
+        @Element
+        private RunoutCompensation runoutCompensation;
+
+        @Element(required = false)
+        private Location cameraOffset;
+
+        @Element(required = false)
+        private Location cameraLocation;
+
+        @Attribute(required = false)
+        private double cameraRotation;
+
+        @Element(required = false)
+        private Location nozzleHeadOffsets;
+
+        @Attribute
+        private double centerX;
+
+        @Attribute
+        private double centerY;
+
+        @Attribute
+        private double radius;
+
+        @Attribute
+        private double phaseShift;
+
+        @Attribute
+        private LengthUnit units = LengthUnit.Millimeters;
+
+        public Entry() {}
+
+        public Entry(String nozzleId, String nozzleTipId, RunoutCompensation runoutCompensation,
+                IncrementalRunoutFit fit, Location cameraLocation, double cameraRotation,
+                Location nozzleHeadOffsets) {
+            this.nozzleId = nozzleId;
+            this.nozzleTipId = nozzleTipId;
+            this.timestamp = System.currentTimeMillis();
+            this.runoutCompensation = runoutCompensation;
+            this.cameraOffset = runoutCompensation.getCameraOffset();
+            this.cameraLocation = cameraLocation;
+            this.cameraRotation = cameraRotation;
+            this.nozzleHeadOffsets = nozzleHeadOffsets;
+            this.centerX = fit.getCenterX();
+            this.centerY = fit.getCenterY();
+            this.radius = fit.getRadius();
+            this.phaseShift = fit.getPhaseShift();
+            this.units = fit.getUnits();
+        }
+
+        /**
+         * Returns the offset a measurement at the given angle should find, uncompensated, if the
+         * nozzle tip still runs as it did when calibrated.
+         */
+        public Location predict(double angle) {
+            double a = Math.toRadians(angle - phaseShift);
+            return new Location(units, centerX + radius * Math.cos(a),
+                    centerY + radius * Math.sin(a), 0, angle);
+        }
+
+        /**
+         * Returns true if the camera and nozzle are where they were when this was calibrated.
+         */
+        public boolean isSameSetup(Location cameraLocation, double cameraRotation,
+                Location nozzleHeadOffsets) {
+            return same(this.cameraLocation, cameraLocation)
+                    && Math.abs(this.cameraRotation - cameraRotation) < 1e-6
+                    && same(this.nozzleHeadOffsets, nozzleHeadOffsets);
+        }
+
+        private static boolean same(Location a, Location b) {
+            if (a == null || b == null) {
+                return a == b;
+            }
+            b = b.convertToUnits(a.getUnits());
+            return Math.abs(a.getX() - b.getX()) < 1e-6 && Math.abs(a.getY() - b.getY()) < 1e-6
+                    && Math.abs(a.getZ() - b.getZ()) < 1e-6
+                    && Math.abs(a.getRotation() - b.getRotation()) < 1e-6;
+        }
+
+        public String getNozzleId() {
+            return nozzleId;
+        }
+
+        public String getNozzleTipId() {
+            return nozzleTipId;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public RunoutCompensation getRunoutCompensation() {
+            return runoutCompensation;
+        }
+
+        public Location getCameraOffset() {
+            return cameraOffset;
+        }
+    }
+}
@@ -35,6 +35,7 @@ import org.openpnp.model.Length;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.spi.Camera;
+import org.openpnp.spi.MachineActivity;
 import org.openpnp.spi.PropertySheetHolder;
 import org.openpnp.spi.base.AbstractActuator;
 import org.pmw.tinylog.Logger;
@@ -78,7 +79,7 @@ public class ReferenceActuator extends AbstractActuator implements ReferenceHead
     public void actuate(boolean on) throws Exception {
         Logger.debug("{}.actuate({})", getName(), on);
         getDriver().actuate(this, on);
-        getMachine().fireMachineHeadActivity(head);
+        getMachine().fireMachineHeadActivity(head, MachineActivity.Actuation);
     }
 
     @Override
@@ -95,14 +96,14 @@ public class ReferenceActuator extends AbstractActuator implements ReferenceHead
     public void actuate(double value) throws Exception {
         Logger.debug("{}.actuate({})", getName(), value);
         getDriver().actuate(this, value);
-        getMachine().fireMachineHeadActivity(head);
+        getMachine().fireMachineHeadActivity(head, MachineActivity.Actuation);
     }
     
     @Override
     public String read() throws Exception {
         String value = getDriver().actuatorRead(this);
         Logger.debug("{}.read(): {}", getName(), value);
-        getMachine().fireMachineHeadActivity(head);
+        getMachine().fireMachineHeadActivity(head, MachineActivity.Actuation);
         return value;
     }
 
@@ -26,6 +26,8 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -39,6 +41,7 @@ import org.opencv.core.Rect;
 import org.opencv.core.RotatedRect;
 import org.opencv.core.Size;
 import org.opencv.imgproc.Imgproc;
+import org.openpnp.ConfigurationListener;
 import org.openpnp.gui.MainFrame;
 import org.openpnp.gui.support.Icons;
 import org.openpnp.gui.support.PropertySheetWizardAdapter;
@@ -121,8 +124,57 @@ public abstract class ReferenceCamera extends AbstractCamera implements Referenc
 
     private LensCalibration lensCalibration;
     
+    private static ExecutorService openExecutor;
+
     public ReferenceCamera() {
     }
+
+    /**
+     * See AbstractCamera(boolean).
+     */
+    protected ReferenceCamera(boolean configured) {
+        super(configured);
+    }
+
+    /**
+     * Open the device with openDevice() in the background once the configuration is complete.
+     * Cameras that have a capture device call this from their constructor. Opening a device can
+     * take seconds, so these cameras open all at once instead of one after another when the
+     * camera views start capturing.
+     */
+    protected void openDeviceWhenConfigured() {
+        Configuration.get().addListener(new ConfigurationListener.Adapter() {
+            @Override
+            public void configurationComplete(Configuration configuration) throws Exception {
+                getOpenExecutor().submit(() -> {
+                    long t = System.currentTimeMillis();
+                    openDevice();
+                    Logger.debug("Opened camera {} in {} ms.", getName(),
+                            System.currentTimeMillis() - t);
+                    return null;
+                });
+            }
+        });
+    }
+
+    private static synchronized ExecutorService getOpenExecutor() {
+        if (openExecutor == null) {
+            openExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "ReferenceCamera");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return openExecutor;
+    }
+
+    /**
+     * Open the capture device, if it isn't open yet. See openDeviceWhenConfigured().
+     * Implementations should synchronize with their capture methods, which must still open the
+     * device themselves if this has not finished or failed. The default does nothing.
+     */
+    protected void openDevice() throws Exception {
+    }
     
     /**
      * Captures an image using captureForPreview() and performs scripting and lighting events
@@ -348,6 +400,7 @@ public abstract class ReferenceCamera extends AbstractCamera implements Referenc
     }
 
     // TODO Optimization: We could skip the convert to and from Mat if no transforms are needed.
+    @Override
     protected BufferedImage transformImage(BufferedImage image) {
         Mat mat = OpenCvUtils.toMat(image);
 
@@ -20,6 +20,7 @@
 package org.openpnp.machine.reference;
 
 import java.io.Closeable;
+import java.util.Map;
 
 import org.openpnp.model.Location;
 import org.openpnp.spi.PropertySheetHolder;
@@ -60,6 +61,30 @@ public interface ReferenceDriver extends WizardConfigurable, PropertySheetHolder
      */
     public void moveTo(ReferenceHeadMountable hm, Location location, double speed) throws Exception;
 
+    /**
+     * Moves several HeadMountables as one coordinated move, in the iteration order of the map. The
+     * driver is free to combine the moves into as few commands as it can, to send them as one
+     * batch and to only wait for the motion to complete once, after the last. Axes shared by more
+     * than one of the HeadMountables should be moved only once. Moves that must happen one after
+     * the other, such as Z up before travelling in X and Y, must not be combined into one call.
+     * 
+     * The locations are passed to the driver as they are, without the corrections the
+     * HeadMountables apply in their own moveTo(), such as nozzle runout compensation, so this is
+     * only suitable for moves that those corrections don't affect, like moving to safe Z.
+     * 
+     * The default implementation performs the moves one after the other.
+     * 
+     * @param moves
+     * @param speed
+     * @throws Exception
+     */
+    public default void moveTo(Map<ReferenceHeadMountable, Location> moves, double speed)
+            throws Exception {
+        for (Map.Entry<ReferenceHeadMountable, Location> move : moves.entrySet()) {
+            moveTo(move.getKey(), move.getValue(), speed);
+        }
+    }
+
     /**
      * Returns a clone of the HeadMountable's current location. It's important that the returned
      * object is a clone, since the caller may modify the returned Location.
@@ -124,5 +149,16 @@ public interface ReferenceDriver extends WizardConfigurable, PropertySheetHolder
      */
     public void setEnabled(boolean enabled) throws Exception;
 
+    /**
+     * Returns true if the driver can be used from several threads at once, such as a feeder
+     * actuating in the background while the machine thread moves the head. Drivers that return
+     * false are only used from the machine thread. The default is false.
+     * 
+     * @return
+     */
+    public default boolean isThreadSafe() {
+        return false;
+    }
+
     public default void createDefaults() {};
 }
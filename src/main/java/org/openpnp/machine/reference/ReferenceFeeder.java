@@ -1,7 +1,11 @@
 package org.openpnp.machine.reference;
 
+import java.awt.image.BufferedImage;
+
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
+import org.openpnp.spi.Camera;
+import org.openpnp.spi.Head;
 import org.openpnp.spi.base.AbstractFeeder;
 import org.simpleframework.xml.Element;
 
@@ -18,4 +22,44 @@ public abstract class ReferenceFeeder extends AbstractFeeder {
         this.location = location;
         firePropertyChange("location", oldValue, location);
     }
+
+    /**
+     * Returns the Camera used to warm up this feeder's vision. See
+     * {@link #getWarmupLocation(Head)}.
+     *
+     * @param head
+     * @return
+     * @throws Exception
+     */
+    public Camera getWarmupCamera(Head head) throws Exception {
+        return head.getDefaultCamera();
+    }
+
+    /**
+     * Returns the location the warm up Camera should capture an image at so that the vision
+     * needed by the next feed can be done before the job starts, or null if this feeder has
+     * nothing to warm up. The default returns null.
+     *
+     * @param head
+     * @return
+     * @throws Exception
+     */
+    public Location getWarmupLocation(Head head) throws Exception {
+        return null;
+    }
+
+    /**
+     * Process an image captured at the warm up location and keep the results for the next feed.
+     * This is called on a background thread while the machine moves on to the next feeder, so
+     * implementations must work only from the given image and must not move the machine or
+     * capture from the Camera.
+     *
+     * @param camera The Camera the image was captured with.
+     * @param location The location the Camera was at when the image was captured.
+     * @param image
+     * @throws Exception
+     */
+    public void processWarmupImage(Camera camera, Location location, BufferedImage image)
+            throws Exception {
+    }
 }
@@ -20,6 +20,9 @@
 package org.openpnp.machine.reference;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.swing.Action;
 
@@ -30,7 +33,9 @@ import org.openpnp.machine.reference.psh.CamerasPropertySheetHolder;
 import org.openpnp.machine.reference.psh.NozzlesPropertySheetHolder;
 import org.openpnp.machine.reference.wizards.ReferenceHeadConfigurationWizard;
 import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
+import org.openpnp.spi.HeadMountable;
 import org.openpnp.spi.PropertySheetHolder;
 import org.openpnp.spi.base.AbstractHead;
 import org.pmw.tinylog.Logger;
@@ -73,13 +78,44 @@ public class ReferenceHead extends AbstractHead {
         return null;
     }
 
+    /**
+     * Moves every nozzle, camera and actuator on the head to its safe Z as one coordinated move,
+     * so the driver can send it as one batch rather than one move per HeadMountable.
+     */
     @Override
     public void moveToSafeZ(double speed) throws Exception {
         Logger.debug("{}.moveToSafeZ({})", getName(), speed);
-        super.moveToSafeZ(speed);
+        Map<ReferenceHeadMountable, Location> moves = new LinkedHashMap<>();
+        List<HeadMountable> others = new ArrayList<>();
+        List<HeadMountable> hms = new ArrayList<>();
+        hms.addAll(getNozzles());
+        hms.addAll(getCameras());
+        hms.addAll(getActuators());
+        for (HeadMountable hm : hms) {
+            if (hm instanceof ReferenceHeadMountable) {
+                ReferenceHeadMountable rhm = (ReferenceHeadMountable) hm;
+                LengthUnit units = rhm.getLocation().getUnits();
+                moves.put(rhm, new Location(units, Double.NaN, Double.NaN,
+                        rhm.getSafeZ().convertToUnits(units).getValue(), Double.NaN));
+            }
+            else {
+                others.add(hm);
+            }
+        }
+        getDriver().moveTo(moves, getMaxPartSpeed() * speed);
+        for (HeadMountable hm : others) {
+            hm.moveToSafeZ(speed);
+        }
+        getMachine().fireMachineHeadActivity(this);
     }
-    
+
     public void moveTo(ReferenceHeadMountable hm, Location location, double speed) throws Exception {
+        checkSoftLimits(hm, location);
+        getDriver().moveTo(hm, location, speed);
+        getMachine().fireMachineHeadActivity(this);
+    }
+
+    private void checkSoftLimits(ReferenceHeadMountable hm, Location location) throws Exception {
         if (isSoftLimitsEnabled()) {
             /**
              * Since minLocation and maxLocation are captured with the Camera's coordinates, we need
@@ -95,8 +131,6 @@ public class ReferenceHead extends AbstractHead {
                         hm.getName(), location, getName()));
             }
         }
-        getDriver().moveTo(hm, location, speed);
-        getMachine().fireMachineHeadActivity(this);
     }
 
     @Override
@@ -1,8 +1,10 @@
 package org.openpnp.machine.reference;
 
 import java.awt.event.ActionEvent;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -26,10 +28,12 @@ import org.openpnp.model.Location;
 import org.openpnp.model.Part;
 import org.openpnp.spi.Actuator;
 import org.openpnp.spi.Camera;
+import org.openpnp.spi.MachineActivity;
 import org.openpnp.spi.NozzleTip;
 import org.openpnp.spi.PropertySheetHolder;
 import org.openpnp.spi.base.AbstractNozzle;
 import org.openpnp.util.MovableUtils;
+import org.openpnp.util.SettleStatistics;
 import org.pmw.tinylog.Logger;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
@@ -63,8 +67,30 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
     @Attribute(required = false)
     private boolean limitRotation = true;
 
+    /**
+     * If adaptiveDwell is enabled, and part detection is configured, pick and place poll the
+     * vacuum sense actuator and end the dwell as soon as the vacuum level is stable inside the
+     * nozzle tip's part on (pick) or part off (place) window. The configured dwell times become
+     * the upper limit of the dwell.
+     */
+    @Attribute(required = false)
+    private boolean adaptiveDwell = false;
+
+    @Attribute(required = false)
+    private int adaptiveDwellPollMilliseconds = 5;
+
+    /**
+     * Number of consecutive readings that have to agree before the vacuum level is considered
+     * stable.
+     */
+    @Attribute(required = false)
+    private int adaptiveDwellStableReadings = 3;
+
     protected ReferenceNozzleTip nozzleTip;
 
+    private final Map<String, SettleStatistics> pickDwellStatistics =
+            new ConcurrentHashMap<>();
+
     public ReferenceNozzle() {
         Configuration.get().addListener(new ConfigurationListener.Adapter() {
             @Override
@@ -103,6 +129,41 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
         this.placeDwellMilliseconds = placeDwellMilliseconds;
     }
 
+    public boolean isAdaptiveDwell() {
+        return adaptiveDwell;
+    }
+
+    public void setAdaptiveDwell(boolean adaptiveDwell) {
+        this.adaptiveDwell = adaptiveDwell;
+    }
+
+    public int getAdaptiveDwellPollMilliseconds() {
+        return adaptiveDwellPollMilliseconds;
+    }
+
+    public void setAdaptiveDwellPollMilliseconds(int adaptiveDwellPollMilliseconds) {
+        this.adaptiveDwellPollMilliseconds = adaptiveDwellPollMilliseconds;
+    }
+
+    public int getAdaptiveDwellStableReadings() {
+        return adaptiveDwellStableReadings;
+    }
+
+    public void setAdaptiveDwellStableReadings(int adaptiveDwellStableReadings) {
+        this.adaptiveDwellStableReadings = adaptiveDwellStableReadings;
+    }
+
+    /**
+     * Returns the pick dwell statistics collected by adaptive dwell, by part id.
+     */
+    public Map<String, SettleStatistics> getPickDwellStatistics() {
+        return Collections.unmodifiableMap(pickDwellStatistics);
+    }
+
+    public void resetPickDwellStatistics() {
+        pickDwellStatistics.clear();
+    }
+
     @Override
     public Location getHeadOffsets() {
         return headOffsets;
@@ -149,10 +210,16 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
         
         this.part = part;
         getDriver().pick(this);
-        getMachine().fireMachineHeadActivity(head);
+        getMachine().fireMachineHeadActivity(head, MachineActivity.PickAndPlace);
         
         // Dwell Time
-        Thread.sleep(this.getPickDwellMilliseconds() + nozzleTip.getPickDwellMilliseconds());
+        int dwellMilliseconds = this.getPickDwellMilliseconds() + nozzleTip.getPickDwellMilliseconds();
+        if (isAdaptiveDwellEnabled()) {
+            pickAdaptiveDwell(part, dwellMilliseconds);
+        }
+        else {
+            Thread.sleep(dwellMilliseconds);
+        }
         
         try {
             Map<String, Object> globals = new HashMap<>();
@@ -182,10 +249,19 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
         
         getDriver().place(this);
         this.part = null;
-        getMachine().fireMachineHeadActivity(head);
+        getMachine().fireMachineHeadActivity(head, MachineActivity.PickAndPlace);
         
         // Dwell Time
-        Thread.sleep(this.getPlaceDwellMilliseconds() + nozzleTip.getPlaceDwellMilliseconds());
+        int dwellMilliseconds = this.getPlaceDwellMilliseconds() + nozzleTip.getPlaceDwellMilliseconds();
+        if (isAdaptiveDwellEnabled()) {
+            long t = System.currentTimeMillis();
+            adaptiveDwell(dwellMilliseconds, nozzleTip.getVacuumLevelPartOffLow(),
+                    nozzleTip.getVacuumLevelPartOffHigh());
+            Logger.debug("{} place dwell {}ms", getName(), System.currentTimeMillis() - t);
+        }
+        else {
+            Thread.sleep(dwellMilliseconds);
+        }
         
         try {
             Map<String, Object> globals = new HashMap<>();
@@ -197,6 +273,77 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
         }
     }
     
+    private boolean isAdaptiveDwellEnabled() {
+        return adaptiveDwell && isPartDetectionEnabled();
+    }
+
+    private void pickAdaptiveDwell(Part part, int maxMilliseconds) throws Exception {
+        long t = System.currentTimeMillis();
+        DwellResult result = adaptiveDwell(maxMilliseconds, nozzleTip.getVacuumLevelPartOnLow(),
+                nozzleTip.getVacuumLevelPartOnHigh());
+        long ms = System.currentTimeMillis() - t;
+        pickDwellStatistics.computeIfAbsent(part.getId(), id -> new SettleStatistics())
+                .record(ms, result != DwellResult.Stable);
+        Logger.debug("{} pick dwell for {} {} after {}ms", getName(), part.getId(), result, ms);
+        if (result == DwellResult.Missed) {
+            throw new Exception(String.format(
+                    "Part vacuum sensing failed on nozzle %s: the vacuum level settled outside the part on range after %dms.",
+                    getName(), ms));
+        }
+    }
+
+    private enum DwellResult {
+        Stable,
+        Missed,
+        TimedOut
+    }
+
+    /**
+     * Poll the vacuum level until adaptiveDwellStableReadings consecutive readings are inside
+     * the given window, or until maxMilliseconds have passed. If the readings settle outside the
+     * window after at least half of maxMilliseconds the dwell ends early as Missed, since the
+     * level isn't going to move into the window any more.
+     */
+    private DwellResult adaptiveDwell(int maxMilliseconds, double low, double high)
+            throws Exception {
+        int stableReadings = Math.max(1, adaptiveDwellStableReadings);
+        // Readings count as unchanged if they're within 5% of the window of each other.
+        double tolerance = Math.abs(high - low) * 0.05;
+        long start = System.currentTimeMillis();
+        int inside = 0;
+        int unchanged = 0;
+        double last = Double.NaN;
+        while (true) {
+            double vacuumLevel = readVacuumLevel();
+            if (vacuumLevel >= low && vacuumLevel <= high) {
+                inside++;
+                if (inside >= stableReadings) {
+                    return DwellResult.Stable;
+                }
+            }
+            else {
+                inside = 0;
+            }
+            if (Math.abs(vacuumLevel - last) <= tolerance) {
+                unchanged++;
+            }
+            else {
+                unchanged = 0;
+            }
+            last = vacuumLevel;
+
+            long elapsed = System.currentTimeMillis() - start;
+            if (inside == 0 && unchanged >= stableReadings && elapsed * 2 >= maxMilliseconds) {
+                return DwellResult.Missed;
+            }
+            if (elapsed >= maxMilliseconds) {
+                return DwellResult.TimedOut;
+            }
+            Thread.sleep(Math.min(Math.max(0, adaptiveDwellPollMilliseconds),
+                    maxMilliseconds - elapsed));
+        }
+    }
+
     private ReferenceNozzleTip getUnloadedNozzleTipStandin() {
         for (NozzleTip nozzleTip : this.getCompatibleNozzleTips()) {
             if (nozzleTip instanceof ReferenceNozzleTip) {
@@ -285,10 +432,15 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
         }
 
         ReferenceNozzleTip calibrationNozzleTip = getCalibrationNozzleTip();
-        if (calibrationNozzleTip != null && calibrationNozzleTip.getCalibration().isCalibrated(this)) {
-            Location correctionOffset = calibrationNozzleTip.getCalibration().getCalibratedOffset(this, location.getRotation());
-            location = location.subtract(correctionOffset);
-            Logger.debug("{}.moveTo({}, {}) (runout compensation: {})", getName(), location, speed, correctionOffset);
+        RunoutCompensationTable runoutCompensation = calibrationNozzleTip == null ? null
+                : calibrationNozzleTip.getCalibration().getCalibratedOffsetTable(this);
+        if (runoutCompensation != null) {
+            location = location.convertToUnits(runoutCompensation.getUnits());
+            double rotation = location.getRotation();
+            location = location.derive(
+                    location.getX() - runoutCompensation.getOffsetX(rotation),
+                    location.getY() - runoutCompensation.getOffsetY(rotation), null, null);
+            Logger.debug("{}.moveTo({}, {}) (runout compensated)", getName(), location, speed);
         } else {
             Logger.debug("{}.moveTo({}, {})", getName(), location, speed);
         }
@@ -412,7 +564,7 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
             this.nozzleTip.getCalibration().reset(this);
         }
         firePropertyChange("nozzleTip", null, getNozzleTip());
-        ((ReferenceMachine) head.getMachine()).fireMachineHeadActivity(head);
+        ((ReferenceMachine) head.getMachine()).fireMachineHeadActivity(head, MachineActivity.NozzleTipChange);
     }
 
     @Override
@@ -476,7 +628,7 @@ public class ReferenceNozzle extends AbstractNozzle implements ReferenceHeadMoun
         nozzleTip = null;
         currentNozzleTipId = null;
         firePropertyChange("nozzleTip", null, getNozzleTip());
-        ((ReferenceMachine) head.getMachine()).fireMachineHeadActivity(head);
+        ((ReferenceMachine) head.getMachine()).fireMachineHeadActivity(head, MachineActivity.NozzleTipChange);
 
         if (!changerEnabled) {
             throw new Exception("Manual NozzleTip change required!");
@@ -1,17 +1,25 @@
 package org.openpnp.machine.reference;
 
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.IOUtils;
 import org.opencv.core.KeyPoint;
 import org.opencv.core.RotatedRect;
 import org.openpnp.gui.MainFrame;
+import org.openpnp.machine.reference.camera.BufferedImageCamera;
 import org.openpnp.model.AbstractModelObject;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.Length;
@@ -19,6 +27,7 @@ import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.model.Point;
 import org.openpnp.spi.Camera;
+import org.openpnp.spi.Machine;
 import org.openpnp.spi.Nozzle;
 import org.openpnp.spi.NozzleTip;
 import org.openpnp.util.MovableUtils;
@@ -377,6 +386,129 @@ public class ReferenceNozzleTipCalibration extends AbstractModelObject {
         }
     }
 
+    /**
+     * The same Kasa circle fit and phase shift as ModelBasedRunoutCompensation, but kept as running
+     * sums so that the model can be refitted cheaply after every measurement. Used to stop a
+     * calibration as soon as the model predicts new measurements within tolerance.
+     */
+    public static class IncrementalRunoutFit {
+        private final List<Location> locations = new ArrayList<>();
+        private double sx, sy, sxx, syy, sxy, sxxx, syyy, sxxy, sxyy;
+        private double centerX, centerY, radius, phaseShift;
+        private LengthUnit units = LengthUnit.Millimeters;
+
+        /**
+         * Adds a measured offset, with the measurement angle stored as its rotation.
+         */
+        public void add(Location location) {
+            if (locations.isEmpty()) {
+                units = location.getUnits();
+            }
+            else {
+                location = location.convertToUnits(units);
+            }
+            locations.add(location);
+            double x = location.getX();
+            double y = location.getY();
+            sx += x;
+            sy += y;
+            sxx += x * x;
+            syy += y * y;
+            sxy += x * y;
+            sxxx += x * x * x;
+            syyy += y * y * y;
+            sxxy += x * x * y;
+            sxyy += x * y * y;
+            fit();
+        }
+
+        private void fit() {
+            double n = locations.size();
+            double meanX = sx / n;
+            double meanY = sy / n;
+
+            // Centered moments from the raw sums.
+            double mxx = sxx / n - meanX * meanX;
+            double myy = syy / n - meanY * meanY;
+            double mxy = sxy / n - meanX * meanY;
+            double mxz = (sxxx / n - 3 * meanX * sxx / n + 2 * meanX * meanX * meanX)
+                    + (sxyy / n - 2 * meanY * sxy / n - meanX * syy / n + 2 * meanX * meanY * meanY);
+            double myz = (syyy / n - 3 * meanY * syy / n + 2 * meanY * meanY * meanY)
+                    + (sxxy / n - 2 * meanX * sxy / n - meanY * sxx / n + 2 * meanY * meanX * meanX);
+
+            // solving system of equations by Cholesky factorization
+            double g11 = Math.sqrt(mxx);
+            double g12 = mxy / g11;
+            double g22 = Math.sqrt(myy - g12 * g12);
+            double d1 = mxz / g11;
+            double d2 = (myz - d1 * g12) / g22;
+            double c = d2 / g22 / 2.0;
+            double b = (d1 - g12 * c) / g11 / 2.0;
+
+            double centerX = b + meanX;
+            double centerY = c + meanY;
+            double radius = Math.sqrt(b * b + c * c + mxx + myy);
+            if (Double.isNaN(centerX) || Double.isNaN(centerY) || Double.isNaN(radius)
+                    || Double.isInfinite(centerX) || Double.isInfinite(centerY)) {
+                // Too few or identical points: zero runout around the first measurement.
+                centerX = locations.get(0).getX();
+                centerY = locations.get(0).getY();
+                radius = 0;
+            }
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.radius = radius;
+
+            double differenceAngleSum = 0;
+            for (Location location : locations) {
+                double measuredAngle = Math.toDegrees(
+                        Math.atan2(location.getY() - centerY, location.getX() - centerX));
+                double differenceAngle = location.getRotation() - measuredAngle;
+                if (differenceAngle < -180) {
+                    differenceAngle += 360;
+                }
+                if (differenceAngle > 180) {
+                    differenceAngle -= 360;
+                }
+                differenceAngleSum += differenceAngle;
+            }
+            this.phaseShift = differenceAngleSum / n;
+        }
+
+        /**
+         * Returns the offset the current model expects to measure at the given angle.
+         */
+        public Location predict(double angle) {
+            double a = Math.toRadians(angle - phaseShift);
+            return new Location(units, centerX + radius * Math.cos(a),
+                    centerY + radius * Math.sin(a), 0, angle);
+        }
+
+        public int size() {
+            return locations.size();
+        }
+
+        public double getCenterX() {
+            return centerX;
+        }
+
+        public double getCenterY() {
+            return centerY;
+        }
+
+        public double getRadius() {
+            return radius;
+        }
+
+        public double getPhaseShift() {
+            return phaseShift;
+        }
+
+        public LengthUnit getUnits() {
+            return units;
+        }
+    }
+
 
     @Element(required = false)
     private CvPipeline pipeline = createDefaultPipeline();
@@ -396,6 +528,27 @@ public class ReferenceNozzleTipCalibration extends AbstractModelObject {
     @Attribute(required = false)
     private boolean enabled;
 
+    /**
+     * Process each capture on a worker thread while the nozzle rotates to the next angle, and
+     * stop early once the runout model has converged.
+     */
+    @Attribute(required = false)
+    private boolean pipelined = false;
+
+    @Element(required = false)
+    private Length convergenceTolerance = new Length(0.01, LengthUnit.Millimeters);
+
+    /**
+     * The fewest measurements a model must be fitted from before it is trusted to predict the next.
+     */
+    public static final int MIN_CONVERGENCE_MEASUREMENTS = 4;
+
+    /**
+     * The number of consecutive measurements the model must predict within tolerance to be
+     * considered converged.
+     */
+    public static final int CONVERGENCE_HITS = 2;
+
     private boolean calibrating;
 
     @Deprecated
@@ -404,12 +557,18 @@ public class ReferenceNozzleTipCalibration extends AbstractModelObject {
     @ElementMap(required = false)
     private Map<String, RunoutCompensation> runoutCompensationLookup = new HashMap<>();
 
+    /**
+     * The runout compensations in runoutCompensationLookup compiled into lookup tables, built on
+     * first use.
+     */
+    private Map<String, RunoutCompensationTable> runoutCompensationTables = new ConcurrentHashMap<>();
+
     public enum RunoutCompensationAlgorithm {
         Model, ModelNoOffset, ModelCameraOffset, Table
     }
 
     public enum RecalibrationTrigger {
-        NozzleTipChange, NozzleTipChangeInJob, MachineHome,  Manual
+        NozzleTipChange, NozzleTipChangeInJob, MachineHome,  Manual, DriftCheck
     }
 
     @Attribute(required = false)
@@ -448,6 +607,13 @@ public class ReferenceNozzleTipCalibration extends AbstractModelObject {
     private Length offsetThresholdLength = new Length(0.5, LengthUnit.Millimeters);
     @Element(required = false)
     private Length calibrationZOffset = new Length(0.0, LengthUnit.Millimeters);
+    // With the DriftCheck trigger a stored calibration is reused as long as a single verification 
+    // capture finds the nozzle tip within this distance of where the stored model expects it. 
+    @Element(required = false)
+    private Length driftThreshold = new Length(0.05, LengthUnit.Millimeters);
+    // Stored calibrations older than this are not reused, 0 for no limit.
+    @Attribute(required = false)
+    private int maxCalibrationAgeHours = 0;
 
     public ReferenceNozzleTipCalibration.RunoutCompensationAlgorithm getRunoutCompensationAlgorithm() {
         return this.runoutCompensationAlgorithm;
@@ -481,6 +647,11 @@ public class ReferenceNozzleTipCalibration extends AbstractModelObject {
         Location measureBaseLocation = cameraLocation.derive(null, null, null, 0d)
                 .add(new Location(this.calibrationZOffset.getUnits(), 0, 0, this.calibrationZOffset.getValue(), 0));
 
+        if (!calibrateCamera && recalibrationTrigger == RecalibrationTrigger.DriftCheck 
+                && restoreVerifiedCalibration(nozzle, camera, measureBaseLocation)) {
+            return;
+        }
+
         try {
             calibrating = true;
             Location excenter = new Location(measureBaseLocation.getUnits());
@@ -517,52 +688,55 @@ public class ReferenceNozzleTipCalibration extends AbstractModelObject {
                 angleSubdivisions--;
             }
 
-            Logger.debug("[nozzleTipCalibration]starting measurement; angleStart: {}, angleStop: {}, angleIncrement: {}, angleSubdivisions: {}", 
-                    angleStart, angleStop, angleIncrement, angleSubdivisions);
+            Logger.debug("[nozzleTipCalibration]starting measurement; angleStart: {}, angleStop: {}, angleIncrement: {}, angleSubdivisions: {}, pipelined: {}", 
+                    angleStart, angleStop, angleIncrement, angleSubdivisions, pipelined);
+
+            // Only the model based algorithms can stop early, the table needs every angle.
+            boolean converge = pipelined 
+                    && runoutCompensationAlgorithm != RunoutCompensationAlgorithm.Table 
+                    && convergenceTolerance.getValue() > 0;
+            List<Double> measureAngles = new ArrayList<>();
+            for (int i : getMeasurementOrder(angleSubdivisions + 1, converge)) {
+                measureAngles.add(angleStart + (i * angleIncrement));
+            }
 
             // Capture nozzle tip positions and add them to a list. For these calcs the camera location is considered to be 0/0
             List<Location> nozzleTipMeasuredLocations = new ArrayList<>();
-            for (int i = 0; i <= angleSubdivisions; i++) {
-                // calc the current measurement-angle
-                double measureAngle = angleStart + (i * angleIncrement); 
-
-                Logger.debug("[nozzleTipCalibration]i: {}, measureAngle: {}", i, measureAngle);
-
-                // rotate nozzle to measurement angle
-                Location measureLocation = measureBaseLocation
-                        .derive(null, null, null, measureAngle)
-                        .add(excenter.rotateXy(measureAngle));
-                nozzle.moveTo(measureLocation);
-
-                // detect the nozzle tip
-                Location offset = findCircle(measureLocation);
-                if (offset != null) {
-                    // for later usage in the algorithm, the measureAngle is stored to the offset location in millimeter unit 
-                    offset = offset.derive(null, null, null, measureAngle);		
-
-                    // add offset to array
-                    nozzleTipMeasuredLocations.add(offset);
-
-                    Logger.trace("[nozzleTipCalibration]measured offset: {}", offset);
-                }
+            long t = System.currentTimeMillis();
+            int measurements;
+            if (pipelined) {
+                measurements = measurePipelined(nozzle, camera, measureBaseLocation, excenter, 
+                        measureAngles, converge, nozzleTipMeasuredLocations);
+            }
+            else {
+                measurements = measure(nozzle, measureBaseLocation, excenter, measureAngles, 
+                        nozzleTipMeasuredLocations);
             }
+            Logger.debug("[nozzleTipCalibration]{} measurements, {} detected in {} ms", 
+                    measurements, nozzleTipMeasuredLocations.size(), System.currentTimeMillis() - t);
 
-            if (nozzleTipMeasuredLocations.size() < Math.max(3, angleSubdivisions + 1 - this.allowMisdetections)) {
+            if (nozzleTipMeasuredLocations.size() < Math.max(3, measurements - this.allowMisdetections)) {
                 throw new Exception("Not enough results from vision. Check pipeline and threshold."); 
             }
 
+            // The table based compensation expects the measurements in ascending angle order.
+            nozzleTipMeasuredLocations.sort(Comparator.comparingDouble(Location::getRotation));
+
             Configuration.get().getScripting().on("NozzleCalibration.Finished", params);
 
             if (!calibrateCamera) {
+                RunoutCompensation compensation;
                 if (this.runoutCompensationAlgorithm == RunoutCompensationAlgorithm.Model) {
-                    this.setRunoutCompensation(nozzle, new ModelBasedRunoutCompensation(nozzleTipMeasuredLocations));
+                    compensation = new ModelBasedRunoutCompensation(nozzleTipMeasuredLocations);
                 } else if (this.runoutCompensationAlgorithm == RunoutCompensationAlgorithm.ModelNoOffset) {
-                    this.setRunoutCompensation(nozzle, new ModelBasedRunoutNoOffsetCompensation(nozzleTipMeasuredLocations));
+                    compensation = new ModelBasedRunoutNoOffsetCompensation(nozzleTipMeasuredLocations);
                 } else if (this.runoutCompensationAlgorithm == RunoutCompensationAlgorithm.ModelCameraOffset) {
-                    this.setRunoutCompensation(nozzle, new ModelBasedRunoutCameraOffsetCompensation(nozzleTipMeasuredLocations));
+                    compensation = new ModelBasedRunoutCameraOffsetCompensation(nozzleTipMeasuredLocations);
                 } else {
-                    this.setRunoutCompensation(nozzle, new TableBasedRunoutCompensation(nozzleTipMeasuredLocations));
+                    compensation = new TableBasedRunoutCompensation(nozzleTipMeasuredLocations);
                 }
+                this.setRunoutCompensation(nozzle, compensation);
+                storeCalibration(nozzle, camera, compensation, nozzleTipMeasuredLocations);
             }
             else {
                 ModelBasedRunoutCompensation cameraCompensation = new ModelBasedRunoutCompensation(nozzleTipMeasuredLocations);
@@ -595,6 +769,272 @@ public class ReferenceNozzleTipCalibration extends AbstractModelObject {
         }
     }
 
+    /**
+     * Measures at each angle in turn: move, capture and process before moving on.
+     * 
+     * @return the number of measurements made.
+     */
+    private int measure(ReferenceNozzle nozzle, Location measureBaseLocation, Location excenter, 
+            List<Double> measureAngles, List<Location> nozzleTipMeasuredLocations) throws Exception {
+        int i = 0;
+        for (double measureAngle : measureAngles) {
+            Logger.debug("[nozzleTipCalibration]i: {}, measureAngle: {}", i++, measureAngle);
+
+            // rotate nozzle to measurement angle
+            Location measureLocation = getMeasureLocation(measureBaseLocation, excenter, measureAngle);
+            nozzle.moveTo(measureLocation);
+
+            // detect the nozzle tip
+            Location offset = findCircle(measureLocation, null);
+            if (offset != null) {
+                // for later usage in the algorithm, the measureAngle is stored to the offset location in millimeter unit 
+                offset = offset.derive(null, null, null, measureAngle);
+
+                // add offset to array
+                nozzleTipMeasuredLocations.add(offset);
+
+                Logger.trace("[nozzleTipCalibration]measured offset: {}", offset);
+            }
+        }
+        return measureAngles.size();
+    }
+
+    /**
+     * Measures with the image processing of one angle overlapping the move to and capture of the
+     * next. The captures are made on the calling (machine) thread, the pipeline runs on a worker.
+     * If converge is true the runout model is refitted after every measurement and the
+     * measurement stops once it has predicted CONVERGENCE_HITS measurements in a row within the
+     * convergenceTolerance.
+     * 
+     * @return the number of measurements made.
+     */
+    private int measurePipelined(ReferenceNozzle nozzle, Camera camera, Location measureBaseLocation, 
+            Location excenter, List<Double> measureAngles, boolean converge, 
+            List<Location> nozzleTipMeasuredLocations) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NozzleTipCalibration");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The pipeline runs on the captured images, with the camera where it was at the time.
+        BufferedImageCamera imageCamera = new BufferedImageCamera(camera, null);
+        imageCamera.setHeadOffsets(camera.getLocation());
+        imageCamera.setSettleTimeMs(0);
+        IncrementalRunoutFit fit = new IncrementalRunoutFit();
+        int[] hits = new int[1];
+        try {
+            Future<Location> pending = null;
+            double pendingAngle = 0;
+            int measurements = 0;
+            for (double measureAngle : measureAngles) {
+                Logger.debug("[nozzleTipCalibration]i: {}, measureAngle: {}", measurements, measureAngle);
+                Location measureLocation = getMeasureLocation(measureBaseLocation, excenter, measureAngle);
+                nozzle.moveTo(measureLocation);
+                BufferedImage image = camera.settleAndCapture();
+
+                // While the previous image was processed the nozzle moved and this one was captured.
+                if (pending != null) {
+                    if (collectMeasurement(pending, pendingAngle, converge, fit, hits, 
+                            nozzleTipMeasuredLocations)) {
+                        Logger.debug("[nozzleTipCalibration]converged after {} measurements", measurements);
+                        return measurements;
+                    }
+                }
+                pending = executor.submit(() -> {
+                    imageCamera.setSource(image);
+                    return findCircle(measureLocation, imageCamera);
+                });
+                pendingAngle = measureAngle;
+                measurements++;
+            }
+            if (pending != null) {
+                collectMeasurement(pending, pendingAngle, converge, fit, hits, nozzleTipMeasuredLocations);
+            }
+            return measurements;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for a pending measurement and adds it to the results and the fit.
+     * 
+     * @return true if the fit has converged.
+     */
+    private boolean collectMeasurement(Future<Location> pending, double measureAngle, boolean converge,
+            IncrementalRunoutFit fit, int[] hits, List<Location> nozzleTipMeasuredLocations) throws Exception {
+        Location offset;
+        try {
+            offset = pending.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+        if (offset == null) {
+            return false;
+        }
+        offset = offset.derive(null, null, null, measureAngle);
+        nozzleTipMeasuredLocations.add(offset);
+        Logger.trace("[nozzleTipCalibration]measured offset: {}", offset);
+
+        if (fit.size() >= MIN_CONVERGENCE_MEASUREMENTS) {
+            Location predicted = fit.predict(measureAngle);
+            double error = predicted.getLinearDistanceTo(offset.convertToUnits(predicted.getUnits()));
+            double tolerance = convergenceTolerance.convertToUnits(predicted.getUnits()).getValue();
+            Logger.trace("[nozzleTipCalibration]model prediction error {} at {}", error, measureAngle);
+            hits[0] = (error <= tolerance) ? hits[0] + 1 : 0;
+        }
+        fit.add(offset);
+        return converge && hits[0] >= CONVERGENCE_HITS;
+    }
+
+    private Location getMeasureLocation(Location measureBaseLocation, Location excenter, double measureAngle) {
+        return measureBaseLocation
+                .derive(null, null, null, measureAngle)
+                .add(excenter.rotateXy(measureAngle));
+    }
+
+    /**
+     * Returns the order in which to visit count equally spaced angles. Normally that is simply
+     * ascending. When the measurement may stop early the angles are visited so that each one
+     * falls into the largest remaining gap, so that any prefix is spread around the circle and
+     * the model fitted from it is representative.
+     */
+    public static int[] getMeasurementOrder(int count, boolean spread) {
+        int[] order = new int[count];
+        if (!spread) {
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            return order;
+        }
+        boolean[] used = new boolean[count];
+        int n = 0;
+        // Van der Corput sequence in base 2: 0, 1/2, 1/4, 3/4, 1/8, ...
+        for (int k = 0; n < count && k < count * 4; k++) {
+            double position = 0;
+            double f = 0.5;
+            for (int b = k; b > 0; b >>= 1, f /= 2) {
+                if ((b & 1) != 0) {
+                    position += f;
+                }
+            }
+            int index = (int) Math.floor(position * count);
+            if (!used[index]) {
+                used[index] = true;
+                order[n++] = index;
+            }
+        }
+        for (int i = 0; n < count && i < count; i++) {
+            if (!used[i]) {
+                order[n++] = i;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Restores the stored calibration of the nozzle and its nozzle tip if the machine setup has
+     * not changed since, and a single capture at angleStart finds the nozzle tip within the 
+     * driftThreshold of where the stored model expects it.
+     * 
+     * @return true if the stored calibration was restored, false if a full calibration is needed.
+     */
+    private boolean restoreVerifiedCalibration(ReferenceNozzle nozzle, Camera camera, 
+            Location measureBaseLocation) throws Exception {
+        ReferenceNozzleTip nozzleTip = getNozzleTip(nozzle);
+        if (nozzleTip == null) {
+            return false;
+        }
+        NozzleTipCalibrationCache.Entry entry = 
+                NozzleTipCalibrationCache.get().getEntry(nozzle.getId(), nozzleTip.getId());
+        if (entry == null) {
+            Logger.debug("[nozzleTipCalibration]no stored calibration for {} on {}", 
+                    nozzleTip.getName(), nozzle.getName());
+            return false;
+        }
+        if (!entry.isSameSetup(camera.getLocation(), getCameraRotation(camera), nozzle.getHeadOffsets())) {
+            Logger.debug("[nozzleTipCalibration]stored calibration for {} on {} was made with a different camera or nozzle setup", 
+                    nozzleTip.getName(), nozzle.getName());
+            return false;
+        }
+        long ageMs = System.currentTimeMillis() - entry.getTimestamp();
+        if (maxCalibrationAgeHours > 0 && ageMs > maxCalibrationAgeHours * 3600_000L) {
+            Logger.debug("[nozzleTipCalibration]stored calibration for {} on {} is {} h old", 
+                    nozzleTip.getName(), nozzle.getName(), ageMs / 3600_000L);
+            return false;
+        }
+
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("nozzle", nozzle);
+        params.put("camera", camera);
+        try {
+            calibrating = true;
+            // Measure without compensation, like the calibration itself.
+            reset(nozzle);
+            Configuration.get().getScripting().on("NozzleCalibration.Starting", params);
+            Location measureLocation = measureBaseLocation.derive(null, null, null, angleStart);
+            MovableUtils.moveToLocationAtSafeZ(nozzle, measureLocation);
+            Location offset = findCircle(measureLocation, null);
+            Configuration.get().getScripting().on("NozzleCalibration.Finished", params);
+            if (offset == null) {
+                Logger.info("[nozzleTipCalibration]verification of {} on {} found no nozzle tip, recalibrating", 
+                        nozzleTip.getName(), nozzle.getName());
+                return false;
+            }
+            Location expected = entry.predict(angleStart);
+            double drift = expected.getLinearDistanceTo(offset);
+            double threshold = driftThreshold.convertToUnits(expected.getUnits()).getValue();
+            if (drift > threshold) {
+                Logger.info("[nozzleTipCalibration]{} on {} drifted {} {} since calibration, recalibrating", 
+                        nozzleTip.getName(), nozzle.getName(), drift, expected.getUnits().getShortName());
+                return false;
+            }
+            setRunoutCompensation(nozzle, entry.getRunoutCompensation());
+            Logger.info("[nozzleTipCalibration]reusing calibration of {} on {} from {} min ago, drift {} {}", 
+                    nozzleTip.getName(), nozzle.getName(), ageMs / 60_000L, drift, expected.getUnits().getShortName());
+            return true;
+        }
+        finally {
+            nozzle.moveToSafeZ();
+            calibrating = false;
+        }
+    }
+
+    private void storeCalibration(ReferenceNozzle nozzle, Camera camera, RunoutCompensation compensation, 
+            List<Location> nozzleTipMeasuredLocations) {
+        ReferenceNozzleTip nozzleTip = getNozzleTip(nozzle);
+        if (nozzleTip == null) {
+            return;
+        }
+        IncrementalRunoutFit fit = new IncrementalRunoutFit();
+        for (Location location : nozzleTipMeasuredLocations) {
+            fit.add(location);
+        }
+        NozzleTipCalibrationCache.get().putEntry(new NozzleTipCalibrationCache.Entry(
+                nozzle.getId(), nozzleTip.getId(), compensation, fit, 
+                camera.getLocation(), getCameraRotation(camera), nozzle.getHeadOffsets()));
+    }
+
+    private static double getCameraRotation(Camera camera) {
+        return (camera instanceof ReferenceCamera) ? ((ReferenceCamera) camera).getRotation() : 0;
+    }
+
+    /**
+     * Returns the nozzle tip this calibration belongs to, if it is the one calibrated on the nozzle.
+     */
+    private ReferenceNozzleTip getNozzleTip(ReferenceNozzle nozzle) {
+        ReferenceNozzleTip nozzleTip = nozzle.getCalibrationNozzleTip();
+        if (nozzleTip != null && nozzleTip.getCalibration() == this) {
+            return nozzleTip;
+        }
+        return null;
+    }
+
     public static void resetAllNozzleTips() {
         // Reset all nozzle tip calibrations, as they have become invalid due to some machine configuration change.
         for (NozzleTip nt: Configuration.get().getMachine().getNozzleTips()) {
@@ -625,6 +1065,27 @@ public class ReferenceNozzleTipCalibration extends AbstractModelObject {
 
     }
 
+    /**
+     * Returns the calibrated offset for the nozzle as a lookup table, so that it can be applied to
+     * every move without the cost of evaluating the runout compensation. Returns null if the
+     * calibration is disabled or the nozzle is not calibrated.
+     */
+    public RunoutCompensationTable getCalibratedOffsetTable(ReferenceNozzle nozzle) {
+        if (!isEnabled()) {
+            return null;
+        }
+        RunoutCompensation compensation = getRunoutCompensation(nozzle);
+        if (compensation == null) {
+            return null;
+        }
+        RunoutCompensationTable table = runoutCompensationTables.get(nozzle.getId());
+        if (table == null) {
+            table = new RunoutCompensationTable(compensation);
+            runoutCompensationTables.put(nozzle.getId(), table);
+        }
+        return table;
+    }
+
     /*
      * The axis offset determined in runout calibration can be applied as a tool specific camera offset.
      */
@@ -643,10 +1104,15 @@ public class ReferenceNozzleTipCalibration extends AbstractModelObject {
         return new Location(LengthUnit.Millimeters, 0, 0, 0, 0);
     }
 
-    private Location findCircle(Location measureLocation) throws Exception {
+    /**
+     * Runs the pipeline to find the nozzle tip. If imageCamera is not null the pipeline processes
+     * its image instead of capturing.
+     */
+    private Location findCircle(Location measureLocation, BufferedImageCamera imageCamera)
+            throws Exception {
         Camera camera = VisionUtils.getBottomVisionCamera();
         try (CvPipeline pipeline = getPipeline()) {
-            pipeline.setProperty("camera", camera);
+            pipeline.setProperty("camera", imageCamera == null ? camera : imageCamera);
             Point maskCenter = VisionUtils.getLocationPixels(camera, measureLocation);
             pipeline.setProperty("MaskCircle.center", new org.opencv.core.Point(maskCenter.getX(), maskCenter.getY()));
 
@@ -755,6 +1221,23 @@ public class ReferenceNozzleTipCalibration extends AbstractModelObject {
         // reset the nozzle tip + nozzle runout for all the nozzles this tip was attached to
         // i.e. just wipe the whole lookup table
         runoutCompensationLookup.clear();
+        runoutCompensationTables.clear();
+        // the stored calibrations are just as invalid, unless there is no machine yet, in which
+        // case nothing is stored for it either
+        Configuration configuration = Configuration.get();
+        Machine machine = configuration == null ? null : configuration.getMachine();
+        if (machine != null) {
+            try {
+                for (NozzleTip nt : machine.getNozzleTips()) {
+                    if (nt instanceof ReferenceNozzleTip && ((ReferenceNozzleTip) nt).getCalibration() == this) {
+                        NozzleTipCalibrationCache.get().remove(null, nt.getId());
+                    }
+                }
+            }
+            catch (Exception e) {
+                Logger.warn("Unable to remove the stored nozzle tip calibrations: {}", e);
+            }
+        }
         // inform UI about changed information
         firePropertyChange("calibrationInformation", null, null);
         // deprecated
@@ -778,6 +1261,7 @@ public class ReferenceNozzleTipCalibration extends AbstractModelObject {
             else {
                 runoutCompensationLookup.put(nozzle.getId(), runoutCompensation);
             }
+            runoutCompensationTables.remove(nozzle.getId());
                 
             // inform UI about changed information
             firePropertyChange("calibrationInformation", null, null);
@@ -847,6 +1331,22 @@ public class ReferenceNozzleTipCalibration extends AbstractModelObject {
         this.calibrationZOffset = calibrationZOffset;
     }
 
+    public Length getDriftThreshold() {
+        return driftThreshold;
+    }
+
+    public void setDriftThreshold(Length driftThreshold) {
+        this.driftThreshold = driftThreshold;
+    }
+
+    public int getMaxCalibrationAgeHours() {
+        return maxCalibrationAgeHours;
+    }
+
+    public void setMaxCalibrationAgeHours(int maxCalibrationAgeHours) {
+        this.maxCalibrationAgeHours = maxCalibrationAgeHours;
+    }
+
     public RecalibrationTrigger getRecalibrationTrigger() {
         return recalibrationTrigger;
     }
@@ -861,14 +1361,32 @@ public class ReferenceNozzleTipCalibration extends AbstractModelObject {
 
     public boolean isRecalibrateOnNozzleTipChangeNeeded(ReferenceNozzle nozzle) {
         return (recalibrationTrigger == RecalibrationTrigger.NozzleTipChange)
+                || (recalibrationTrigger == RecalibrationTrigger.DriftCheck)
                 || (recalibrationTrigger == RecalibrationTrigger.MachineHome && !isCalibrated(nozzle));
     }
 
     public boolean isRecalibrateOnHomeNeeded(ReferenceNozzle nozzle) {
         return recalibrationTrigger == RecalibrationTrigger.NozzleTipChange
+                ||  recalibrationTrigger == RecalibrationTrigger.DriftCheck
                 ||  recalibrationTrigger == RecalibrationTrigger.MachineHome;
     }
 
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    public Length getConvergenceTolerance() {
+        return convergenceTolerance;
+    }
+
+    public void setConvergenceTolerance(Length convergenceTolerance) {
+        this.convergenceTolerance = convergenceTolerance;
+    }
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -19,13 +19,19 @@
 
 package org.openpnp.machine.reference;
 
+import java.awt.image.BufferedImage;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.openpnp.gui.support.Wizard;
@@ -38,6 +44,7 @@ import org.openpnp.model.Location;
 import org.openpnp.model.Panel;
 import org.openpnp.model.Part;
 import org.openpnp.model.Placement;
+import org.openpnp.spi.Camera;
 import org.openpnp.spi.Feeder;
 import org.openpnp.spi.FiducialLocator;
 import org.openpnp.spi.Head;
@@ -72,6 +79,9 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
     @Attribute(required = false)
     protected JobOrderHint jobOrder = JobOrderHint.PartHeight;
 
+    @Attribute(required = false)
+    protected boolean warmupFeeders = true;
+
     @Element(required = false)
     public PnpJobPlanner planner = new SimplePnpJobPlanner();
 
@@ -84,6 +94,10 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
     protected List<JobPlacement> jobPlacements = new ArrayList<>();
 
     private Step currentStep = null;
+
+    private static ExecutorService planningExecutor;
+
+    private PlanAhead planAhead;
     
     long startTime;
     int totalPartsPlaced;
@@ -149,6 +163,7 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
             totalPartsPlaced = 0;
             
             jobPlacements.clear();
+            discardPlanAhead();
 
             // Create some shortcuts for things that won't change during the run
             machine = Configuration.get().getMachine();
@@ -179,7 +194,9 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
                 
                 checkDuplicateRefs(boardLocation);
                 
-                for (Placement placement : boardLocation.getBoard().getPlacements()) {
+                List<Placement> placements = boardLocation.getBoard().getPlacements();
+                for (int i = 0; i < placements.size(); i++) {
+                    Placement placement = placements.get(i);
                     // Ignore placements that aren't placements
                     if (placement.getType() != Placement.Type.Placement) {
                         continue;
@@ -190,7 +207,7 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
                     }
                     
                     // Ignore placements that are placed already
-                    if (boardLocation.getPlaced(placement.getId())) {
+                    if (boardLocation.getPlaced(i)) {
                         continue;
                     }
 
@@ -358,6 +375,95 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
                 return this;
             }
             
+            return new FeederWarmup();
+        }
+    }
+
+    /**
+     * Do the vision the feeders used by the job would otherwise do on their first feed, so the
+     * placement loop doesn't have to stop for it. The camera visits the feeders in nearest
+     * neighbor order and each image is processed in the background while the camera moves on
+     * to the next feeder.
+     * 
+     * Warm up is best effort: if a feeder's vision fails here the feeder simply does it again
+     * on its first feed, where the error is handled like any other feed error.
+     */
+    protected class FeederWarmup implements Step {
+        public Step step() throws JobProcessorException {
+            if (!warmupFeeders) {
+                return new Plan();
+            }
+
+            Map<ReferenceFeeder, Location> locations = new LinkedHashMap<>();
+            for (JobPlacement jobPlacement : getPendingJobPlacements()) {
+                Feeder feeder = findFeeder(machine, jobPlacement.getPlacement().getPart());
+                if (!(feeder instanceof ReferenceFeeder) || locations.containsKey(feeder)) {
+                    continue;
+                }
+                try {
+                    Location location = ((ReferenceFeeder) feeder).getWarmupLocation(head);
+                    if (location != null) {
+                        locations.put((ReferenceFeeder) feeder, location);
+                    }
+                }
+                catch (Exception e) {
+                    Logger.warn("Feeder {} vision warm up skipped: {}", feeder.getName(),
+                            e.getMessage());
+                }
+            }
+            if (locations.isEmpty()) {
+                return new Plan();
+            }
+
+            fireTextStatus("Warming up vision for %d feeders.", locations.size());
+            long t = System.currentTimeMillis();
+            ExecutorService executor =
+                    Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            List<Future<?>> futures = new ArrayList<>();
+            try {
+                Location current = head.getDefaultCamera().getLocation();
+                while (!locations.isEmpty()) {
+                    // Visit the closest remaining feeder next
+                    ReferenceFeeder feeder = null;
+                    double closest = Double.MAX_VALUE;
+                    for (Map.Entry<ReferenceFeeder, Location> entry : locations.entrySet()) {
+                        double distance = current.getLinearDistanceTo(entry.getValue());
+                        if (distance < closest) {
+                            closest = distance;
+                            feeder = entry.getKey();
+                        }
+                    }
+                    Location location = locations.remove(feeder);
+                    current = location;
+
+                    Camera camera = feeder.getWarmupCamera(head);
+                    MovableUtils.moveToLocationAtSafeZ(camera, location);
+                    BufferedImage image = camera.settleAndCapture();
+
+                    // Process the image while the camera moves on
+                    ReferenceFeeder warmupFeeder = feeder;
+                    futures.add(executor.submit(() -> {
+                        try {
+                            warmupFeeder.processWarmupImage(camera, location, image);
+                        }
+                        catch (Exception e) {
+                            Logger.warn("Feeder {} vision warm up failed: {}",
+                                    warmupFeeder.getName(), e.getMessage());
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+            catch (Exception e) {
+                throw new JobProcessorException(head, e);
+            }
+            finally {
+                executor.shutdownNow();
+            }
+            Logger.debug("Feeder warm up complete in {}ms", (System.currentTimeMillis() - t));
+
             return new Plan();
         }
     }
@@ -366,28 +472,19 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
         public Step step() throws JobProcessorException {
             fireTextStatus("Planning placements.");
 
-            List<JobPlacement> jobPlacements;
+            List<JobPlacement> pendingJobPlacements = getPendingJobPlacements();
 
-            if (jobOrder.equals(JobOrderHint.Part)) {
-                // Get the list of unfinished placements and sort them by part.
-                    jobPlacements = getPendingJobPlacements().stream()
-                            .sorted(Comparator.comparing(JobPlacement::getPartId))
-                            .collect(Collectors.toList());
-            } 
-            else {
-                // Get the list of unfinished placements and sort them by part height.
-                    jobPlacements = getPendingJobPlacements().stream()
-                            .sorted(Comparator.comparing(JobPlacement::getPartHeight))
-                            .collect(Collectors.toList());
-            }
-
-            if (jobPlacements.isEmpty()) {
+            if (pendingJobPlacements.isEmpty()) {
+                discardPlanAhead();
                 return new Finish();
             }
 
-            long t = System.currentTimeMillis();
-            List<PlannedPlacement> plannedPlacements = planner.plan(head, jobPlacements);
-            Logger.debug("Planner complete in {}ms: {}", (System.currentTimeMillis() - t), plannedPlacements);
+            List<PlannedPlacement> plannedPlacements = takePlanAhead(pendingJobPlacements);
+            if (plannedPlacements == null) {
+                long t = System.currentTimeMillis();
+                plannedPlacements = plan(pendingJobPlacements);
+                Logger.debug("Planner complete in {}ms: {}", (System.currentTimeMillis() - t), plannedPlacements);
+            }
 
             if (plannedPlacements.isEmpty()) {
                 throw new JobProcessorException(planner, "Planner failed to plan any placements. Please contact support.");
@@ -398,9 +495,27 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
             }
             
             Logger.debug("Planned placements {}", plannedPlacements);
+
+            // Start the feeds that can run in the background now, so that they happen while
+            // the head changes nozzle tips and makes the earlier picks.
+            for (PlannedPlacement plannedPlacement : plannedPlacements) {
+                prefeed(plannedPlacement);
+            }
             
             return new ChangeNozzleTips(plannedPlacements);
         }
+
+        private void prefeed(PlannedPlacement plannedPlacement) {
+            try {
+                Feeder feeder =
+                        findFeeder(machine, plannedPlacement.jobPlacement.getPlacement().getPart());
+                feeder.prefeed(plannedPlacement.nozzle);
+            }
+            catch (Exception e) {
+                // The Pick step reports any problem with the feeder.
+                Logger.debug(e);
+            }
+        }
     }
     
     protected class ChangeNozzleTips extends PlannedPlacementStep {
@@ -691,6 +806,9 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
     protected class Place extends PlannedPlacementStep {
         public Place(List<PlannedPlacement> plannedPlacements) {
             super(plannedPlacements);
+            // The nozzle tips are loaded and the placements of this cycle are no longer pending,
+            // so the next cycle can be planned while the head places these.
+            planAhead = new PlanAhead();
         }
 
         @Override
@@ -898,6 +1016,8 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
 
     protected class Cleanup implements Step {
         public Step step() throws JobProcessorException {
+            discardPlanAhead();
+
             fireTextStatus("Cleaning up.");
             
             try {
@@ -998,6 +1118,115 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
     protected boolean isJobComplete() {
         return getPendingJobPlacements().isEmpty();
     }
+
+    /**
+     * Sort the pending placements by the job order and plan the next cycle from them.
+     */
+    protected List<PlannedPlacement> plan(List<JobPlacement> pendingJobPlacements) {
+        List<JobPlacement> jobPlacements;
+
+        if (jobOrder.equals(JobOrderHint.Part)) {
+            // Sort the unfinished placements by part.
+            jobPlacements = pendingJobPlacements.stream()
+                    .sorted(Comparator.comparing(JobPlacement::getPartId))
+                    .collect(Collectors.toList());
+        }
+        else {
+            // Sort the unfinished placements by part height.
+            jobPlacements = pendingJobPlacements.stream()
+                    .sorted(Comparator.comparing(JobPlacement::getPartHeight))
+                    .collect(Collectors.toList());
+        }
+
+        return planner.plan(head, jobPlacements);
+    }
+
+    /**
+     * Returns the plan made ahead for the given pending placements, or null if there is none or
+     * if anything it was made from has changed since.
+     */
+    private List<PlannedPlacement> takePlanAhead(List<JobPlacement> pendingJobPlacements) {
+        PlanAhead planAhead = this.planAhead;
+        this.planAhead = null;
+        if (planAhead == null) {
+            return null;
+        }
+        return planAhead.get(pendingJobPlacements);
+    }
+
+    private void discardPlanAhead() {
+        takePlanAhead(null);
+    }
+
+    private List<NozzleTip> getLoadedNozzleTips() {
+        return head.getNozzles()
+                .stream()
+                .map(Nozzle::getNozzleTip)
+                .collect(Collectors.toList());
+    }
+
+    private static synchronized ExecutorService getPlanningExecutor() {
+        if (planningExecutor == null) {
+            planningExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "ReferencePnpJobProcessor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return planningExecutor;
+    }
+
+    /**
+     * The plan for the next cycle, made on a background thread while the head places the parts
+     * of the current cycle. The planner then runs on the placements that will still be pending
+     * and the nozzle tips that will still be loaded when the Plan step comes around, so the
+     * plan is the one that step would make itself, unless the user changes something in the
+     * meantime. The Plan step checks for that and plans again if so.
+     */
+    private class PlanAhead {
+        private final List<JobPlacement> pendingJobPlacements = getPendingJobPlacements();
+        private final List<NozzleTip> nozzleTips = getLoadedNozzleTips();
+        private final JobOrderHint jobOrder = ReferencePnpJobProcessor.this.jobOrder;
+        private final PnpJobPlanner planner = ReferencePnpJobProcessor.this.planner;
+        private final Future<List<PlannedPlacement>> plannedPlacements;
+
+        PlanAhead() {
+            plannedPlacements = getPlanningExecutor().submit(() -> {
+                if (pendingJobPlacements.isEmpty()) {
+                    return null;
+                }
+                long t = System.currentTimeMillis();
+                List<PlannedPlacement> result = plan(pendingJobPlacements);
+                Logger.debug("Planner complete ahead in {}ms: {}",
+                        (System.currentTimeMillis() - t), result);
+                return result;
+            });
+        }
+
+        /**
+         * Wait for the plan and return it if it was made from the given pending placements and
+         * nothing else has changed. The wait comes first even if the plan won't be used, so the
+         * planner is never called while it is still busy with this one.
+         */
+        List<PlannedPlacement> get(List<JobPlacement> pendingJobPlacements) {
+            List<PlannedPlacement> result;
+            try {
+                result = plannedPlacements.get();
+            }
+            catch (Exception e) {
+                // Let the Plan step plan again and report the problem, if there still is one.
+                Logger.debug(e);
+                return null;
+            }
+            if (jobOrder != ReferencePnpJobProcessor.this.jobOrder
+                    || planner != ReferencePnpJobProcessor.this.planner
+                    || !nozzleTips.equals(getLoadedNozzleTips())
+                    || !this.pendingJobPlacements.equals(pendingJobPlacements)) {
+                return null;
+            }
+            return result;
+        }
+    }
     
     @Override
     public Wizard getConfigurationWizard() {
@@ -1012,6 +1241,14 @@ public class ReferencePnpJobProcessor extends AbstractPnpJobProcessor {
         this.jobOrder = newJobOrder;
     }    
 
+    public boolean isWarmupFeeders() {
+        return warmupFeeders;
+    }
+
+    public void setWarmupFeeders(boolean warmupFeeders) {
+        this.warmupFeeders = warmupFeeders;
+    }
+
     protected abstract class PlannedPlacementStep implements Step {
         protected final List<PlannedPlacement> plannedPlacements;
         private Set<PlannedPlacement> completed = new HashSet<>();
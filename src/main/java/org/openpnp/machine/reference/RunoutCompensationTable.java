@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+ *
+ * This file is part of OpenPnP.
+ *
+ * OpenPnP is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * OpenPnP is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with OpenPnP. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * For more information about OpenPnP visit http://openpnp.org
+ */
+
+package org.openpnp.machine.reference;
+
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration.RunoutCompensation;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+
+/**
+ * A RunoutCompensation sampled every RESOLUTION degrees over a full turn. Looking up an offset is
+ * then a linear interpolation between two table entries, without trigonometry or allocation,
+ * which keeps runout compensation cheap enough to apply to every nozzle move.
+ */
+public class RunoutCompensationTable {
+    /**
+     * The angle between table entries, in degrees.
+     */
+    public static final double RESOLUTION = 0.1;
+
+    private static final int SIZE = (int) Math.round(360 / RESOLUTION);
+
+    private final LengthUnit units;
+    // One extra entry at +180° so that interpolation never has to wrap around.
+    private final double[] offsetsX = new double[SIZE + 1];
+    private final double[] offsetsY = new double[SIZE + 1];
+
+    public RunoutCompensationTable(RunoutCompensation compensation) {
+        units = compensation.getOffset(-180).getUnits();
+        for (int i = 0; i <= SIZE; i++) {
+            Location offset = compensation.getOffset(-180 + i * RESOLUTION).convertToUnits(units);
+            offsetsX[i] = offset.getX();
+            offsetsY[i] = offset.getY();
+        }
+    }
+
+    /**
+     * The units of the offsets returned by getOffsetX and getOffsetY.
+     */
+    public LengthUnit getUnits() {
+        return units;
+    }
+
+    public double getOffsetX(double angle) {
+        return interpolate(offsetsX, angle);
+    }
+
+    public double getOffsetY(double angle) {
+        return interpolate(offsetsY, angle);
+    }
+
+    private static double interpolate(double[] offsets, double angle) {
+        double position = ((angle + 180) % 360) / RESOLUTION;
+        if (position < 0) {
+            position += SIZE;
+        }
+        int index = (int) position;
+        if (index >= SIZE) {
+            // Rounding put the angle on the +180° end.
+            return offsets[SIZE];
+        }
+        double fraction = position - index;
+        return offsets[index] + (offsets[index + 1] - offsets[index]) * fraction;
+    }
+}
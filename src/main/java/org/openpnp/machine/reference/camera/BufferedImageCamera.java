@@ -34,12 +34,20 @@ public class BufferedImageCamera extends ReferenceCamera {
     private BufferedImage source;
 
     public BufferedImageCamera(Camera _originalCamera, BufferedImage _source) {
+        super(false);
         originalCamera = _originalCamera;
         source = _source;
 
         setUnitsPerPixel(originalCamera.getUnitsPerPixel());
     }
 
+    /**
+     * Replace the image, so that one camera can stand in for a series of captures.
+     */
+    public synchronized void setSource(BufferedImage source) {
+        this.source = source;
+    }
+
     @Override
     public synchronized BufferedImage internalCapture() {
         // Don't do transformImage() like regular cameras - expect the image in this camera to have already
@@ -47,6 +55,14 @@ public class BufferedImageCamera extends ReferenceCamera {
         return source;
     }
 
+    /**
+     * The image is already in memory, so there is no device to wait for.
+     */
+    @Override
+    public Object getCaptureDevice() {
+        return null;
+    }
+
     @Override
     public Wizard getConfigurationWizard() {
         return null;
@@ -0,0 +1,425 @@
+/*
+ * Copyright (C) 2016 Jason von Nieda <jason@vonnieda.org>
+ *
+ * This file is part of OpenPnP.
+ *
+ * OpenPnP is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * OpenPnP is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with OpenPnP. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * For more information about OpenPnP visit http://openpnp.org
+ */
+
+package org.openpnp.machine.reference.camera;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.videoio.VideoCapture;
+import org.openpnp.util.OpenCvUtils;
+import org.pmw.tinylog.Logger;
+
+/**
+ * Reads the video stream of an IP camera in the background and keeps the most recent frame
+ * available for capture. HTTP URLs are read as MJPEG (multipart JPEG) streams: a reader thread
+ * splits the stream into JPEG frames and a decoder thread decodes the newest one, so a slow
+ * decode drops frames rather than falling behind the stream. rtsp:// URLs are opened with
+ * OpenCV's VideoCapture, which requires an OpenCV build with FFmpeg support.
+ *
+ * Frames are decoded straight to BGR and, if requested, resized by OpenCV, so the images are
+ * TYPE_3BYTE_BGR and need no conversion on their way into the vision pipeline.
+ *
+ * Lost connections are retried until the stream is closed.
+ */
+public class IPCameraStream implements Closeable {
+    static {
+        nu.pattern.OpenCV.loadShared();
+        System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
+    }
+
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final int READ_TIMEOUT_MS = 5000;
+    private static final long RECONNECT_DELAY_MS = 1000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int resizeWidth;
+    private final int resizeHeight;
+
+    private volatile boolean running;
+    private Thread readerThread;
+    private Thread decoderThread;
+    private volatile InputStream in;
+
+    // The newest encoded frame waiting for the decoder, guarded by encodedLock.
+    private final Object encodedLock = new Object();
+    private byte[] encoded;
+    private long encodedTime;
+
+    // The newest decoded frame, guarded by frameLock.
+    private final Object frameLock = new Object();
+    private BufferedImage frame;
+    private long frameCount;
+
+    // The most recent frames and the times they were received, for getFrameTime(), guarded by
+    // frameLock.
+    private final BufferedImage[] recentFrames = new BufferedImage[4];
+    private final long[] recentFrameTimes = new long[recentFrames.length];
+
+    /**
+     * @param url An http:// MJPEG stream URL or an rtsp:// URL.
+     * @param username The username for HTTP basic authentication, or null for none.
+     * @param password
+     * @param resizeWidth The width to resize frames to, or 0 to keep the stream's width.
+     * @param resizeHeight The height to resize frames to, or 0 to keep the stream's height.
+     */
+    public IPCameraStream(String url, String username, String password, int resizeWidth,
+            int resizeHeight) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.resizeWidth = resizeWidth;
+        this.resizeHeight = resizeHeight;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        if (url.toLowerCase().startsWith("rtsp:")) {
+            readerThread = new Thread(this::readVideoCapture, "IPCameraStream " + url);
+        }
+        else {
+            readerThread = new Thread(this::readMjpeg, "IPCameraStream " + url);
+            decoderThread = new Thread(this::decode, "IPCameraStream decoder " + url);
+            decoderThread.setDaemon(true);
+            decoderThread.start();
+        }
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        closeQuietly(in);
+        for (Thread thread : new Thread[] {readerThread, decoderThread}) {
+            if (thread == null) {
+                continue;
+            }
+            thread.interrupt();
+            try {
+                thread.join(3000);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        readerThread = null;
+        decoderThread = null;
+    }
+
+    /**
+     * Returns the most recent frame, or null if no frame has been received yet.
+     */
+    public BufferedImage getFrame() {
+        synchronized (frameLock) {
+            return frame;
+        }
+    }
+
+    /**
+     * Returns the number of frames decoded so far.
+     */
+    public long getFrameCount() {
+        synchronized (frameLock) {
+            return frameCount;
+        }
+    }
+
+    /**
+     * Returns the time, in System.currentTimeMillis() terms, that the given frame was received
+     * from the camera, or -1 if it isn't one of the most recent frames. The frame was exposed
+     * somewhat earlier, by the latency of the camera and the network.
+     *
+     * @param image
+     * @return
+     */
+    public long getFrameTime(BufferedImage image) {
+        synchronized (frameLock) {
+            for (int i = 0; i < recentFrames.length; i++) {
+                if (recentFrames[i] == image && image != null) {
+                    return recentFrameTimes[i];
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Wait up to timeoutMs for a frame newer than the given frame count and return the most
+     * recent frame, which is null if no frame has been received at all.
+     *
+     * @param afterFrameCount
+     * @param timeoutMs
+     * @return
+     * @throws InterruptedException
+     */
+    public BufferedImage awaitFrame(long afterFrameCount, long timeoutMs)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (frameLock) {
+            while (frameCount <= afterFrameCount) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                frameLock.wait(remaining);
+            }
+            return frame;
+        }
+    }
+
+    private void readMjpeg() {
+        while (running) {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+                connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+                connection.setReadTimeout(READ_TIMEOUT_MS);
+                if (username != null && !username.isEmpty()) {
+                    String credentials = username + ":" + (password == null ? "" : password);
+                    connection.setRequestProperty("Authorization", "Basic " + Base64.getEncoder()
+                            .encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+                }
+                in = connection.getInputStream();
+                try {
+                    readFrames(in);
+                }
+                finally {
+                    closeQuietly(in);
+                    connection.disconnect();
+                }
+            }
+            catch (Exception e) {
+                if (running) {
+                    Logger.warn("IP camera stream {} failed: {}", url, e.getMessage());
+                }
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                }
+                catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Split the stream into JPEG frames by their start (FF D8) and end (FF D9) of image markers.
+     * This works for any multipart boundary and for streams that don't send a Content-Length
+     * with each part. Entropy coded JPEG data can't contain FF D9, so the first one after a
+     * start marker ends the frame.
+     */
+    private void readFrames(InputStream in) throws IOException {
+        byte[] chunk = new byte[16 * 1024];
+        byte[] frameBuffer = new byte[256 * 1024];
+        int frameLength = 0;
+        boolean inFrame = false;
+        int previous = -1;
+        int count;
+        while (running && (count = in.read(chunk)) != -1) {
+            int frameStart = inFrame ? 0 : -1;
+            for (int i = 0; i < count; i++) {
+                int b = chunk[i] & 0xFF;
+                if (previous == 0xFF) {
+                    if (!inFrame && b == 0xD8) {
+                        inFrame = true;
+                        frameBuffer[0] = (byte) 0xFF;
+                        frameLength = 1;
+                        frameStart = i;
+                    }
+                    else if (inFrame && b == 0xD9) {
+                        frameBuffer = append(frameBuffer, frameLength, chunk, frameStart,
+                                i + 1 - frameStart);
+                        frameLength += i + 1 - frameStart;
+                        offerEncoded(Arrays.copyOf(frameBuffer, frameLength));
+                        inFrame = false;
+                        frameStart = -1;
+                        b = -1;
+                    }
+                }
+                previous = b;
+            }
+            if (inFrame) {
+                frameBuffer = append(frameBuffer, frameLength, chunk, frameStart,
+                        count - frameStart);
+                frameLength += count - frameStart;
+            }
+        }
+    }
+
+    private static byte[] append(byte[] buffer, int length, byte[] src, int offset, int count) {
+        if (length + count > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+        }
+        System.arraycopy(src, offset, buffer, length, count);
+        return buffer;
+    }
+
+    /**
+     * Hand a complete encoded frame to the decoder, replacing any frame it hasn't got to yet.
+     */
+    private void offerEncoded(byte[] data) {
+        synchronized (encodedLock) {
+            encoded = data;
+            encodedTime = System.currentTimeMillis();
+            encodedLock.notifyAll();
+        }
+    }
+
+    private void decode() {
+        MatOfByte encodedMat = new MatOfByte();
+        try {
+            while (running) {
+                byte[] data;
+                long time;
+                synchronized (encodedLock) {
+                    while (encoded == null) {
+                        encodedLock.wait();
+                    }
+                    data = encoded;
+                    time = encodedTime;
+                    encoded = null;
+                }
+                encodedMat.fromArray(data);
+                Mat mat = Imgcodecs.imdecode(encodedMat, Imgcodecs.IMREAD_COLOR);
+                if (mat.empty()) {
+                    Logger.debug("IP camera stream {}: undecodable frame skipped.", url);
+                }
+                else {
+                    publish(mat, time);
+                }
+                mat.release();
+            }
+        }
+        catch (InterruptedException e) {
+            // closed
+        }
+        finally {
+            encodedMat.release();
+        }
+    }
+
+    private void readVideoCapture() {
+        Mat mat = new Mat();
+        while (running) {
+            VideoCapture capture = new VideoCapture();
+            try {
+                if (!capture.open(url)) {
+                    Logger.warn("IP camera stream {} could not be opened.", url);
+                }
+                else {
+                    while (running && capture.read(mat)) {
+                        if (!mat.empty()) {
+                            publish(mat, System.currentTimeMillis());
+                        }
+                    }
+                }
+            }
+            catch (Exception e) {
+                if (running) {
+                    Logger.warn("IP camera stream {} failed: {}", url, e.getMessage());
+                }
+            }
+            finally {
+                capture.release();
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                }
+                catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+        mat.release();
+    }
+
+    /**
+     * Resize a decoded BGR frame if needed, convert it to a BufferedImage and make it the
+     * current frame, received at the given time. The caller keeps ownership of the Mat.
+     */
+    private void publish(Mat mat, long time) {
+        BufferedImage image;
+        int width = resizeWidth != 0 ? resizeWidth : mat.cols();
+        int height = resizeHeight != 0 ? resizeHeight : mat.rows();
+        if (width != mat.cols() || height != mat.rows()) {
+            Mat resized = resize(mat, width, height);
+            image = OpenCvUtils.toBufferedImage(resized);
+            resized.release();
+        }
+        else {
+            image = OpenCvUtils.toBufferedImage(mat);
+        }
+        synchronized (frameLock) {
+            frame = image;
+            int index = (int) (frameCount % recentFrames.length);
+            recentFrames[index] = image;
+            recentFrameTimes[index] = time;
+            frameCount++;
+            frameLock.notifyAll();
+        }
+    }
+
+    /**
+     * Resize a frame with OpenCV, using area interpolation when shrinking and cubic when
+     * enlarging.
+     */
+    static Mat resize(Mat mat, int width, int height) {
+        Mat resized = new Mat();
+        int interpolation = (width < mat.cols() || height < mat.rows()) ? Imgproc.INTER_AREA
+                : Imgproc.INTER_CUBIC;
+        Imgproc.resize(mat, resized, new Size(width, height), 0, 0, interpolation);
+        return resized;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        }
+        catch (IOException e) {
+            // nothing to do
+        }
+    }
+}
@@ -21,8 +21,10 @@ package org.openpnp.machine.reference.camera;
 
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.beans.PropertyChangeSupport;
 import java.net.URL;
+import java.util.Arrays;
 
 import javax.imageio.ImageIO;
 
@@ -33,6 +35,7 @@ import org.openpnp.machine.reference.camera.wizards.ImageCameraConfigurationWiza
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.spi.PropertySheetHolder;
+import org.openpnp.util.ImageUtils;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 import org.simpleframework.xml.core.Commit;
@@ -54,6 +57,11 @@ public class ImageCamera extends ReferenceCamera implements Runnable {
 
     private BufferedImage source;
 
+    private BufferedImage frame;
+    private BufferedImage backBuffer;
+    private int frameX;
+    private int frameY;
+
     private Thread thread;
 
     public ImageCamera() {
@@ -120,13 +128,6 @@ public class ImageCamera extends ReferenceCamera implements Runnable {
 
     @Override
     public synchronized BufferedImage internalCapture() {
-        /*
-         * Create a buffer that we will render the center tile and it's surrounding tiles to.
-         */
-        BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-
-        Graphics gFrame = frame.getGraphics();
-
         Location location = getLocation();
         double locationX = location.getX();
         double locationY = location.getY();
@@ -137,12 +138,37 @@ public class ImageCamera extends ReferenceCamera implements Runnable {
         int dx1 = (int) (pixelX - (width / 2));
         int dy1 = (int) (source.getHeight() - (pixelY + (height / 2)));
 
+        // If the view hasn't moved the last frame is still good.
+        if (frame != null && frame.getWidth() == width && frame.getHeight() == height
+                && dx1 == frameX && dy1 == frameY) {
+            return frame;
+        }
+
+        /*
+         * Render the view into the back buffer. Frames alternate between two buffers so that a
+         * frame that has been returned stays intact until the view changes twice.
+         */
+        BufferedImage image = backBuffer;
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        }
+        else {
+            // clear to black, for views that extend past the edge of the source
+            Arrays.fill(((DataBufferByte) image.getRaster().getDataBuffer()).getData(), (byte) 0);
+        }
+
+        Graphics gFrame = image.getGraphics();
+
         gFrame.drawImage(source, 0, 0, width - 1, height - 1, dx1, dy1, dx1 + width - 1,
                 dy1 + height - 1, null);
 
         gFrame.dispose();
 
-        return frame;
+        backBuffer = frame;
+        frame = image;
+        frameX = dx1;
+        frameY = dy1;
+        return image;
     }
 
     private synchronized void initialize() throws Exception {
@@ -155,6 +181,10 @@ public class ImageCamera extends ReferenceCamera implements Runnable {
         else {
             source = ImageIO.read(new URL(sourceUri));
         }
+        // Keep the source in the same layout as the frames so drawing it is a plain copy.
+        source = ImageUtils.convertBufferedImage(source, BufferedImage.TYPE_3BYTE_BGR);
+        frame = null;
+        backBuffer = null;
 
         if (listeners.size() > 0) {
             start();
@@ -19,18 +19,17 @@
 
 package org.openpnp.machine.reference.camera;
 
-import java.awt.Graphics2D;
-import java.awt.Image;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.ConnectException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.List;
 
-import javax.imageio.ImageIO;
 import javax.xml.soap.SOAPException;
 
+import org.apache.commons.io.IOUtils;
 import org.onvif.ver10.device.wsdl.GetDeviceInformationResponse;
 import org.onvif.ver10.schema.JpegOptions;
 import org.onvif.ver10.schema.Profile;
@@ -39,11 +38,15 @@ import org.onvif.ver10.schema.VideoEncoderConfigurationOptions;
 import org.onvif.ver10.schema.VideoEncoding;
 import org.onvif.ver10.schema.VideoRateControl;
 import org.onvif.ver10.schema.VideoResolution;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
 import org.openpnp.CameraListener;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.ReferenceCamera;
 import org.openpnp.machine.reference.camera.wizards.OnvifIPCameraConfigurationWizard;
 import org.openpnp.spi.PropertySheetHolder;
+import org.openpnp.util.OpenCvUtils;
 import org.simpleframework.xml.Attribute;
 
 import de.onvif.soap.OnvifDevice;
@@ -65,6 +68,20 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
     @Attribute(required = false)
     private int fps = 10;
 
+    /**
+     * If streamingEnabled is set frames are taken from the camera's MJPEG or RTSP stream, which
+     * is read continuously in the background, instead of requesting a snapshot for each frame.
+     */
+    @Attribute(required = false)
+    private boolean streamingEnabled = false;
+
+    /**
+     * Optional stream URI. If not set the camera is asked for its HTTP (MJPEG) stream URI,
+     * falling back to its RTSP stream URI.
+     */
+    @Attribute(required = false)
+    private String streamURI;
+
     @Attribute(required = false)
     private String hostIP;
     @Attribute(required = false)
@@ -75,8 +92,24 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
     private Thread thread;
     private boolean dirty = false;
 
+    /**
+     * How long the first capture from a newly opened stream waits for its first frame before
+     * falling back to a snapshot. Later captures don't wait again, but take a snapshot for as
+     * long as the stream has not delivered a frame.
+     */
+    private static final long FIRST_FRAME_TIMEOUT_MS = 2000;
+
+    /**
+     * How long a capture waits for a frame received after the settle time elapsed before
+     * falling back to a snapshot.
+     */
+    private static final long SETTLED_FRAME_TIMEOUT_MS = 1000;
+
     private OnvifDevice nvt;
     private URL snapshotURI;
+    private IPCameraStream stream;
+    private IPCameraStream awaitedStream;
+    private volatile long settledAt;
 
     public OnvifIPCamera() {}
 
@@ -86,10 +119,27 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
             initCamera();
         }
         try {
+            IPCameraStream stream = this.stream;
+            if (stream != null) {
+                BufferedImage image = stream.getFrame();
+                if (image == null && awaitedStream != stream) {
+                    awaitedStream = stream;
+                    image = stream.awaitFrame(0, FIRST_FRAME_TIMEOUT_MS);
+                }
+                if (image != null && stream.getFrameTime(image) < settledAt) {
+                    image = stream.awaitFrame(stream.getFrameCount(), SETTLED_FRAME_TIMEOUT_MS);
+                    if (stream.getFrameTime(image) < settledAt) {
+                        image = null;
+                    }
+                }
+                if (image != null) {
+                    return image;
+                }
+            }
             if (snapshotURI == null) {
                 return null;
             }
-            return resizeImage(ImageIO.read(snapshotURI));
+            return readSnapshot();
         }
         catch (Exception e) {
             e.printStackTrace();
@@ -97,28 +147,60 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
         }
     }
 
-    private BufferedImage resizeImage(BufferedImage src) {
-        int imgW = src.getWidth();
-        int imgH = src.getHeight();
-        if (resizeWidth != 0) {
-            imgW = resizeWidth;
+    /**
+     * Fetch a snapshot and decode it with OpenCV, straight to BGR, resizing it if needed.
+     */
+    private BufferedImage readSnapshot() throws IOException {
+        MatOfByte encoded;
+        try (InputStream in = snapshotURI.openStream()) {
+            encoded = new MatOfByte(IOUtils.toByteArray(in));
         }
-        if (resizeHeight != 0) {
-            imgH = resizeHeight;
+        Mat mat = Imgcodecs.imdecode(encoded, Imgcodecs.IMREAD_COLOR);
+        encoded.release();
+        try {
+            if (mat.empty()) {
+                return null;
+            }
+            int imgW = resizeWidth != 0 ? resizeWidth : mat.cols();
+            int imgH = resizeHeight != 0 ? resizeHeight : mat.rows();
+            if ((imgW != mat.cols()) || (imgH != mat.rows())) {
+                Mat resized = IPCameraStream.resize(mat, imgW, imgH);
+                BufferedImage image = OpenCvUtils.toBufferedImage(resized);
+                resized.release();
+                return image;
+            }
+            return OpenCvUtils.toBufferedImage(mat);
         }
+        finally {
+            mat.release();
+        }
+    }
 
-        if ((imgW != src.getWidth()) || (imgH != src.getHeight())) {
-            Image tmp = src.getScaledInstance(imgW, imgH, Image.SCALE_SMOOTH);
-            BufferedImage dst = new BufferedImage(imgW, imgH, BufferedImage.TYPE_INT_RGB);
-
-            Graphics2D g2d = dst.createGraphics();
-            g2d.drawImage(tmp, 0, 0, null);
-            g2d.dispose();
+    /**
+     * Streamed frames are known by the time they were received, so auto settle can skip frames
+     * received before it started. Snapshots are fetched when asked for, so they are never
+     * stale.
+     */
+    @Override
+    protected long getFrameTimestamp(BufferedImage image) {
+        IPCameraStream stream = this.stream;
+        return stream == null ? -1 : stream.getFrameTime(image);
+    }
 
-            return dst;
+    /**
+     * The stream keeps delivering frames while the machine moves, so the most recent frame may
+     * have been received before the settle time elapsed and show the camera still moving. With
+     * a fixed settle time, frames received before the settle point are discarded, and the
+     * capture waits for the next one. Note that a frame is exposed earlier than it is received,
+     * so the settle time must still cover the latency of the camera and the network. Auto
+     * settle skips stale frames using getFrameTimestamp().
+     */
+    @Override
+    public BufferedImage settleAndCapture() throws Exception {
+        if (stream != null && getSettleTimeMs() >= 0) {
+            settledAt = System.currentTimeMillis() + getSettleTimeMs();
         }
-
-        return src;
+        return super.settleAndCapture();
     }
 
     @Override
@@ -180,6 +262,11 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
             height = null;
             nvt = null;
             snapshotURI = null;
+            if (stream != null) {
+                stream.close();
+                stream = null;
+            }
+            String streamURI = this.streamURI;
 
             if ((hostIP != null) && (!hostIP.isEmpty())) {
                 try {
@@ -256,6 +343,10 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
 
                     snapshotURI = new URL(media.getSnapshotUri(profileToken));
                     System.out.println("Snapshot URI: " + snapshotURI.toString());
+
+                    if (streamingEnabled && (streamURI == null || streamURI.isEmpty())) {
+                        streamURI = findStreamUri(media, profileToken);
+                    }
                 }
                 catch (ConnectException e) {
                     System.err.println("Could not connect to IP camera at " + hostIP + ": " + e.toString());
@@ -274,6 +365,13 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
                     e.printStackTrace();
                 }
             }
+
+            if (streamingEnabled && streamURI != null && !streamURI.isEmpty()) {
+                System.out.println("Stream URI: " + streamURI);
+                stream = new IPCameraStream(streamURI, username, password, resizeWidth,
+                        resizeHeight);
+                stream.start();
+            }
         }
         catch (Exception e) {
             e.printStackTrace();
@@ -284,9 +382,32 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
         thread.start();
     }
 
+    private String findStreamUri(MediaDevices media, String profileToken) {
+        try {
+            String uri = media.getHTTPStreamUri(profileToken);
+            if (uri != null && !uri.isEmpty()) {
+                return uri;
+            }
+        }
+        catch (Exception e) {
+            System.err.println("No HTTP stream for IP camera at " + hostIP + ": " + e.toString());
+        }
+        try {
+            return media.getRTSPStreamUri(profileToken);
+        }
+        catch (Exception e) {
+            System.err.println("No RTSP stream for IP camera at " + hostIP + ": " + e.toString());
+            return null;
+        }
+    }
+
     @Override
     public void close() throws IOException {
         super.close();
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
         if (thread != null) {
             thread.interrupt();
             try {
@@ -380,6 +501,8 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
 
     public void setResizeWidth(int resizeWidth) {
         this.resizeWidth = resizeWidth;
+        // The stream resizes as it decodes, so it has to be reopened.
+        setDirty(true);
     }
 
     public int getResizeHeight() {
@@ -388,6 +511,7 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
 
     public void setResizeHeight(int resizeHeight) {
         this.resizeHeight = resizeHeight;
+        setDirty(true);
     }
 
     public int getFps() {
@@ -398,6 +522,24 @@ public class OnvifIPCamera extends ReferenceCamera implements Runnable {
         this.fps = fps;
     }
 
+    public boolean isStreamingEnabled() {
+        return streamingEnabled;
+    }
+
+    public void setStreamingEnabled(boolean streamingEnabled) {
+        this.streamingEnabled = streamingEnabled;
+        setDirty(true);
+    }
+
+    public String getStreamURI() {
+        return streamURI;
+    }
+
+    public void setStreamURI(String streamURI) {
+        this.streamURI = streamURI;
+        setDirty(true);
+    }
+
     public boolean isDirty() {
         return dirty;
     }
@@ -63,7 +63,9 @@ public class OpenCvCamera extends ReferenceCamera implements Runnable {
     private Thread thread;
     private boolean dirty = false;
 
-    public OpenCvCamera() {}
+    public OpenCvCamera() {
+        openDeviceWhenConfigured();
+    }
 
     @Override
     public synchronized BufferedImage internalCapture() {
@@ -85,6 +87,13 @@ public class OpenCvCamera extends ReferenceCamera implements Runnable {
         }
     }
 
+    @Override
+    protected synchronized void openDevice() {
+        if (thread == null) {
+            initCamera();
+        }
+    }
+
     @Override
     public synchronized void startContinuousCapture(CameraListener listener) {
         if (thread == null) {
@@ -36,7 +36,6 @@ import org.openpnp.machine.reference.ReferenceCamera;
 import org.openpnp.machine.reference.camera.wizards.OpenPnpCaptureCameraConfigurationWizard;
 import org.openpnp.model.AbstractModelObject;
 import org.openpnp.model.Configuration;
-import org.openpnp.spi.Head;
 import org.openpnp.spi.Machine;
 import org.openpnp.spi.MachineListener;
 import org.openpnp.spi.PropertySheetHolder;
@@ -105,6 +104,10 @@ public class OpenPnpCaptureCamera extends ReferenceCamera implements Runnable {
     // a new image.
     private Object captureNotifier = new Object();
 
+    // When the camera isn't streaming at a fixed fps, machine activity wakes the stream thread
+    // at most this many times a second.
+    private static final int ACTIVITY_CAPTURES_PER_SECOND = 15;
+
     public OpenPnpCaptureCamera() {
         // TODO Seems silly this has to be in every implementation. Should Camera implement MachineListener
         // and every camera gets added as a listener automatically? And we codify the notifyCapture()
@@ -112,18 +115,10 @@ public class OpenPnpCaptureCamera extends ReferenceCamera implements Runnable {
         Configuration.get().addListener(new ConfigurationListener.Adapter() {
             @Override
             public void configurationComplete(Configuration configuration) throws Exception {
-                Configuration.get().getMachine().addListener(new MachineListener.Adapter() {
-                    public void notifyCapture() {
-                        synchronized(captureNotifier) {
-                            captureNotifier.notifyAll();
-                        }
-                    }
-                    
-                    @Override
-                    public void machineHeadActivity(Machine machine, Head head) {
-                        notifyCapture();
-                    }
-
+                Machine machine = Configuration.get().getMachine();
+                machine.addActivityListener((m, heads, activities) -> notifyCapture(),
+                        ACTIVITY_CAPTURES_PER_SECOND, false);
+                machine.addListener(new MachineListener.Adapter() {
                     @Override
                     public void machineEnabled(Machine machine) {
                         notifyCapture();
@@ -131,6 +126,13 @@ public class OpenPnpCaptureCamera extends ReferenceCamera implements Runnable {
                 });
             }
         });
+        openDeviceWhenConfigured();
+    }
+
+    private void notifyCapture() {
+        synchronized(captureNotifier) {
+            captureNotifier.notifyAll();
+        }
     }
 
     @Commit
@@ -223,6 +225,11 @@ public class OpenPnpCaptureCamera extends ReferenceCamera implements Runnable {
         }
     }
     
+    @Override
+    protected void openDevice() {
+        ensureOpen();
+    }
+
     public synchronized void ensureOpen() {
         if (thread == null) {
             open();
@@ -9,6 +9,12 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.openpnp.CameraListener;
 import org.openpnp.gui.support.Wizard;
@@ -45,22 +51,29 @@ public class SimulatedUpCamera extends ReferenceCamera implements Runnable {
         setLooking(Looking.Up);
     }
 
-    @Override
-    public BufferedImage internalCapture() {
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g = (Graphics2D) image.getGraphics();
-        AffineTransform tx = g.getTransform();
-        // invert the image in Y so that Y+ is up
-        g.translate(0, height);
-        g.scale(1, -1);
-        g.translate(width / 2, height / 2);
+    /**
+     * The last rendered frame and the state it was rendered from. If nothing the camera sees
+     * has changed the frame is returned again instead of being redrawn.
+     */
+    private BufferedImage frame;
+    private List<Object> frameState;
+
+    /**
+     * Frames are rendered alternately into frame and backBuffer, so a frame that has been
+     * returned stays intact until the scene changes twice.
+     */
+    private BufferedImage backBuffer;
 
-        g.setColor(Color.black);
-        g.fillRect(0, 0, width, height);
+    /**
+     * Part footprint shapes, with the error offsets applied, by Footprint.
+     */
+    private final Map<Footprint, FootprintShapes> footprintShapes = new IdentityHashMap<>();
 
+    @Override
+    public synchronized BufferedImage internalCapture() {
         // figure out our physical viewport size
-        Location phySize = getUnitsPerPixel().convertToUnits(LengthUnit.Millimeters)
-                                             .multiply(width, height, 0, 0);
+        Location unitsPerPixel = getUnitsPerPixel().convertToUnits(LengthUnit.Millimeters);
+        Location phySize = unitsPerPixel.multiply(width, height, 0, 0);
         double phyWidth = phySize.getX();
         double phyHeight = phySize.getY();
 
@@ -69,7 +82,11 @@ public class SimulatedUpCamera extends ReferenceCamera implements Runnable {
         Rectangle2D.Double phyBounds = new Rectangle2D.Double(location.getX() - phyWidth / 2,
                 location.getY() - phyHeight / 2, phyWidth, phyHeight);
 
-        // determine if there are any nozzles within our bounds and if so render them
+        // determine if there are any nozzles within our bounds and collect what we'd draw
+        List<Nozzle> nozzles = new ArrayList<>();
+        List<Object> state = new ArrayList<>();
+        state.add(unitsPerPixel);
+        state.add(errorOffsets);
         for (Head head : Configuration.get()
                                       .getMachine()
                                       .getHeads()) {
@@ -77,13 +94,45 @@ public class SimulatedUpCamera extends ReferenceCamera implements Runnable {
                 Location l = nozzle.getLocation()
                                    .convertToUnits(LengthUnit.Millimeters);
                 if (phyBounds.contains(l.getX(), l.getY())) {
-                    drawNozzle(g, nozzle);
+                    nozzles.add(nozzle);
+                    state.add(l.subtractWithRotation(location));
+                    Part part = nozzle.getPart();
+                    state.add(part);
+                    if (part != null && part.getPackage().getFootprint() != null) {
+                        state.add(new FootprintKey(part.getPackage().getFootprint()));
+                    }
                 }
             }
         }
 
-        g.setTransform(tx);
+        if (frame != null && state.equals(frameState)) {
+            return frame;
+        }
+
+        BufferedImage image = backBuffer;
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        }
+        else {
+            // clear to black
+            Arrays.fill(((DataBufferByte) image.getRaster().getDataBuffer()).getData(), (byte) 0);
+        }
+
+        Graphics2D g = image.createGraphics();
+        // invert the image in Y so that Y+ is up
+        g.translate(0, height);
+        g.scale(1, -1);
+        g.translate(width / 2, height / 2);
+
+        for (Nozzle nozzle : nozzles) {
+            drawNozzle(g, nozzle);
+        }
+
         g.dispose();
+
+        backBuffer = frame;
+        frame = image;
+        frameState = state;
         return image;
     }
 
@@ -102,7 +151,7 @@ public class SimulatedUpCamera extends ReferenceCamera implements Runnable {
                 .subtractWithRotation(getLocation());
         
         // Create a nozzle shape
-        fillShape(g, new Ellipse2D.Double(-0.5, -0.5, 1, 1), Color.green, unitsPerPixel, offsets, false);
+        fillShape(g, NOZZLE_SHAPE, Color.green, unitsPerPixel, offsets);
 
         // Draw the part
         Part part = nozzle.getPart();
@@ -119,32 +168,96 @@ public class SimulatedUpCamera extends ReferenceCamera implements Runnable {
         if (footprint.getUnits() != units) {
             throw new Error("Not yet supported.");
         }
-        
+
+        FootprintShapes shapes = getFootprintShapes(footprint);
+
         // First draw the body in dark grey.
-        fillShape(g, footprint.getBodyShape(), new Color(60, 60, 60), unitsPerPixel, offsets, true);
+        fillShape(g, shapes.body, BODY_COLOR, unitsPerPixel, offsets);
         
         // Then draw the pads in white
-        fillShape(g, footprint.getPadsShape(), Color.white, unitsPerPixel, offsets, true);
+        fillShape(g, shapes.pads, Color.white, unitsPerPixel, offsets);
+    }
+
+    private FootprintShapes getFootprintShapes(Footprint footprint) {
+        FootprintKey key = new FootprintKey(footprint);
+        FootprintShapes shapes = footprintShapes.get(footprint);
+        if (shapes == null || !shapes.key.equals(key) || !shapes.errorOffsets.equals(errorOffsets)) {
+            // Translate and rotate to error offsets
+            AffineTransform tx = new AffineTransform();
+            tx.translate(errorOffsets.getX(), errorOffsets.getY());
+            tx.rotate(Math.toRadians(Utils2D.normalizeAngle(errorOffsets.getRotation())));
+            shapes = new FootprintShapes(key, errorOffsets,
+                    tx.createTransformedShape(footprint.getBodyShape()),
+                    tx.createTransformedShape(footprint.getPadsShape()));
+            footprintShapes.put(footprint, shapes);
+        }
+        return shapes;
     }
     
-    private void fillShape(Graphics2D g, Shape shape, Color color, Location unitsPerPixel, Location offsets, boolean addError) {
+    private void fillShape(Graphics2D g, Shape shape, Color color, Location unitsPerPixel, Location offsets) {
         AffineTransform tx = new AffineTransform();
         // Scale to pixels
         tx.scale(1.0 / unitsPerPixel.getX(), 1.0 / unitsPerPixel.getY());
         // Translate and rotate to offsets
         tx.translate(offsets.getX(), offsets.getY());
         tx.rotate(Math.toRadians(Utils2D.normalizeAngle(offsets.getRotation())));
-        if (addError) {
-            // Translate and rotate to error offsets
-            tx.translate(errorOffsets.getX(), errorOffsets.getY());
-            tx.rotate(Math.toRadians(Utils2D.normalizeAngle(errorOffsets.getRotation())));
-        }
         // Transform
         shape = tx.createTransformedShape(shape);
         // Draw
         g.setColor(color);
         g.fill(shape);
     }
+
+    private static final Shape NOZZLE_SHAPE = new Ellipse2D.Double(-0.5, -0.5, 1, 1);
+
+    private static final Color BODY_COLOR = new Color(60, 60, 60);
+
+    /**
+     * The geometry of a Footprint, used to notice when a cached footprint has been edited.
+     */
+    private static class FootprintKey {
+        private final double[] values;
+
+        FootprintKey(Footprint footprint) {
+            List<Footprint.Pad> pads = footprint.getPads();
+            values = new double[2 + pads.size() * 6];
+            int i = 0;
+            values[i++] = footprint.getBodyWidth();
+            values[i++] = footprint.getBodyHeight();
+            for (Footprint.Pad pad : pads) {
+                values[i++] = pad.getX();
+                values[i++] = pad.getY();
+                values[i++] = pad.getWidth();
+                values[i++] = pad.getHeight();
+                values[i++] = pad.getRotation();
+                values[i++] = pad.getRoundness();
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof FootprintKey && Arrays.equals(values, ((FootprintKey) obj).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+
+    private static class FootprintShapes {
+        final FootprintKey key;
+        final Location errorOffsets;
+        final Shape body;
+        final Shape pads;
+
+        FootprintShapes(FootprintKey key, Location errorOffsets, Shape body, Shape pads) {
+            this.key = key;
+            this.errorOffsets = errorOffsets;
+            this.body = body;
+            this.pads = pads;
+        }
+    }
     
     public Location getErrorOffsets() {
         return errorOffsets;
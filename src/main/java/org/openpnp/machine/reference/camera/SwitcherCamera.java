@@ -20,8 +20,8 @@
 package org.openpnp.machine.reference.camera;
 
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openpnp.CameraListener;
 import org.openpnp.gui.support.Wizard;
@@ -31,6 +31,7 @@ import org.openpnp.model.Configuration;
 import org.openpnp.spi.Actuator;
 import org.openpnp.spi.Camera;
 import org.openpnp.spi.PropertySheetHolder;
+import org.openpnp.util.CaptureScheduler;
 import org.simpleframework.xml.Attribute;
 
 public class SwitcherCamera extends ReferenceCamera implements Runnable {
@@ -54,7 +55,7 @@ public class SwitcherCamera extends ReferenceCamera implements Runnable {
     
     private Thread thread = null;
     
-    private static Map<Integer, Camera> switchers = new HashMap<>();
+    private static Map<Integer, Camera> switchers = new ConcurrentHashMap<>();
     
     @Override
     public synchronized BufferedImage internalCapture() {
@@ -64,29 +65,64 @@ public class SwitcherCamera extends ReferenceCamera implements Runnable {
         return getCamera().captureRaw();
     }
     
+    /**
+     * Switches the input and captures while holding the CaptureScheduler lock of the underlying
+     * camera, so that another SwitcherCamera on the same camera can't change the input between
+     * the switch and the capture, while SwitcherCameras on other cameras capture concurrently.
+     */
     @Override
     public BufferedImage capture() {
         if (!ensureOpen()) {
             return null;
         }
-        synchronized (switchers) {
-            if (switchers.get(switcher) != this) {
-                try {
-                    if (Configuration.get().getMachine().isEnabled()) {
-                        // TODO This would ideally happen within a machine task, but in almost all
-                        // cases it will end up being called from a machine task so it's okay. It
-                        // would be good if we could detect if it wasn't and trigger one.
-                        getActuator().actuate(actuatorDoubleValue);
-                        Thread.sleep(actuatorDelayMillis);
-                        switchers.put(switcher, this);
-                    }
+        return CaptureScheduler.get().run(this, () -> {
+            select();
+            return super.capture();
+        });
+    }
+
+    @Override
+    public BufferedImage settleAndCapture() throws Exception {
+        if (!ensureOpen()) {
+            return null;
+        }
+        return CaptureScheduler.get().run(this, () -> {
+            select();
+            return super.settleAndCapture();
+        });
+    }
+
+    /**
+     * Switch the input to this camera if it isn't already. Must be called while holding the
+     * CaptureScheduler lock of the underlying camera.
+     */
+    private void select() {
+        if (switchers.get(switcher) != this) {
+            try {
+                if (Configuration.get().getMachine().isEnabled()) {
+                    // TODO This would ideally happen within a machine task, but in almost all
+                    // cases it will end up being called from a machine task so it's okay. It
+                    // would be good if we could detect if it wasn't and trigger one.
+                    getActuator().actuate(actuatorDoubleValue);
+                    Thread.sleep(actuatorDelayMillis);
+                    switchers.put(switcher, this);
                 }
-                catch (Exception e) {
-                    e.printStackTrace();
-                }                
+            }
+            catch (Exception e) {
+                e.printStackTrace();
             }
         }
-        return super.capture();
+    }
+
+    @Override
+    public Object getCaptureDevice() {
+        Camera camera = getCamera();
+        return camera == null ? this : camera;
+    }
+
+    @Override
+    public boolean isCaptureDeviceSelected() {
+        return switchers.get(switcher) == this;
     }
 
     private synchronized boolean ensureOpen() {
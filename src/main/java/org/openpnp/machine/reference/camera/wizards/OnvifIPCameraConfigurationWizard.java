@@ -22,6 +22,7 @@ package org.openpnp.machine.reference.camera.wizards;
 import java.awt.Color;
 import java.util.List;
 
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -74,6 +75,10 @@ public class OnvifIPCameraConfigurationWizard extends AbstractConfigurationWizar
                 FormSpecs.RELATED_GAP_ROWSPEC,
                 FormSpecs.DEFAULT_ROWSPEC,
                 FormSpecs.RELATED_GAP_ROWSPEC,
+                FormSpecs.DEFAULT_ROWSPEC,
+                FormSpecs.RELATED_GAP_ROWSPEC,
+                FormSpecs.DEFAULT_ROWSPEC,
+                FormSpecs.RELATED_GAP_ROWSPEC,
                 FormSpecs.DEFAULT_ROWSPEC,}));
 
         lblIP = new JLabel("Camera IP");
@@ -145,6 +150,25 @@ public class OnvifIPCameraConfigurationWizard extends AbstractConfigurationWizar
 
         lbluseFor_rh = new JLabel("(Use 0 for no resizing)");
         panelGeneral.add(lbluseFor_rh, "6, 14");
+
+        lblStreaming = new JLabel("Use Stream");
+        panelGeneral.add(lblStreaming, "2, 16, right, default");
+
+        streamingCheckBox = new JCheckBox("");
+        panelGeneral.add(streamingCheckBox, "4, 16");
+
+        lbluseFor_streaming = new JLabel("(read the MJPEG / RTSP stream instead of snapshots)");
+        panelGeneral.add(lbluseFor_streaming, "6, 16");
+
+        lblStreamURI = new JLabel("Stream URI");
+        panelGeneral.add(lblStreamURI, "2, 18, right, default");
+
+        streamURITextField = new JTextField();
+        panelGeneral.add(streamURITextField, "4, 18");
+        streamURITextField.setColumns(16);
+
+        lbluseFor_streamURI = new JLabel("(leave blank to ask the camera)");
+        panelGeneral.add(lbluseFor_streamURI, "6, 18");
     }
     
     private void refreshResolutionList() {
@@ -177,6 +201,8 @@ public class OnvifIPCameraConfigurationWizard extends AbstractConfigurationWizar
         addWrappedBinding(camera, "fps", fpsTextField, "text", intConverter);
         addWrappedBinding(camera, "username", usernameTextField, "text");
         addWrappedBinding(camera, "password", passwordTextField, "text");
+        addWrappedBinding(camera, "streamingEnabled", streamingCheckBox, "selected");
+        addWrappedBinding(camera, "streamURI", streamURITextField, "text");
         // Should always be last so that it doesn't trigger multiple camera reloads.
         addWrappedBinding(camera, "hostIP", ipTextField, "text");
 
@@ -184,6 +210,7 @@ public class OnvifIPCameraConfigurationWizard extends AbstractConfigurationWizar
         ComponentDecorators.decorateWithAutoSelect(ipTextField);
         ComponentDecorators.decorateWithAutoSelect(usernameTextField);
         ComponentDecorators.decorateWithAutoSelect(passwordTextField);
+        ComponentDecorators.decorateWithAutoSelect(streamURITextField);
     }
 
     @Override
@@ -223,4 +250,10 @@ public class OnvifIPCameraConfigurationWizard extends AbstractConfigurationWizar
     private JLabel lbluseFor_res;
     private JLabel lbluseFor_rw;
     private JLabel lbluseFor_rh;
+    private JLabel lblStreaming;
+    private JCheckBox streamingCheckBox;
+    private JLabel lbluseFor_streaming;
+    private JLabel lblStreamURI;
+    private JTextField streamURITextField;
+    private JLabel lbluseFor_streamURI;
 }
@@ -1,13 +1,18 @@
 package org.openpnp.machine.reference.driver;
 
 import java.awt.event.ActionEvent;
+import java.io.File;
 import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -22,6 +27,7 @@ import javax.swing.JOptionPane;
 import org.openpnp.gui.MainFrame;
 import org.openpnp.gui.support.Icons;
 import org.openpnp.gui.support.PropertySheetWizardAdapter;
+import org.openpnp.logging.GcodeTrace;
 import org.openpnp.machine.reference.ReferenceActuator;
 import org.openpnp.machine.reference.ReferenceDriver;
 import org.openpnp.machine.reference.ReferenceHead;
@@ -39,6 +45,7 @@ import org.openpnp.model.Named;
 import org.openpnp.model.Part;
 import org.openpnp.spi.Head;
 import org.openpnp.spi.HeadMountable;
+import org.openpnp.spi.MachineActivity;
 import org.openpnp.spi.Nozzle;
 import org.openpnp.spi.PropertySheetHolder;
 import org.openpnp.spi.base.SimplePropertySheetHolder;
@@ -135,6 +142,12 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
         }
     }
 
+    /**
+     * A dwell of zero, which controllers confirm without doing anything. Used to probe whether
+     * the controller takes batched commands.
+     */
+    private static final String BATCH_PROBE_COMMAND = "G4 P0";
+
     @Attribute(required = false)
     protected LengthUnit units = LengthUnit.Millimeters;
 
@@ -165,6 +178,28 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
     @Attribute(required = false)
     protected boolean backslashEscapedCharactersEnabled = false;
 
+    /**
+     * Record all traffic with the controller to a binary GcodeTrace file in the log directory.
+     */
+    @Attribute(required = false)
+    protected boolean gcodeTraceEnabled = false;
+
+    /**
+     * Send the lines of a multi-line command without waiting for each line to be confirmed. The
+     * command still waits for every line to be confirmed before it returns. At most
+     * commandBatchBufferSize characters are sent ahead of the confirmations, so that the
+     * controller's receive buffer can't overflow.
+     * 
+     * Off by default, since it is only safe with controllers that queue the lines they receive
+     * and confirm each one exactly once, and commandBatchBufferSize must not be larger than the
+     * controller's receive buffer. The probe made on connect only checks the confirmations.
+     */
+    @Attribute(required = false)
+    protected boolean commandBatchingEnabled = false;
+
+    @Attribute(required = false)
+    protected int commandBatchBufferSize = 127;
+
     @Element(required = false)
     protected Location homingFiducialLocation = new Location(LengthUnit.Millimeters);
 
@@ -184,8 +219,17 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
     private boolean disconnectRequested;
     private boolean connected;
     private LinkedBlockingQueue<String> responseQueue = new LinkedBlockingQueue<>();
+    /**
+     * Held for each exchange with the controller that has to see all of its own responses: a
+     * single command, a multi-line G-code, or a move or home together with the wait for it to
+     * complete. Feeders may actuate from their own threads while the machine thread is moving
+     * the head, and each command starts by discarding whatever responses are queued.
+     */
+    private final Object commandLock = new Object();
+    private volatile boolean commandBatching;
     private Set<Nozzle> pickedNozzles = new HashSet<>();
     private GcodeDriver parent = null;
+    private volatile GcodeTrace trace;
     
     @Commit
     public void commit() {
@@ -226,6 +270,10 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
     public synchronized void connect() throws Exception {
         getCommunications().connect();
 
+        if (gcodeTraceEnabled) {
+            openTrace();
+        }
+
         connected = false;
         readerThread = new Thread(this);
         readerThread.setDaemon(true);
@@ -248,11 +296,45 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
         setEnabled(false);
 
         // Send startup Gcode
+        commandBatching = false;
         sendGcode(getCommand(null, CommandType.CONNECT_COMMAND));
 
+        if (commandBatchingEnabled) {
+            commandBatching = probeCommandBatching();
+        }
+
         connected = true;
     }
 
+    /**
+     * Check that the controller can take commands sent back to back by sending it a batch of no-op
+     * commands. It passes if every command is confirmed, without errors and without any extra
+     * confirmations. This can't tell the size of the controller's receive buffer, or whether it
+     * queues the commands, which is up to the user enabling batching.
+     */
+    private boolean probeCommandBatching() {
+        try {
+            sendCommands(Arrays.asList(BATCH_PROBE_COMMAND, BATCH_PROBE_COMMAND,
+                    BATCH_PROBE_COMMAND), timeoutMilliseconds);
+            if (!sendCommand(null, 250).isEmpty()) {
+                throw new Exception("Unexpected responses after the commands were confirmed.");
+            }
+            Logger.debug("{} command batching enabled.", getName());
+            return true;
+        }
+        catch (Exception e) {
+            Logger.debug("{} command batching disabled: {}", getName(), e.getMessage());
+            try {
+                // Consume anything left over from the probe.
+                while (!sendCommand(null, 250).isEmpty()) {
+                }
+            }
+            catch (Exception e1) {
+            }
+            return false;
+        }
+    }
+
     @Override
     public void setEnabled(boolean enabled) throws Exception {
         if (enabled && !connected) {
@@ -285,23 +367,25 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
         command = substituteVariable(command, "Id", head.getId());
         command = substituteVariable(command, "Name", head.getName());
         long timeout = -1;
-        List<String> responses = sendGcode(command, timeout);
-
-        // Check home complete response against user's regex
-        String homeCompleteRegex = getCommand(null, CommandType.HOME_COMPLETE_REGEX);
-        if (homeCompleteRegex != null) {
-            if (timeout == -1) {
-                timeout = Long.MAX_VALUE;
-            }
-            if (!containsMatch(responses, homeCompleteRegex)) {
-                long t = System.currentTimeMillis();
-                boolean done = false;
-                while (!done && System.currentTimeMillis() - t < timeout) {
-                    done = containsMatch(sendCommand(null, 250), homeCompleteRegex);
+        synchronized (commandLock) {
+            List<String> responses = sendGcode(command, timeout);
+
+            // Check home complete response against user's regex
+            String homeCompleteRegex = getCommand(null, CommandType.HOME_COMPLETE_REGEX);
+            if (homeCompleteRegex != null) {
+                if (timeout == -1) {
+                    timeout = Long.MAX_VALUE;
                 }
-                if (!done) {
-                    // Should never get here but just in case.
-                    throw new Exception("Timed out waiting for home to complete.");
+                if (!containsMatch(responses, homeCompleteRegex)) {
+                    long t = System.currentTimeMillis();
+                    boolean done = false;
+                    while (!done && System.currentTimeMillis() - t < timeout) {
+                        done = containsMatch(sendCommand(null, 250), homeCompleteRegex);
+                    }
+                    if (!done) {
+                        // Should never get here but just in case.
+                        throw new Exception("Timed out waiting for home to complete.");
+                    }
                 }
             }
         }
@@ -479,8 +563,55 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
     @Override
     public void moveTo(ReferenceHeadMountable hm, Location location, double speed)
             throws Exception {
-        // keep copy for calling subdrivers as to not add offset on offset
-        Location locationOriginal = location;
+        synchronized (commandLock) {
+            List<String> responses = moveToInternal(hm, location, speed);
+            if (responses != null) {
+                waitForMoveComplete(hm, responses);
+            }
+        }
+
+        // regardless of any action above the subdriver needs its actions based on original input
+        for (ReferenceDriver driver : subDrivers) {
+            driver.moveTo(hm, location, speed);
+        }
+    }
+
+    /**
+     * Sends the moves back to back and waits for the motion to complete only once, after the last
+     * one. Axes shared between the HeadMountables are only commanded by the first move that
+     * changes them, as each move only includes the axes that are not already at their target.
+     */
+    @Override
+    public void moveTo(Map<ReferenceHeadMountable, Location> moves, double speed)
+            throws Exception {
+        synchronized (commandLock) {
+            ReferenceHeadMountable lastMoved = null;
+            List<String> lastResponses = null;
+            for (Map.Entry<ReferenceHeadMountable, Location> move : moves.entrySet()) {
+                List<String> responses = moveToInternal(move.getKey(), move.getValue(), speed);
+                if (responses != null) {
+                    lastMoved = move.getKey();
+                    lastResponses = responses;
+                }
+            }
+            if (lastMoved != null) {
+                waitForMoveComplete(lastMoved, lastResponses);
+            }
+        }
+
+        for (ReferenceDriver driver : subDrivers) {
+            driver.moveTo(moves, speed);
+        }
+    }
+
+    /**
+     * Renders and sends the move command for the HeadMountable, if any axis needs to move, and
+     * records the new axis coordinates. Returns the responses to the command, or null if nothing
+     * was sent.
+     */
+    private List<String> moveToInternal(ReferenceHeadMountable hm, Location location, double speed)
+            throws Exception {
+        List<String> responses = null;
 
         location = location.convertToUnits(units);
         location = location.subtract(hm.getHeadOffsets());
@@ -682,29 +813,7 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
             // Only give a command when move is necessary
             if (includeX || includeY || includeZ || includeRotation) {
 
-                List<String> responses = sendGcode(command);
-
-                /*
-                 * If moveToCompleteRegex is specified we need to wait until we match the regex in a
-                 * response before continuing. We first search the initial responses from the
-                 * command for the regex. If it's not found we then collect responses for up to
-                 * timeoutMillis while searching the responses for the regex. As soon as it is
-                 * matched we continue. If it's not matched within the timeout we throw an
-                 * Exception.
-                 */
-                String moveToCompleteRegex = getCommand(hm, CommandType.MOVE_TO_COMPLETE_REGEX);
-                if (moveToCompleteRegex != null) {
-                    if (!containsMatch(responses, moveToCompleteRegex)) {
-                        long t = System.currentTimeMillis();
-                        boolean done = false;
-                        while (!done && System.currentTimeMillis() - t < timeoutMilliseconds) {
-                            done = containsMatch(sendCommand(null, 250), moveToCompleteRegex);
-                        }
-                        if (!done) {
-                            throw new Exception("Timed out waiting for move to complete.");
-                        }
-                    }
-                }
+                responses = sendGcode(command);
 
                 // And save the final values on the axes.
                 if (xAxis != null) {
@@ -724,11 +833,31 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
 
         } // there were axes involved
 
-        // regardless of any action above the subdriver needs its actions based on original input
-        for (ReferenceDriver driver : subDrivers) {
-            driver.moveTo(hm, locationOriginal, speed);
-        }
+        return responses;
+    }
 
+    /**
+     * If moveToCompleteRegex is specified we need to wait until we match the regex in a response
+     * before continuing. We first search the initial responses from the command for the regex. If
+     * it's not found we then collect responses for up to timeoutMillis while searching the
+     * responses for the regex. As soon as it is matched we continue. If it's not matched within the
+     * timeout we throw an Exception.
+     */
+    private void waitForMoveComplete(ReferenceHeadMountable hm, List<String> responses)
+            throws Exception {
+        String moveToCompleteRegex = getCommand(hm, CommandType.MOVE_TO_COMPLETE_REGEX);
+        if (moveToCompleteRegex != null) {
+            if (!containsMatch(responses, moveToCompleteRegex)) {
+                long t = System.currentTimeMillis();
+                boolean done = false;
+                while (!done && System.currentTimeMillis() - t < timeoutMilliseconds) {
+                    done = containsMatch(sendCommand(null, 250), moveToCompleteRegex);
+                }
+                if (!done) {
+                    throw new Exception("Timed out waiting for move to complete.");
+                }
+            }
+        }
     }
 
     private boolean containsMatch(List<String> responses, String regex) {
@@ -778,6 +907,14 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
     }
 
 
+    /**
+     * Every exchange with the controller is made while holding the commandLock.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public void actuate(ReferenceActuator actuator, boolean on) throws Exception {
         String command = getCommand(actuator, CommandType.ACTUATE_BOOLEAN_COMMAND);
@@ -871,9 +1008,33 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
         catch (Exception e) {
             Logger.error("disconnect()", e);
         }
+        closeTrace();
         disconnectRequested = false;
     }
 
+    private void openTrace() {
+        closeTrace();
+        try {
+            File directory = new File(Configuration.get().getConfigurationDirectory(), "log");
+            String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            File file = new File(directory,
+                    "gcode-" + getName().replaceAll("[^A-Za-z0-9_-]", "_") + "-" + timestamp + ".trace");
+            trace = new GcodeTrace(file);
+            Logger.info("{} recording G-code trace to {}", getName(), file);
+        }
+        catch (Exception e) {
+            Logger.warn("{} could not start the G-code trace: {}", getName(), e.getMessage());
+        }
+    }
+
+    private void closeTrace() {
+        GcodeTrace trace = this.trace;
+        this.trace = null;
+        if (trace != null) {
+            trace.close();
+        }
+    }
+
     @Override
     public void close() throws IOException {
         super.close();
@@ -891,15 +1052,24 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
         if (gCode == null) {
             return new ArrayList<>();
         }
-        List<String> responses = new ArrayList<>();
+        List<String> commands = new ArrayList<>();
         for (String command : gCode.split("\n")) {
             command = command.trim();
             if (command.length() == 0) {
                 continue;
             }
-            responses.addAll(sendCommand(command, timeout));
+            commands.add(command);
+        }
+        if (commandBatching && commands.size() > 1) {
+            return sendCommands(commands, timeout);
+        }
+        synchronized (commandLock) {
+            List<String> responses = new ArrayList<>();
+            for (String command : commands) {
+                responses.addAll(sendCommand(command, timeout));
+            }
+            return responses;
         }
-        return responses;
     }
 
     public List<String> sendCommand(String command) throws Exception {
@@ -907,6 +1077,12 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
     }
 
     public List<String> sendCommand(String command, long timeout) throws Exception {
+        synchronized (commandLock) {
+            return sendCommandInternal(command, timeout);
+        }
+    }
+
+    private List<String> sendCommandInternal(String command, long timeout) throws Exception {
         List<String> responses = new ArrayList<>();
 
         // Read any responses that might be queued up so that when we wait
@@ -917,11 +1093,7 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
 
         // Send the command, if one was specified
         if (command != null) {
-            if (backslashEscapedCharactersEnabled) {
-                command = unescape(command);
-            }
-            Logger.trace("[{}] >> {}", getCommunications().getConnectionName(), command);
-            getCommunications().writeLine(command);
+            writeCommand(command);
         }
 
         // Collect responses till we find one with the confirmation or we timeout. Return
@@ -929,10 +1101,124 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
         if (timeout == -1) {
             timeout = Long.MAX_VALUE;
         }
+        String confirmation = awaitConfirmation(responses, timeout);
+        // If a command was specified and no confirmation was found it's a timeout error.
+        if (command != null && confirmation != null && !isConfirmation(confirmation)) {
+            throw new Exception("Controller raised an error: " + confirmation);
+        }
+        if (command != null && confirmation == null) {
+            throw new Exception("Timeout waiting for response to " + command);
+        }
+
+        // Read any additional responses that came in after the initial one.
+        responseQueue.drainTo(responses);
+
+        Logger.debug("sendCommand({} {}, {}) => {}",
+                new Object[] {getCommunications().getConnectionName(), command, timeout == Long.MAX_VALUE ? -1 : timeout, responses});
+        return responses;
+    }
+
+    /**
+     * Send the commands without waiting for each to be confirmed, keeping no more than
+     * commandBatchBufferSize characters unconfirmed, and then wait for the remaining
+     * confirmations. If the controller raises an error no further commands are sent or waited
+     * for. The responses to the commands it already has are discarded until it goes quiet, and
+     * then the error is thrown.
+     */
+    public List<String> sendCommands(List<String> commands, long timeout) throws Exception {
+        synchronized (commandLock) {
+            List<String> responses = new ArrayList<>();
+            responseQueue.drainTo(responses);
+
+            Logger.debug("sendCommands({}, {})...", commands, timeout);
+
+            if (timeout == -1) {
+                timeout = Long.MAX_VALUE;
+            }
+            ArrayDeque<String> unconfirmed = new ArrayDeque<>();
+            int unconfirmedLength = 0;
+            String error = null;
+            for (String command : commands) {
+                int length = (backslashEscapedCharactersEnabled ? unescape(command) : command)
+                        .length() + 1;
+                // Take the confirmations that have already arrived, and wait for more while there
+                // isn't room in the controller's buffer for the command.
+                while (!unconfirmed.isEmpty()) {
+                    String confirmation;
+                    if (unconfirmedLength + length > commandBatchBufferSize) {
+                        confirmation = awaitConfirmation(unconfirmed.peek(), responses, timeout);
+                    }
+                    else {
+                        confirmation = pollConfirmation(responses);
+                        if (confirmation == null) {
+                            break;
+                        }
+                    }
+                    unconfirmedLength -= unconfirmed.poll().length() + 1;
+                    if (!isConfirmation(confirmation)) {
+                        error = confirmation;
+                        break;
+                    }
+                }
+                if (error != null) {
+                    break;
+                }
+                unconfirmed.add(writeCommand(command));
+                unconfirmedLength += length;
+            }
+            while (error == null && !unconfirmed.isEmpty()) {
+                String confirmation = awaitConfirmation(unconfirmed.poll(), responses, timeout);
+                if (!isConfirmation(confirmation)) {
+                    error = confirmation;
+                }
+            }
+            if (error != null) {
+                drainResponses(responses, timeout);
+                Logger.debug("sendCommands({} {}, {}) => {}",
+                        new Object[] {getCommunications().getConnectionName(), commands, timeout == Long.MAX_VALUE ? -1 : timeout, responses});
+                throw new Exception("Controller raised an error: " + error);
+            }
+
+            responseQueue.drainTo(responses);
+
+            Logger.debug("sendCommands({} {}, {}) => {}",
+                    new Object[] {getCommunications().getConnectionName(), commands, timeout == Long.MAX_VALUE ? -1 : timeout, responses});
+            return responses;
+        }
+    }
+
+    /**
+     * Write a single command to the controller and return it as it was written.
+     */
+    private String writeCommand(String command) throws Exception {
+        if (backslashEscapedCharactersEnabled) {
+            command = unescape(command);
+        }
+        Logger.trace("[{}] >> {}", getCommunications().getConnectionName(), command);
+        GcodeTrace trace = this.trace;
+        if (trace != null) {
+            trace.sent(command);
+        }
+        getCommunications().writeLine(command);
+        return command;
+    }
+
+    private String awaitConfirmation(String command, List<String> responses, long timeout)
+            throws Exception {
+        String confirmation = awaitConfirmation(responses, timeout);
+        if (confirmation == null) {
+            throw new Exception("Timeout waiting for response to " + command);
+        }
+        return confirmation;
+    }
+
+    /**
+     * Collect responses until one is a confirmation or an error, or the timeout passes. Returns
+     * the confirmation or error, or null on timeout.
+     */
+    private String awaitConfirmation(List<String> responses, long timeout)
+            throws InterruptedException {
         long t = System.currentTimeMillis();
-        boolean found = false;
-        boolean foundError = false;
-        String errorResponse = "";
         // Loop until we've timed out
         while (System.currentTimeMillis() - t < timeout) {
             // Wait to see if a response came in. We wait up until the number of millis remaining
@@ -946,33 +1232,51 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
             // Store the response that was received
             responses.add(response);
             // If the response is an ok or error we're done
-            if (response.matches(getCommand(null, CommandType.COMMAND_CONFIRM_REGEX))) {
-                found = true;
-                break;
+            if (isConfirmationOrError(response)) {
+                return response;
             }
+        }
+        return null;
+    }
 
-            if (getCommand(null, CommandType.COMMAND_ERROR_REGEX) != null) {
-                if (response.matches(getCommand(null, CommandType.COMMAND_ERROR_REGEX))) {
-                    foundError = true;
-                    errorResponse = response;
-                    break;
-                }
+    /**
+     * Collect the responses that have already arrived, without waiting, until one is a
+     * confirmation or an error. Returns the confirmation or error, or null if there is none yet.
+     */
+    private String pollConfirmation(List<String> responses) {
+        String response;
+        while ((response = responseQueue.poll()) != null) {
+            responses.add(response);
+            if (isConfirmationOrError(response)) {
+                return response;
             }
         }
-        // If a command was specified and no confirmation was found it's a timeout error.
-        if (command != null & foundError) {
-            throw new Exception("Controller raised an error: " + errorResponse);
-        }
-        if (command != null && !found) {
-            throw new Exception("Timeout waiting for response to " + command);
+        return null;
+    }
+
+    /**
+     * Collect responses until the controller has been quiet for a moment, or the timeout passes.
+     */
+    private void drainResponses(List<String> responses, long timeout)
+            throws InterruptedException {
+        long t = System.currentTimeMillis();
+        String response;
+        while (System.currentTimeMillis() - t < timeout
+                && (response = responseQueue.poll(250, TimeUnit.MILLISECONDS)) != null) {
+            responses.add(response);
         }
+    }
 
-        // Read any additional responses that came in after the initial one.
-        responseQueue.drainTo(responses);
+    private boolean isConfirmationOrError(String response) {
+        if (isConfirmation(response)) {
+            return true;
+        }
+        String errorRegex = getCommand(null, CommandType.COMMAND_ERROR_REGEX);
+        return errorRegex != null && response.matches(errorRegex);
+    }
 
-        Logger.debug("sendCommand({} {}, {}) => {}",
-                new Object[] {getCommunications().getConnectionName(), command, timeout == Long.MAX_VALUE ? -1 : timeout, responses});
-        return responses;
+    private boolean isConfirmation(String response) {
+        return response.matches(getCommand(null, CommandType.COMMAND_CONFIRM_REGEX));
     }
 
     public void run() {
@@ -990,6 +1294,10 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
             }
             line = line.trim();
             Logger.trace("[{}] << {}", getCommunications().getConnectionName(), line);
+            GcodeTrace trace = this.trace;
+            if (trace != null) {
+                trace.received(line);
+            }
             if (!processPositionReport(line)) {
                 responseQueue.offer(line);
             }
@@ -1022,7 +1330,7 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
 
         ReferenceMachine machine = ((ReferenceMachine) Configuration.get().getMachine());
         for (Head head : Configuration.get().getMachine().getHeads()) {
-            machine.fireMachineHeadActivity(head);
+            machine.fireMachineHeadActivity(head, MachineActivity.Motion);
         }
         return true;
     }
@@ -1234,6 +1542,49 @@ public class GcodeDriver extends AbstractReferenceDriver implements Named, Runna
         this.backslashEscapedCharactersEnabled = backslashEscapedCharactersEnabled;
     }
 
+    public boolean isCommandBatchingEnabled() {
+        return commandBatchingEnabled;
+    }
+
+    public void setCommandBatchingEnabled(boolean commandBatchingEnabled) {
+        this.commandBatchingEnabled = commandBatchingEnabled;
+        if (!commandBatchingEnabled) {
+            commandBatching = false;
+        }
+    }
+
+    /**
+     * Returns true if multi-line commands are sent as batches, which is when batching is enabled
+     * and the controller passed the probe made on connect.
+     */
+    public boolean isCommandBatching() {
+        return commandBatching;
+    }
+
+    public int getCommandBatchBufferSize() {
+        return commandBatchBufferSize;
+    }
+
+    public void setCommandBatchBufferSize(int commandBatchBufferSize) {
+        this.commandBatchBufferSize = commandBatchBufferSize;
+    }
+
+    public boolean isGcodeTraceEnabled() {
+        return gcodeTraceEnabled;
+    }
+
+    public void setGcodeTraceEnabled(boolean gcodeTraceEnabled) {
+        this.gcodeTraceEnabled = gcodeTraceEnabled;
+        if (connected) {
+            if (gcodeTraceEnabled) {
+                openTrace();
+            }
+            else {
+                closeTrace();
+            }
+        }
+    }
+
     public static class Axis {
         public enum Type {
             X,
@@ -37,6 +37,7 @@ import org.openpnp.model.Configuration;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.spi.Head;
+import org.openpnp.spi.MachineActivity;
 import org.openpnp.spi.PropertySheetHolder;
 import org.pmw.tinylog.Logger;
 import org.simpleframework.xml.Attribute;
@@ -205,7 +206,7 @@ public class NullDriver implements ReferenceDriver {
 
             // Provide live updates to the Machine as the move progresses.
             ((ReferenceMachine) Configuration.get().getMachine())
-                    .fireMachineHeadActivity(hm.getHead());
+                    .fireMachineHeadActivity(hm.getHead(), MachineActivity.Motion);
 
             try {
                 Thread.sleep(100);
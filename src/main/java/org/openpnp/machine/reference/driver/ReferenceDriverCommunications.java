@@ -60,6 +60,27 @@ public abstract class ReferenceDriverCommunications {
 
     abstract public int read() throws TimeoutException, IOException;
     abstract public void write(int d) throws IOException;
+
+    /**
+     * Read at least one and at most length bytes into data, starting at offset, and return how
+     * many were read, so a response that arrives in parts can be read without losing any of it.
+     * If none arrive in time a TimeoutException is thrown. The default reads a single byte;
+     * implementations that can read in bulk should override it.
+     */
+    public int read(byte[] data, int offset, int length) throws TimeoutException, IOException {
+        data[offset] = (byte) read();
+        return 1;
+    }
+
+    /**
+     * Write all of data. The default writes a byte at a time; implementations should override it
+     * to hand the whole buffer to the port in one call.
+     */
+    public void write(byte[] data) throws IOException {
+        for (byte b : data) {
+            write(b & 0xff);
+        }
+    }
     
     public void setLineEndingType(LineEndingType lineEndingType) {
         this.lineEndingType = lineEndingType;
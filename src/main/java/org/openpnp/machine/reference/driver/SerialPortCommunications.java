@@ -193,6 +193,30 @@ public class SerialPortCommunications extends ReferenceDriverCommunications {
         }
     }
 
+    @Override
+    public int read(byte[] data, int offset, int length) throws TimeoutException, IOException {
+        byte[] b = offset == 0 ? data : new byte[length];
+        int l = serialPort.readBytes(b, length);
+        if (l == -1) {
+            throw new IOException("Read error.");
+        }
+        if (l == 0) {
+            throw new TimeoutException("Read timeout.");
+        }
+        if (b != data) {
+            System.arraycopy(b, 0, data, offset, l);
+        }
+        return l;
+    }
+
+    @Override
+    public void write(byte[] data) throws IOException {
+        int l = serialPort.writeBytes(data, data.length);
+        if (l != data.length) {
+            throw new IOException("Write error.");
+        }
+    }
+
     public String getConnectionName() {
         return "serial://" + portName;
     }
@@ -111,6 +111,11 @@ public class TcpCommunications extends ReferenceDriverCommunications {
         output.write(d);
     }
 
+    @Override
+    public void write(byte[] data) throws IOException {
+        output.write(data);
+    }
+
     public String getIpAddress() {
         return ipAddress;
     }
@@ -74,6 +74,8 @@ public class GcodeDriverSettings extends AbstractConfigurationWizard {
                 FormSpecs.RELATED_GAP_ROWSPEC,
                 FormSpecs.DEFAULT_ROWSPEC,
                 FormSpecs.RELATED_GAP_ROWSPEC,
+                FormSpecs.DEFAULT_ROWSPEC,
+                FormSpecs.RELATED_GAP_ROWSPEC,
                 FormSpecs.DEFAULT_ROWSPEC,}));
         
         JLabel lblUnits = new JLabel("Units");
@@ -155,6 +157,32 @@ public class GcodeDriverSettings extends AbstractConfigurationWizard {
                 + "where xxxx is four hexidecimal characters.  Also permits \\t for tab, \\b for backspace, \\n for line "
                 + "feed, \\r for carriage return, and \\f for form feed.");
         settingsPanel.add(backslashEscapedCharacters, "4, 12");
+        
+        JLabel lblGcodeTrace = new JLabel("Binary G-code Trace");
+        lblGcodeTrace.setToolTipText("Record all traffic with the controller to a binary trace file in the log "
+                + "directory. Decode it with org.openpnp.logging.GcodeTrace.");
+        settingsPanel.add(lblGcodeTrace, "6, 12, right, default");
+        
+        gcodeTrace = new JCheckBox("");
+        settingsPanel.add(gcodeTrace, "8, 12");
+        
+        JLabel lblCommandBatching = new JLabel("Command Batching");
+        lblCommandBatching.setToolTipText("Send the lines of multi-line commands without waiting for each "
+                + "line to be confirmed, if the controller passes a probe made on connect. Only enable this "
+                + "for controllers that queue the lines they receive and confirm each line once.");
+        settingsPanel.add(lblCommandBatching, "2, 14, right, default");
+        
+        commandBatching = new JCheckBox("");
+        settingsPanel.add(commandBatching, "4, 14");
+        
+        JLabel lblCommandBatchBufferSize = new JLabel("Batch Buffer Size [chars]");
+        lblCommandBatchBufferSize.setToolTipText("The most characters sent ahead of their confirmations. "
+                + "Keep this below the size of the controller's receive buffer.");
+        settingsPanel.add(lblCommandBatchBufferSize, "6, 14, right, default");
+        
+        commandBatchBufferSizeTf = new JTextField();
+        settingsPanel.add(commandBatchBufferSizeTf, "8, 14, fill, default");
+        commandBatchBufferSizeTf.setColumns(5);
     }
 
     @Override
@@ -175,6 +203,9 @@ public class GcodeDriverSettings extends AbstractConfigurationWizard {
         addWrappedBinding(driver, "name", driverName, "text");
         addWrappedBinding(driver, "visualHomingEnabled", visualHoming, "selected");
         addWrappedBinding(driver, "backslashEscapedCharactersEnabled", backslashEscapedCharacters, "selected");
+        addWrappedBinding(driver, "gcodeTraceEnabled", gcodeTrace, "selected");
+        addWrappedBinding(driver, "commandBatchingEnabled", commandBatching, "selected");
+        addWrappedBinding(driver, "commandBatchBufferSize", commandBatchBufferSizeTf, "text", intConverter);
         
         ComponentDecorators.decorateWithAutoSelect(maxFeedRateTf);
         ComponentDecorators.decorateWithAutoSelect(backlashOffsetXTf);
@@ -184,6 +215,7 @@ public class GcodeDriverSettings extends AbstractConfigurationWizard {
         ComponentDecorators.decorateWithAutoSelect(commandTimeoutTf);
         ComponentDecorators.decorateWithAutoSelect(connectWaitTimeTf);
         ComponentDecorators.decorateWithAutoSelect(driverName);
+        ComponentDecorators.decorateWithAutoSelect(commandBatchBufferSizeTf);
     }
 
     public final Action exportProfileAction = new AbstractAction() {
@@ -323,6 +355,9 @@ public class GcodeDriverSettings extends AbstractConfigurationWizard {
     private JTextField driverName;
     private JCheckBox visualHoming;
     private JCheckBox backslashEscapedCharacters;
+    private JCheckBox gcodeTrace;
+    private JCheckBox commandBatching;
+    private JTextField commandBatchBufferSizeTf;
 
     static class HeadMountableItem {
         private HeadMountable hm;
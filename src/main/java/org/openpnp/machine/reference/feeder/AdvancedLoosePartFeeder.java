@@ -19,25 +19,27 @@
 
 package org.openpnp.machine.reference.feeder;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.swing.Action;
 
 import org.apache.commons.io.IOUtils;
-import org.opencv.core.RotatedRect;
 import org.openpnp.gui.MainFrame;
 import org.openpnp.gui.support.PropertySheetWizardAdapter;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.ReferenceFeeder;
 import org.openpnp.machine.reference.feeder.wizards.AdvancedLoosePartFeederConfigurationWizard;
+import org.openpnp.model.Length;
+import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.spi.Camera;
 import org.openpnp.spi.Nozzle;
 import org.openpnp.spi.PropertySheetHolder;
 import org.openpnp.util.MovableUtils;
 import org.openpnp.util.OpenCvUtils;
-import org.openpnp.util.VisionUtils;
 import org.openpnp.vision.pipeline.CvPipeline;
+import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,8 +53,19 @@ public class AdvancedLoosePartFeeder extends ReferenceFeeder {
     @Element(required = false)
     private CvPipeline trainingPipeline = createDefaultTrainingPipeline();
 
+    @Attribute(required = false)
+    private boolean partCacheEnabled = false;
+
+    @Attribute(required = false)
+    private boolean verifyCachedParts = false;
+
+    @Element(required = false)
+    private Length disturbRadius = new Length(2, LengthUnit.Millimeters);
+
     private Location pickLocation;
 
+    private final LoosePartCache partCache = new LoosePartCache();
+
     @Override
     public Location getPickLocation() throws Exception {
         return pickLocation == null ? location : pickLocation;
@@ -61,58 +74,76 @@ public class AdvancedLoosePartFeeder extends ReferenceFeeder {
     @Override
     public void feed(Nozzle nozzle) throws Exception {
         Camera camera = nozzle.getHead().getDefaultCamera();
+        if (partCacheEnabled) {
+            Location cached = partCache.take(getPickLocation(), disturbRadius, verifyCachedParts,
+                    camera, () -> getPartLocations(camera, nozzle));
+            if (cached != null) {
+                pickLocation = cached;
+                return;
+            }
+        }
         // Move to the feeder pick location
         MovableUtils.moveToLocationAtSafeZ(camera, location);
+        List<Location> parts = null;
         for (int i = 0; i < 3; i++) {
-            pickLocation = getPickLocation(camera, nozzle);
+            parts = getPartLocations(camera, nozzle);
+            if (parts.isEmpty()) {
+                throw new Exception("Feeder " + getName() + ": No parts found.");
+            }
+            pickLocation = parts.get(0);
             camera.moveTo(pickLocation);
         }
+        if (partCacheEnabled) {
+            // Keep the other parts from the last capture for the next feeds
+            partCache.fill(parts, pickLocation, disturbRadius);
+        }
     }
 
-    private Location getPickLocation(Camera camera, Nozzle nozzle) throws Exception {
+    private List<Location> getPartLocations(Camera camera, Nozzle nozzle) throws Exception {
         try (CvPipeline pipeline = getPipeline()) {
-            // Process the pipeline to extract RotatedRect results
-            pipeline.setProperty("camera", camera);
-            pipeline.setProperty("nozzle", nozzle);
-            pipeline.setProperty("feeder", this);
-            pipeline.process();
-            // Grab the results
-            List<RotatedRect> results = (List<RotatedRect>) pipeline.getResult(VisionUtils.PIPELINE_RESULTS_NAME).model;
-            if (results.isEmpty()) {
-                throw new Exception("Feeder " + getName() + ": No parts found.");
+            List<Location> locations = new ArrayList<>();
+            for (Location location : LoosePartCache.findParts(pipeline, camera, nozzle, this)) {
+                // This feeder's pipeline measures the angle the other way around
+                locations.add(location.derive(null, null, null, -location.getRotation()));
             }
-            // Find the closest result
-            results.sort((a, b) -> {
-                Double da = VisionUtils.getPixelLocation(camera, a.center.x, a.center.y)
-                        .getLinearDistanceTo(camera.getLocation());
-                Double db = VisionUtils.getPixelLocation(camera, b.center.x, b.center.y)
-                        .getLinearDistanceTo(camera.getLocation());
-                return da.compareTo(db);
-            });
-            RotatedRect result = results.get(0);
-            Location location = VisionUtils.getPixelLocation(camera, result.center.x, result.center.y);
-            // Get the result's Location
-            // Update the location with the result's rotation
-            location = location.derive(null, null, null, -(result.angle + getLocation().getRotation()));
-            // Update the location with the correct Z, which is the configured Location's Z
-            // plus the part height.
-            location =
-                    location.derive(null, null,
-                            this.location.convertToUnits(location.getUnits()).getZ()
-                                    + part.getHeight().convertToUnits(location.getUnits()).getValue(),
-                            null);
             MainFrame.get().getCameraViews().getCameraView(camera)
                     .showFilteredImage(OpenCvUtils.toBufferedImage(pipeline.getWorkingImage()), 250);
-            return location;
+            return locations;
         }
     }
 
+    public boolean isPartCacheEnabled() {
+        return partCacheEnabled;
+    }
+
+    public void setPartCacheEnabled(boolean partCacheEnabled) {
+        this.partCacheEnabled = partCacheEnabled;
+        partCache.clear();
+    }
+
+    public boolean isVerifyCachedParts() {
+        return verifyCachedParts;
+    }
+
+    public void setVerifyCachedParts(boolean verifyCachedParts) {
+        this.verifyCachedParts = verifyCachedParts;
+    }
+
+    public Length getDisturbRadius() {
+        return disturbRadius;
+    }
+
+    public void setDisturbRadius(Length disturbRadius) {
+        this.disturbRadius = disturbRadius;
+    }
+
     public CvPipeline getPipeline() {
         return pipeline;
     }
 
     public void resetPipeline() {
         pipeline = createDefaultPipeline();
+        partCache.clear();
     }
 
     public CvPipeline getTrainingPipeline() {
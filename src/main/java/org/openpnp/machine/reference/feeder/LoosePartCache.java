@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+ *
+ * This file is part of OpenPnP.
+ *
+ * OpenPnP is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * OpenPnP is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with OpenPnP. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * For more information about OpenPnP visit http://openpnp.org
+ */
+
+package org.openpnp.machine.reference.feeder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.opencv.core.RotatedRect;
+import org.openpnp.machine.reference.ReferenceFeeder;
+import org.openpnp.model.Length;
+import org.openpnp.model.Location;
+import org.openpnp.spi.Camera;
+import org.openpnp.spi.Nozzle;
+import org.openpnp.util.MovableUtils;
+import org.openpnp.util.VisionUtils;
+import org.openpnp.vision.pipeline.CvPipeline;
+import org.pmw.tinylog.Logger;
+
+/**
+ * The part locations a loose part feeder found in a single capture. Later feeds take their part
+ * from here instead of capturing and running the pipeline again. Taking a part also drops every
+ * other part within the disturb radius of it, since the nozzle may knock those out of place when it
+ * picks.
+ */
+public class LoosePartCache {
+    /**
+     * Captures with the camera where it is and returns the location of every part found, closest
+     * to the camera first.
+     */
+    public interface PartFinder {
+        List<Location> findParts() throws Exception;
+    }
+
+    private final List<Location> locations = new ArrayList<>();
+
+    /**
+     * Replace the cached locations with the parts found by a new capture.
+     */
+    public synchronized void fill(List<Location> locations) {
+        this.locations.clear();
+        this.locations.addAll(locations);
+    }
+
+    /**
+     * Remove and return the cached part closest to the given location, or null if there are none
+     * left. Parts within disturbRadius of the returned part are removed too.
+     */
+    public synchronized Location take(Location from, Length disturbRadius) {
+        Location closest = null;
+        double closestDistance = Double.MAX_VALUE;
+        for (Location location : locations) {
+            double distance = location.getLinearDistanceTo(from);
+            if (distance < closestDistance) {
+                closest = location;
+                closestDistance = distance;
+            }
+        }
+        if (closest == null) {
+            return null;
+        }
+        double radius = disturbRadius.convertToUnits(closest.getUnits()).getValue();
+        for (Iterator<Location> i = locations.iterator(); i.hasNext();) {
+            if (i.next().getLinearDistanceTo(closest) <= radius) {
+                i.remove();
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Replace the cached locations with the parts found by a full search, less the part that is
+     * being picked and the parts within disturbRadius of it.
+     */
+    public synchronized void fill(List<Location> locations, Location picked, Length disturbRadius) {
+        fill(locations);
+        take(picked, disturbRadius);
+    }
+
+    /**
+     * Take the next part from the cache, closest to the given location. If verify is set the
+     * camera moves to the part and the finder is run, and the part is used at the location it is
+     * found at. Returns null if there is no cached part or it could not be found where it was
+     * expected, in which case the cache is cleared and the caller should search the whole feeder.
+     */
+    public Location take(Location from, Length disturbRadius, boolean verify, Camera camera,
+            PartFinder finder) throws Exception {
+        Location cached = take(from, disturbRadius);
+        if (cached == null || !verify) {
+            return cached;
+        }
+        MovableUtils.moveToLocationAtSafeZ(camera, cached.derive(null, null, null, 0.0));
+        List<Location> parts = finder.findParts();
+        double radius = disturbRadius.convertToUnits(cached.getUnits()).getValue();
+        if (parts.isEmpty() || parts.get(0).getLinearDistanceTo(cached) > radius) {
+            Logger.debug("Cached part not found at {}, searching the feeder again.", cached);
+            clear();
+            return null;
+        }
+        return parts.get(0);
+    }
+
+    public synchronized int size() {
+        return locations.size();
+    }
+
+    public synchronized void clear() {
+        locations.clear();
+    }
+
+    /**
+     * Process the pipeline for the feeder and return the location of every part in its results,
+     * closest to the camera first.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Location> findParts(CvPipeline pipeline, Camera camera, Nozzle nozzle,
+            ReferenceFeeder feeder) throws Exception {
+        // Process the pipeline to extract RotatedRect results
+        pipeline.setProperty("camera", camera);
+        pipeline.setProperty("nozzle", nozzle);
+        pipeline.setProperty("feeder", feeder);
+        pipeline.process();
+        // Grab the results
+        List<RotatedRect> results =
+                (List<RotatedRect>) pipeline.getResult(VisionUtils.PIPELINE_RESULTS_NAME).model;
+        List<Location> locations = new ArrayList<>();
+        for (RotatedRect result : results) {
+            locations.add(getPartLocation(camera, result, feeder));
+        }
+        // Sort by distance from the camera
+        Location cameraLocation = camera.getLocation();
+        locations.sort(Comparator.comparingDouble(l -> l.getLinearDistanceTo(cameraLocation)));
+        return locations;
+    }
+
+    /**
+     * Return the location of a pipeline result. The rotation is the result's angle plus the
+     * rotation of the feeder, and Z is the feeder's Z plus the part height.
+     */
+    public static Location getPartLocation(Camera camera, RotatedRect result,
+            ReferenceFeeder feeder) {
+        Location location = VisionUtils.getPixelLocation(camera, result.center.x, result.center.y);
+        Location feederLocation = feeder.getLocation().convertToUnits(location.getUnits());
+        double z = feederLocation.getZ() + feeder.getPart()
+                                                 .getHeight()
+                                                 .convertToUnits(location.getUnits())
+                                                 .getValue();
+        return location.derive(null, null, z, result.angle + feederLocation.getRotation());
+    }
+}
@@ -19,14 +19,22 @@
 
 package org.openpnp.machine.reference.feeder;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import javax.swing.Action;
 
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.ReferenceFeeder;
+import org.openpnp.machine.reference.ReferenceMachine;
 import org.openpnp.machine.reference.feeder.wizards.ReferenceAutoFeederConfigurationWizard;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.Location;
 import org.openpnp.spi.Actuator;
+import org.openpnp.spi.Machine;
 import org.openpnp.spi.Nozzle;
 import org.openpnp.spi.PropertySheetHolder;
 import org.pmw.tinylog.Logger;
@@ -56,6 +64,27 @@ public class ReferenceAutoFeeder extends ReferenceFeeder {
     @Attribute(required=false)
     protected double postPickActuatorValue;
 
+    /**
+     * If true the feed actuator is fired in the background after each pick, and when the job
+     * planner picks this feeder for the next cycle, so the part is ready by the time the nozzle
+     * gets here. Only used with drivers that are thread safe, since the machine thread may be
+     * moving the head at the same time.
+     */
+    @Attribute(required=false)
+    protected boolean prefeedEnabled = false;
+
+    /**
+     * True if a part has been fed ahead and not picked yet. Saved with the feeder so that the
+     * part isn't wasted by feeding again when a job is stopped, or OpenPnP restarted, before it
+     * is picked.
+     */
+    @Attribute(required=false)
+    protected boolean prefed;
+
+    private static ExecutorService prefeedExecutor;
+
+    private Future<?> prefeed;
+
     @Override
     public Location getPickLocation() throws Exception {
         return location;
@@ -63,6 +92,68 @@ public class ReferenceAutoFeeder extends ReferenceFeeder {
 
     @Override
     public void feed(Nozzle nozzle) throws Exception {
+        Future<?> prefeed;
+        synchronized (this) {
+            prefeed = this.prefeed;
+            this.prefeed = null;
+        }
+        if (prefeed != null) {
+            try {
+                prefeed.get();
+            }
+            catch (ExecutionException e) {
+                Logger.warn(e.getCause(), "Prefeed failed for feeder {}, feeding again.",
+                        getName());
+            }
+        }
+        synchronized (this) {
+            if (prefed) {
+                prefed = false;
+                return;
+            }
+        }
+        actuateFeed(nozzle);
+    }
+
+    @Override
+    public synchronized Future<?> prefeed(Nozzle nozzle) {
+        if (prefed) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!prefeedEnabled || actuatorName == null || actuatorName.equals("")
+                || !isDriverThreadSafe()) {
+            return null;
+        }
+        if (prefeed == null) {
+            prefeed = getPrefeedExecutor().submit(() -> {
+                actuateFeed(nozzle);
+                synchronized (this) {
+                    prefed = true;
+                }
+                return null;
+            });
+        }
+        return prefeed;
+    }
+
+    private static boolean isDriverThreadSafe() {
+        Machine machine = Configuration.get().getMachine();
+        return machine instanceof ReferenceMachine
+                && ((ReferenceMachine) machine).getDriver().isThreadSafe();
+    }
+
+    private static synchronized ExecutorService getPrefeedExecutor() {
+        if (prefeedExecutor == null) {
+            prefeedExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "ReferenceAutoFeeder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return prefeedExecutor;
+    }
+
+    protected void actuateFeed(Nozzle nozzle) throws Exception {
         if (actuatorName == null || actuatorName.equals("")) {
             Logger.warn("No actuatorName specified for feeder {}.", getName());
             return;
@@ -82,8 +173,7 @@ public class ReferenceAutoFeeder extends ReferenceFeeder {
         }
     }
     
-    @Override
-    public void postPick(Nozzle nozzle) throws Exception {
+    protected void actuatePostPick(Nozzle nozzle) throws Exception {
         if (postPickActuatorName == null || postPickActuatorName.equals("")) {
             return;
         }
@@ -101,6 +191,12 @@ public class ReferenceAutoFeeder extends ReferenceFeeder {
             actuator.actuate(postPickActuatorValue);
         }
     }
+
+    @Override
+    public void postPick(Nozzle nozzle) throws Exception {
+        actuatePostPick(nozzle);
+        prefeed(nozzle);
+    }
     
     public String getActuatorName() {
         return actuatorName;
@@ -150,6 +246,18 @@ public class ReferenceAutoFeeder extends ReferenceFeeder {
         this.postPickActuatorValue = postPickActuatorValue;
     }
 
+    public boolean isPrefeedEnabled() {
+        return prefeedEnabled;
+    }
+
+    public void setPrefeedEnabled(boolean prefeedEnabled) {
+        this.prefeedEnabled = prefeedEnabled;
+    }
+
+    public synchronized boolean isPrefed() {
+        return prefed;
+    }
+
     @Override
     public Wizard getConfigurationWizard() {
         return new ReferenceAutoFeederConfigurationWizard(this);
@@ -32,7 +32,9 @@ import javax.swing.Action;
 import org.openpnp.ConfigurationListener;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.ReferenceFeeder;
+import org.openpnp.machine.reference.camera.BufferedImageCamera;
 import org.openpnp.machine.reference.feeder.wizards.ReferenceDragFeederConfigurationWizard;
+import org.openpnp.machine.reference.vision.OpenCvVisionProvider;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.Length;
 import org.openpnp.model.LengthUnit;
@@ -170,7 +172,7 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
                 visionOffset = getVisionOffsets(head, location);
                 feededCount = 0;
             }
-            Logger.debug("visionOffsets " + visionOffset);
+            Logger.debug("visionOffsets {}", visionOffset);
         }
 
         // Now we have visionOffsets (if we're using them) so we
@@ -185,7 +187,7 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
             Location feedEndLocation = this.feedEndLocation;
 	        if (vision.isEnabled() && visionOffset != null) {
 	            feedStartLocation = feedStartLocation.subtract(visionOffset);
-	            Logger.debug("New drag distance with visionOffset " + feedStartLocation.subtract(feedEndLocation));
+	            Logger.debug("New drag distance with visionOffset {}", feedStartLocation.subtract(feedEndLocation));
 	        }
 
 	        // Move the actuator to the feed start location.
@@ -221,7 +223,7 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
 	        }
         } 
         else {
-			Logger.debug("Multi parts drag feeder: skipping drag " + feededCount);
+			Logger.debug("Multi parts drag feeder: skipping drag {}", feededCount);
         }
 
 
@@ -241,7 +243,7 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
 				}
 			}
 
-            Logger.debug("final visionOffsets " + visionOffset);
+            Logger.debug("final visionOffsets {}", visionOffset);
 
             Logger.debug("Modified pickLocation {}", pickLocation.subtract(visionOffset));
         }
@@ -250,25 +252,8 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
     // TODO: Throw an Exception if vision fails.
     private Location getVisionOffsets(Head head, Location pickLocation) throws Exception {
         Logger.debug("getVisionOffsets({}, {})", head.getName(), pickLocation);
-        // Find the Camera to be used for vision
-        Camera camera = null;
-        for (Camera c : head.getCameras()) {
-            if (c.getVisionProvider() != null) {
-                camera = c;
-            }
-        }
-
-        if (camera == null) {
-            throw new Exception("No vision capable camera found on head.");
-        }
-        
-        if (vision.getTemplateImage() == null) {
-            throw new Exception("Template image is required when vision is enabled.");
-        }
-        
-        if (vision.getAreaOfInterest().getWidth() == 0 || vision.getAreaOfInterest().getHeight() == 0) {
-            throw new Exception("Area of Interest is required when vision is enabled.");
-        }
+        Camera camera = getVisionCamera(head);
+        checkVisionSettings();
 
         head.moveToSafeZ();
 
@@ -282,8 +267,11 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
         // Settle the camera
         Thread.sleep(camera.getSettleTimeMs());
 
-        VisionProvider visionProvider = camera.getVisionProvider();
+        return getVisionOffsets(camera, camera.getVisionProvider());
+    }
 
+    private Location getVisionOffsets(Camera camera, VisionProvider visionProvider)
+            throws Exception {
         Rectangle aoi = getVision().getAreaOfInterest();
 
         // Perform the template match
@@ -336,6 +324,62 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
         return new Location(unitsPerPixel.getUnits(), offsetX, offsetY, 0, 0);
     }
 
+    private Camera getVisionCamera(Head head) throws Exception {
+        // Find the Camera to be used for vision
+        Camera camera = null;
+        for (Camera c : head.getCameras()) {
+            if (c.getVisionProvider() != null) {
+                camera = c;
+            }
+        }
+
+        if (camera == null) {
+            throw new Exception("No vision capable camera found on head.");
+        }
+        return camera;
+    }
+
+    private void checkVisionSettings() throws Exception {
+        if (vision.getTemplateImage() == null) {
+            throw new Exception("Template image is required when vision is enabled.");
+        }
+        
+        if (vision.getAreaOfInterest().getWidth() == 0 || vision.getAreaOfInterest().getHeight() == 0) {
+            throw new Exception("Area of Interest is required when vision is enabled.");
+        }
+    }
+
+    @Override
+    public Camera getWarmupCamera(Head head) throws Exception {
+        return getVisionCamera(head);
+    }
+
+    /**
+     * Warming up does the vision pre-flight of the first feed, so there is only something to do
+     * while the vision offsets are unknown.
+     */
+    @Override
+    public Location getWarmupLocation(Head head) throws Exception {
+        if (!vision.isEnabled() || visionOffset != null) {
+            return null;
+        }
+        checkVisionSettings();
+        return location;
+    }
+
+    @Override
+    public void processWarmupImage(Camera camera, Location location, BufferedImage image)
+            throws Exception {
+        // Match against the captured image rather than the live camera.
+        BufferedImageCamera imageCamera = new BufferedImageCamera(camera, image);
+        VisionProvider visionProvider = new OpenCvVisionProvider();
+        visionProvider.setCamera(imageCamera);
+        Location offsets = getVisionOffsets(imageCamera, visionProvider);
+        Logger.debug("Warm up visionOffsets {}", offsets);
+        visionOffset = offsets;
+        feededCount = 0;
+    }
+
     @Override
     public String toString() {
         return String.format("ReferenceTapeFeeder id %s", id);
@@ -344,7 +388,7 @@ public class ReferenceDragFeeder extends ReferenceFeeder {
 	public void resetVisionOffsets() {
 		if (visionOffset != null) {
 			visionOffset = null;
-			Logger.debug("resetVisionOffsets " + visionOffset);
+			Logger.debug("resetVisionOffsets {}", visionOffset);
 		}
 
 		partPitch = null;
@@ -24,28 +24,40 @@ import java.util.List;
 import javax.swing.Action;
 
 import org.apache.commons.io.IOUtils;
-import org.opencv.core.RotatedRect;
 import org.openpnp.gui.MainFrame;
 import org.openpnp.gui.support.PropertySheetWizardAdapter;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.ReferenceFeeder;
 import org.openpnp.machine.reference.feeder.wizards.ReferenceLoosePartFeederConfigurationWizard;
+import org.openpnp.model.Length;
+import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.spi.Camera;
 import org.openpnp.spi.Nozzle;
 import org.openpnp.spi.PropertySheetHolder;
 import org.openpnp.util.MovableUtils;
 import org.openpnp.util.OpenCvUtils;
-import org.openpnp.util.VisionUtils;
 import org.openpnp.vision.pipeline.CvPipeline;
+import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 
 public class ReferenceLoosePartFeeder extends ReferenceFeeder {
     @Element(required = false)
     private CvPipeline pipeline = createDefaultPipeline();
 
+    @Attribute(required = false)
+    private boolean partCacheEnabled = false;
+
+    @Attribute(required = false)
+    private boolean verifyCachedParts = false;
+
+    @Element(required = false)
+    private Length disturbRadius = new Length(2, LengthUnit.Millimeters);
+
     private Location pickLocation;
 
+    private final LoosePartCache partCache = new LoosePartCache();
+
     @Override
     public Location getPickLocation() throws Exception {
         return pickLocation == null ? location : pickLocation;
@@ -55,53 +67,68 @@ public class ReferenceLoosePartFeeder extends ReferenceFeeder {
     public void feed(Nozzle nozzle) throws Exception {
         Camera camera = nozzle.getHead()
                               .getDefaultCamera();
-        // Move to the feeder pick location
-        MovableUtils.moveToLocationAtSafeZ(camera, location);
         try (CvPipeline pipeline = getPipeline()) {
+            if (partCacheEnabled) {
+                Location cached = partCache.take(getPickLocation(), disturbRadius,
+                        verifyCachedParts, camera,
+                        () -> LoosePartCache.findParts(pipeline, camera, nozzle, this));
+                if (cached != null) {
+                    pickLocation = cached;
+                    if (verifyCachedParts) {
+                        showFilteredImage(pipeline, camera);
+                    }
+                    return;
+                }
+            }
+            // Move to the feeder pick location
+            MovableUtils.moveToLocationAtSafeZ(camera, location);
+            List<Location> parts = null;
             for (int i = 0; i < 3; i++) {
-                pickLocation = getPickLocation(pipeline, camera, nozzle);
+                parts = LoosePartCache.findParts(pipeline, camera, nozzle, this);
+                if (parts.isEmpty()) {
+                    throw new Exception("Feeder " + getName() + ": No parts found.");
+                }
+                pickLocation = parts.get(0);
                 camera.moveTo(pickLocation.derive(null, null, null, 0.0));
             }
-            MainFrame.get()
-                     .getCameraViews()
-                     .getCameraView(camera)
-                     .showFilteredImage(OpenCvUtils.toBufferedImage(pipeline.getWorkingImage()),
-                             1000);
+            if (partCacheEnabled) {
+                // Keep the other parts from the last capture for the next feeds
+                partCache.fill(parts, pickLocation, disturbRadius);
+            }
+            showFilteredImage(pipeline, camera);
         }
     }
 
-    private Location getPickLocation(CvPipeline pipeline, Camera camera, Nozzle nozzle)
-            throws Exception {
-        // Process the pipeline to extract RotatedRect results
-        pipeline.setProperty("camera", camera);
-        pipeline.setProperty("nozzle", nozzle);
-        pipeline.setProperty("feeder", this);
-        pipeline.process();
-        // Grab the results
-        List<RotatedRect> results =
-                (List<RotatedRect>) pipeline.getResult(VisionUtils.PIPELINE_RESULTS_NAME).model;
-        if (results.isEmpty()) {
-            throw new Exception("Feeder " + getName() + ": No parts found.");
-        }
-        // Find the closest result
-        results.sort((a, b) -> {
-            Double da = VisionUtils.getPixelLocation(camera, a.center.x, a.center.y)
-                                   .getLinearDistanceTo(camera.getLocation());
-            Double db = VisionUtils.getPixelLocation(camera, b.center.x, b.center.y)
-                                   .getLinearDistanceTo(camera.getLocation());
-            return da.compareTo(db);
-        });
-        RotatedRect result = results.get(0);
-        // Get the result's Location
-        Location location = VisionUtils.getPixelLocation(camera, result.center.x, result.center.y);
-        // Update the location's rotation with the result's angle
-        location = location.derive(null, null, null, result.angle + this.location.getRotation());
-        // Update the location with the correct Z, which is the configured Location's Z
-        // plus the part height.
-        double z = this.location.convertToUnits(location.getUnits()).getZ()
-                + part.getHeight().convertToUnits(location.getUnits()).getValue(); 
-        location = location.derive(null, null, z, null);
-        return location;
+    private void showFilteredImage(CvPipeline pipeline, Camera camera) {
+        MainFrame.get()
+                 .getCameraViews()
+                 .getCameraView(camera)
+                 .showFilteredImage(OpenCvUtils.toBufferedImage(pipeline.getWorkingImage()), 1000);
+    }
+
+    public boolean isPartCacheEnabled() {
+        return partCacheEnabled;
+    }
+
+    public void setPartCacheEnabled(boolean partCacheEnabled) {
+        this.partCacheEnabled = partCacheEnabled;
+        partCache.clear();
+    }
+
+    public boolean isVerifyCachedParts() {
+        return verifyCachedParts;
+    }
+
+    public void setVerifyCachedParts(boolean verifyCachedParts) {
+        this.verifyCachedParts = verifyCachedParts;
+    }
+
+    public Length getDisturbRadius() {
+        return disturbRadius;
+    }
+
+    public void setDisturbRadius(Length disturbRadius) {
+        this.disturbRadius = disturbRadius;
     }
 
     public CvPipeline getPipeline() {
@@ -110,6 +137,7 @@ public class ReferenceLoosePartFeeder extends ReferenceFeeder {
 
     public void resetPipeline() {
         pipeline = createDefaultPipeline();
+        partCache.clear();
     }
 
     @Override
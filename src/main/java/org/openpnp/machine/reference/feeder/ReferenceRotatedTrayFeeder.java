@@ -124,8 +124,8 @@ public class ReferenceRotatedTrayFeeder extends ReferenceFeeder {
 
 		calculatePickLocation(partX, partY);
 
-		Logger.debug(String.format("Feeding part # %d, x %d, y %d, xPos %f, yPos %f, rPos %f", feedCount, partX, partY,
-				pickLocation.getX(), pickLocation.getY(), pickLocation.getRotation()));
+		Logger.debug("Feeding part # {}, x {}, y {}, xPos {}, yPos {}, rPos {}", feedCount, partX, partY,
+				pickLocation.getX(), pickLocation.getY(), pickLocation.getRotation());
 
 		setFeedCount(getFeedCount() + 1);
 	}
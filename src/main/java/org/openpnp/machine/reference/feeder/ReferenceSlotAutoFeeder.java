@@ -1,6 +1,7 @@
 package org.openpnp.machine.reference.feeder;
 
 import java.util.List;
+import java.util.concurrent.Future;
 
 import org.openpnp.ConfigurationListener;
 import org.openpnp.gui.support.Wizard;
@@ -96,6 +97,14 @@ public class ReferenceSlotAutoFeeder extends ReferenceAutoFeeder {
         super.postPick(nozzle);
     }
 
+    @Override
+    public Future<?> prefeed(Nozzle nozzle) {
+        if (getFeeder() == null) {
+            return null;
+        }
+        return super.prefeed(nozzle);
+    }
+
     @Override
     public boolean isEnabled() {
         return super.isEnabled() && getFeeder() != null && getFeeder().getPart() != null;
@@ -21,6 +21,7 @@ package org.openpnp.machine.reference.feeder;
 
 
 
+import java.awt.image.BufferedImage;
 import java.util.List;
 
 import javax.swing.Action;
@@ -29,12 +30,14 @@ import org.apache.commons.io.IOUtils;
 import org.openpnp.gui.MainFrame;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.ReferenceFeeder;
+import org.openpnp.machine.reference.camera.BufferedImageCamera;
 import org.openpnp.machine.reference.feeder.wizards.ReferenceStripFeederConfigurationWizard;
 import org.openpnp.model.Length;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.model.Point;
 import org.openpnp.spi.Camera;
+import org.openpnp.spi.Head;
 import org.openpnp.spi.Nozzle;
 import org.openpnp.spi.PropertySheetHolder;
 import org.openpnp.util.MovableUtils;
@@ -117,6 +120,13 @@ public class ReferenceStripFeeder extends ReferenceFeeder {
     private Location visionOffsets;
     private Location visionLocation;
 
+    /**
+     * The hole found by the last warm up and the location it was expected at. The next feed uses
+     * it instead of running the pipeline if it expects the hole at the same location.
+     */
+    private Location warmupExpectedLocation;
+    private Location warmupHoleLocation;
+
     public Length getHoleDiameterMin() {
         return getHoleDiameter().multiply(0.9);
     }
@@ -223,9 +233,30 @@ public class ReferenceStripFeeder extends ReferenceFeeder {
         if (!visionEnabled) {
             return;
         }
-        // go to where we expect to find the next reference hole
-        Camera camera = nozzle.getHead().getDefaultCamera();
-        Location expectedLocation = null;
+        Location expectedLocation = getExpectedHoleLocation(feedCount);
+        Location actualLocation = null;
+        if (expectedLocation.equals(warmupExpectedLocation)) {
+            // the warm up already looked for this hole
+            actualLocation = warmupHoleLocation;
+        }
+        else {
+            // go to where we expect to find the next reference hole
+            Camera camera = nozzle.getHead().getDefaultCamera();
+            MovableUtils.moveToLocationAtSafeZ(camera, expectedLocation);
+            // and look for the hole
+            actualLocation = findClosestHole(camera);
+        }
+        warmupExpectedLocation = null;
+        warmupHoleLocation = null;
+        checkHoleLocation(expectedLocation, actualLocation);
+        visionOffsets = actualLocation.subtract(expectedLocation).derive(null, null, 0d, 0d);
+        visionLocation = actualLocation;
+    }
+
+    /**
+     * Returns the location we expect to find the reference hole for the given feed count at.
+     */
+    private Location getExpectedHoleLocation(int feedCount) {
         Location[] lineLocations = getIdealLineLocations();
 
         if (partPitch.convertToUnits(LengthUnit.Millimeters).getValue() < 4) {
@@ -233,19 +264,20 @@ public class ReferenceStripFeeder extends ReferenceFeeder {
             // twice since there are two parts per reference hole.
             // Note the use of holePitch here and partPitch in the
             // alternate case below.
-            expectedLocation = Utils2D.getPointAlongLine(lineLocations[0], lineLocations[1],
+            return Utils2D.getPointAlongLine(lineLocations[0], lineLocations[1],
                     holePitch.multiply((feedCount - 1) / 2));
         }
         else {
             // For tapes with a part pitch >= 4 there is always a reference
             // hole 2mm from a part so we just multiply by the part pitch
             // skipping over holes that are not reference holes.
-            expectedLocation = Utils2D.getPointAlongLine(lineLocations[0], lineLocations[1],
+            return Utils2D.getPointAlongLine(lineLocations[0], lineLocations[1],
                     partPitch.multiply(feedCount - 1));
         }
-        MovableUtils.moveToLocationAtSafeZ(camera, expectedLocation);
-        // and look for the hole
-        Location actualLocation = findClosestHole(camera);
+    }
+
+    private void checkHoleLocation(Location expectedLocation, Location actualLocation)
+            throws Exception {
         if (actualLocation == null) {
             throw new Exception("Unable to locate reference hole. End of strip?");
         }
@@ -255,8 +287,27 @@ public class ReferenceStripFeeder extends ReferenceFeeder {
         if (distance.getValue() > 2) {
             throw new Exception("Unable to locate reference hole. End of strip?");
         }
-        visionOffsets = actualLocation.subtract(expectedLocation).derive(null, null, 0d, 0d);
-        visionLocation = actualLocation;
+    }
+
+    @Override
+    public Location getWarmupLocation(Head head) throws Exception {
+        if (!visionEnabled) {
+            return null;
+        }
+        return getExpectedHoleLocation(feedCount + 1);
+    }
+
+    @Override
+    public void processWarmupImage(Camera camera, Location location, BufferedImage image)
+            throws Exception {
+        // Run the pipeline on the captured image, with the camera where it was at the time.
+        BufferedImageCamera imageCamera = new BufferedImageCamera(camera, image);
+        imageCamera.setHeadOffsets(location);
+        imageCamera.setSettleTimeMs(0);
+        Location holeLocation = findClosestHole(imageCamera);
+        checkHoleLocation(location, holeLocation);
+        warmupExpectedLocation = location;
+        warmupHoleLocation = holeLocation;
     }
 
     private Location findClosestHole(Camera camera) throws Exception {
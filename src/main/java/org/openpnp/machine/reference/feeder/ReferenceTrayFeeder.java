@@ -86,9 +86,9 @@ public class ReferenceTrayFeeder extends ReferenceFeeder {
         // and then add them to the location to get the final pickLocation.
         pickLocation = location.add(offsets.multiply(partX, partY, 0.0, 0.0));
 
-        Logger.debug(String.format("Feeding part # %d, x %d, y %d, xPos %f, yPos %f, rPos %f",
+        Logger.debug("Feeding part # {}, x {}, y {}, xPos {}, yPos {}, rPos {}",
                 feedCount, partX, partY, pickLocation.getX(), pickLocation.getY(),
-                pickLocation.getRotation()));
+                pickLocation.getRotation());
 
         setFeedCount(getFeedCount() + 1);
     }
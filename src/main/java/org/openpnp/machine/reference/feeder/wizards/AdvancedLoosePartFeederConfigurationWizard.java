@@ -48,6 +48,7 @@ import com.jgoodies.forms.layout.RowSpec;
 public class AdvancedLoosePartFeederConfigurationWizard
         extends AbstractReferenceFeederConfigurationWizard {
     private final AdvancedLoosePartFeeder feeder;
+    private LoosePartCachePanel panelPartCache;
 
     public AdvancedLoosePartFeederConfigurationWizard(AdvancedLoosePartFeeder feeder) {
         super(feeder);
@@ -101,6 +102,16 @@ public class AdvancedLoosePartFeederConfigurationWizard
         lblWarningThisFeeder.setForeground(Color.RED);
         lblWarningThisFeeder.setHorizontalAlignment(SwingConstants.LEFT);
         warningPanel.add(lblWarningThisFeeder);
+
+        panelPartCache = new LoosePartCachePanel();
+        contentPanel.add(panelPartCache);
+    }
+
+    @Override
+    public void createBindings() {
+        super.createBindings();
+
+        panelPartCache.createBindings(this, feeder);
     }
 
     private void editPipeline() throws Exception {
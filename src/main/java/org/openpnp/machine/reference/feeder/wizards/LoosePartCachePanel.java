@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+ * 
+ * This file is part of OpenPnP.
+ * 
+ * OpenPnP is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * OpenPnP is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with OpenPnP. If not, see
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * For more information about OpenPnP visit http://openpnp.org
+ */
+
+package org.openpnp.machine.reference.feeder.wizards;
+
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.border.TitledBorder;
+
+import org.openpnp.gui.components.ComponentDecorators;
+import org.openpnp.gui.support.AbstractConfigurationWizard;
+import org.openpnp.gui.support.LengthConverter;
+
+import com.jgoodies.forms.layout.ColumnSpec;
+import com.jgoodies.forms.layout.FormLayout;
+import com.jgoodies.forms.layout.FormSpecs;
+import com.jgoodies.forms.layout.RowSpec;
+
+/**
+ * The Part Cache settings of the loose part feeders. The feeder must have the partCacheEnabled,
+ * verifyCachedParts and disturbRadius properties.
+ */
+@SuppressWarnings("serial")
+public class LoosePartCachePanel extends JPanel {
+    private JCheckBox chckbxPartCacheEnabled;
+    private JCheckBox chckbxVerifyCachedParts;
+    private JTextField textFieldDisturbRadius;
+
+    public LoosePartCachePanel() {
+        setBorder(new TitledBorder(null, "Part Cache", TitledBorder.LEADING, TitledBorder.TOP,
+                null, null));
+        setLayout(new FormLayout(new ColumnSpec[] {
+                FormSpecs.RELATED_GAP_COLSPEC,
+                FormSpecs.DEFAULT_COLSPEC,
+                FormSpecs.RELATED_GAP_COLSPEC,
+                FormSpecs.DEFAULT_COLSPEC,},
+            new RowSpec[] {
+                FormSpecs.RELATED_GAP_ROWSPEC,
+                FormSpecs.DEFAULT_ROWSPEC,
+                FormSpecs.RELATED_GAP_ROWSPEC,
+                FormSpecs.DEFAULT_ROWSPEC,
+                FormSpecs.RELATED_GAP_ROWSPEC,
+                FormSpecs.DEFAULT_ROWSPEC,}));
+
+        JLabel lblPartCacheEnabled = new JLabel("Enabled?");
+        lblPartCacheEnabled.setToolTipText(
+                "Pick the other parts found by a search without searching the feeder again.");
+        add(lblPartCacheEnabled, "2, 2, right, default");
+
+        chckbxPartCacheEnabled = new JCheckBox("");
+        add(chckbxPartCacheEnabled, "4, 2");
+
+        JLabel lblVerifyCachedParts = new JLabel("Verify Cached Parts?");
+        lblVerifyCachedParts.setToolTipText(
+                "Look at a cached part with the camera before it is picked.");
+        add(lblVerifyCachedParts, "2, 4, right, default");
+
+        chckbxVerifyCachedParts = new JCheckBox("");
+        add(chckbxVerifyCachedParts, "4, 4");
+
+        JLabel lblDisturbRadius = new JLabel("Disturb Radius");
+        lblDisturbRadius.setToolTipText(
+                "Cached parts this close to a picked part are searched for again.");
+        add(lblDisturbRadius, "2, 6, right, default");
+
+        textFieldDisturbRadius = new JTextField();
+        add(textFieldDisturbRadius, "4, 6");
+        textFieldDisturbRadius.setColumns(10);
+    }
+
+    /**
+     * Bind the fields to the feeder. Call this from the wizard's createBindings().
+     */
+    public void createBindings(AbstractConfigurationWizard wizard, Object feeder) {
+        LengthConverter lengthConverter = new LengthConverter();
+
+        wizard.addWrappedBinding(feeder, "partCacheEnabled", chckbxPartCacheEnabled, "selected");
+        wizard.addWrappedBinding(feeder, "verifyCachedParts", chckbxVerifyCachedParts,
+                "selected");
+        wizard.addWrappedBinding(feeder, "disturbRadius", textFieldDisturbRadius, "text",
+                lengthConverter);
+
+        ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldDisturbRadius);
+    }
+}
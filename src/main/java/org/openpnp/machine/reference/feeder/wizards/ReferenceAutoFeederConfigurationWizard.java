@@ -25,6 +25,7 @@ import java.awt.event.ActionEvent;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
@@ -57,6 +58,7 @@ public class ReferenceAutoFeederConfigurationWizard
     private JComboBox postPickActuatorType;
     private JButton btnTestFeedActuator;
     private JButton btnTestPostPickActuator;
+    private JCheckBox prefeedEnabled;
 
     public ReferenceAutoFeederConfigurationWizard(ReferenceAutoFeeder feeder) {
         super(feeder);
@@ -85,6 +87,8 @@ public class ReferenceAutoFeederConfigurationWizard
                 FormSpecs.RELATED_GAP_ROWSPEC,
                 FormSpecs.DEFAULT_ROWSPEC,
                 FormSpecs.RELATED_GAP_ROWSPEC,
+                FormSpecs.DEFAULT_ROWSPEC,
+                FormSpecs.RELATED_GAP_ROWSPEC,
                 FormSpecs.DEFAULT_ROWSPEC,}));
 
         JLabel lblActuatorName = new JLabel("Actuator Name");
@@ -135,6 +139,14 @@ public class ReferenceAutoFeederConfigurationWizard
 
         btnTestPostPickActuator = new JButton(testPostPickActuatorAction);
         panelActuator.add(btnTestPostPickActuator, "12, 6");
+
+        JLabel lblPrefeed = new JLabel("Feed Ahead?");
+        lblPrefeed.setToolTipText(
+                "Fire the feed actuator in the background after each pick, so the next part is ready before the nozzle returns. Only used with drivers that are thread safe, such as the GcodeDriver.");
+        panelActuator.add(lblPrefeed, "2, 8, right, default");
+
+        prefeedEnabled = new JCheckBox("");
+        panelActuator.add(prefeedEnabled, "4, 8");
     }
 
     @Override
@@ -151,6 +163,7 @@ public class ReferenceAutoFeederConfigurationWizard
         addWrappedBinding(feeder, "postPickActuatorName", postPickActuatorName, "text");
         addWrappedBinding(feeder, "postPickActuatorType", postPickActuatorType, "selectedItem");
         addWrappedBinding(feeder, "postPickActuatorValue", postPickActuatorValue, "text", doubleConverter);
+        addWrappedBinding(feeder, "prefeedEnabled", prefeedEnabled, "selected");
         
         ComponentDecorators.decorateWithAutoSelect(actuatorName);
         ComponentDecorators.decorateWithAutoSelect(actuatorValue);
@@ -48,6 +48,7 @@ import java.awt.FlowLayout;
 public class ReferenceLoosePartFeederConfigurationWizard
         extends AbstractReferenceFeederConfigurationWizard {
     private final ReferenceLoosePartFeeder feeder;
+    private LoosePartCachePanel panelPartCache;
 
     public ReferenceLoosePartFeederConfigurationWizard(ReferenceLoosePartFeeder feeder) {
         super(feeder);
@@ -84,6 +85,16 @@ public class ReferenceLoosePartFeederConfigurationWizard
         lblWarningThisFeeder.setFont(new Font("Lucida Grande", Font.PLAIN, 16));
         lblWarningThisFeeder.setForeground(Color.RED);
         lblWarningThisFeeder.setHorizontalAlignment(SwingConstants.LEFT);
+
+        panelPartCache = new LoosePartCachePanel();
+        contentPanel.add(panelPartCache);
+    }
+
+    @Override
+    public void createBindings() {
+        super.createBindings();
+
+        panelPartCache.createBindings(this, feeder);
     }
 
     private void editPipeline() throws Exception {
@@ -173,8 +173,8 @@ public class OpenCvVisionProvider implements VisionProvider {
 
         // TODO: Figure out certainty and how to filter on it.
 
-        Logger.debug(String.format("locateTemplateMatches certainty %f at %f, %f", matchValue,
-                matchLoc.x, matchLoc.y));
+        Logger.debug("locateTemplateMatches certainty {} at {}, {}", matchValue,
+                matchLoc.x, matchLoc.y);
         locateTemplateMatchesDebug(roiImage, templateImage, matchLoc);
 
         return new Point[] {new Point(((int) matchLoc.x) + roiX, ((int) matchLoc.y) + roiY)};
@@ -28,12 +28,14 @@ import org.openpnp.util.OpenCvUtils;
 import org.openpnp.util.Utils2D;
 import org.openpnp.util.VisionUtils;
 import org.openpnp.vision.pipeline.CvPipeline;
+import org.openpnp.vision.pipeline.LazyCvPipeline;
 import org.openpnp.vision.pipeline.CvStage.Result;
 import org.pmw.tinylog.Logger;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 import org.simpleframework.xml.ElementMap;
 import org.simpleframework.xml.Root;
+import org.simpleframework.xml.convert.Convert;
 
 public class ReferenceBottomVision implements PartAlignment {
 
@@ -424,7 +426,8 @@ public class ReferenceBottomVision implements PartAlignment {
         protected PreRotateUsage preRotateUsage = PreRotateUsage.Default;
 
         @Element
-        protected CvPipeline pipeline;
+        @Convert(LazyCvPipeline.XmlConverter.class)
+        protected LazyCvPipeline pipeline;
 
         public PartSettings() {
 
@@ -457,12 +460,12 @@ public class ReferenceBottomVision implements PartAlignment {
             this.preRotateUsage = preRotateUsage;
         }
 
-        public CvPipeline getPipeline() {
-            return pipeline;
+        public CvPipeline getPipeline() throws Exception {
+            return pipeline == null ? null : pipeline.get();
         }
 
         public void setPipeline(CvPipeline pipeline) {
-            this.pipeline = pipeline;
+            this.pipeline = pipeline == null ? null : new LazyCvPipeline(pipeline);
         }
     }
 }
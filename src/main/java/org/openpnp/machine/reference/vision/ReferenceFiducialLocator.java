@@ -40,11 +40,13 @@ import org.openpnp.util.QuickHull;
 import org.openpnp.util.Utils2D;
 import org.openpnp.util.VisionUtils;
 import org.openpnp.vision.pipeline.CvPipeline;
+import org.openpnp.vision.pipeline.LazyCvPipeline;
 import org.pmw.tinylog.Logger;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 import org.simpleframework.xml.ElementMap;
 import org.simpleframework.xml.Root;
+import org.simpleframework.xml.convert.Convert;
 
 import com.google.common.collect.Sets;
 
@@ -513,7 +515,8 @@ public class ReferenceFiducialLocator implements FiducialLocator {
         protected boolean enabled;
 
         @Element
-        protected CvPipeline pipeline;
+        @Convert(LazyCvPipeline.XmlConverter.class)
+        protected LazyCvPipeline pipeline;
 
         public PartSettings() {
 
@@ -528,12 +531,12 @@ public class ReferenceFiducialLocator implements FiducialLocator {
             }
         }
 
-        public CvPipeline getPipeline() {
-            return pipeline;
+        public CvPipeline getPipeline() throws Exception {
+            return pipeline == null ? null : pipeline.get();
         }
 
         public void setPipeline(CvPipeline pipeline) {
-            this.pipeline = pipeline;
+            this.pipeline = pipeline == null ? null : new LazyCvPipeline(pipeline);
         }
     }  
 }
@@ -21,6 +21,7 @@ package org.openpnp.machine.reference.wizards;
 
 import java.awt.Color;
 
+import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
@@ -46,6 +47,9 @@ public class ReferenceNozzlePartDetectionWizard extends AbstractConfigurationWiz
     private JLabel label;
     private JTextField vacSenseActuatorNameTf;
     private JPanel panel;
+    private JCheckBox adaptiveDwellChk;
+    private JTextField adaptiveDwellPollTf;
+    private JTextField adaptiveDwellStableReadingsTf;
 
     public ReferenceNozzlePartDetectionWizard(ReferenceNozzle nozzle) {
         this.nozzle = nozzle;
@@ -62,6 +66,12 @@ public class ReferenceNozzlePartDetectionWizard extends AbstractConfigurationWiz
                 FormSpecs.DEFAULT_COLSPEC,
                 FormSpecs.DEFAULT_COLSPEC,},
             new RowSpec[] {
+                FormSpecs.RELATED_GAP_ROWSPEC,
+                RowSpec.decode("26px"),
+                FormSpecs.RELATED_GAP_ROWSPEC,
+                RowSpec.decode("26px"),
+                FormSpecs.RELATED_GAP_ROWSPEC,
+                RowSpec.decode("26px"),
                 FormSpecs.RELATED_GAP_ROWSPEC,
                 RowSpec.decode("26px"),}));
         
@@ -71,6 +81,27 @@ public class ReferenceNozzlePartDetectionWizard extends AbstractConfigurationWiz
         vacSenseActuatorNameTf = new JTextField();
         panel.add(vacSenseActuatorNameTf, "2, 2, left, top");
         vacSenseActuatorNameTf.setColumns(10);
+
+        JLabel lblAdaptiveDwell = new JLabel("Adaptive Dwell");
+        lblAdaptiveDwell.setToolTipText("End the pick and place dwell as soon as the vacuum level is stable in the nozzle tip's part on / part off range. The dwell times become the maximum.");
+        panel.add(lblAdaptiveDwell, "1, 4, left, center");
+
+        adaptiveDwellChk = new JCheckBox("");
+        panel.add(adaptiveDwellChk, "2, 4, left, top");
+
+        JLabel lblAdaptiveDwellPoll = new JLabel("Poll Interval (ms)");
+        panel.add(lblAdaptiveDwellPoll, "1, 6, left, center");
+
+        adaptiveDwellPollTf = new JTextField();
+        panel.add(adaptiveDwellPollTf, "2, 6, left, top");
+        adaptiveDwellPollTf.setColumns(10);
+
+        JLabel lblAdaptiveDwellStableReadings = new JLabel("Stable Readings");
+        panel.add(lblAdaptiveDwellStableReadings, "1, 8, left, center");
+
+        adaptiveDwellStableReadingsTf = new JTextField();
+        panel.add(adaptiveDwellStableReadingsTf, "2, 8, left, top");
+        adaptiveDwellStableReadingsTf.setColumns(10);
     }
 
     @Override
@@ -79,7 +110,14 @@ public class ReferenceNozzlePartDetectionWizard extends AbstractConfigurationWiz
         IntegerConverter intConverter = new IntegerConverter();
 
         addWrappedBinding(nozzle, "vacuumSenseActuatorName", vacSenseActuatorNameTf, "text");
+        addWrappedBinding(nozzle, "adaptiveDwell", adaptiveDwellChk, "selected");
+        addWrappedBinding(nozzle, "adaptiveDwellPollMilliseconds", adaptiveDwellPollTf, "text",
+                intConverter);
+        addWrappedBinding(nozzle, "adaptiveDwellStableReadings", adaptiveDwellStableReadingsTf,
+                "text", intConverter);
 
         ComponentDecorators.decorateWithAutoSelect(vacSenseActuatorNameTf);
+        ComponentDecorators.decorateWithAutoSelect(adaptiveDwellPollTf);
+        ComponentDecorators.decorateWithAutoSelect(adaptiveDwellStableReadingsTf);
     }
 }
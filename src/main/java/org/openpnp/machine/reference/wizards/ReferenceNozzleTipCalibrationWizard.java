@@ -120,6 +120,8 @@ public class ReferenceNozzleTipCalibrationWizard extends AbstractConfigurationWi
                 FormSpecs.RELATED_GAP_ROWSPEC,
                 FormSpecs.DEFAULT_ROWSPEC,
                 FormSpecs.RELATED_GAP_ROWSPEC,
+                FormSpecs.DEFAULT_ROWSPEC,
+                FormSpecs.RELATED_GAP_ROWSPEC,
                 FormSpecs.DEFAULT_ROWSPEC,}));
 
         calibrationEnabledCheckbox = new JCheckBox("Enable?");
@@ -207,19 +209,50 @@ public class ReferenceNozzleTipCalibrationWizard extends AbstractConfigurationWi
         calibrationZOffsetTf.setColumns(6);
 
         lblRecalibration = new JLabel("Automatic Recalibration");
-        lblRecalibration.setToolTipText("<html>\r\n<p>Determines when a recalibration is automatically executed:</p>\r\n<p><ul><li>On each nozzle tip change.</li>\r\n<li>On each nozzle tip change but only in Jobs.</li>\r\n<li>On machine homing and when first loaded. </li></ul></p>\r\n<p>Manual with stored calibration (only recommended for machines <br /> \r\nwith C axis homing).</p>\r\n</html>");
+        lblRecalibration.setToolTipText("<html>\r\n<p>Determines when a recalibration is automatically executed:</p>\r\n<p><ul><li>On each nozzle tip change.</li>\r\n<li>On each nozzle tip change but only in Jobs.</li>\r\n<li>On machine homing and when first loaded. </li></ul></p>\r\n<p>Manual with stored calibration (only recommended for machines <br /> \r\nwith C axis homing).</p>\r\n<p>Drift check: on nozzle tip change and homing reuse the stored calibration <br />\r\nunless a single verification capture finds the nozzle tip further than the <br />\r\nDrift Threshold from where it is expected.</p>\r\n</html>");
         panelCalibration.add(lblRecalibration, "2, 12, right, default");
 
         recalibrationCb = new JComboBox(ReferenceNozzleTipCalibration.RecalibrationTrigger.values());
         panelCalibration.add(recalibrationCb, "4, 12, left, default");
 
+        lblDriftThreshold = new JLabel("Drift Threshold");
+        lblDriftThreshold.setToolTipText("With the DriftCheck trigger, recalibrate when the verification capture is further than this from the stored calibration.");
+        panelCalibration.add(lblDriftThreshold, "6, 12, right, default");
+
+        driftThresholdTf = new JTextField();
+        panelCalibration.add(driftThresholdTf, "8, 12, left, default");
+        driftThresholdTf.setColumns(6);
+
+        lblPipelined = new JLabel("Pipelined?");
+        lblPipelined.setToolTipText("<html>\r\n<p>Process each image while the nozzle rotates to the next angle.</p>\r\n<p>With a model based algorithm the calibration also stops as soon as the model<br />\r\npredicts new measurements within the Convergence Tolerance.</p>\r\n</html>");
+        panelCalibration.add(lblPipelined, "2, 14, right, default");
+
+        pipelinedCheckbox = new JCheckBox("");
+        panelCalibration.add(pipelinedCheckbox, "4, 14, left, default");
+
+        lblConvergenceTolerance = new JLabel("Convergence Tolerance");
+        lblConvergenceTolerance.setToolTipText("Pipelined calibration stops once the runout model predicts measurements within this distance. Zero measures every angle.");
+        panelCalibration.add(lblConvergenceTolerance, "6, 14, right, default");
+
+        convergenceToleranceTf = new JTextField();
+        panelCalibration.add(convergenceToleranceTf, "8, 14, left, default");
+        convergenceToleranceTf.setColumns(6);
+
         lblNewLabel = new JLabel("Pipeline");
-        panelCalibration.add(lblNewLabel, "2, 14, right, default");
+        panelCalibration.add(lblNewLabel, "2, 16, right, default");
 
         panel = new JPanel();
         FlowLayout flowLayout = (FlowLayout) panel.getLayout();
         flowLayout.setVgap(0);
-        panelCalibration.add(panel, "4, 14, left, default");
+        panelCalibration.add(panel, "4, 16, left, default");
+
+        lblMaxCalibrationAge = new JLabel("Max. Calibration Age [h]");
+        lblMaxCalibrationAge.setToolTipText("With the DriftCheck trigger, stored calibrations older than this many hours are not reused. Zero for no limit.");
+        panelCalibration.add(lblMaxCalibrationAge, "6, 16, right, default");
+
+        maxCalibrationAgeTf = new JTextField();
+        panelCalibration.add(maxCalibrationAgeTf, "8, 16, left, default");
+        maxCalibrationAgeTf.setColumns(6);
 
         btnEditPipeline = new JButton("Edit");
         panel.add(btnEditPipeline);
@@ -290,6 +323,14 @@ public class ReferenceNozzleTipCalibrationWizard extends AbstractConfigurationWi
     private JLabel lblRecalibration;
     private JComboBox recalibrationCb;
     private JButton btnCalibrateCamera;
+    private JLabel lblDriftThreshold;
+    private JTextField driftThresholdTf;
+    private JLabel lblPipelined;
+    private JCheckBox pipelinedCheckbox;
+    private JLabel lblConvergenceTolerance;
+    private JTextField convergenceToleranceTf;
+    private JLabel lblMaxCalibrationAge;
+    private JTextField maxCalibrationAgeTf;
 
     public ReferenceNozzle getUiCalibrationNozzle() throws Exception {
         ReferenceNozzle refNozzle; 
@@ -387,11 +428,21 @@ public class ReferenceNozzleTipCalibrationWizard extends AbstractConfigurationWi
                 "text", lengthConverter);
         addWrappedBinding(nozzleTip.getCalibration(), "recalibrationTrigger",
                 recalibrationCb, "selectedItem");
+        addWrappedBinding(nozzleTip.getCalibration(), "driftThreshold", driftThresholdTf,
+                "text", lengthConverter);
+        addWrappedBinding(nozzleTip.getCalibration(), "pipelined", pipelinedCheckbox,
+                "selected");
+        addWrappedBinding(nozzleTip.getCalibration(), "convergenceTolerance", convergenceToleranceTf,
+                "text", lengthConverter);
+        addWrappedBinding(nozzleTip.getCalibration(), "maxCalibrationAgeHours", maxCalibrationAgeTf,
+                "text", intConverter);
         
         bind(UpdateStrategy.READ, this, "calibrationStatus", lblCalibrationStatus, "text");
         
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(offsetThresholdTf);
         ComponentDecorators.decorateWithAutoSelectAndLengthConversion(calibrationZOffsetTf);
+        ComponentDecorators.decorateWithAutoSelectAndLengthConversion(driftThresholdTf);
+        ComponentDecorators.decorateWithAutoSelectAndLengthConversion(convergenceToleranceTf);
     }
     protected void initDataBindings() {
         BeanProperty<JCheckBox, Boolean> jCheckBoxBeanProperty = BeanProperty.create("selected");
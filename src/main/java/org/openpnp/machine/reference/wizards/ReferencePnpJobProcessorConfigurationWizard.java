@@ -20,6 +20,7 @@
 package org.openpnp.machine.reference.wizards;
 
 import javax.swing.BoxLayout;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -39,6 +40,7 @@ import com.jgoodies.forms.layout.RowSpec;
 public class ReferencePnpJobProcessorConfigurationWizard extends AbstractConfigurationWizard {
     private final ReferencePnpJobProcessor jobProcessor;
     private JComboBox comboBoxJobOrder;
+    private JCheckBox chckbxWarmupFeeders;
 
     public ReferencePnpJobProcessorConfigurationWizard(ReferencePnpJobProcessor jobProcessor) {
         this.jobProcessor = jobProcessor;
@@ -54,6 +56,8 @@ public class ReferencePnpJobProcessorConfigurationWizard extends AbstractConfigu
                 FormSpecs.RELATED_GAP_COLSPEC,
                 FormSpecs.DEFAULT_COLSPEC,},
             new RowSpec[] {
+                FormSpecs.RELATED_GAP_ROWSPEC,
+                FormSpecs.DEFAULT_ROWSPEC,
                 FormSpecs.RELATED_GAP_ROWSPEC,
                 FormSpecs.DEFAULT_ROWSPEC,}));
 
@@ -62,10 +66,17 @@ public class ReferencePnpJobProcessorConfigurationWizard extends AbstractConfigu
 
         comboBoxJobOrder = new JComboBox(JobOrderHint.values());
         panelGeneral.add(comboBoxJobOrder, "4, 2");
+
+        JLabel lblWarmupFeeders = new JLabel(Translations.getString("MachineSetup.JobProcessors.ReferencePnpJobProcessor.Label.WarmupFeeders"));
+        panelGeneral.add(lblWarmupFeeders, "2, 4, right, default");
+
+        chckbxWarmupFeeders = new JCheckBox();
+        panelGeneral.add(chckbxWarmupFeeders, "4, 4");
     }
 
     @Override
     public void createBindings() {
         addWrappedBinding(jobProcessor, "jobOrder", comboBoxJobOrder, "selectedItem");
+        addWrappedBinding(jobProcessor, "warmupFeeders", chckbxWarmupFeeders, "selected");
     }
 }
@@ -24,8 +24,11 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
@@ -33,6 +36,7 @@ import org.simpleframework.xml.ElementList;
 import org.simpleframework.xml.Root;
 import org.simpleframework.xml.Version;
 import org.simpleframework.xml.core.Commit;
+import org.simpleframework.xml.core.Persist;
 
 /**
  * A Board describes the physical properties of a PCB and has a list of Placements that will be used
@@ -65,6 +69,14 @@ public class Board extends AbstractModelObject implements PropertyChangeListener
     private transient File file;
     private transient boolean dirty;
 
+    // Placements read from a compact board file that have not been created yet.
+    private transient CompactBoardFormat.PlacementTable placementTable;
+
+    // The index of each placement id in placements, built when first needed. The placements list
+    // is replaced on every change, so it is rebuilt when indexedPlacements no longer matches.
+    private transient List<Placement> indexedPlacements;
+    private transient Map<String, Integer> placementIndexes;
+
     public Board() {
         this(null);
     }
@@ -85,6 +97,36 @@ public class Board extends AbstractModelObject implements PropertyChangeListener
         }
     }
 
+    @SuppressWarnings("unused")
+    @Persist
+    private void persist() {
+        loadPlacements();
+    }
+
+    synchronized CompactBoardFormat.PlacementTable getPlacementTable() {
+        return placementTable;
+    }
+
+    synchronized void setPlacementTable(CompactBoardFormat.PlacementTable placementTable) {
+        this.placementTable = placementTable;
+    }
+
+    /**
+     * Create the placements of a board read from a compact board file, the first time they are
+     * needed.
+     */
+    private synchronized void loadPlacements() {
+        if (placementTable == null) {
+            return;
+        }
+        List<Placement> placements = placementTable.getPlacements();
+        placementTable = null;
+        this.placements = new ArrayList<>(placements);
+        for (Placement placement : placements) {
+            placement.addPropertyChangeListener(this);
+        }
+    }
+
     public List<Fiducial> getFiducials() {
         return Collections.unmodifiableList(fiducials);
     }
@@ -113,25 +155,94 @@ public class Board extends AbstractModelObject implements PropertyChangeListener
         firePropertyChange("fiducials", oldValue, fiducials);
     }
 
-    public List<Placement> getPlacements() {
+    public synchronized List<Placement> getPlacements() {
+        loadPlacements();
         return Collections.unmodifiableList(placements);
     }
 
+    /**
+     * Returns the list of placements itself. The list is never modified, it is replaced whenever
+     * the placements change, so callers can tell whether the placements changed since they last
+     * looked by comparing the reference. If load is false and the placements of a compact board
+     * file have not been created yet, returns null instead of creating them.
+     */
+    synchronized List<Placement> getPlacementList(boolean load) {
+        if (load) {
+            loadPlacements();
+        }
+        return placementTable == null ? placements : null;
+    }
+
+    /**
+     * Returns the index in getPlacements() of the first placement with the given id, or -1 if
+     * there is none.
+     */
+    public synchronized int getPlacementIndex(String placementId) {
+        loadPlacements();
+        if (indexedPlacements != placements) {
+            placementIndexes = new HashMap<>();
+            for (int i = placements.size() - 1; i >= 0; i--) {
+                placementIndexes.put(placements.get(i).getId(), i);
+            }
+            indexedPlacements = placements;
+        }
+        Integer index = placementIndexes.get(placementId);
+        return index == null ? -1 : index;
+    }
+
     public void addPlacement(Placement placement) {
-        Object oldValue = placements;
-        placements = new ArrayList<>(placements);
-        placements.add(placement);
-        firePropertyChange("placements", oldValue, placements);
+        Object oldValue;
+        Object newValue;
+        synchronized (this) {
+            loadPlacements();
+            oldValue = placements;
+            placements = new ArrayList<>(placements);
+            placements.add(placement);
+            newValue = placements;
+        }
+        firePropertyChange("placements", oldValue, newValue);
         if (placement != null) {
             placement.addPropertyChangeListener(this);
         }
     }
 
+    /**
+     * Adds all of the given placements with a single copy of the list and a single property change,
+     * which keeps large imports from going quadratic.
+     */
+    public void addPlacements(Collection<Placement> placements) {
+        if (placements.isEmpty()) {
+            return;
+        }
+        ArrayList<Placement> oldValue;
+        ArrayList<Placement> newValue;
+        synchronized (this) {
+            loadPlacements();
+            oldValue = this.placements;
+            newValue = new ArrayList<>(oldValue.size() + placements.size());
+            newValue.addAll(oldValue);
+            newValue.addAll(placements);
+            this.placements = newValue;
+        }
+        firePropertyChange("placements", oldValue, newValue);
+        for (Placement placement : placements) {
+            if (placement != null) {
+                placement.addPropertyChangeListener(this);
+            }
+        }
+    }
+
     public void removePlacement(Placement placement) {
-        Object oldValue = placements;
-        placements = new ArrayList<>(placements);
-        placements.remove(placement);
-        firePropertyChange("placements", oldValue, placements);
+        Object oldValue;
+        Object newValue;
+        synchronized (this) {
+            loadPlacements();
+            oldValue = placements;
+            placements = new ArrayList<>(placements);
+            placements.remove(placement);
+            newValue = placements;
+        }
+        firePropertyChange("placements", oldValue, newValue);
         if (placement != null) {
             placement.removePropertyChangeListener(this);
         }
@@ -151,6 +262,25 @@ public class Board extends AbstractModelObject implements PropertyChangeListener
         }
     }
 
+    /**
+     * Adds all of the given pads with a single copy of the list and a single property change.
+     */
+    public void addSolderPastePads(Collection<BoardPad> pads) {
+        if (pads.isEmpty()) {
+            return;
+        }
+        ArrayList<BoardPad> oldValue = solderPastePads;
+        solderPastePads = new ArrayList<>(oldValue.size() + pads.size());
+        solderPastePads.addAll(oldValue);
+        solderPastePads.addAll(pads);
+        firePropertyChange("solderPastePads", oldValue, solderPastePads);
+        for (BoardPad pad : pads) {
+            if (pad != null) {
+                pad.addPropertyChangeListener(this);
+            }
+        }
+    }
+
     public void removeSolderPastePad(BoardPad pad) {
         Object oldValue = solderPastePads;
         solderPastePads = new ArrayList<>(solderPastePads);
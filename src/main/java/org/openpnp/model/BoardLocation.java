@@ -20,7 +20,9 @@
 package org.openpnp.model;
 
 import java.awt.geom.AffineTransform;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.openpnp.model.Board.Side;
@@ -29,6 +31,7 @@ import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 import org.simpleframework.xml.ElementMap;
 import org.simpleframework.xml.core.Commit;
+import org.simpleframework.xml.core.Persist;
 
 public class BoardLocation extends AbstractModelObject {
     @Element
@@ -51,15 +54,36 @@ public class BoardLocation extends AbstractModelObject {
     @Attribute(required = false)
     private boolean enabled = true;
 
+    /**
+     * The placed state by placement id, as it is stored in the job file. Once the board is set
+     * the placed state is kept in placedBits instead, and this is only filled in again when the
+     * job is saved.
+     */
     @ElementMap(required = false)
     private Map<String, Boolean> placed = new HashMap<>();
 
+    /**
+     * The placed state of each placement of the board, by its index in the board's placements.
+     * Panels repeat the same board many times, and a bit per placement keeps the state of each
+     * copy small and cheap to check. placedPlacements is the list of placements the indexes refer
+     * to, or null while the state is still in placed.
+     */
+    private BitSet placedBits = new BitSet();
+    private List<Placement> placedPlacements;
+
     /**
      * Important note: The placement transform is in Millimeters no matter what the source
      * units are.
      */
     private AffineTransform placementTransform;
 
+    /**
+     * Cached board to machine transform, calculated on demand by getTransform() and cleared
+     * whenever the location, side, board, board dimensions or placement transform change.
+     */
+    private volatile BoardLocationTransform transform;
+    private long transformVersion;
+
     BoardLocation() {
         setLocation(new Location(LengthUnit.Millimeters));
     }
@@ -73,7 +97,12 @@ public class BoardLocation extends AbstractModelObject {
         this.panelId = obj.panelId;
         this.checkFiducials = obj.checkFiducials;
         this.enabled = obj.enabled;
-        this.placed = obj.placed;
+        // Each copy has its own placed state, even though they share the board.
+        synchronized (obj) {
+            this.placed = new HashMap<>(obj.placed);
+            this.placedBits = (BitSet) obj.placedBits.clone();
+            this.placedPlacements = obj.placedPlacements;
+        }
     }
 
     public BoardLocation(Board board) {
@@ -88,6 +117,47 @@ public class BoardLocation extends AbstractModelObject {
         setBoard(board);
     }
 
+    @SuppressWarnings("unused")
+    @Persist
+    private synchronized void persist() {
+        updatePlaced(false);
+        if (placedPlacements != null) {
+            placed = new HashMap<>();
+            for (int i = placedBits.nextSetBit(0); i >= 0; i = placedBits.nextSetBit(i + 1)) {
+                placed.put(placedPlacements.get(i).getId(), true);
+            }
+        }
+    }
+
+    /**
+     * Make sure placedBits refers to the current placements of the board, carrying the placed
+     * state over by placement id when the board or its placements have changed. Unless load is
+     * set, the placements of a board that has not created them yet are left alone and the placed
+     * state stays in placed.
+     */
+    private synchronized void updatePlaced(boolean load) {
+        List<Placement> placements = (board == null ? null : board.getPlacementList(load));
+        if (placements == placedPlacements) {
+            return;
+        }
+        if (placedPlacements != null) {
+            placed = new HashMap<>();
+            for (int i = placedBits.nextSetBit(0); i >= 0; i = placedBits.nextSetBit(i + 1)) {
+                placed.put(placedPlacements.get(i).getId(), true);
+            }
+        }
+        placedBits = new BitSet();
+        if (placements != null) {
+            for (int i = 0; i < placements.size(); i++) {
+                if (Boolean.TRUE.equals(placed.get(placements.get(i).getId()))) {
+                    placedBits.set(i);
+                }
+            }
+            placed = new HashMap<>();
+        }
+        placedPlacements = placements;
+    }
+
     public Location getLocation() {
         return location;
     }
@@ -95,6 +165,7 @@ public class BoardLocation extends AbstractModelObject {
     public void setLocation(Location location) {
         Location oldValue = this.location;
         this.location = location;
+        invalidateTransform();
         firePropertyChange("location", oldValue, location);
         // If the location is changing it is not possible the placement transform is
         // still valid, so clear it.
@@ -127,11 +198,13 @@ public class BoardLocation extends AbstractModelObject {
     		return 0;
     	}
     	int counter = 0;
-	    for(Placement placement : board.getPlacements()) {
+        List<Placement> placements = board.getPlacements();
+        for (int i = 0; i < placements.size(); i++) {
+            Placement placement = placements.get(i);
             if (placement.getSide() == getSide()
                     && placement.getType() == Type.Placement
                     && placement.isEnabled()
-                    && !getPlaced(placement.getId())) {
+                    && !getPlaced(i)) {
                     counter++;
             }
         }
@@ -141,6 +214,7 @@ public class BoardLocation extends AbstractModelObject {
     public void setSide(Side side) {
         Object oldValue = this.side;
         this.side = side;
+        invalidateTransform();
         firePropertyChange("side", oldValue, side);
     }
 
@@ -151,6 +225,7 @@ public class BoardLocation extends AbstractModelObject {
     public void setBoard(Board board) {
         Board oldValue = this.board;
         this.board = board;
+        invalidateTransform();
         firePropertyChange("board", oldValue, board);
     }
 
@@ -193,22 +268,58 @@ public class BoardLocation extends AbstractModelObject {
     }
 
     public void setPlaced(String placementId, boolean placed) {
-        this.placed.put(placementId, placed);
-        firePropertyChange("placed", null, this.placed);
+        synchronized (this) {
+            updatePlaced(false);
+            if (placedPlacements == null) {
+                this.placed.put(placementId, placed);
+            }
+            else {
+                int index = board.getPlacementIndex(placementId);
+                if (index < 0) {
+                    return;
+                }
+                placedBits.set(index, placed);
+            }
+        }
+        firePropertyChange("placed", null, null);
     }
 
     public boolean getPlaced(String placementId) {
-        if (placed.containsKey(placementId)) {
-            return placed.get(placementId);
-        } 
-        else {
-            return false;
+        synchronized (this) {
+            updatePlaced(false);
+            if (placedPlacements == null) {
+                return Boolean.TRUE.equals(placed.get(placementId));
+            }
+            int index = board.getPlacementIndex(placementId);
+            return index >= 0 && placedBits.get(index);
         }
     }
+
+    /**
+     * Set the placed state of the placement with the given index in the board's placements.
+     */
+    public void setPlaced(int placementIndex, boolean placed) {
+        synchronized (this) {
+            updatePlaced(true);
+            placedBits.set(placementIndex, placed);
+        }
+        firePropertyChange("placed", null, null);
+    }
+
+    /**
+     * Returns the placed state of the placement with the given index in the board's placements.
+     */
+    public synchronized boolean getPlaced(int placementIndex) {
+        updatePlaced(true);
+        return placedBits.get(placementIndex);
+    }
     
     public void clearAllPlaced() {
-        this.placed.clear();
-        firePropertyChange("placed", null, this.placed);
+        synchronized (this) {
+            placed.clear();
+            placedBits.clear();
+        }
+        firePropertyChange("placed", null, null);
     }
     
     public AffineTransform getPlacementTransform() {
@@ -218,9 +329,40 @@ public class BoardLocation extends AbstractModelObject {
     public void setPlacementTransform(AffineTransform placementTransform) {
         Object oldValue = this.placementTransform;
         this.placementTransform = placementTransform;
+        invalidateTransform();
         firePropertyChange("placementTransform", oldValue, placementTransform);
     }
 
+    /**
+     * Get the transform that maps board relative coordinates to machine coordinates for this
+     * BoardLocation. The result is cached until something that affects it changes.
+     * 
+     * @return
+     */
+    public BoardLocationTransform getTransform() {
+        BoardLocationTransform transform = this.transform;
+        // Board dimensions are an immutable Location that is replaced when changed, so
+        // comparing the reference is enough to tell if the cached transform is stale.
+        if (transform == null || !transform.isFor(board)) {
+            synchronized (this) {
+                transform = this.transform;
+                if (transform == null || !transform.isFor(board)) {
+                    if (transform != null) {
+                        transformVersion++;
+                    }
+                    transform = BoardLocationTransform.create(this, transformVersion);
+                    this.transform = transform;
+                }
+            }
+        }
+        return transform;
+    }
+
+    private synchronized void invalidateTransform() {
+        transformVersion++;
+        transform = null;
+    }
+
     @Override
     public String toString() {
         return String.format("board (%s), location (%s), side (%s)", boardFile, location, side);
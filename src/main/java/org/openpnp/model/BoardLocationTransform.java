@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+ * 
+ * This file is part of OpenPnP.
+ * 
+ * OpenPnP is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * OpenPnP is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with OpenPnP. If not, see
+ * <http://www.gnu.org/licenses/>.
+ * 
+ * For more information about OpenPnP visit http://openpnp.org
+ */
+
+package org.openpnp.model;
+
+import java.awt.geom.AffineTransform;
+
+import org.openpnp.model.Board.Side;
+
+/**
+ * An immutable, precomputed transform from board coordinates to machine coordinates for a
+ * BoardLocation. Everything is stored in Millimeters. Instances are created and cached by
+ * BoardLocation.getTransform() and replaced whenever anything that affects the result changes,
+ * so callers should not hold on to one across changes to the BoardLocation.
+ */
+public class BoardLocationTransform {
+    private final long version;
+    private final AffineTransform tx;
+    private final double angle;
+    private final double z;
+    private final Location dimensions;
+
+    private BoardLocationTransform(long version, AffineTransform tx, double angle, double z,
+            Location dimensions) {
+        this.version = version;
+        this.tx = tx;
+        this.angle = angle;
+        this.z = z;
+        this.dimensions = dimensions;
+    }
+
+    static BoardLocationTransform create(BoardLocation boardLocation, long version) {
+        Location location = boardLocation.getLocation().convertToUnits(LengthUnit.Millimeters);
+        Board board = boardLocation.getBoard();
+        Location dimensions = board == null ? null : board.getDimensions();
+        AffineTransform placementTransform = boardLocation.getPlacementTransform();
+        if (placementTransform != null) {
+            AffineTransform tx = new AffineTransform(placementTransform);
+            // Calculate the apparent angle from the transform. We need this because when we
+            // created the transform we captured the apparent angle and that is used to position
+            // in X, Y, but we also need the actual value to add to the placement rotation so that
+            // the nozzle is rotated to the correct angle as well.
+            double[] pts = new double[] {0, 0, 1, 1};
+            tx.transform(pts, 0, pts, 0, 2);
+            double angle = Math.toDegrees(Math.atan2(pts[3] - pts[1], pts[2] - pts[0])
+                    - Math.atan2(1, 1));
+            return new BoardLocationTransform(version, tx, angle, location.getZ(), dimensions);
+        }
+
+        // Without a placement transform the board is positioned by its Location alone. The
+        // bottom side is mirrored in X about the board's width.
+        double rotation = location.getRotation();
+        while (rotation < 180.) {
+            rotation += 360;
+        }
+        while (rotation > 180.) {
+            rotation -= 360;
+        }
+        AffineTransform tx = new AffineTransform();
+        tx.translate(location.getX(), location.getY());
+        tx.rotate(Math.toRadians(rotation));
+        if (boardLocation.getSide() == Side.Bottom) {
+            double width = dimensions == null ? 0
+                    : dimensions.convertToUnits(LengthUnit.Millimeters).getX();
+            tx.translate(width, 0);
+            tx.scale(-1, 1);
+        }
+        return new BoardLocationTransform(version, tx, location.getRotation(), location.getZ(),
+                dimensions);
+    }
+
+    /**
+     * Returns true if this transform was calculated against the current dimensions of the
+     * given Board.
+     */
+    boolean isFor(Board board) {
+        return dimensions == (board == null ? null : board.getDimensions());
+    }
+
+    /**
+     * The version of the BoardLocation state this transform was calculated from. It increases
+     * every time the transform is invalidated.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns a copy of the board to machine transform matrix, in Millimeters.
+     */
+    public AffineTransform getAffineTransform() {
+        return new AffineTransform(tx);
+    }
+
+    /**
+     * The angle, in degrees, that is added to each placement's rotation.
+     */
+    public double getAngle() {
+        return angle;
+    }
+
+    /**
+     * The Z of the board, in Millimeters.
+     */
+    public double getZ() {
+        return z;
+    }
+
+    /**
+     * Transform a single board relative location to machine coordinates. The Z of the input is
+     * ignored and the result is returned in the units of the input.
+     * 
+     * @param placementLocation
+     * @return
+     */
+    public Location transform(Location placementLocation) {
+        LengthUnit units = placementLocation.getUnits();
+        Location l = placementLocation.convertToUnits(LengthUnit.Millimeters);
+        double[] pt = new double[] {l.getX(), l.getY()};
+        tx.transform(pt, 0, pt, 0, 1);
+        return new Location(LengthUnit.Millimeters, pt[0], pt[1], z,
+                angle + placementLocation.getRotation()).convertToUnits(units);
+    }
+}
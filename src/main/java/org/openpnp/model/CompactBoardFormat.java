@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+ *
+ * This file is part of OpenPnP.
+ *
+ * OpenPnP is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * OpenPnP is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with OpenPnP. If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * For more information about OpenPnP visit http://openpnp.org
+ */
+
+package org.openpnp.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.Placement.ErrorHandling;
+import org.openpnp.model.Placement.Type;
+import org.simpleframework.xml.Attribute;
+import org.simpleframework.xml.Element;
+import org.simpleframework.xml.ElementList;
+import org.simpleframework.xml.Root;
+
+/**
+ * A binary file format for Boards with many placements, where reading and writing the XML format
+ * gets slow. Boards whose file name ends with EXTENSION are read and written in this format, all
+ * others as XML, so a board is converted by saving it under the other extension.
+ *
+ * The file starts with the magic number and format version, followed by the rest of the board
+ * (name, dimensions, fiducials and solder paste pads) as XML. Then come the strings used by the
+ * placements, each only once, and finally a table with one fixed size record per placement, which
+ * refers to its strings by index. The table is kept as read and only turned into Placements when
+ * the board's placements are first used.
+ */
+public class CompactBoardFormat {
+    public static final String EXTENSION = ".board.bin";
+
+    private static final int MAGIC = 0x4F50424E; // "OPBN"
+    private static final int VERSION = 1;
+
+    // id, part id and comments string indexes, units, x, y, z, rotation, side, type, error
+    // handling, enabled.
+    private static final int RECORD_SIZE = 3 * 4 + 1 + 4 * 8 + 4;
+
+    public static boolean isCompactBoardFile(File file) {
+        return file.getName().toLowerCase().endsWith(EXTENSION);
+    }
+
+    public static byte[] write(Board board) throws Exception {
+        StringWriter header = new StringWriter();
+        Configuration.createSerializer().write(new Header(board), header);
+
+        String[] strings;
+        ByteBuffer records;
+        PlacementTable placementTable = board.getPlacementTable();
+        if (placementTable != null) {
+            // The placements were never used since the board was read, so they are written back
+            // as they are.
+            strings = placementTable.strings;
+            records = placementTable.records.duplicate();
+        }
+        else {
+            List<Placement> placements = board.getPlacements();
+            Map<String, Integer> stringIndexes = new LinkedHashMap<>();
+            records = ByteBuffer.allocate(placements.size() * RECORD_SIZE);
+            for (Placement placement : placements) {
+                Part part = placement.getPart();
+                Location location = placement.getLocation();
+                records.putInt(indexOf(stringIndexes, placement.getId()));
+                records.putInt(indexOf(stringIndexes, part == null ? null : part.getId()));
+                records.putInt(indexOf(stringIndexes, placement.getComments()));
+                records.put(ordinal(location.getUnits()));
+                records.putDouble(location.getX());
+                records.putDouble(location.getY());
+                records.putDouble(location.getZ());
+                records.putDouble(location.getRotation());
+                records.put(ordinal(placement.getSide()));
+                records.put(ordinal(placement.getType()));
+                records.put(ordinal(placement.getErrorHandling()));
+                records.put((byte) (placement.isEnabled() ? 1 : 0));
+            }
+            records.flip();
+            strings = stringIndexes.keySet().toArray(new String[0]);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(records.remaining() + 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, header.toString());
+        out.writeInt(strings.length);
+        for (String string : strings) {
+            writeString(out, string);
+        }
+        out.writeInt(records.remaining() / RECORD_SIZE);
+        byte[] recordBytes = new byte[records.remaining()];
+        records.get(recordBytes);
+        out.write(recordBytes);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static Board read(File file) throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        try {
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+                throw new Exception(file.getName() + " is not a compact board file.");
+            }
+            int version = buffer.getInt();
+            if (version > VERSION) {
+                throw new Exception(file.getName()
+                        + " was written by a newer version of OpenPnP (compact board format "
+                        + version + ").");
+            }
+
+            Header header = Configuration.createSerializer().read(Header.class,
+                    readString(buffer, file));
+
+            int stringCount = buffer.getInt();
+            // Every string takes at least its length.
+            if (stringCount < 0 || stringCount > buffer.remaining() / 4) {
+                throw corrupt(file, "the string count is invalid");
+            }
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(buffer, file);
+            }
+
+            int count = buffer.getInt();
+            if (count < 0 || buffer.remaining() / RECORD_SIZE < count) {
+                throw new Exception(file.getName() + " is truncated.");
+            }
+            ByteBuffer records = buffer.slice();
+            records.limit(count * RECORD_SIZE);
+            checkRecords(file, records, strings.length);
+
+            Board board = new Board(file);
+            board.setName(header.name);
+            board.setDimensions(header.dimensions);
+            for (Fiducial fiducial : header.fiducials) {
+                board.addFiducial(fiducial);
+            }
+            board.addSolderPastePads(header.solderPastePads);
+            board.setPlacementTable(new PlacementTable(records, strings));
+            board.setDirty(false);
+            return board;
+        }
+        catch (BufferUnderflowException e) {
+            throw new Exception(file.getName() + " is truncated.", e);
+        }
+    }
+
+    /**
+     * Check the string indexes and enum ordinals of every record, so that a damaged file is
+     * rejected when it is read rather than when its placements are first used.
+     */
+    private static void checkRecords(File file, ByteBuffer records, int stringCount)
+            throws Exception {
+        records = records.duplicate();
+        for (int i = 1; records.hasRemaining(); i++) {
+            for (String field : new String[] {"id", "part id", "comments"}) {
+                int index = records.getInt();
+                if (index < -1 || index >= stringCount) {
+                    throw corrupt(file, "placement " + i + " has an invalid " + field);
+                }
+            }
+            checkOrdinal(file, i, "units", records.get(), LengthUnit.values());
+            // x, y, z and rotation
+            records.position(records.position() + 4 * 8);
+            checkOrdinal(file, i, "side", records.get(), Side.values());
+            checkOrdinal(file, i, "type", records.get(), Type.values());
+            checkOrdinal(file, i, "error handling", records.get(), ErrorHandling.values());
+            // enabled
+            records.get();
+        }
+    }
+
+    private static void checkOrdinal(File file, int placement, String field, byte ordinal,
+            Object[] values) throws Exception {
+        if (ordinal < -1 || ordinal >= values.length) {
+            throw corrupt(file, "placement " + placement + " has an invalid " + field);
+        }
+    }
+
+    private static Exception corrupt(File file, String reason) {
+        return new Exception(file.getName() + " is corrupt, " + reason + ".");
+    }
+
+    private static int indexOf(Map<String, Integer> strings, String string) {
+        if (string == null) {
+            return -1;
+        }
+        Integer index = strings.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.put(string, index);
+        }
+        return index;
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return (byte) (value == null ? -1 : value.ordinal());
+    }
+
+    private static <T> T valueOf(T[] values, byte ordinal) {
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer, File file) throws Exception {
+        int length = buffer.getInt();
+        if (length < 0) {
+            throw corrupt(file, "a string has a negative length");
+        }
+        if (length > buffer.remaining()) {
+            throw new Exception(file.getName() + " is truncated.");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The placement records of a board, as read from the file.
+     */
+    static class PlacementTable {
+        private final ByteBuffer records;
+        private final String[] strings;
+
+        PlacementTable(ByteBuffer records, String[] strings) {
+            this.records = records;
+            this.strings = strings;
+        }
+
+        List<Placement> getPlacements() {
+            ByteBuffer records = this.records.duplicate();
+            List<Placement> placements = new ArrayList<>(records.remaining() / RECORD_SIZE);
+            while (records.hasRemaining()) {
+                Placement placement = new Placement(getString(records.getInt()));
+                String partId = getString(records.getInt());
+                if (partId != null) {
+                    placement.setPart(Configuration.get().getPart(partId));
+                }
+                placement.setComments(getString(records.getInt()));
+                LengthUnit units = valueOf(LengthUnit.values(), records.get());
+                placement.setLocation(new Location(units, records.getDouble(),
+                        records.getDouble(), records.getDouble(), records.getDouble()));
+                placement.setSide(valueOf(Side.values(), records.get()));
+                placement.setType(valueOf(Type.values(), records.get()));
+                placement.setErrorHandling(valueOf(ErrorHandling.values(), records.get()));
+                placement.setEnabled(records.get() != 0);
+                placements.add(placement);
+            }
+            return placements;
+        }
+
+        private String getString(int index) {
+            return index < 0 ? null : strings[index];
+        }
+    }
+
+    /**
+     * Everything about a Board other than its placements.
+     */
+    @Root(name = "openpnp-board-header")
+    static class Header {
+        @Attribute(required = false)
+        private String name;
+
+        @Element(required = false)
+        private Location dimensions = new Location(LengthUnit.Millimeters);
+
+        @ElementList(required = false)
+        private ArrayList<Fiducial> fiducials = new ArrayList<>();
+
+        @ElementList(required = false)
+        private ArrayList<BoardPad> solderPastePads = new ArrayList<>();
+
+        Header() {
+        }
+
+        Header(Board board) {
+            name = board.getName();
+            dimensions = board.getDimensions();
+            fiducials.addAll(board.getFiducials());
+            solderPastePads.addAll(board.getSolderPastePads());
+        }
+    }
+}
@@ -19,17 +19,33 @@
 
 package org.openpnp.model;
 
+import java.beans.PropertyChangeListener;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.prefs.Preferences;
 
 import org.apache.commons.io.FileUtils;
@@ -74,6 +90,9 @@ public class Configuration extends AbstractModelObject {
     private static final int PREF_VERTICAL_SCROLL_UNIT_INCREMENT_DEF = 16;
     private static final String imgurClientId = "620fc1fa8ee0180";
 
+    // Listeners that take at least this long to run during load are logged with their class.
+    private static final long SLOW_LISTENER_MS = 100;
+
     private LinkedHashMap<String, Package> packages = new LinkedHashMap<>();
     private LinkedHashMap<String, Part> parts = new LinkedHashMap<>();
     private Machine machine;
@@ -85,6 +104,17 @@ public class Configuration extends AbstractModelObject {
     private Scripting scripting;
     private EventBus bus = new EventBus();
 
+    // The digest of what was last read from or written to each configuration file, so that files
+    // whose content has not changed are not written again.
+    private Map<String, byte[]> savedDigests = new ConcurrentHashMap<>();
+
+    // Parts fire property changes for everything that is saved, so unlike the other files
+    // parts.xml, usually the largest, is only serialized when something changed.
+    private volatile boolean partsDirty;
+    private PropertyChangeListener partsDirtyListener = e -> partsDirty = true;
+
+    private ExecutorService saveExecutor;
+
     public static Configuration get() {
         if (instance == null) {
             throw new Error("Configuration instance not yet initialized.");
@@ -228,103 +258,209 @@ public class Configuration extends AbstractModelObject {
     }
 
     public synchronized void load() throws Exception {
-        boolean forceSave = false;
+        long loadStart = System.currentTimeMillis();
+        AtomicBoolean forceSave = new AtomicBoolean();
         boolean overrideUserConfig = Boolean.getBoolean("overrideUserConfig");
 
+        // The files don't reference each other until the listeners run, so they are read in
+        // parallel, each with its own serializer.
+        ExecutorService executor = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "Configuration");
+            thread.setDaemon(true);
+            return thread;
+        });
         try {
-            File file = new File(configurationDirectory, "packages.xml");
-            if (overrideUserConfig || !file.exists()) {
-                Logger.info("No packages.xml found in configuration directory, loading defaults.");
-                file = File.createTempFile("packages", "xml");
-                FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/packages.xml"), file);
-                forceSave = true;
-            }
-            loadPackages(file);
-        }
-        catch (Exception e) {
-            String message = e.getMessage();
-            if (e.getCause() != null && e.getCause().getMessage() != null) {
-                message = e.getCause().getMessage();
+            Future<PackagesConfigurationHolder> packagesHolder = executor.submit(
+                    () -> readConfigurationFile("packages.xml", PackagesConfigurationHolder.class,
+                            overrideUserConfig, forceSave));
+            Future<PartsConfigurationHolder> partsHolder = executor.submit(
+                    () -> readConfigurationFile("parts.xml", PartsConfigurationHolder.class,
+                            overrideUserConfig, forceSave));
+            Future<MachineConfigurationHolder> machineHolder = executor.submit(
+                    () -> readConfigurationFile("machine.xml", MachineConfigurationHolder.class,
+                            overrideUserConfig, forceSave));
+
+            for (Package pkg : getConfigurationFile("packages.xml", packagesHolder).packages) {
+                addPackage(pkg);
             }
-            throw new Exception("Error while reading packages.xml (" + message + ")", e);
-        }
-
-
-        try {
-            File file = new File(configurationDirectory, "parts.xml");
-            if (overrideUserConfig || !file.exists()) {
-                Logger.info("No parts.xml found in configuration directory, loading defaults.");
-                file = File.createTempFile("parts", "xml");
-                FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/parts.xml"), file);
-                forceSave = true;
-            }
-            loadParts(file);
-        }
-        catch (Exception e) {
-            String message = e.getMessage();
-            if (e.getCause() != null && e.getCause().getMessage() != null) {
-                message = e.getCause().getMessage();
-            }
-            throw new Exception("Error while reading parts.xml (" + message + ")", e);
-        }
-
-
-        try {
-            File file = new File(configurationDirectory, "machine.xml");
-            if (overrideUserConfig || !file.exists()) {
-                Logger.info("No machine.xml found in configuration directory, loading defaults.");
-                file = File.createTempFile("machine", "xml");
-                FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/machine.xml"), file);
-                forceSave = true;
+            for (Part part : getConfigurationFile("parts.xml", partsHolder).parts) {
+                addPart(part);
             }
-            loadMachine(file);
+            machine = getConfigurationFile("machine.xml", machineHolder).machine;
         }
-        catch (Exception e) {
-            String message = e.getMessage();
-            if (e.getCause() != null && e.getCause().getMessage() != null) {
-                message = e.getCause().getMessage();
-            }
-            throw new Exception("Error while reading machine.xml (" + message + ")", e);
+        finally {
+            executor.shutdownNow();
         }
+        Logger.info("Read configuration files in {} ms.", System.currentTimeMillis() - loadStart);
 
         loaded = true;
 
+        long t = System.currentTimeMillis();
         for (ConfigurationListener listener : listeners) {
+            long listenerStart = System.currentTimeMillis();
             listener.configurationLoaded(this);
+            logSlowListener(listener, "configurationLoaded", listenerStart);
         }
+        Logger.info("Ran configurationLoaded listeners in {} ms.", System.currentTimeMillis() - t);
+        // Adding the parts and resolving their packages in the listeners is part of loading, not
+        // a change to save.
+        partsDirty = false;
 
-        if (forceSave) {
+        if (forceSave.get()) {
             Logger.info("Defaults were loaded. Saving to configuration directory.");
             configurationDirectory.mkdirs();
             save();
         }
 
+        t = System.currentTimeMillis();
         for (ConfigurationListener listener : listeners) {
+            long listenerStart = System.currentTimeMillis();
             listener.configurationComplete(this);
+            logSlowListener(listener, "configurationComplete", listenerStart);
         }
+        Logger.info("Ran configurationComplete listeners in {} ms.", System.currentTimeMillis() - t);
         
         scripting = new Scripting();
+        Logger.info("Configuration loaded in {} ms.", System.currentTimeMillis() - loadStart);
+    }
+
+    private <T> T readConfigurationFile(String name, Class<T> type, boolean overrideUserConfig,
+            AtomicBoolean forceSave) throws Exception {
+        long t = System.currentTimeMillis();
+        File file = new File(configurationDirectory, name);
+        boolean defaults = overrideUserConfig || !file.exists();
+        if (defaults) {
+            Logger.info("No {} found in configuration directory, loading defaults.", name);
+            file = File.createTempFile(name.substring(0, name.indexOf('.')), "xml");
+            FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/" + name), file);
+            forceSave.set(true);
+        }
+        byte[] content = Files.readAllBytes(file.toPath());
+        Serializer serializer = createSerializer();
+        T holder = serializer.read(type, new ByteArrayInputStream(content));
+        if (!defaults) {
+            savedDigests.put(name, digest(content));
+        }
+        Logger.info("Read {} in {} ms.", name, System.currentTimeMillis() - t);
+        return holder;
     }
 
-    public synchronized void save() throws Exception {
+    private static <T> T getConfigurationFile(String name, Future<T> holder) throws Exception {
         try {
-            saveMachine(new File(configurationDirectory, "machine.xml"));
+            return holder.get();
         }
-        catch (Exception e) {
-            throw new Exception("Error while saving machine.xml (" + e.getMessage() + ")", e);
+        catch (ExecutionException executionException) {
+            Throwable e = executionException.getCause();
+            String message = e.getMessage();
+            if (e.getCause() != null && e.getCause().getMessage() != null) {
+                message = e.getCause().getMessage();
+            }
+            throw new Exception("Error while reading " + name + " (" + message + ")", e);
         }
+    }
+
+    private static void logSlowListener(ConfigurationListener listener, String phase,
+            long start) {
+        long time = System.currentTimeMillis() - start;
+        if (time >= SLOW_LISTENER_MS) {
+            Logger.info("{} {} took {} ms.", listener.getClass().getName(), phase, time);
+        }
+    }
+
+    /**
+     * Save the configuration, waiting until the files are written. See saveInBackground().
+     */
+    public void save() throws Exception {
         try {
-            savePackages(new File(configurationDirectory, "packages.xml"));
+            saveInBackground().get();
         }
-        catch (Exception e) {
-            throw new Exception("Error while saving packages.xml (" + e.getMessage() + ")", e);
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
         }
-        try {
-            saveParts(new File(configurationDirectory, "parts.xml"));
+    }
+
+    /**
+     * Serialize and write the configuration on a background thread, so the caller doesn't wait
+     * for either. Saves run one at a time, in the order they were asked for. Only files whose
+     * content changed since they were last read or written are written, each to a temporary file
+     * that is synced and then renamed over the old one, so a failed save never leaves a partial
+     * file behind.
+     * 
+     * @return a future that completes when the files have been written, or completes
+     *         exceptionally if one of them could not be serialized or written.
+     */
+    public synchronized CompletableFuture<Void> saveInBackground() {
+        // Only the lists are copied here, the objects in them are serialized by the save thread.
+        MachineConfigurationHolder machineHolder = new MachineConfigurationHolder();
+        machineHolder.machine = machine;
+        PackagesConfigurationHolder packagesHolder = new PackagesConfigurationHolder();
+        packagesHolder.packages = new ArrayList<>(packages.values());
+        PartsConfigurationHolder partsHolder = null;
+        if (partsDirty || !savedDigests.containsKey("parts.xml")
+                || !new File(configurationDirectory, "parts.xml").exists()) {
+            partsHolder = new PartsConfigurationHolder();
+            partsHolder.parts = new ArrayList<>(parts.values());
+            partsDirty = false;
+        }
+
+        Map<String, Object> holders = new LinkedHashMap<>();
+        holders.put("machine.xml", machineHolder);
+        holders.put("packages.xml", packagesHolder);
+        if (partsHolder != null) {
+            holders.put("parts.xml", partsHolder);
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        getSaveExecutor().execute(() -> {
+            for (Map.Entry<String, Object> entry : holders.entrySet()) {
+                String name = entry.getKey();
+                try {
+                    writeConfigurationFile(name, serialize(entry.getValue()));
+                }
+                catch (Exception e) {
+                    if (holders.containsKey("parts.xml")) {
+                        partsDirty = true;
+                    }
+                    future.completeExceptionally(new Exception(
+                            "Error while saving " + name + " (" + e.getMessage() + ")", e));
+                    return;
+                }
+            }
+            future.complete(null);
+        });
+        return future;
+    }
+
+    private synchronized ExecutorService getSaveExecutor() {
+        if (saveExecutor == null) {
+            // A single thread, so that saves are written in the order they were taken.
+            saveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Configuration Save");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
-        catch (Exception e) {
-            throw new Exception("Error while saving parts.xml (" + e.getMessage() + ")", e);
+        return saveExecutor;
+    }
+
+    private void writeConfigurationFile(String name, byte[] content) throws Exception {
+        File file = new File(configurationDirectory, name);
+        byte[] digest = digest(content);
+        if (file.exists() && Arrays.equals(digest, savedDigests.get(name))) {
+            Logger.trace("{} is unchanged, not saving.", name);
+            return;
         }
+        long t = System.currentTimeMillis();
+        writeAtomically(content, file);
+        savedDigests.put(name, digest);
+        Logger.debug("Saved {} in {} ms.", name, System.currentTimeMillis() - t);
+    }
+
+    private static byte[] digest(byte[] content) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(content);
     }
 
     public Package getPackage(String id) {
@@ -367,11 +503,15 @@ public class Configuration extends AbstractModelObject {
             throw new Error("Part with null Id cannot be added to Configuration.");
         }
         parts.put(part.getId().toUpperCase(), part);
+        part.addPropertyChangeListener(partsDirtyListener);
+        partsDirty = true;
         firePropertyChange("parts", null, parts);
     }
 
     public void removePart(Part part) {
         parts.remove(part.getId().toUpperCase());
+        part.removePropertyChangeListener(partsDirtyListener);
+        partsDirty = true;
         firePropertyChange("parts", null, parts);
     }
 
@@ -387,8 +527,7 @@ public class Configuration extends AbstractModelObject {
         if (!file.exists()) {
             Board board = new Board(file);
             board.setName(file.getName());
-            Serializer serializer = createSerializer();
-            serializer.write(board, file);
+            writeBoard(board, file);
         }
         file = file.getCanonicalFile();
         if (boards.containsKey(file)) {
@@ -400,56 +539,56 @@ public class Configuration extends AbstractModelObject {
         return board;
     }
     
-    private static void serializeObject(Object o, File file) throws Exception {
+    private static byte[] serialize(Object o) throws Exception {
         Serializer serializer = createSerializer();
-        // This write forces any errors that will appear to happen before we start writing to
-        // the file, which keeps us from writing a partial configuration to the real file.
-        serializer.write(o, new ByteArrayOutputStream());
-        FileOutputStream out = new FileOutputStream(file);
+        // Serializing into memory first means errors happen before we start writing to the
+        // file, which keeps us from writing a partial configuration to the real file.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
         serializer.write(o, out);
         out.write('\n');
-        out.close();
+        return out.toByteArray();
     }
 
-    private void loadMachine(File file) throws Exception {
-        Serializer serializer = createSerializer();
-        MachineConfigurationHolder holder = serializer.read(MachineConfigurationHolder.class, file);
-        machine = holder.machine;
-    }
-
-    private void saveMachine(File file) throws Exception {
-        MachineConfigurationHolder holder = new MachineConfigurationHolder();
-        holder.machine = machine;
-        serializeObject(holder, file);
+    private static void serializeObject(Object o, File file) throws Exception {
+        writeAtomically(serialize(o), file);
     }
 
-    private void loadPackages(File file) throws Exception {
-        Serializer serializer = createSerializer();
-        PackagesConfigurationHolder holder =
-                serializer.read(PackagesConfigurationHolder.class, file);
-        for (Package pkg : holder.packages) {
-            addPackage(pkg);
-        }
+    private static void writeAtomically(byte[] content, File file) throws Exception {
+        writeAtomically(file, out -> out.write(content));
     }
 
-    private void savePackages(File file) throws Exception {
-        PackagesConfigurationHolder holder = new PackagesConfigurationHolder();
-        holder.packages = new ArrayList<>(packages.values());
-        serializeObject(holder, file);
+    /**
+     * Writes the content of a file for writeAtomically().
+     */
+    public interface ContentWriter {
+        void write(OutputStream out) throws Exception;
     }
 
-    private void loadParts(File file) throws Exception {
-        Serializer serializer = createSerializer();
-        PartsConfigurationHolder holder = serializer.read(PartsConfigurationHolder.class, file);
-        for (Part part : holder.parts) {
-            addPart(part);
+    /**
+     * Write the content to a temporary file next to the given one, sync it to disk, and rename it
+     * over the given file, so that readers see either the old or the new file but never part of
+     * one. If the writer fails the given file is left as it was.
+     */
+    public static void writeAtomically(File file, ContentWriter writer) throws Exception {
+        File directory = file.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                writer.write(out);
+                out.getFD().sync();
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally {
+            // Only still there if the write or the rename failed.
+            temp.delete();
         }
-    }
-
-    private void saveParts(File file) throws Exception {
-        PartsConfigurationHolder holder = new PartsConfigurationHolder();
-        holder.parts = new ArrayList<>(parts.values());
-        serializeObject(holder, file);
     }
 
     public Job loadJob(File file) throws Exception {
@@ -483,7 +622,6 @@ public class Configuration extends AbstractModelObject {
     }
 
     public void saveJob(Job job, File file) throws Exception {
-        Serializer serializer = createSerializer();
         Set<Board> boards = new HashSet<>();
         // Fix the paths to any boards in the Job
         for (BoardLocation boardLocation : job.getBoardLocations()) {
@@ -503,8 +641,7 @@ public class Configuration extends AbstractModelObject {
             saveBoard(board);
         }
         // Save the job
-        serializer.write(job, new ByteArrayOutputStream());
-        serializer.write(job, file);
+        serializeObject(job, file);
         job.setFile(file);
         job.setDirty(false);
     }
@@ -514,13 +651,39 @@ public class Configuration extends AbstractModelObject {
     }
 
     public void saveBoard(Board board) throws Exception {
-        Serializer serializer = createSerializer();
-        serializer.write(board, new ByteArrayOutputStream());
-        serializer.write(board, board.getFile());
+        writeBoard(board, board.getFile());
         board.setDirty(false);
     }
 
+    /**
+     * Save the board to a new file. This is also how a board is converted between the XML and
+     * compact formats, see CompactBoardFormat. Jobs using the board refer to the new file once
+     * they are saved.
+     */
+    public void saveBoardAs(Board board, File file) throws Exception {
+        writeBoard(board, file);
+        if (board.getFile() != null) {
+            boards.remove(board.getFile().getCanonicalFile());
+        }
+        board.setFile(file);
+        board.setDirty(false);
+        boards.put(file.getCanonicalFile(), board);
+        firePropertyChange("boards", null, boards);
+    }
+
+    private static void writeBoard(Board board, File file) throws Exception {
+        if (CompactBoardFormat.isCompactBoardFile(file)) {
+            writeAtomically(CompactBoardFormat.write(board), file);
+        }
+        else {
+            serializeObject(board, file);
+        }
+    }
+
     private Board loadBoard(File file) throws Exception {
+        if (CompactBoardFormat.isCompactBoardFile(file)) {
+            return CompactBoardFormat.read(file);
+        }
         Serializer serializer = createSerializer();
         Board board = serializer.read(Board.class, file);
         board.setFile(file);
@@ -81,8 +81,9 @@ public interface Camera extends HeadMountable, WizardConfigurable,
      * Same as capture(), but waits the settle time before capturing.
      * 
      * @return
+     * @throws Exception if the camera is set to fail when it doesn't settle in time.
      */
-    public BufferedImage settleAndCapture();
+    public BufferedImage settleAndCapture() throws Exception;
 
     /**
      * Registers a listener to receive continuous images from the camera.
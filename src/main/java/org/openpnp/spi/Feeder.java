@@ -19,6 +19,8 @@
 
 package org.openpnp.spi;
 
+import java.util.concurrent.Future;
+
 import org.openpnp.model.Identifiable;
 import org.openpnp.model.Location;
 import org.openpnp.model.Named;
@@ -75,6 +77,20 @@ public interface Feeder extends Identifiable, Named, WizardConfigurable, Propert
      */
     public void feed(Nozzle nozzle) throws Exception;
 
+    /**
+     * Starts feeding a part for the specified Nozzle in the background, ahead of the call to
+     * feed(), so that the time the feed takes overlaps with Head moves. The next call to feed()
+     * waits for the background feed to complete instead of feeding again. Calling this again before
+     * that returns the same Future. Feeders that need Head interaction to feed, or that are not
+     * set up to feed ahead, return null.
+     * 
+     * @param nozzle The Nozzle that will be used for picking.
+     * @return A Future that completes when the part is ready, or null.
+     */
+    public default Future<?> prefeed(Nozzle nozzle) {
+        return null;
+    }
+
     public void postPick(Nozzle nozzle) throws Exception;
     
     public int getFeedRetryCount();
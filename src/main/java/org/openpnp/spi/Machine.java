@@ -137,6 +137,22 @@ public interface Machine extends WizardConfigurable, PropertySheetHolder, Closea
 
     public void removeListener(MachineListener listener);
 
+    /**
+     * Add a listener for head activity. Unlike MachineListener.machineHeadActivity(), which is
+     * called on the machine thread for every single operation, activity is coalesced and delivered
+     * at most maxPerSecond times a second, so this is what UI that follows the machine, such as
+     * position readouts and camera previews, should use.
+     * 
+     * @param listener
+     * @param maxPerSecond The most calls per second the listener should get, or 0 for no limit.
+     * @param onEventDispatchThread True to call the listener on the Swing event dispatch thread.
+     * @param activities The kinds of activity the listener wants. None means all of them.
+     */
+    public void addActivityListener(MachineActivityListener listener, int maxPerSecond,
+            boolean onEventDispatchThread, MachineActivity... activities);
+
+    public void removeActivityListener(MachineActivityListener listener);
+
     public List<Class<? extends Feeder>> getCompatibleFeederClasses();
 
     public List<Class<? extends Camera>> getCompatibleCameraClasses();
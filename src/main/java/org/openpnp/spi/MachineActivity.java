@@ -0,0 +1,24 @@
+package org.openpnp.spi;
+
+/**
+ * The kinds of head activity a Machine reports to its MachineActivityListeners. Listeners
+ * subscribe to just the kinds they need.
+ */
+public enum MachineActivity {
+    /**
+     * A HeadMountable moved or the head was homed.
+     */
+    Motion,
+    /**
+     * An Actuator was actuated or read.
+     */
+    Actuation,
+    /**
+     * A Nozzle picked or placed a part.
+     */
+    PickAndPlace,
+    /**
+     * A Nozzle loaded or unloaded a NozzleTip.
+     */
+    NozzleTipChange
+}
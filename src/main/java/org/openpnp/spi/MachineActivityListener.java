@@ -0,0 +1,19 @@
+package org.openpnp.spi;
+
+import java.util.Set;
+
+/**
+ * Receives coalesced reports of head activity. See
+ * {@link Machine#addActivityListener(MachineActivityListener, int, boolean, MachineActivity...)}.
+ */
+public interface MachineActivityListener {
+    /**
+     * Called with everything that happened since the previous call.
+     *
+     * @param machine
+     * @param heads The heads that had activity.
+     * @param activities The kinds of activity that happened, limited to the ones the listener
+     *        subscribed to.
+     */
+    void machineActivity(Machine machine, Set<Head> heads, Set<MachineActivity> activities);
+}
@@ -1,7 +1,9 @@
 package org.openpnp.spi;
 
+import org.openpnp.events.PlacementStatusChangedEvent;
 import org.openpnp.model.AbstractModelObject;
 import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Configuration;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Placement;
 
@@ -36,6 +38,9 @@ public interface PnpJobProcessor extends JobProcessor {
             Object oldValue = this.status;
             this.status = status;
             firePropertyChange("status", oldValue, status);
+            if (oldValue != status) {
+                Configuration.get().getBus().post(new PlacementStatusChangedEvent(this));
+            }
         }
 
         public Status getStatus() {
@@ -10,10 +10,6 @@ import java.util.Set;
 
 import javax.swing.Icon;
 
-import org.opencv.core.Core;
-import org.opencv.core.Core.MinMaxLocResult;
-import org.opencv.core.Mat;
-import org.opencv.imgproc.Imgproc;
 import org.openpnp.CameraListener;
 import org.openpnp.ConfigurationListener;
 import org.openpnp.gui.support.Icons;
@@ -25,7 +21,8 @@ import org.openpnp.spi.Camera;
 import org.openpnp.spi.Head;
 import org.openpnp.spi.HeadMountable;
 import org.openpnp.spi.VisionProvider;
-import org.openpnp.util.OpenCvUtils;
+import org.openpnp.util.SettleStatistics;
+import org.openpnp.vision.SettleDetector;
 import org.pmw.tinylog.Logger;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
@@ -49,6 +46,39 @@ public abstract class AbstractCamera extends AbstractModelObject implements Came
     @Attribute(required = false)
     protected long settleTimeMs = 250;
 
+    /**
+     * The longest auto settle is allowed to wait for the image to stop changing. 0, the default,
+     * waits forever as auto settle always has.
+     */
+    @Attribute(required = false)
+    protected long settleTimeoutMs = 0;
+
+    @Attribute(required = false)
+    protected SettleTimeoutAction settleTimeoutAction = SettleTimeoutAction.UseLastFrame;
+
+    /**
+     * Fraction of the frame, centered, that auto settle compares.
+     */
+    @Attribute(required = false)
+    protected double settleRoiFraction = 1.0;
+
+    /**
+     * Factor the auto settle region of interest is shrunk by before comparing.
+     */
+    @Attribute(required = false)
+    protected int settleDownscale = 1;
+
+    public enum SettleTimeoutAction {
+        /**
+         * Log a warning and return the most recent frame.
+         */
+        UseLastFrame,
+        /**
+         * Throw an Exception so the caller can handle the failed settle.
+         */
+        Error
+    }
+
     protected Set<ListenerEntry> listeners = Collections.synchronizedSet(new HashSet<>());
 
     protected Head head;
@@ -59,11 +89,25 @@ public abstract class AbstractCamera extends AbstractModelObject implements Came
     
     private boolean headSet = false;
     
-    private Mat lastSettleMat = null;
+    private SettleDetector settleDetector;
+
+    private final SettleStatistics settleStatistics = new SettleStatistics();
 
     public AbstractCamera() {
+        this(true);
+    }
+
+    /**
+     * @param configured false for cameras that are never part of the machine configuration, such
+     * as the ones that stand in for a captured image. These don't listen to the configuration,
+     * which would otherwise keep them and their image for as long as it exists.
+     */
+    protected AbstractCamera(boolean configured) {
         this.id = Configuration.createId("CAM");
         this.name = getClass().getSimpleName();
+        if (!configured) {
+            return;
+        }
         Configuration.get().addListener(new ConfigurationListener.Adapter() {
             @Override
             public void configurationLoaded(Configuration configuration) throws Exception {
@@ -160,55 +204,112 @@ public abstract class AbstractCamera extends AbstractModelObject implements Came
         return visionProvider;
     }
     
-    private BufferedImage autoSettleAndCapture() {
+    /**
+     * Capture raw frames until two consecutive frames differ by less than the settle threshold
+     * and return the last one, transformed. Only raw frames are compared, and the capture
+     * scripting events are fired once around the whole settle rather than for every frame.
+     */
+    private synchronized BufferedImage autoSettleAndCapture() throws Exception {
         long t = System.currentTimeMillis();
-        while (true) {
-            // Capture an image, convert to Mat and convert to gray.
-            BufferedImage image = capture();
-            Mat mat = OpenCvUtils.toMat(image);
-            Imgproc.cvtColor(mat, mat, Imgproc.COLOR_BGR2GRAY);
-            
-            // If this is the first time through the loop then assign the new image to
-            // the lastSettleMat and loop again. We need at least two images to check.
-            // to lastSettleMat and 
-            if (lastSettleMat == null) {
-                lastSettleMat = mat;
-                continue;
+        double threshold = Math.abs(getSettleTimeMs());
+        SettleDetector detector = getSettleDetector();
+
+        fireScriptingEvent("Camera.BeforeCapture");
+        BufferedImage image = null;
+        int frames = 0;
+        boolean timedOut = false;
+        try {
+            while (true) {
+                image = captureRaw();
+                frames++;
+
+                // If the backend can tell us when the frame was taken, ignore anything
+                // captured before the settle started since it may predate the move.
+                long timestamp = getFrameTimestamp(image);
+                if (timestamp < 0 || timestamp >= t) {
+                    double score = detector.score(image);
+                    Logger.trace("autoSettleAndCapture auto settle score: {}", score);
+                    // If the image changed at least a bit (due to noise) and less than our
+                    // threshold, we have a winner. The check for > 0 is to ensure that we're not
+                    // just receiving a duplicate frame from the camera. Every camera has at least
+                    // a little noise so we're just checking that at least one pixel changed by
+                    // 1 bit. A score < 0 means there was no previous frame to compare with.
+                    if (score > 0 && score < threshold) {
+                        break;
+                    }
+                }
+
+                long settleTimeoutMs = getSettleTimeoutMs();
+                if (settleTimeoutMs > 0 && System.currentTimeMillis() - t >= settleTimeoutMs) {
+                    timedOut = true;
+                    break;
+                }
+            }
+        }
+        finally {
+            detector.reset();
+        }
+
+        long ms = System.currentTimeMillis() - t;
+        settleStatistics.record(ms, frames, timedOut);
+        if (timedOut) {
+            Logger.warn("{} auto settle timed out after {} ms and {} frames. {}", getName(), ms,
+                    frames, settleStatistics);
+            if (getSettleTimeoutAction() == SettleTimeoutAction.Error) {
+                throw new Exception(String.format("Camera %s did not settle within %d ms.",
+                        getName(), getSettleTimeoutMs()));
             }
-            
-            // Take the absdiff of the two images and get the max changed pixel.
-            Mat diff = new Mat();
-            Core.absdiff(lastSettleMat, mat, diff);
-            MinMaxLocResult result = Core.minMaxLoc(diff);
-            Logger.debug("autoSettleAndCapture auto settle score: " + result.maxVal);
-            diff.release();
-
-            // Release the lastSettleMat and store the new image as the lastSettleMat.
-            lastSettleMat.release();
-            lastSettleMat = mat;
-
-            // If the image changed at least a bit (due to noise) and and less than our
-            // threshold, we have a winner. The check for > 0 is to ensure that we're not just
-            // receiving a duplicate frame from the camera. Every camera has at least a little
-            // noise so we're just checking that at least one pixel changed by 1 bit.
-            if (result.maxVal > 0 && result.maxVal < Math.abs(getSettleTimeMs())) {
-                lastSettleMat.release();
-                lastSettleMat = null;
-                Logger.debug("autoSettleAndCapture in {} ms", System.currentTimeMillis() - t);
-                return image;
+        }
+        else {
+            Logger.debug("autoSettleAndCapture in {} ms, {} frames", ms, frames);
+        }
+
+        image = transformImage(image);
+        fireScriptingEvent("Camera.AfterCapture");
+        return image;
+    }
+
+    private SettleDetector getSettleDetector() {
+        if (settleDetector == null || settleDetector.getRoiFraction() != settleRoiFraction
+                || settleDetector.getDownscale() != settleDownscale) {
+            if (settleDetector != null) {
+                settleDetector.release();
             }
+            settleDetector = new SettleDetector(settleRoiFraction, settleDownscale);
         }
+        return settleDetector;
     }
 
-    public BufferedImage settleAndCapture() {
+    private void fireScriptingEvent(String event) {
         try {
             Map<String, Object> globals = new HashMap<>();
             globals.put("camera", this);
-            Configuration.get().getScripting().on("Camera.BeforeSettle", globals);
+            Configuration.get().getScripting().on(event, globals);
         }
         catch (Exception e) {
             Logger.warn(e);
         }
+    }
+
+    /**
+     * Apply any configured image transforms to a frame returned by captureRaw(). The default
+     * returns the image unchanged.
+     */
+    protected BufferedImage transformImage(BufferedImage image) {
+        return image;
+    }
+
+    /**
+     * Returns the time, in System.currentTimeMillis() terms, that the given frame was captured
+     * by the backend, or -1 if it's not known. Used by auto settle to discard frames that were
+     * taken before the settle started.
+     */
+    protected long getFrameTimestamp(BufferedImage image) {
+        return -1;
+    }
+
+    public BufferedImage settleAndCapture() throws Exception {
+        fireScriptingEvent("Camera.BeforeSettle");
         
     	
         if (getSettleTimeMs() >= 0) {
@@ -225,6 +326,26 @@ public abstract class AbstractCamera extends AbstractModelObject implements Came
         }
     }
 
+    /**
+     * Returns the object that represents the physical capture device behind this camera.
+     * Cameras that share a device can't capture at the same time, so CaptureScheduler runs
+     * their captures one after another while captures on different devices run concurrently.
+     * Cameras without a physical device return null and their captures aren't queued. The
+     * default is the camera itself.
+     */
+    public Object getCaptureDevice() {
+        return this;
+    }
+
+    /**
+     * Returns true if the capture device is currently set up to capture for this camera, i.e.
+     * a capture will not have to switch inputs first. Used by CaptureScheduler to batch
+     * requests for the same input together.
+     */
+    public boolean isCaptureDeviceSelected() {
+        return true;
+    }
+
     protected void broadcastCapture(BufferedImage img) {
         for (ListenerEntry listener : new ArrayList<>(listeners)) {
             listener.listener.frameReceived(img);
@@ -239,6 +360,42 @@ public abstract class AbstractCamera extends AbstractModelObject implements Came
         this.settleTimeMs = settleTimeMs;
     }
 
+    public long getSettleTimeoutMs() {
+        return settleTimeoutMs;
+    }
+
+    public void setSettleTimeoutMs(long settleTimeoutMs) {
+        this.settleTimeoutMs = settleTimeoutMs;
+    }
+
+    public SettleTimeoutAction getSettleTimeoutAction() {
+        return settleTimeoutAction;
+    }
+
+    public void setSettleTimeoutAction(SettleTimeoutAction settleTimeoutAction) {
+        this.settleTimeoutAction = settleTimeoutAction;
+    }
+
+    public double getSettleRoiFraction() {
+        return settleRoiFraction;
+    }
+
+    public void setSettleRoiFraction(double settleRoiFraction) {
+        this.settleRoiFraction = settleRoiFraction;
+    }
+
+    public int getSettleDownscale() {
+        return settleDownscale;
+    }
+
+    public void setSettleDownscale(int settleDownscale) {
+        this.settleDownscale = settleDownscale;
+    }
+
+    public SettleStatistics getSettleStatistics() {
+        return settleStatistics;
+    }
+
     @Override
     public Icon getPropertySheetHolderIcon() {
         return Icons.captureCamera;
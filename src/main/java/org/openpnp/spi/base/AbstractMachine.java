@@ -22,6 +22,8 @@ import org.openpnp.spi.Camera;
 import org.openpnp.spi.Feeder;
 import org.openpnp.spi.Head;
 import org.openpnp.spi.Machine;
+import org.openpnp.spi.MachineActivity;
+import org.openpnp.spi.MachineActivityListener;
 import org.openpnp.spi.MachineListener;
 import org.openpnp.spi.NozzleTip;
 import org.openpnp.spi.Signaler;
@@ -82,6 +84,8 @@ public abstract class AbstractMachine extends AbstractModelObject implements Mac
 
     protected Set<MachineListener> listeners = Collections.synchronizedSet(new HashSet<>());
 
+    protected MachineActivityDispatcher activityDispatcher = new MachineActivityDispatcher(this);
+
     protected ThreadPoolExecutor executor;
 
     protected AbstractMachine() {}
@@ -196,6 +200,17 @@ public abstract class AbstractMachine extends AbstractModelObject implements Mac
         listeners.remove(listener);
     }
 
+    @Override
+    public void addActivityListener(MachineActivityListener listener, int maxPerSecond,
+            boolean onEventDispatchThread, MachineActivity... activities) {
+        activityDispatcher.addListener(listener, maxPerSecond, onEventDispatchThread, activities);
+    }
+
+    @Override
+    public void removeActivityListener(MachineActivityListener listener) {
+        activityDispatcher.removeListener(listener);
+    }
+
     @Override
     public void addFeeder(Feeder feeder) throws Exception {
         feeders.add(feeder);
@@ -255,9 +270,14 @@ public abstract class AbstractMachine extends AbstractModelObject implements Mac
     }
 
     public void fireMachineHeadActivity(Head head) {
+        fireMachineHeadActivity(head, MachineActivity.Motion);
+    }
+
+    public void fireMachineHeadActivity(Head head, MachineActivity activity) {
         for (MachineListener listener : listeners) {
             listener.machineHeadActivity(this, head);
         }
+        activityDispatcher.post(head, activity);
     }
 
     public void fireMachineEnabled() {
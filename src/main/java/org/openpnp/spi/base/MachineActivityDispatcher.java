@@ -0,0 +1,141 @@
+package org.openpnp.spi.base;
+
+import java.awt.EventQueue;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openpnp.spi.Head;
+import org.openpnp.spi.Machine;
+import org.openpnp.spi.MachineActivity;
+import org.openpnp.spi.MachineActivityListener;
+import org.pmw.tinylog.Logger;
+
+/**
+ * Delivers head activity to MachineActivityListeners at a limited rate. Activity that happens
+ * while a delivery is pending is merged into it, so however fast the machine reports activity a
+ * listener sees at most its maximum rate of calls, and always gets a final call after the last
+ * activity of a burst.
+ *
+ * Reporting activity never blocks: it records the activity and, if no delivery is pending yet,
+ * schedules one on the dispatcher's thread. Listeners that asked for the event dispatch thread
+ * have at most one task queued there at a time.
+ */
+public class MachineActivityDispatcher {
+    private final Machine machine;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private ScheduledThreadPoolExecutor executor;
+
+    public MachineActivityDispatcher(Machine machine) {
+        this.machine = machine;
+    }
+
+    /**
+     * @param listener
+     * @param maxPerSecond The most calls per second the listener should get, or 0 for no limit.
+     * @param onEventDispatchThread True to call the listener on the event dispatch thread.
+     * @param activities The kinds of activity to report. None means all of them.
+     */
+    public void addListener(MachineActivityListener listener, int maxPerSecond,
+            boolean onEventDispatchThread, MachineActivity... activities) {
+        Set<MachineActivity> filter = activities.length == 0 ? EnumSet.allOf(MachineActivity.class)
+                : EnumSet.of(activities[0], activities);
+        subscriptions.add(new Subscription(listener, maxPerSecond, onEventDispatchThread, filter));
+    }
+
+    public void removeListener(MachineActivityListener listener) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.listener == listener) {
+                subscriptions.remove(subscription);
+            }
+        }
+    }
+
+    public void post(Head head, MachineActivity activity) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.filter.contains(activity)) {
+                subscription.post(head, activity);
+            }
+        }
+    }
+
+    private synchronized ScheduledThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "MachineActivityDispatcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    private class Subscription {
+        final MachineActivityListener listener;
+        final long intervalNanos;
+        final boolean onEventDispatchThread;
+        final Set<MachineActivity> filter;
+
+        // Guarded by this.
+        Set<Head> pendingHeads = new HashSet<>();
+        Set<MachineActivity> pendingActivities = EnumSet.noneOf(MachineActivity.class);
+        boolean scheduled;
+        long lastDelivery;
+
+        Subscription(MachineActivityListener listener, int maxPerSecond,
+                boolean onEventDispatchThread, Set<MachineActivity> filter) {
+            this.listener = listener;
+            this.intervalNanos = maxPerSecond <= 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / maxPerSecond;
+            this.onEventDispatchThread = onEventDispatchThread;
+            this.filter = filter;
+            this.lastDelivery = System.nanoTime() - intervalNanos;
+        }
+
+        synchronized void post(Head head, MachineActivity activity) {
+            if (head != null) {
+                pendingHeads.add(head);
+            }
+            pendingActivities.add(activity);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+            long delay = Math.max(0, lastDelivery + intervalNanos - System.nanoTime());
+            getExecutor().schedule(this::dispatch, delay, TimeUnit.NANOSECONDS);
+        }
+
+        void dispatch() {
+            if (onEventDispatchThread) {
+                EventQueue.invokeLater(this::deliver);
+            }
+            else {
+                deliver();
+            }
+        }
+
+        void deliver() {
+            Set<Head> heads;
+            Set<MachineActivity> activities;
+            synchronized (this) {
+                heads = pendingHeads;
+                activities = pendingActivities;
+                pendingHeads = new HashSet<>();
+                pendingActivities = EnumSet.noneOf(MachineActivity.class);
+                scheduled = false;
+                lastDelivery = System.nanoTime();
+            }
+            try {
+                listener.machineActivity(machine, Collections.unmodifiableSet(heads),
+                        Collections.unmodifiableSet(activities));
+            }
+            catch (Exception e) {
+                Logger.warn(e);
+            }
+        }
+    }
+}
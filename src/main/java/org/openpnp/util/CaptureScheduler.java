@@ -0,0 +1,295 @@
+package org.openpnp.util;
+
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openpnp.spi.Camera;
+import org.openpnp.spi.base.AbstractCamera;
+import org.pmw.tinylog.Logger;
+
+/**
+ * Keeps captures on cameras that share a physical capture device, such as several
+ * SwitcherCameras on one capture card, from overlapping, while captures on independent cameras
+ * can run concurrently.
+ *
+ * Cameras whose captures must not overlap with others on the same device, such as
+ * SwitcherCamera, route their own capture methods through {@link #run(Camera, Capture)}, which
+ * runs the capture on the calling thread while holding the lock of the device. Captures made
+ * from the machine thread, including the vision pipelines, stay on the machine thread along with
+ * any actuators or scripting events they trigger.
+ *
+ * Callers can also opt in to capturing in the background with {@link #capture(Camera)} and
+ * {@link #settleAndCapture(Camera)}, which queue the capture on a worker thread per device and
+ * return a future. When several requests are queued for the same device, requests for the input
+ * that is already selected are run first so that the switch and its settle delay are paid once
+ * per batch rather than once per request. Since these captures don't run on the machine thread
+ * they must only be used for cameras whose captures don't actuate anything or run scripts.
+ */
+public class CaptureScheduler {
+    /**
+     * How long an idle worker thread waits for more work before exiting.
+     */
+    private static final long WORKER_IDLE_MS = 5000;
+
+    private static CaptureScheduler instance;
+
+    /**
+     * A capture that may fail with an exception of type E, such as Camera.settleAndCapture(),
+     * which throws when the camera doesn't settle in time. Captures that can't fail, such as
+     * Camera.capture(), throw RuntimeException.
+     */
+    public interface Capture<E extends Exception> {
+        BufferedImage capture() throws E;
+    }
+
+    private final Map<Object, DeviceQueue> queues = new HashMap<>();
+
+    /**
+     * The lock held while capturing from each device. Weak so that devices that are no longer
+     * used, such as short lived cameras, aren't retained.
+     */
+    private final Map<Object, ReentrantLock> locks =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    public static synchronized CaptureScheduler get() {
+        if (instance == null) {
+            instance = new CaptureScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Queue a Camera.capture() on the worker of the camera's device and return a future for the
+     * image. The capture doesn't run on the machine thread, so camera must not actuate or run
+     * scripts when capturing.
+     *
+     * @param camera
+     * @return
+     */
+    public CompletableFuture<BufferedImage> capture(Camera camera) {
+        return submit(camera, camera::capture);
+    }
+
+    /**
+     * Queue a Camera.settleAndCapture() on the worker of the camera's device and return a future
+     * for the image. The capture doesn't run on the machine thread, so camera must not actuate
+     * or run scripts when capturing.
+     *
+     * @param camera
+     * @return
+     */
+    public CompletableFuture<BufferedImage> settleAndCapture(Camera camera) {
+        return submit(camera, camera::settleAndCapture);
+    }
+
+    /**
+     * Run the given capture for camera on the calling thread while holding the lock of its
+     * device, so that it doesn't overlap with other captures on the device. The lock is
+     * reentrant, so a capture that was itself queued here can call this too.
+     *
+     * @param camera
+     * @param capture
+     * @return
+     * @throws IllegalStateException if the calling thread is interrupted while waiting for
+     *         another capture on the device, in which case its interrupt flag is set again.
+     */
+    public <E extends Exception> BufferedImage run(Camera camera, Capture<E> capture) throws E {
+        Object device = getCaptureDevice(camera);
+        if (device == null) {
+            return capture.capture();
+        }
+        ReentrantLock lock = getLock(device);
+        try {
+            lock.lockInterruptibly();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to capture from " + camera,
+                    e);
+        }
+        try {
+            return capture.capture();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock getLock(Object device) {
+        return locks.computeIfAbsent(device, d -> new ReentrantLock());
+    }
+
+    private CompletableFuture<BufferedImage> submit(Camera camera, Capture<?> capture) {
+        Object device = getCaptureDevice(camera);
+        Request request = new Request(camera, capture);
+        if (device == null) {
+            CompletableFuture.runAsync(request::run);
+        }
+        else {
+            add(device, request);
+        }
+        return request.future;
+    }
+
+    /**
+     * Add the request to the queue of the device, creating the queue if there is none. Queues
+     * remove themselves when their worker exits, so that devices that are no longer used, such
+     * as short lived cameras, aren't retained.
+     */
+    private void add(Object device, Request request) {
+        while (true) {
+            DeviceQueue queue;
+            synchronized (queues) {
+                queue = queues.get(device);
+                if (queue == null) {
+                    queue = new DeviceQueue(device);
+                    queues.put(device, queue);
+                }
+            }
+            if (queue.add(request)) {
+                return;
+            }
+            // The worker exited between looking up the queue and adding to it.
+            synchronized (queues) {
+                queues.remove(device, queue);
+            }
+        }
+    }
+
+    /**
+     * Returns the capture device of camera, or null if it has none, in which case its captures
+     * aren't queued.
+     */
+    private static Object getCaptureDevice(Camera camera) {
+        if (camera instanceof AbstractCamera) {
+            return ((AbstractCamera) camera).getCaptureDevice();
+        }
+        return camera;
+    }
+
+    private static boolean isCaptureDeviceSelected(Camera camera) {
+        if (camera instanceof AbstractCamera) {
+            return ((AbstractCamera) camera).isCaptureDeviceSelected();
+        }
+        return true;
+    }
+
+    private static class Request {
+        final Camera camera;
+        final Capture<?> capture;
+        final CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+
+        Request(Camera camera, Capture<?> capture) {
+            this.camera = camera;
+            this.capture = capture;
+        }
+
+        void run() {
+            // Cancelled by a caller that stopped waiting.
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(capture.capture());
+            }
+            catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+
+    private class DeviceQueue implements Runnable {
+        final Object device;
+        final LinkedList<Request> pending = new LinkedList<>();
+        Thread thread;
+        boolean closed;
+
+        DeviceQueue(Object device) {
+            this.device = device;
+        }
+
+        /**
+         * Returns false, without adding the request, if the worker has exited and the queue is
+         * no longer in use.
+         */
+        synchronized boolean add(Request request) {
+            if (closed) {
+                return false;
+            }
+            pending.add(request);
+            if (thread == null) {
+                thread = new Thread(this, "CaptureScheduler " + device);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            else {
+                notifyAll();
+            }
+            return true;
+        }
+
+        /**
+         * Take the next request to run, preferring the oldest request whose input is already
+         * selected. Returns null, and closes the queue, if nothing arrives within the idle
+         * time.
+         */
+        synchronized Request take() throws InterruptedException {
+            long t = System.currentTimeMillis();
+            while (pending.isEmpty()) {
+                long remaining = WORKER_IDLE_MS - (System.currentTimeMillis() - t);
+                if (remaining <= 0) {
+                    thread = null;
+                    closed = true;
+                    return null;
+                }
+                wait(remaining);
+            }
+            for (Iterator<Request> i = pending.iterator(); i.hasNext();) {
+                Request request = i.next();
+                if (isCaptureDeviceSelected(request.camera)) {
+                    i.remove();
+                    return request;
+                }
+            }
+            return pending.removeFirst();
+        }
+
+        @Override
+        public void run() {
+            try {
+                Request request;
+                while ((request = take()) != null) {
+                    ReentrantLock lock = getLock(device);
+                    lock.lock();
+                    try {
+                        request.run();
+                    }
+                    finally {
+                        lock.unlock();
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                Logger.debug("CaptureScheduler worker for {} interrupted.", device);
+                synchronized (this) {
+                    thread = null;
+                    closed = true;
+                    for (Request request : pending) {
+                        request.future.completeExceptionally(e);
+                    }
+                    pending.clear();
+                }
+            }
+            synchronized (queues) {
+                queues.remove(device, this);
+            }
+        }
+    }
+}
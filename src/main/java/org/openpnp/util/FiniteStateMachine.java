@@ -33,7 +33,7 @@ public class FiniteStateMachine<State, Message> extends AbstractModelObject {
                 transition.task.task();
             }
             setState(transition.toState);
-            Logger.trace(message + " => " + state + " -> " + transition.toState);
+            Logger.trace("{} => {} -> {}", message, state, transition.toState);
             message = transition.nextMessage;
         }
     }
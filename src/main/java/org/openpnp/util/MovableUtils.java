@@ -10,6 +10,10 @@ public class MovableUtils {
      * safe-Z all of it's components, then moving the HeadMountable in X, Y and C, followed by
      * moving in Z.
      * 
+     * The safe-Z of the head is a single coordinated move, so on a head that supports it the whole
+     * travel takes at most three moves: safe-Z, X, Y and C together, and Z. The Z move is left out
+     * when the location has no Z.
+     * 
      * @param hm
      * @param location
      * @param speed
@@ -20,7 +24,9 @@ public class MovableUtils {
         Head head = hm.getHead();
         head.moveToSafeZ(speed);
         hm.moveTo(location.derive(null, null, Double.NaN, null), speed);
-        hm.moveTo(location, speed);
+        if (!Double.isNaN(location.getZ())) {
+            hm.moveTo(location, speed);
+        }
     }
 
     public static void moveToLocationAtSafeZ(HeadMountable hm, Location location) throws Exception {
@@ -0,0 +1,71 @@
+package org.openpnp.util;
+
+/**
+ * Running statistics for waits that end once something settles, such as a camera's auto
+ * settle or a nozzle's adaptive vacuum dwell. A timeout is a wait that ended without
+ * settling.
+ */
+public class SettleStatistics {
+    private long count;
+    private long timeouts;
+    private long frames;
+    private long totalMs;
+    private long maxMs;
+    private long lastMs;
+
+    public synchronized void record(long ms, int frames, boolean timedOut) {
+        count++;
+        this.frames += frames;
+        totalMs += ms;
+        maxMs = Math.max(maxMs, ms);
+        lastMs = ms;
+        if (timedOut) {
+            timeouts++;
+        }
+    }
+
+    /**
+     * Record a wait that isn't measured in frames.
+     */
+    public void record(long ms, boolean timedOut) {
+        record(ms, 0, timedOut);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getTimeouts() {
+        return timeouts;
+    }
+
+    public synchronized long getMaxMs() {
+        return maxMs;
+    }
+
+    public synchronized long getLastMs() {
+        return lastMs;
+    }
+
+    public synchronized double getAverageMs() {
+        return count == 0 ? 0 : (double) totalMs / count;
+    }
+
+    public synchronized double getAverageFrames() {
+        return count == 0 ? 0 : (double) frames / count;
+    }
+
+    public synchronized void reset() {
+        count = timeouts = frames = totalMs = maxMs = lastMs = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (frames == 0) {
+            return String.format("count %d, timeouts %d, average %.1f ms, max %d ms", count,
+                    timeouts, getAverageMs(), maxMs);
+        }
+        return String.format("count %d, timeouts %d, average %.1f ms / %.1f frames, max %d ms",
+                count, timeouts, getAverageMs(), getAverageFrames(), maxMs);
+    }
+}
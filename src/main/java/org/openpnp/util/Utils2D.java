@@ -89,47 +89,18 @@ public class Utils2D {
         return new Point(point.getX() * scaleX, point.getY() * scaleY);
     }
 
+    /**
+     * Calculate the machine Location of a board relative Location using the BoardLocation's
+     * cached transform. If the BoardLocation has a placement transform it is used, otherwise
+     * the BoardLocation's Location and Side are.
+     * 
+     * @param bl
+     * @param placementLocation
+     * @return
+     */
     public static Location calculateBoardPlacementLocation(BoardLocation bl,
             Location placementLocation) {
-        if (bl.getPlacementTransform() != null) {
-            AffineTransform tx = bl.getPlacementTransform();
-            // The affine calculations are always done in millimeters, so we convert everything
-            // before we start calculating and then we'll convert it back to the original
-            // units at the end.
-            LengthUnit placementUnits = placementLocation.getUnits();
-            Location boardLocation = bl.getLocation().convertToUnits(LengthUnit.Millimeters);
-            placementLocation = placementLocation.convertToUnits(LengthUnit.Millimeters);
-
-            // Calculate the apparent angle from the transform. We need this because when we
-            // created the transform we captured the apparent angle and that is used to position
-            // in X, Y, but we also need the actual value to add to the placement rotation so that
-            // the nozzle is rotated to the correct angle as well.
-            // Note, there is probably a better way to do this. If you know how, please let me know!
-            Point2D.Double a = new Point2D.Double(0, 0);
-            Point2D.Double b = new Point2D.Double(1, 1);
-            Point2D.Double c = new Point2D.Double(0, 0);
-            Point2D.Double d = new Point2D.Double(1, 1);
-            c = (Point2D.Double) tx.transform(c, null);
-            d = (Point2D.Double) tx.transform(d, null);
-            double angle = Math.toDegrees(Math.atan2(d.y - c.y, d.x - c.x) - Math.atan2(b.y - a.y, b.x - a.x));
-            
-            Point2D p = new Point2D.Double(placementLocation.getX(), placementLocation.getY());
-            p = tx.transform(p, null);
-            
-            // The final result is the transformed X,Y, the BoardLocation's Z, and the
-            // transform angle + placement angle.
-            Location l = new Location(LengthUnit.Millimeters, 
-                    p.getX(), 
-                    p.getY(), 
-                    boardLocation.getZ(), 
-                    angle + placementLocation.getRotation());
-            l = l.convertToUnits(placementUnits);
-            return l;
-        }
-        else {
-            return calculateBoardPlacementLocation(bl.getLocation(), bl.getSide(),
-                    bl.getBoard().getDimensions().getX(), placementLocation);
-        }
+        return bl.getTransform().transform(placementLocation);
     }
 
     public static Location calculateBoardPlacementLocation(Location boardLocation, Side side,
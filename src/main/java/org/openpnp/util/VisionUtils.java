@@ -181,7 +181,7 @@ public class VisionUtils {
      * @param camera
      * @return
      */
-    public static String readQrCode(Camera camera) {
+    public static String readQrCode(Camera camera) throws Exception {
         return scanBarcode(camera);
     }
     
@@ -190,7 +190,7 @@ public class VisionUtils {
      * @param camera
      * @return
      */
-    public static String scanBarcode(Camera camera) {
+    public static String scanBarcode(Camera camera) throws Exception {
         BufferedImage image = camera.settleAndCapture();
         BinaryBitmap binaryBitmap = new BinaryBitmap(new HybridBinarizer(
                 new BufferedImageLuminanceSource(image)));
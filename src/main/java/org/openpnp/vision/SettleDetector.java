@@ -0,0 +1,110 @@
+package org.openpnp.vision;
+
+import java.awt.image.BufferedImage;
+
+import org.opencv.core.Core;
+import org.opencv.core.Core.MinMaxLocResult;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.openpnp.util.OpenCvUtils;
+
+/**
+ * Scores how much consecutive camera frames differ so that a camera can decide when the image
+ * has stopped moving. Only a centered region of interest is compared, optionally at reduced
+ * resolution, and the working Mats are reused from frame to frame.
+ *
+ * Instances are not thread safe.
+ */
+public class SettleDetector {
+    private final double roiFraction;
+    private final int downscale;
+
+    private final Mat gray = new Mat();
+    private Mat current = new Mat();
+    private Mat last = new Mat();
+    private final Mat diff = new Mat();
+    private boolean hasLast;
+
+    /**
+     * @param roiFraction The fraction, 0 to 1, of the frame's width and height that is compared,
+     *        centered on the frame.
+     * @param downscale The factor the region of interest is shrunk by before comparing. 1 compares
+     *        at full resolution.
+     */
+    public SettleDetector(double roiFraction, int downscale) {
+        this.roiFraction = Math.max(0.01, Math.min(1.0, roiFraction));
+        this.downscale = Math.max(1, downscale);
+    }
+
+    public double getRoiFraction() {
+        return roiFraction;
+    }
+
+    public int getDownscale() {
+        return downscale;
+    }
+
+    /**
+     * Compare the frame against the previous one and return the largest single pixel difference
+     * in the region of interest, or -1 if there was no previous frame to compare with.
+     *
+     * @param image
+     * @return
+     */
+    public double score(BufferedImage image) {
+        Mat mat = OpenCvUtils.toMat(image);
+        int roiWidth = Math.max(1, (int) (mat.cols() * roiFraction));
+        int roiHeight = Math.max(1, (int) (mat.rows() * roiFraction));
+        Rect roi = new Rect((mat.cols() - roiWidth) / 2, (mat.rows() - roiHeight) / 2, roiWidth,
+                roiHeight);
+        Mat roiMat = mat.submat(roi);
+        if (roiMat.channels() == 1) {
+            roiMat.copyTo(gray);
+        }
+        else {
+            Imgproc.cvtColor(roiMat, gray, Imgproc.COLOR_BGR2GRAY);
+        }
+        roiMat.release();
+        mat.release();
+
+        if (downscale > 1) {
+            Imgproc.resize(gray, current,
+                    new Size(Math.max(1, roiWidth / downscale), Math.max(1, roiHeight / downscale)),
+                    0, 0, Imgproc.INTER_AREA);
+        }
+        else {
+            gray.copyTo(current);
+        }
+
+        double score = -1;
+        if (hasLast && last.size().equals(current.size())) {
+            Core.absdiff(last, current, diff);
+            MinMaxLocResult result = Core.minMaxLoc(diff);
+            score = result.maxVal;
+        }
+
+        // Swap rather than copy so the buffers get reused on the next frame.
+        Mat tmp = last;
+        last = current;
+        current = tmp;
+        hasLast = true;
+        return score;
+    }
+
+    /**
+     * Forget the previous frame so the next call to score() starts a new comparison.
+     */
+    public void reset() {
+        hasLast = false;
+    }
+
+    public void release() {
+        gray.release();
+        current.release();
+        last.release();
+        diff.release();
+        hasLast = false;
+    }
+}
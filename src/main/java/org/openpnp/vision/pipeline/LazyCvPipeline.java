@@ -0,0 +1,120 @@
+package org.openpnp.vision.pipeline;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.simpleframework.xml.convert.Converter;
+import org.simpleframework.xml.stream.InputNode;
+import org.simpleframework.xml.stream.NodeBuilder;
+import org.simpleframework.xml.stream.OutputNode;
+
+/**
+ * Holds a CvPipeline that is only built the first time it is used. Machines with thousands of
+ * parts carry a pipeline in the vision settings of each one, and building all of them while the
+ * configuration loads creates every stage up front for parts that may never be placed.
+ *
+ * Serialize it with @Convert(LazyCvPipeline.XmlConverter.class). The converter keeps the XML of
+ * the pipeline as read, and writes it back unchanged unless the pipeline was built in the
+ * meantime, so the file format is the same as for a plain CvPipeline element.
+ */
+public class LazyCvPipeline {
+    private XmlElement xml;
+    private CvPipeline pipeline;
+
+    public LazyCvPipeline(CvPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    private LazyCvPipeline(XmlElement xml) {
+        this.xml = xml;
+    }
+
+    /**
+     * Returns the pipeline, building it from the XML it was read from on the first call.
+     * 
+     * @throws Exception if the pipeline can't be built from its XML. The XML is kept, so it is
+     *         still saved as it was read.
+     */
+    public synchronized CvPipeline get() throws Exception {
+        if (pipeline == null) {
+            try {
+                StringWriter writer = new StringWriter();
+                OutputNode document = NodeBuilder.write(writer);
+                xml.write(document.getChild("cv-pipeline"));
+                document.commit();
+                pipeline = new CvPipeline(writer.toString());
+            }
+            catch (Exception e) {
+                throw new Exception("Unable to read the vision pipeline: " + e.getMessage(), e);
+            }
+            xml = null;
+        }
+        return pipeline;
+    }
+
+    private synchronized XmlElement getXml() throws Exception {
+        if (pipeline == null) {
+            return xml;
+        }
+        // The pipeline may have been edited since it was built, so write what it is now.
+        return XmlElement.read(NodeBuilder.read(new StringReader(pipeline.toXmlString())));
+    }
+
+    public static class XmlConverter implements Converter<LazyCvPipeline> {
+        @Override
+        public LazyCvPipeline read(InputNode node) throws Exception {
+            return new LazyCvPipeline(XmlElement.read(node));
+        }
+
+        @Override
+        public void write(OutputNode node, LazyCvPipeline value) throws Exception {
+            value.getXml().write(node);
+        }
+    }
+
+    /**
+     * An XML element as read, without any interpretation.
+     */
+    private static class XmlElement {
+        private String name;
+        private String value;
+        private List<String[]> attributes = new ArrayList<>();
+        private List<XmlElement> children = new ArrayList<>();
+
+        static XmlElement read(InputNode node) throws Exception {
+            XmlElement element = new XmlElement();
+            element.name = node.getName();
+            for (String name : node.getAttributes()) {
+                element.attributes.add(new String[] {name, node.getAttribute(name).getValue()});
+            }
+            element.value = node.getValue();
+            for (InputNode child = node.getNext(); child != null; child = node.getNext()) {
+                element.children.add(read(child));
+            }
+            if (!element.children.isEmpty() && element.value != null
+                    && element.value.trim().isEmpty()) {
+                // Just the indentation before the first child.
+                element.value = null;
+            }
+            return element;
+        }
+
+        /**
+         * Write the attributes, value and children of this element to the given node. The name
+         * is left to whoever created the node.
+         */
+        void write(OutputNode node) throws Exception {
+            for (String[] attribute : attributes) {
+                node.setAttribute(attribute[0], attribute[1]);
+            }
+            if (value != null) {
+                node.setValue(value);
+            }
+            for (XmlElement child : children) {
+                child.write(node.getChild(child.name));
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.model.Board;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.CompactBoardFormat;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Placement;
+
+public class BoardLocationPlacedTest {
+    final Placement r1 = new Placement("R1");
+
+    private Board createBoard() {
+        Board board = new Board();
+        board.addPlacement(r1);
+        board.addPlacement(new Placement("R2"));
+        board.addPlacement(new Placement("R3"));
+        return board;
+    }
+
+    private static String write(BoardLocation boardLocation) throws Exception {
+        StringWriter writer = new StringWriter();
+        Configuration.createSerializer().write(boardLocation, writer);
+        return writer.toString();
+    }
+
+    private static BoardLocation read(String xml, Board board) throws Exception {
+        BoardLocation boardLocation =
+                Configuration.createSerializer().read(BoardLocation.class, xml);
+        boardLocation.setBoard(board);
+        return boardLocation;
+    }
+
+    /**
+     * Panels copy the board location for each board, and each copy is placed on its own.
+     */
+    @Test
+    public void testCopiesAreIndependent() throws Exception {
+        BoardLocation a = new BoardLocation(createBoard());
+        a.setPlaced("R2", true);
+
+        BoardLocation b = new BoardLocation(a);
+        Assert.assertTrue(b.getPlaced("R2"));
+        b.setPlaced("R3", true);
+        b.setPlaced(1, false);
+        Assert.assertTrue(a.getPlaced("R2"));
+        Assert.assertFalse(a.getPlaced("R3"));
+        Assert.assertFalse(b.getPlaced("R2"));
+        Assert.assertTrue(b.getPlaced(2));
+
+        a.clearAllPlaced();
+        Assert.assertFalse(a.getPlaced("R2"));
+        Assert.assertTrue(b.getPlaced("R3"));
+    }
+
+    /**
+     * The placed state is kept by index, and must stay with its placement when placements are
+     * added or removed before it.
+     */
+    @Test
+    public void testPlacementsAddedAndRemoved() throws Exception {
+        Board board = createBoard();
+        BoardLocation boardLocation = new BoardLocation(board);
+        boardLocation.setPlaced("R2", true);
+        boardLocation.setPlaced("R3", true);
+
+        board.removePlacement(r1);
+        Assert.assertTrue(boardLocation.getPlaced("R2"));
+        Assert.assertTrue(boardLocation.getPlaced(0));
+        Assert.assertTrue(boardLocation.getPlaced(1));
+        Assert.assertEquals(0, boardLocation.getActivePlacements());
+
+        board.addPlacement(new Placement("R4"));
+        Assert.assertTrue(boardLocation.getPlaced("R3"));
+        Assert.assertFalse(boardLocation.getPlaced("R4"));
+        Assert.assertFalse(boardLocation.getPlaced(2));
+        Assert.assertEquals(1, boardLocation.getActivePlacements());
+
+        boardLocation.setPlaced("R1", true);
+        Assert.assertFalse(boardLocation.getPlaced("R1"));
+    }
+
+    /**
+     * The job file keeps the placed state by placement id, so it still matches the placements
+     * when the board file has changed since the job was saved.
+     */
+    @Test
+    public void testPlacedIsWrittenById() throws Exception {
+        Board board = createBoard();
+        BoardLocation boardLocation = read("<board-location board-file=\"test.board.xml\">"
+                + "<location units=\"Millimeters\"/></board-location>", board);
+        boardLocation.setPlaced("R1", true);
+        boardLocation.setPlaced("R3", true);
+
+        String xml = write(boardLocation);
+        Assert.assertTrue(xml, xml.contains(">R1<"));
+        Assert.assertTrue(xml, xml.contains(">R3<"));
+        Assert.assertFalse(xml, xml.contains(">R2<"));
+
+        board.removePlacement(r1);
+        board.addPlacement(new Placement("R0"));
+        BoardLocation read = read(xml, board);
+        Assert.assertFalse(read.getPlaced("R2"));
+        Assert.assertTrue(read.getPlaced("R3"));
+        Assert.assertTrue(read.getPlaced(1));
+        Assert.assertFalse(read.getPlaced("R0"));
+    }
+
+    /**
+     * A board read from a compact board file creates its placements when they are first needed.
+     * The placed state by id is kept without them, and carried over once they are created.
+     */
+    @Test
+    public void testPlacedBeforePlacementsAreLoaded() throws Exception {
+        File file = File.createTempFile("BoardLocationPlacedTest", CompactBoardFormat.EXTENSION);
+        file.deleteOnExit();
+        Files.write(file.toPath(), CompactBoardFormat.write(createBoard()));
+        Board board = CompactBoardFormat.read(file);
+
+        BoardLocation boardLocation = new BoardLocation(board);
+        boardLocation.setPlaced("R2", true);
+        Assert.assertTrue(boardLocation.getPlaced("R2"));
+        Assert.assertFalse(boardLocation.getPlaced("R3"));
+
+        Assert.assertTrue(boardLocation.getPlaced(1));
+        Assert.assertFalse(boardLocation.getPlaced(0));
+        Assert.assertTrue(boardLocation.getPlaced("R2"));
+        Assert.assertEquals(3, board.getPlacements().size());
+    }
+}
@@ -0,0 +1,242 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.gui.support.Wizard;
+import org.openpnp.machine.reference.ReferenceCamera;
+import org.openpnp.machine.reference.camera.BufferedImageCamera;
+import org.openpnp.model.Configuration;
+import org.openpnp.spi.PropertySheetHolder;
+import org.openpnp.util.CaptureScheduler;
+import org.openpnp.vision.pipeline.CvPipeline;
+import org.openpnp.vision.pipeline.stages.ImageCapture;
+
+public class CaptureSchedulerTest {
+    final BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_3BYTE_BGR);
+    final Map<Object, String> selectedInputs = new ConcurrentHashMap<>();
+    final List<String> order = Collections.synchronizedList(new ArrayList<>());
+    final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+    final AtomicInteger active = new AtomicInteger();
+    final AtomicInteger maxActive = new AtomicInteger();
+
+    /**
+     * A camera on the given input of a capture device. A capture takes captureMs, selects the
+     * input and records the order of the captures, their threads and how many overlap.
+     */
+    class TestCamera extends ReferenceCamera {
+        final Object device;
+        final String input;
+        final long captureMs;
+
+        TestCamera(Object device, String input, long captureMs) {
+            this.device = device;
+            this.input = input;
+            this.captureMs = captureMs;
+        }
+
+        @Override
+        public BufferedImage capture() {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(captureMs);
+            }
+            catch (InterruptedException e) {
+            }
+            selectedInputs.put(device, input);
+            order.add(input);
+            threads.add(Thread.currentThread());
+            active.decrementAndGet();
+            return image;
+        }
+
+        @Override
+        public BufferedImage internalCapture() {
+            return image;
+        }
+
+        @Override
+        public Object getCaptureDevice() {
+            return device;
+        }
+
+        @Override
+        public boolean isCaptureDeviceSelected() {
+            return input.equals(selectedInputs.get(device));
+        }
+
+        @Override
+        public Wizard getConfigurationWizard() {
+            return null;
+        }
+
+        @Override
+        public String getPropertySheetHolderTitle() {
+            return null;
+        }
+
+        @Override
+        public PropertySheetHolder[] getChildPropertySheetHolders() {
+            return null;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        File directory = Files.createTempDirectory("CaptureSchedulerTest").toFile();
+        Configuration.initialize(new File(directory, ".openpnp"));
+    }
+
+    /**
+     * Queue a slow capture on device and wait until it has started.
+     */
+    private CompletableFuture<BufferedImage> captureInBackground(Object device)
+            throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<BufferedImage> future =
+                CaptureScheduler.get().capture(new TestCamera(device, "a", 200) {
+                    @Override
+                    public BufferedImage capture() {
+                        started.countDown();
+                        return super.capture();
+                    }
+                });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        return future;
+    }
+
+    private static void await(List<CompletableFuture<BufferedImage>> futures) throws Exception {
+        for (CompletableFuture<BufferedImage> future : futures) {
+            Assert.assertNotNull(future.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testDevicesCaptureConcurrently() throws Exception {
+        long t = System.currentTimeMillis();
+        await(Arrays.asList(
+                CaptureScheduler.get().capture(new TestCamera(new Object(), "top", 300)),
+                CaptureScheduler.get().capture(new TestCamera(new Object(), "bottom", 300))));
+        t = System.currentTimeMillis() - t;
+        Assert.assertEquals(2, maxActive.get());
+        Assert.assertTrue("took " + t + " ms", t < 550);
+    }
+
+    @Test
+    public void testSharedDeviceCapturesOneAtATime() throws Exception {
+        Object device = new Object();
+        List<CompletableFuture<BufferedImage>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(CaptureScheduler.get().capture(new TestCamera(device, "input" + i, 50)));
+        }
+        await(futures);
+        Assert.assertEquals(1, maxActive.get());
+    }
+
+    /**
+     * Once the first capture has switched the device to its input, the queued captures for that
+     * input run before the ones that need another switch.
+     */
+    @Test
+    public void testSelectedInputFirst() throws Exception {
+        Object device = new Object();
+        TestCamera a = new TestCamera(device, "a", 50);
+        TestCamera b = new TestCamera(device, "b", 50);
+        List<CompletableFuture<BufferedImage>> futures = new ArrayList<>();
+        for (TestCamera camera : new TestCamera[] {a, b, a, b, a}) {
+            futures.add(CaptureScheduler.get().capture(camera));
+        }
+        await(futures);
+        Assert.assertEquals(Arrays.asList("a", "a", "a", "b", "b"), order);
+    }
+
+    /**
+     * A camera that routes its own capture through the scheduler, as SwitcherCamera does, can
+     * still be captured in the background without waiting on itself.
+     */
+    @Test
+    public void testRunIsReentrant() throws Exception {
+        TestCamera camera = new TestCamera(new Object(), "a", 0) {
+            @Override
+            public BufferedImage capture() {
+                return CaptureScheduler.get().run(this, () -> super.capture());
+            }
+        };
+        Assert.assertSame(image, camera.capture());
+        await(Arrays.asList(CaptureScheduler.get().capture(camera)));
+        Assert.assertEquals(2, order.size());
+    }
+
+    /**
+     * run() captures on the calling thread, but not while a queued capture on the same device is
+     * running.
+     */
+    @Test
+    public void testRunCapturesOnCallingThread() throws Exception {
+        Object device = new Object();
+        CompletableFuture<BufferedImage> queued = captureInBackground(device);
+        TestCamera camera = new TestCamera(device, "b", 0);
+        Assert.assertSame(image, CaptureScheduler.get().run(camera, camera::capture));
+        await(Arrays.asList(queued));
+        Assert.assertEquals(Arrays.asList("a", "b"), order);
+        Assert.assertEquals(1, maxActive.get());
+        Assert.assertSame(Thread.currentThread(), threads.get(1));
+    }
+
+    @Test
+    public void testRunInterrupted() throws Exception {
+        Object device = new Object();
+        CompletableFuture<BufferedImage> queued = captureInBackground(device);
+        TestCamera camera = new TestCamera(device, "b", 0);
+        Thread.currentThread().interrupt();
+        try {
+            CaptureScheduler.get().run(camera, camera::capture);
+            Assert.fail("Expected the interrupted capture to fail.");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertTrue(Thread.interrupted());
+        }
+        await(Arrays.asList(queued));
+        Assert.assertEquals(Arrays.asList("a"), order);
+    }
+
+    /**
+     * Pipelines capture on the thread that runs them, which is the machine thread during a job,
+     * so that any actuators or scripts the capture triggers run there too.
+     */
+    @Test
+    public void testPipelineCapturesOnCallingThread() throws Exception {
+        CvPipeline pipeline = new CvPipeline();
+        pipeline.add("image", new ImageCapture());
+
+        pipeline.setProperty("camera", new TestCamera(new Object(), "a", 0));
+        pipeline.process();
+        Assert.assertNotNull(pipeline.getResult("image").image);
+        Assert.assertSame(Thread.currentThread(), threads.get(0));
+
+        pipeline.setProperty("camera",
+                new BufferedImageCamera(new TestCamera(new Object(), "a", 0), image) {
+                    @Override
+                    public BufferedImage capture() {
+                        threads.add(Thread.currentThread());
+                        return super.capture();
+                    }
+                });
+        pipeline.process();
+        Assert.assertNotNull(pipeline.getResult("image").image);
+        Assert.assertSame(Thread.currentThread(), threads.get(1));
+        pipeline.release();
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.gui.support.CoalescingUpdater;
+
+public class CoalescingUpdaterTest {
+    /**
+     * A burst of items from another thread is handled by a single update on the EDT, with each
+     * item once and in the order it was first added.
+     */
+    @Test
+    public void testBurstIsCoalesced() throws Exception {
+        List<List<Integer>> updates = new ArrayList<>();
+        List<Boolean> onEdt = new ArrayList<>();
+        CountDownLatch updated = new CountDownLatch(1);
+        CoalescingUpdater<Integer> updater = new CoalescingUpdater<>(200, items -> {
+            onEdt.add(SwingUtilities.isEventDispatchThread());
+            updates.add(items);
+            updated.countDown();
+        });
+
+        Thread thread = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                updater.add(i % 3);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        Assert.assertTrue(updated.await(5, TimeUnit.SECONDS));
+        // Give a second update, which there should not be, time to happen.
+        Thread.sleep(400);
+        SwingUtilities.invokeAndWait(() -> {
+            Assert.assertEquals(Arrays.asList(Arrays.asList(0, 1, 2)), updates);
+            Assert.assertEquals(Arrays.asList(true), onEdt);
+        });
+    }
+
+    /**
+     * Items added after an update are handled by the next one.
+     */
+    @Test
+    public void testLaterItemsAreUpdatedAgain() throws Exception {
+        List<List<String>> updates = new ArrayList<>();
+        CountDownLatch updated = new CountDownLatch(2);
+        CoalescingUpdater<String> updater = new CoalescingUpdater<>(50, items -> {
+            updates.add(items);
+            updated.countDown();
+        });
+
+        updater.add("a");
+        SwingUtilities.invokeAndWait(() -> {
+            // Not before the interval has passed.
+            Assert.assertTrue(updates.isEmpty());
+        });
+        Thread.sleep(300);
+        updater.add("b");
+        Assert.assertTrue(updated.await(5, TimeUnit.SECONDS));
+        SwingUtilities.invokeAndWait(() -> {
+            Assert.assertEquals(Arrays.asList(Arrays.asList("a"), Arrays.asList("b")), updates);
+        });
+    }
+}
@@ -0,0 +1,173 @@
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.model.Board;
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardPad;
+import org.openpnp.model.CompactBoardFormat;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.Pad;
+import org.openpnp.model.Part;
+import org.openpnp.model.Placement;
+import org.openpnp.model.Placement.ErrorHandling;
+import org.openpnp.model.Placement.Type;
+
+public class CompactBoardFormatTest {
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("CompactBoardFormatTest").toFile();
+        Configuration.initialize(new File(directory, ".openpnp"));
+        Configuration.get().addPart(new Part("R0805-1K"));
+        Configuration.get().addPart(new Part("C0603-100N"));
+    }
+
+    private static Board createBoard() {
+        Board board = new Board();
+        board.setName("Round Trip");
+        board.setDimensions(new Location(LengthUnit.Millimeters, 100, 80, 1.6, 0));
+
+        Placement resistor = new Placement("R1");
+        resistor.setPart(Configuration.get().getPart("R0805-1K"));
+        resistor.setLocation(new Location(LengthUnit.Millimeters, 10.5, 20.25, 0, 90));
+        resistor.setComments("Ω and ünïcödé");
+        board.addPlacement(resistor);
+
+        Placement capacitor = new Placement("C1");
+        capacitor.setPart(Configuration.get().getPart("C0603-100N"));
+        capacitor.setLocation(new Location(LengthUnit.Inches, 1, 2, 0, -45));
+        capacitor.setSide(Side.Bottom);
+        capacitor.setErrorHandling(ErrorHandling.Defer);
+        capacitor.setEnabled(false);
+        board.addPlacement(capacitor);
+
+        Placement fiducial = new Placement("FID1");
+        fiducial.setType(Type.Fiducial);
+        fiducial.setLocation(new Location(LengthUnit.Millimeters, 2, 2, 0, 0));
+        board.addPlacement(fiducial);
+
+        Pad.Circle circle = new Pad.Circle();
+        circle.setUnits(LengthUnit.Millimeters);
+        circle.setRadius(0.5);
+        board.addSolderPastePad(
+                new BoardPad(circle, new Location(LengthUnit.Millimeters, 3, 4, 0, 0)));
+        return board;
+    }
+
+    private static String toXml(Board board) throws Exception {
+        StringWriter writer = new StringWriter();
+        Configuration.createSerializer().write(board, writer);
+        return writer.toString();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Board board = createBoard();
+        File file = new File(directory, "test" + CompactBoardFormat.EXTENSION);
+        Files.write(file.toPath(), CompactBoardFormat.write(board));
+
+        Board read = CompactBoardFormat.read(file);
+        Assert.assertFalse(read.isDirty());
+        Assert.assertEquals(toXml(board), toXml(read));
+
+        Placement capacitor = read.getPlacements().get(1);
+        Assert.assertSame(Configuration.get().getPart("C0603-100N"), capacitor.getPart());
+        Assert.assertEquals(Side.Bottom, capacitor.getSide());
+        Assert.assertEquals(LengthUnit.Inches, capacitor.getLocation().getUnits());
+        Assert.assertFalse(capacitor.isEnabled());
+        Assert.assertNull(read.getPlacements().get(2).getPart());
+    }
+
+    @Test
+    public void testUnusedPlacementsAreWrittenBackUnchanged() throws Exception {
+        File file = new File(directory, "test" + CompactBoardFormat.EXTENSION);
+        byte[] bytes = CompactBoardFormat.write(createBoard());
+        Files.write(file.toPath(), bytes);
+        Assert.assertArrayEquals(bytes, CompactBoardFormat.write(CompactBoardFormat.read(file)));
+
+        Board read = CompactBoardFormat.read(file);
+        read.getPlacements().get(0).setEnabled(false);
+        Assert.assertTrue(read.isDirty());
+        Files.write(file.toPath(), CompactBoardFormat.write(read));
+        Assert.assertFalse(CompactBoardFormat.read(file).getPlacements().get(0).isEnabled());
+    }
+
+    @Test
+    public void testConversion() throws Exception {
+        // XML to compact and back again through the configuration, the way boards are converted.
+        File xmlFile = new File(directory, "test.board.xml");
+        Board board = Configuration.get().getBoard(xmlFile);
+        for (Placement placement : createBoard().getPlacements()) {
+            board.addPlacement(placement);
+        }
+        Configuration.get().saveBoard(board);
+        String xml = toXml(board);
+
+        File compactFile = new File(directory, "test" + CompactBoardFormat.EXTENSION);
+        Configuration.get().saveBoardAs(board, compactFile);
+        Assert.assertEquals(compactFile, board.getFile());
+
+        Board compact = CompactBoardFormat.read(compactFile);
+        Assert.assertEquals(xml, toXml(compact));
+
+        File exportedFile = new File(directory, "exported.board.xml");
+        Configuration.get().saveBoardAs(compact, exportedFile);
+        Assert.assertEquals(new String(Files.readAllBytes(xmlFile.toPath()), "UTF-8"),
+                new String(Files.readAllBytes(exportedFile.toPath()), "UTF-8"));
+    }
+
+    /**
+     * Read a copy of the test board with one byte of its second placement record changed, and
+     * return the message of the Exception it is rejected with.
+     */
+    private String readCorrupted(int offset, int value) throws Exception {
+        byte[] bytes = CompactBoardFormat.write(createBoard());
+        // The placement records come last, 49 bytes each, and there are three.
+        ByteBuffer.wrap(bytes).put(bytes.length - 2 * 49 + offset, (byte) value);
+        File file = new File(directory, "test" + CompactBoardFormat.EXTENSION);
+        Files.write(file.toPath(), bytes);
+        try {
+            CompactBoardFormat.read(file);
+        }
+        catch (Exception e) {
+            return e.getMessage();
+        }
+        Assert.fail("Expected the corrupt file to be rejected.");
+        return null;
+    }
+
+    @Test
+    public void testCorruptOrdinals() throws Exception {
+        Assert.assertEquals("test.board.bin is corrupt, placement 2 has an invalid units.",
+                readCorrupted(12, 100));
+        Assert.assertEquals("test.board.bin is corrupt, placement 2 has an invalid side.",
+                readCorrupted(45, 2));
+        Assert.assertEquals("test.board.bin is corrupt, placement 2 has an invalid type.",
+                readCorrupted(46, -2));
+        Assert.assertEquals(
+                "test.board.bin is corrupt, placement 2 has an invalid error handling.",
+                readCorrupted(47, 50));
+    }
+
+    @Test
+    public void testCorruptStringIndex() throws Exception {
+        // The high byte of the part id index.
+        Assert.assertEquals("test.board.bin is corrupt, placement 2 has an invalid part id.",
+                readCorrupted(4, 1));
+    }
+
+    @Test(expected = Exception.class)
+    public void testNotACompactBoard() throws Exception {
+        File file = new File(directory, "test" + CompactBoardFormat.EXTENSION);
+        Files.write(file.toPath(), "<openpnp-board/>".getBytes("UTF-8"));
+        CompactBoardFormat.read(file);
+    }
+}
@@ -0,0 +1,96 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Part;
+
+public class ConfigurationSaveTest {
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = new File(Files.createTempDirectory("ConfigurationSaveTest").toFile(),
+                ".openpnp");
+        Configuration.initialize(directory);
+        // Loading the defaults saves them to the configuration directory.
+        Configuration.get().load();
+    }
+
+    private long[] age(String... names) {
+        long[] times = new long[names.length];
+        for (int i = 0; i < names.length; i++) {
+            File file = new File(directory, names[i]);
+            Assert.assertTrue(file.setLastModified(1000000));
+            times[i] = file.lastModified();
+        }
+        return times;
+    }
+
+    private long[] lastModified(String... names) {
+        long[] times = new long[names.length];
+        for (int i = 0; i < names.length; i++) {
+            times[i] = new File(directory, names[i]).lastModified();
+        }
+        return times;
+    }
+
+    @Test
+    public void testUnchangedFilesAreNotRewritten() throws Exception {
+        String[] names = {"machine.xml", "packages.xml", "parts.xml"};
+        long[] times = age(names);
+        Configuration.get().save();
+        Assert.assertArrayEquals(times, lastModified(names));
+
+        Part part = Configuration.get().getParts().get(0);
+        part.setName(part.getName() + " changed");
+        Configuration.get().save();
+        Assert.assertArrayEquals(Arrays.copyOf(times, 2),
+                lastModified("machine.xml", "packages.xml"));
+        Assert.assertNotEquals(times[2], lastModified("parts.xml")[0]);
+        Assert.assertTrue(new String(Files.readAllBytes(new File(directory, "parts.xml").toPath()),
+                StandardCharsets.UTF_8).contains(part.getName()));
+    }
+
+    @Test
+    public void testSaveInBackgroundCompletes() throws Exception {
+        long[] times = age("parts.xml");
+        Part part = Configuration.get().getParts().get(0);
+        part.setName(part.getName() + " changed");
+        Configuration.get().saveInBackground().get();
+        Assert.assertNotEquals(times[0], lastModified("parts.xml")[0]);
+    }
+
+    /**
+     * A write that fails part way through leaves the old file as it was, and no temporary file
+     * behind.
+     */
+    @Test
+    public void testInterruptedWriteKeepsOldFile() throws Exception {
+        File file = new File(directory, "interrupted.xml");
+        byte[] old = "<old/>\n".getBytes(StandardCharsets.UTF_8);
+        Configuration.writeAtomically(file, out -> out.write(old));
+        String[] files = directory.list();
+
+        try {
+            Configuration.writeAtomically(file, out -> {
+                out.write("<new>".getBytes(StandardCharsets.UTF_8));
+                throw new IOException("Interrupted");
+            });
+            Assert.fail("Expected the write to fail.");
+        }
+        catch (IOException e) {
+            Assert.assertEquals("Interrupted", e.getMessage());
+        }
+        Assert.assertArrayEquals(old, Files.readAllBytes(file.toPath()));
+        String[] after = directory.list();
+        Arrays.sort(files);
+        Arrays.sort(after);
+        Assert.assertArrayEquals(files, after);
+    }
+}
@@ -0,0 +1,67 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.gui.importer.EagleBoardParser;
+import org.openpnp.model.Board;
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardPad;
+import org.openpnp.model.Placement;
+
+public class EagleBoardParserTest {
+    private static File sample() throws Exception {
+        return new File(ClassLoader.getSystemResource("samples/eagle/eagle.brd").toURI());
+    }
+
+    @Test
+    public void testParseBoard() throws Exception {
+        Board board = new Board();
+        List<Integer> progress = new ArrayList<>();
+        List<Placement> placements =
+                new EagleBoardParser(null, false).parse(sample(), board, progress::add);
+
+        Assert.assertEquals(1, placements.size());
+        Assert.assertEquals(placements, board.getPlacements());
+        Placement r1 = placements.get(0);
+        Assert.assertEquals("R1", r1.getId());
+        Assert.assertEquals(Side.Top, r1.getSide());
+        Assert.assertEquals(7.62, r1.getLocation().getX(), 1e-9);
+        Assert.assertEquals(7.62, r1.getLocation().getY(), 1e-9);
+
+        List<BoardPad> pads = board.getSolderPastePads();
+        Assert.assertEquals(2, pads.size());
+        Assert.assertEquals("R1-1", pads.get(0).getName());
+        Assert.assertEquals(6.67, pads.get(0).getLocation().getX(), 1e-9);
+        Assert.assertEquals("R1-2", pads.get(1).getName());
+        Assert.assertEquals(8.57, pads.get(1).getLocation().getX(), 1e-9);
+        Assert.assertEquals(Side.Top, pads.get(1).getSide());
+
+        Assert.assertEquals(Integer.valueOf(0), progress.get(0));
+        Assert.assertEquals(Integer.valueOf(100), progress.get(progress.size() - 1));
+    }
+
+    @Test
+    public void testParseOtherSide() throws Exception {
+        Board board = new Board();
+        new EagleBoardParser(Side.Bottom, false).parse(sample(), board, null);
+        Assert.assertTrue(board.getPlacements().isEmpty());
+        Assert.assertTrue(board.getSolderPastePads().isEmpty());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        Thread.currentThread().interrupt();
+        try {
+            new EagleBoardParser(null, false).parse(sample(), new Board(), null);
+            Assert.fail("Expected the interrupted parse to stop");
+        }
+        catch (Exception e) {
+            // expected
+        }
+        finally {
+            Thread.interrupted();
+        }
+    }
+}
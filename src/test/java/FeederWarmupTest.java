@@ -0,0 +1,88 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.gui.support.Wizard;
+import org.openpnp.machine.reference.ReferenceCamera;
+import org.openpnp.machine.reference.camera.BufferedImageCamera;
+import org.openpnp.machine.reference.feeder.ReferenceDragFeeder;
+import org.openpnp.machine.reference.feeder.ReferenceStripFeeder;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Length;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.spi.PropertySheetHolder;
+
+public class FeederWarmupTest {
+    @Before
+    public void setUp() throws Exception {
+        File directory = Files.createTempDirectory("FeederWarmupTest").toFile();
+        Configuration.initialize(new File(directory, ".openpnp"));
+    }
+
+    @Test
+    public void testStripFeederWarmupLocation() throws Exception {
+        ReferenceStripFeeder feeder = new ReferenceStripFeeder();
+        feeder.setReferenceHoleLocation(new Location(LengthUnit.Millimeters, 0, 0, 0, 0));
+        feeder.setLastHoleLocation(new Location(LengthUnit.Millimeters, 40, 0, 0, 0));
+        feeder.setHolePitch(new Length(4, LengthUnit.Millimeters));
+        feeder.setPartPitch(new Length(4, LengthUnit.Millimeters));
+        feeder.setFeedCount(2);
+
+        feeder.setVisionEnabled(false);
+        Assert.assertNull(feeder.getWarmupLocation(null));
+
+        // The warm up looks for the hole of the next feed.
+        feeder.setVisionEnabled(true);
+        Location location = feeder.getWarmupLocation(null);
+        Assert.assertEquals(8, location.getX(), 1e-9);
+        Assert.assertEquals(0, location.getY(), 1e-9);
+    }
+
+    @Test
+    public void testDragFeederWarmupLocation() throws Exception {
+        ReferenceDragFeeder feeder = new ReferenceDragFeeder();
+        feeder.getVision().setEnabled(false);
+        Assert.assertNull(feeder.getWarmupLocation(null));
+    }
+
+    /**
+     * The warm up runs the feeder vision on a BufferedImageCamera for each image, which must not
+     * be kept once the vision is done with it.
+     */
+    @Test
+    public void testImageCameraIsNotRetained() throws Exception {
+        ReferenceCamera camera = new ReferenceCamera() {
+            @Override
+            public BufferedImage internalCapture() {
+                return null;
+            }
+
+            @Override
+            public Wizard getConfigurationWizard() {
+                return null;
+            }
+
+            @Override
+            public String getPropertySheetHolderTitle() {
+                return null;
+            }
+
+            @Override
+            public PropertySheetHolder[] getChildPropertySheetHolders() {
+                return null;
+            }
+        };
+        WeakReference<BufferedImageCamera> reference = new WeakReference<>(new BufferedImageCamera(
+                camera, new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB)));
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assert.assertNull(reference.get());
+    }
+}
@@ -0,0 +1,347 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.machine.reference.ReferenceActuator;
+import org.openpnp.machine.reference.driver.GcodeDriver;
+import org.openpnp.machine.reference.driver.GcodeDriver.CommandType;
+import org.openpnp.machine.reference.driver.ReferenceDriverCommunications;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+
+public class GcodeDriverTest {
+    /**
+     * A stand-in for a controller that confirms every command at once, and reports a move as
+     * complete only some time after confirming it.
+     */
+    static class DelayedMoveController extends ReferenceDriverCommunications {
+        final BlockingQueue<String> output = new LinkedBlockingQueue<>();
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+        @Override
+        public void connect() throws Exception {}
+
+        @Override
+        public void disconnect() throws Exception {}
+
+        @Override
+        public String getConnectionName() {
+            return "delayed-move";
+        }
+
+        @Override
+        public String readLine() throws TimeoutException, IOException {
+            try {
+                String line = output.poll(100, TimeUnit.MILLISECONDS);
+                if (line == null) {
+                    throw new TimeoutException();
+                }
+                return line;
+            }
+            catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void writeLine(String data) throws IOException {
+            output.add("ok");
+            if (data.startsWith("G0")) {
+                executor.schedule(() -> output.add("MOVE DONE"), 200, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        public int read() throws TimeoutException, IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void write(int d) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * A stand-in for a controller with a receive buffer. It runs the lines it receives one after
+     * the other, and confirms each with "ok" and the line once it has run. Lines starting with
+     * M999 raise an error instead. It records the most characters and lines it had in its buffer.
+     */
+    static class BufferedController extends ReferenceDriverCommunications {
+        final BlockingQueue<String> output = new LinkedBlockingQueue<>();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final List<String> received = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger buffered = new AtomicInteger();
+        final AtomicInteger maxBuffered = new AtomicInteger();
+        final AtomicInteger lines = new AtomicInteger();
+        final AtomicInteger maxLines = new AtomicInteger();
+        volatile int confirmations = 1;
+
+        void reset() {
+            received.clear();
+            maxBuffered.set(0);
+            maxLines.set(0);
+        }
+
+        @Override
+        public void connect() throws Exception {}
+
+        @Override
+        public void disconnect() throws Exception {}
+
+        @Override
+        public String getConnectionName() {
+            return "buffered";
+        }
+
+        @Override
+        public String readLine() throws TimeoutException, IOException {
+            try {
+                String line = output.poll(100, TimeUnit.MILLISECONDS);
+                if (line == null) {
+                    throw new TimeoutException();
+                }
+                return line;
+            }
+            catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void writeLine(String data) throws IOException {
+            received.add(data);
+            int length = data.length() + 1;
+            maxBuffered.accumulateAndGet(buffered.addAndGet(length), Math::max);
+            maxLines.accumulateAndGet(lines.incrementAndGet(), Math::max);
+            executor.submit(() -> {
+                Thread.sleep(20);
+                buffered.addAndGet(-length);
+                lines.decrementAndGet();
+                if (data.startsWith("M999")) {
+                    output.add("error: " + data);
+                }
+                else {
+                    for (int i = 0; i < confirmations; i++) {
+                        output.add("ok " + data);
+                    }
+                }
+                return null;
+            });
+        }
+
+        @Override
+        public int read() throws TimeoutException, IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void write(int d) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    static class TestDriver extends GcodeDriver {
+        final ReferenceDriverCommunications communications;
+
+        TestDriver(ReferenceDriverCommunications communications, boolean commandBatching) {
+            this.communications = communications;
+            createDefaults();
+            setCommand(null, CommandType.CONNECT_COMMAND, null);
+            setCommand(null, CommandType.COMMAND_ERROR_REGEX, "^error.*");
+            setConnectWaitTimeMilliseconds(0);
+            setTimeoutMilliseconds(1000);
+            setCommandBatchingEnabled(commandBatching);
+        }
+
+        @Override
+        protected ReferenceDriverCommunications getCommunications() {
+            return communications;
+        }
+
+        List<String> send(String gCode) throws Exception {
+            return sendGcode(gCode);
+        }
+    }
+
+    @Test
+    public void testCommandBatchingIsOffByDefault() throws Exception {
+        Assert.assertFalse(new GcodeDriver().isCommandBatchingEnabled());
+
+        BufferedController controller = new BufferedController();
+        TestDriver driver = new TestDriver(controller, false);
+        try {
+            driver.connect();
+            Assert.assertFalse(driver.isCommandBatching());
+            Assert.assertFalse(controller.received.contains("G4 P0"));
+            driver.send("G1 X1\nG1 X2\nG1 X3");
+            Assert.assertEquals(1, controller.maxLines.get());
+        }
+        finally {
+            driver.disconnect();
+            controller.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The probe enables batching for a controller that confirms each line once, and disables it
+     * for one that doesn't.
+     */
+    @Test
+    public void testCommandBatchingProbe() throws Exception {
+        BufferedController controller = new BufferedController();
+        TestDriver driver = new TestDriver(controller, true);
+        try {
+            driver.connect();
+            Assert.assertTrue(controller.received.contains("G4 P0"));
+            Assert.assertTrue(driver.isCommandBatching());
+            controller.reset();
+            driver.send("G1 X1\nG1 X2\nG1 X3");
+            Assert.assertEquals(Arrays.asList("G1 X1", "G1 X2", "G1 X3"), controller.received);
+            Assert.assertEquals(3, controller.maxLines.get());
+        }
+        finally {
+            driver.disconnect();
+            controller.executor.shutdownNow();
+        }
+
+        controller = new BufferedController();
+        controller.confirmations = 2;
+        driver = new TestDriver(controller, true);
+        try {
+            driver.connect();
+            Assert.assertFalse(driver.isCommandBatching());
+        }
+        finally {
+            driver.disconnect();
+            controller.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A batch never has more characters unconfirmed than the batch buffer size.
+     */
+    @Test
+    public void testCommandBatchFlowControl() throws Exception {
+        BufferedController controller = new BufferedController();
+        TestDriver driver = new TestDriver(controller, true);
+        // Room for four of the six character lines.
+        driver.setCommandBatchBufferSize(24);
+        try {
+            driver.connect();
+            controller.reset();
+            List<String> commands = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                commands.add("G1 X" + i);
+            }
+            List<String> responses = driver.sendCommands(commands, 1000);
+            Assert.assertEquals(commands, controller.received);
+            Assert.assertEquals(10, responses.size());
+            Assert.assertTrue(controller.maxBuffered.get() <= 24);
+            Assert.assertEquals(4, controller.maxLines.get());
+        }
+        finally {
+            driver.disconnect();
+            controller.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * After an error no more lines are sent, and the responses to the lines the controller
+     * already had don't end up with the next command.
+     */
+    @Test
+    public void testCommandBatchError() throws Exception {
+        BufferedController controller = new BufferedController();
+        TestDriver driver = new TestDriver(controller, true);
+        // Room for two lines.
+        driver.setCommandBatchBufferSize(12);
+        try {
+            driver.connect();
+            controller.reset();
+            try {
+                driver.sendCommands(Arrays.asList("G1 X1", "M999", "G1 X2", "G1 X3", "G1 X4"),
+                        1000);
+                Assert.fail("Expected the controller error to be thrown.");
+            }
+            catch (Exception e) {
+                Assert.assertEquals("Controller raised an error: error: M999", e.getMessage());
+            }
+            Assert.assertEquals(Arrays.asList("G1 X1", "M999", "G1 X2"), controller.received);
+            Assert.assertEquals(Arrays.asList("ok G1 X5"), driver.sendCommand("G1 X5"));
+        }
+        finally {
+            driver.disconnect();
+            controller.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A feeder actuating from its own thread while the head moves must not take the move
+     * complete response that the move is waiting for.
+     */
+    @Test
+    public void testActuateDuringMove() throws Exception {
+        DelayedMoveController controller = new DelayedMoveController();
+        GcodeDriver driver = new GcodeDriver() {
+            @Override
+            protected ReferenceDriverCommunications getCommunications() {
+                return controller;
+            }
+        };
+        driver.createDefaults();
+        driver.setCommand(null, CommandType.CONNECT_COMMAND, null);
+        driver.setCommand(null, CommandType.MOVE_TO_COMMAND, "G0 {X:X%.4f} {Y:Y%.4f}");
+        driver.setCommand(null, CommandType.MOVE_TO_COMPLETE_REGEX, "^MOVE DONE$");
+        driver.setCommand(null, CommandType.ACTUATE_BOOLEAN_COMMAND, "M42 {True:S1}{False:S0}");
+        driver.setConnectWaitTimeMilliseconds(0);
+        driver.setTimeoutMilliseconds(1000);
+        driver.connect();
+
+        ReferenceActuator actuator = new ReferenceActuator();
+        AtomicBoolean moving = new AtomicBoolean(true);
+        AtomicInteger actuations = new AtomicInteger();
+        List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+        Thread feeder = new Thread(() -> {
+            while (moving.get()) {
+                try {
+                    driver.actuate(actuator, true);
+                    actuations.incrementAndGet();
+                    Thread.sleep(20);
+                }
+                catch (Exception e) {
+                    errors.add(e);
+                    return;
+                }
+            }
+        });
+        try {
+            feeder.start();
+            for (int i = 1; i <= 5; i++) {
+                driver.moveTo(actuator, new Location(LengthUnit.Millimeters, i * 10, 0, 0, 0),
+                        1.0);
+            }
+        }
+        finally {
+            moving.set(false);
+            feeder.join();
+            driver.disconnect();
+            controller.executor.shutdownNow();
+        }
+        Assert.assertTrue(errors.toString(), errors.isEmpty());
+        Assert.assertTrue(actuations.get() > 0);
+    }
+}
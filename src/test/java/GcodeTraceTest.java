@@ -0,0 +1,65 @@
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.logging.GcodeTrace;
+import org.openpnp.logging.GcodeTrace.Direction;
+import org.openpnp.logging.GcodeTrace.Record;
+
+public class GcodeTraceTest {
+    @Test
+    public void testRoundTrip() throws Exception {
+        File file = File.createTempFile("gcode", ".trace");
+        file.deleteOnExit();
+        GcodeTrace trace = new GcodeTrace(file);
+        trace.sent("G0 X10.0000 Y20.0000 F1000");
+        trace.received("ok");
+        trace.sent("M400 ; wait \u00b5s");
+        trace.received("ok T:21.3");
+        trace.close();
+
+        List<Record> records;
+        try (InputStream in = new FileInputStream(file)) {
+            records = GcodeTrace.read(in);
+        }
+        Assert.assertEquals(4, records.size());
+        Assert.assertEquals(Direction.Sent, records.get(0).getDirection());
+        Assert.assertEquals("G0 X10.0000 Y20.0000 F1000", records.get(0).getLine());
+        Assert.assertEquals(Direction.Received, records.get(1).getDirection());
+        Assert.assertEquals("ok", records.get(1).getLine());
+        Assert.assertEquals("M400 ; wait \u00b5s", records.get(2).getLine());
+        Assert.assertEquals("ok T:21.3", records.get(3).getLine());
+        for (int i = 1; i < records.size(); i++) {
+            Assert.assertTrue(records.get(i).getNanos() >= records.get(i - 1).getNanos());
+        }
+    }
+
+    @Test
+    public void testTruncatedTrace() throws Exception {
+        File file = File.createTempFile("gcode", ".trace");
+        file.deleteOnExit();
+        GcodeTrace trace = new GcodeTrace(file);
+        for (int i = 0; i < 100; i++) {
+            trace.sent("G0 X" + i);
+            trace.received("ok");
+        }
+        trace.close();
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        List<Record> records =
+                GcodeTrace.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 3)));
+        Assert.assertEquals(199, records.size());
+        Assert.assertEquals("G0 X99", records.get(198).getLine());
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void testNotATrace() throws Exception {
+        GcodeTrace.read(new ByteArrayInputStream("G0 X1\nok\n".getBytes("UTF-8")));
+    }
+}
@@ -0,0 +1,110 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.machine.reference.camera.IPCameraStream;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs IPCameraStream against a local stand-in for an IP camera's MJPEG stream.
+ */
+public class IPCameraStreamTest {
+    private static final String BOUNDARY = "frameboundary";
+
+    private HttpServer server;
+    private volatile boolean serving;
+
+    @Before
+    public void startServer() throws Exception {
+        byte[] jpeg = createJpeg(64, 48, Color.red);
+        serving = true;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/stream", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type",
+                    "multipart/x-mixed-replace; boundary=" + BOUNDARY);
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                while (serving) {
+                    String header = "--" + BOUNDARY + "\r\nContent-Type: image/jpeg\r\n"
+                            + "Content-Length: " + jpeg.length + "\r\n\r\n";
+                    out.write(header.getBytes(StandardCharsets.US_ASCII));
+                    out.write(jpeg);
+                    out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                    Thread.sleep(10);
+                }
+            }
+            catch (Exception e) {
+                // client went away
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        serving = false;
+        server.stop(0);
+    }
+
+    private String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/stream";
+    }
+
+    @Test
+    public void testStreamFrames() throws Exception {
+        try (IPCameraStream stream = new IPCameraStream(getUrl(), null, null, 0, 0)) {
+            stream.start();
+            BufferedImage image = stream.awaitFrame(0, 5000);
+            Assert.assertNotNull("No frame received from the stream", image);
+            Assert.assertEquals(BufferedImage.TYPE_3BYTE_BGR, image.getType());
+            Assert.assertEquals(64, image.getWidth());
+            Assert.assertEquals(48, image.getHeight());
+
+            // JPEG is lossy, so only check that the color is roughly right.
+            Color color = new Color(image.getRGB(32, 24));
+            Assert.assertTrue(color.toString(), color.getRed() > 200);
+            Assert.assertTrue(color.toString(), color.getGreen() < 50);
+            Assert.assertTrue(color.toString(), color.getBlue() < 50);
+
+            // The stream keeps delivering frames.
+            long count = stream.getFrameCount();
+            Assert.assertNotNull(stream.awaitFrame(count, 5000));
+            Assert.assertTrue(stream.getFrameCount() > count);
+        }
+    }
+
+    @Test
+    public void testStreamResize() throws Exception {
+        try (IPCameraStream stream = new IPCameraStream(getUrl(), null, null, 32, 16)) {
+            stream.start();
+            BufferedImage image = stream.awaitFrame(0, 5000);
+            Assert.assertNotNull("No frame received from the stream", image);
+            Assert.assertEquals(BufferedImage.TYPE_3BYTE_BGR, image.getType());
+            Assert.assertEquals(32, image.getWidth());
+            Assert.assertEquals(16, image.getHeight());
+        }
+    }
+
+    private static byte[] createJpeg(int width, int height, Color color) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
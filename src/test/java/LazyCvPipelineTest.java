@@ -0,0 +1,91 @@
+import java.io.StringWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.model.Configuration;
+import org.openpnp.vision.pipeline.CvPipeline;
+import org.openpnp.vision.pipeline.LazyCvPipeline;
+import org.openpnp.vision.pipeline.stages.BlurGaussian;
+import org.openpnp.vision.pipeline.stages.BlurMedian;
+import org.openpnp.vision.pipeline.stages.ImageCapture;
+import org.simpleframework.xml.Element;
+import org.simpleframework.xml.Root;
+import org.simpleframework.xml.convert.Convert;
+
+public class LazyCvPipelineTest {
+    @Root(name = "settings")
+    public static class Settings {
+        @Element
+        @Convert(LazyCvPipeline.XmlConverter.class)
+        LazyCvPipeline pipeline;
+    }
+
+    private static String write(Settings settings) throws Exception {
+        StringWriter writer = new StringWriter();
+        Configuration.createSerializer().write(settings, writer);
+        return writer.toString();
+    }
+
+    private static Settings read(String xml) throws Exception {
+        return Configuration.createSerializer().read(Settings.class, xml);
+    }
+
+    private static Settings createSettings() {
+        CvPipeline pipeline = new CvPipeline();
+        pipeline.add("image", new ImageCapture());
+        BlurGaussian blur = new BlurGaussian();
+        blur.setKernelSize(7);
+        pipeline.add("blur", blur);
+        Settings settings = new Settings();
+        settings.pipeline = new LazyCvPipeline(pipeline);
+        return settings;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        String xml = write(createSettings());
+
+        // Written back without being built, the pipeline comes out as it went in.
+        Assert.assertEquals(xml, write(read(xml)));
+
+        CvPipeline pipeline = read(xml).pipeline.get();
+        Assert.assertEquals(2, pipeline.getStages().size());
+        Assert.assertTrue(pipeline.getStage("image") instanceof ImageCapture);
+        Assert.assertEquals(7, ((BlurGaussian) pipeline.getStage("blur")).getKernelSize());
+        Assert.assertEquals(createSettings().pipeline.get().toXmlString(),
+                pipeline.toXmlString());
+    }
+
+    /**
+     * A pipeline that can't be built fails with an Exception when it is used, and is still
+     * written back as it was read.
+     */
+    @Test
+    public void testInvalidPipeline() throws Exception {
+        String xml = write(createSettings()).replace(BlurGaussian.class.getName(),
+                "org.openpnp.vision.pipeline.stages.NoSuchStage");
+        Settings settings = read(xml);
+        try {
+            settings.pipeline.get();
+            Assert.fail("Expected the pipeline to fail to build.");
+        }
+        catch (Exception e) {
+            Assert.assertTrue(e.getMessage(),
+                    e.getMessage().startsWith("Unable to read the vision pipeline"));
+        }
+        Assert.assertEquals(xml, write(settings));
+    }
+
+    @Test
+    public void testEditedPipelineIsWritten() throws Exception {
+        Settings settings = read(write(createSettings()));
+        CvPipeline pipeline = settings.pipeline.get();
+        ((BlurGaussian) pipeline.getStage("blur")).setKernelSize(3);
+        pipeline.add("median", new BlurMedian());
+
+        CvPipeline read = read(write(settings)).pipeline.get();
+        Assert.assertEquals(3, read.getStages().size());
+        Assert.assertEquals(3, ((BlurGaussian) read.getStage("blur")).getKernelSize());
+        Assert.assertTrue(read.getStage("median") instanceof BlurMedian);
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.machine.reference.feeder.LoosePartCache;
+import org.openpnp.model.Length;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+
+public class LoosePartCacheTest {
+    @Test
+    public void testTake() throws Exception {
+        LoosePartCache cache = new LoosePartCache();
+        Length radius = new Length(2, LengthUnit.Millimeters);
+        Location origin = new Location(LengthUnit.Millimeters);
+        Assert.assertNull(cache.take(origin, radius));
+
+        Location a = new Location(LengthUnit.Millimeters, 10, 0, 0, 0);
+        Location b = new Location(LengthUnit.Millimeters, 11, 0, 0, 0);
+        Location c = new Location(LengthUnit.Millimeters, 20, 0, 0, 0);
+        Location d = new Location(LengthUnit.Millimeters, 5, 0, 0, 0);
+        cache.fill(Arrays.asList(a, b, c, d));
+
+        // closest first
+        Assert.assertEquals(d, cache.take(origin, radius));
+        Assert.assertEquals(3, cache.size());
+        // b is within the disturb radius of a so it goes too
+        Assert.assertEquals(a, cache.take(origin, radius));
+        Assert.assertEquals(1, cache.size());
+        // the radius is converted to the units of the locations
+        Assert.assertEquals(c, cache.take(origin, new Length(1, LengthUnit.Inches)));
+        Assert.assertEquals(0, cache.size());
+
+        cache.fill(Arrays.asList(a, c));
+        cache.clear();
+        Assert.assertNull(cache.take(origin, radius));
+    }
+
+    @Test
+    public void testFillAfterPick() throws Exception {
+        LoosePartCache cache = new LoosePartCache();
+        Length radius = new Length(2, LengthUnit.Millimeters);
+        Location a = new Location(LengthUnit.Millimeters, 10, 0, 0, 0);
+        Location b = new Location(LengthUnit.Millimeters, 11, 0, 0, 0);
+        Location c = new Location(LengthUnit.Millimeters, 20, 0, 0, 0);
+
+        // The picked part and the parts it disturbs are not cached
+        cache.fill(Arrays.asList(a, b, c), a, radius);
+        Assert.assertEquals(1, cache.size());
+
+        // Without verification the cached part is used as is, and nothing is captured
+        Assert.assertEquals(c, cache.take(a, radius, false, null, () -> {
+            throw new AssertionError("The part should not be searched for.");
+        }));
+        Assert.assertNull(cache.take(a, radius, false, null, null));
+    }
+}
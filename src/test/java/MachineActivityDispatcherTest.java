@@ -0,0 +1,57 @@
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.spi.MachineActivity;
+import org.openpnp.spi.base.MachineActivityDispatcher;
+
+public class MachineActivityDispatcherTest {
+    @Test
+    public void testCoalescing() throws Exception {
+        MachineActivityDispatcher dispatcher = new MachineActivityDispatcher(null);
+        AtomicInteger calls = new AtomicInteger();
+        Set<MachineActivity> seen = EnumSet.noneOf(MachineActivity.class);
+        dispatcher.addListener((machine, heads, activities) -> {
+            calls.incrementAndGet();
+            synchronized (seen) {
+                seen.addAll(activities);
+            }
+        }, 10, false);
+
+        long t = System.currentTimeMillis();
+        for (int i = 0; i < 10000; i++) {
+            dispatcher.post(null, MachineActivity.Motion);
+        }
+        dispatcher.post(null, MachineActivity.Actuation);
+        long postMs = System.currentTimeMillis() - t;
+        Thread.sleep(500);
+
+        // 10 per second over the burst and the wait, plus the first immediate delivery.
+        Assert.assertTrue("calls " + calls.get(), calls.get() >= 1);
+        Assert.assertTrue("calls " + calls.get(), calls.get() <= 2 + (postMs + 500) / 100);
+        // The trailing delivery includes the last activity of the burst.
+        synchronized (seen) {
+            Assert.assertEquals(EnumSet.of(MachineActivity.Motion, MachineActivity.Actuation),
+                    seen);
+        }
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        MachineActivityDispatcher dispatcher = new MachineActivityDispatcher(null);
+        AtomicInteger calls = new AtomicInteger();
+        dispatcher.addListener((machine, heads, activities) -> calls.incrementAndGet(), 0, false,
+                MachineActivity.PickAndPlace);
+
+        dispatcher.post(null, MachineActivity.Motion);
+        dispatcher.post(null, MachineActivity.Actuation);
+        Thread.sleep(200);
+        Assert.assertEquals(0, calls.get());
+
+        dispatcher.post(null, MachineActivity.PickAndPlace);
+        Thread.sleep(200);
+        Assert.assertEquals(1, calls.get());
+    }
+}
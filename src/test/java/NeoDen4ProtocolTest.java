@@ -0,0 +1,384 @@
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.machine.neoden4.NeoDen4Protocol;
+import org.openpnp.machine.reference.driver.ReferenceDriverCommunications;
+
+public class NeoDen4ProtocolTest {
+    /**
+     * In a response, marks a pause of the given length, which is how long the read that reaches
+     * it takes to time out.
+     */
+    static int gap(int milliseconds) {
+        return -milliseconds;
+    }
+
+    static class TestSettings implements NeoDen4Protocol.Settings {
+        int timeoutMilliseconds;
+        int motionTimeoutMilliseconds;
+        int maxRetries;
+
+        TestSettings(int timeoutMilliseconds, int motionTimeoutMilliseconds, int maxRetries) {
+            this.timeoutMilliseconds = timeoutMilliseconds;
+            this.motionTimeoutMilliseconds = motionTimeoutMilliseconds;
+            this.maxRetries = maxRetries;
+        }
+
+        @Override
+        public int getTimeoutMilliseconds() {
+            return timeoutMilliseconds;
+        }
+
+        @Override
+        public int getMotionTimeoutMilliseconds() {
+            return motionTimeoutMilliseconds;
+        }
+
+        @Override
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+    }
+
+    /**
+     * A stand-in for the controller that answers command bytes from a table, reports busy a given
+     * number of times before a poll succeeds and records the packets it receives. When the
+     * packetAfter command byte is written it sends the next of readPackets, which may contain
+     * gaps.
+     */
+    static class LoopbackController extends ReferenceDriverCommunications {
+        final Map<Integer, Integer> responses = new HashMap<>();
+        final Map<Integer, Integer> busyPolls = new HashMap<>();
+        final Deque<Integer> output = new ArrayDeque<>();
+        final List<byte[]> packets = new ArrayList<>();
+        final List<Integer> bytes = new ArrayList<>();
+        final Queue<int[]> readPackets = new ArrayDeque<>();
+        int packetAfter = -1;
+        int pollCount;
+
+        @Override
+        public void connect() throws Exception {}
+
+        @Override
+        public void disconnect() throws Exception {}
+
+        @Override
+        public String getConnectionName() {
+            return "loopback";
+        }
+
+        @Override
+        public String readLine() throws TimeoutException, IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void writeLine(String data) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read() throws TimeoutException, IOException {
+            Integer d = output.poll();
+            if (d == null || d < 0) {
+                pause(d);
+                throw new TimeoutException();
+            }
+            return d;
+        }
+
+        @Override
+        public int read(byte[] data, int offset, int length)
+                throws TimeoutException, IOException {
+            int count = 0;
+            while (count < length && output.peek() != null && output.peek() >= 0) {
+                data[offset + count++] = (byte) (int) output.poll();
+            }
+            if (count == 0) {
+                pause(output.poll());
+                throw new TimeoutException();
+            }
+            return count;
+        }
+
+        private static void pause(Integer gap) throws IOException {
+            if (gap == null) {
+                return;
+            }
+            try {
+                Thread.sleep(-gap);
+            }
+            catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void write(int d) throws IOException {
+            bytes.add(d);
+            Integer busy = busyPolls.get(d);
+            if (busy != null && busy > 0) {
+                pollCount++;
+                busyPolls.put(d, busy - 1);
+                output.add(0x00);
+                return;
+            }
+            Integer response = responses.get(d);
+            if (response != null) {
+                output.add(response);
+            }
+            if (d == packetAfter && !readPackets.isEmpty()) {
+                for (int b : readPackets.poll()) {
+                    output.add(b);
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] data) throws IOException {
+            packets.add(data.clone());
+        }
+    }
+
+    private static byte[] frame(byte[] payload) {
+        byte[] frame = Arrays.copyOf(payload, payload.length + 1);
+        frame[payload.length] = (byte) NeoDen4Protocol.checksum(payload, payload.length);
+        return frame;
+    }
+
+    /**
+     * The bytes of frame as the controller sends them, with a short gap inserted before each of
+     * the given indexes and any extra bytes appended.
+     */
+    private static int[] response(byte[] frame, int[] gaps, int... extra) {
+        List<Integer> bytes = new ArrayList<>();
+        for (int i = 0; i < frame.length; i++) {
+            if (Arrays.binarySearch(gaps, i) >= 0) {
+                bytes.add(gap(10));
+            }
+            bytes.add(frame[i] & 0xff);
+        }
+        for (int b : extra) {
+            bytes.add(b);
+        }
+        return bytes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] response(byte[] frame) {
+        return response(frame, new int[0]);
+    }
+
+    private static LoopbackController createReadController() {
+        LoopbackController controller = new LoopbackController();
+        controller.responses.put(0x40, 0x0c);
+        controller.responses.put(0x00, 0x11);
+        controller.responses.put(0x80, 0x19);
+        controller.packetAfter = 0x80;
+        return controller;
+    }
+
+    private static final int[] READ_COMMANDS = {0x40, 0x00, 0x80};
+    private static final int[] READ_ACKS = {0x0c, 0x11, 0x19};
+
+    private static LoopbackController createMoveXyController() {
+        LoopbackController controller = new LoopbackController();
+        controller.responses.put(0x48, 0x05);
+        controller.responses.put(0xc8, 0x0d);
+        controller.responses.put(0x08, 0x4d);
+        return controller;
+    }
+
+    @Test
+    public void testSend() throws Exception {
+        LoopbackController controller = createMoveXyController();
+        controller.busyPolls.put(0x08, 5);
+        NeoDen4Protocol protocol =
+                new NeoDen4Protocol(controller, new TestSettings(1000, 1000, 3));
+
+        byte[] payload = {1, 2, 3, 4, 5, 6, 7, 8};
+        protocol.send(0x48, 0x05, 0x0d, payload, 0x08, 0x4d);
+
+        // The payload and its checksum go out as a single write.
+        Assert.assertEquals(1, controller.packets.size());
+        Assert.assertArrayEquals(frame(payload), controller.packets.get(0));
+        Assert.assertEquals(5, controller.pollCount);
+        Assert.assertEquals(Arrays.asList(0x48, 0xc8, 0x08, 0x08, 0x08, 0x08, 0x08, 0x08),
+                controller.bytes);
+    }
+
+    @Test
+    public void testBadAck() throws Exception {
+        LoopbackController controller = createMoveXyController();
+        controller.responses.put(0xc8, 0x0e);
+        NeoDen4Protocol protocol =
+                new NeoDen4Protocol(controller, new TestSettings(1000, 1000, 3));
+        try {
+            protocol.send(0x48, 0x05, 0x0d, new byte[8], 0x08, 0x4d);
+            Assert.fail("Expected a bad acknowledgement to fail.");
+        }
+        catch (Exception e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("Expected 0d"));
+        }
+        Assert.assertTrue(controller.packets.isEmpty());
+    }
+
+    @Test
+    public void testPollTimeout() throws Exception {
+        LoopbackController controller = createMoveXyController();
+        controller.busyPolls.put(0x08, Integer.MAX_VALUE);
+        // Polling is bounded by the motion timeout, not the response timeout.
+        NeoDen4Protocol protocol =
+                new NeoDen4Protocol(controller, new TestSettings(5000, 200, 3));
+        long t = System.currentTimeMillis();
+        try {
+            protocol.send(0x48, 0x05, 0x0d, new byte[8], 0x08, 0x4d);
+            Assert.fail("Expected polling a busy controller to time out.");
+        }
+        catch (Exception e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Timed out polling"));
+        }
+        t = System.currentTimeMillis() - t;
+        Assert.assertTrue("took " + t + " ms", t >= 200 && t < 2000);
+        // Backing off keeps the number of polls well below a busy loop's.
+        Assert.assertTrue("polled " + controller.pollCount + " times", controller.pollCount < 100);
+    }
+
+    /**
+     * A move that takes longer than the response timeout completes as long as it finishes within
+     * the motion timeout.
+     */
+    @Test
+    public void testPollOutlastsResponseTimeout() throws Exception {
+        LoopbackController controller = createMoveXyController();
+        controller.busyPolls.put(0x08, 30);
+        NeoDen4Protocol protocol =
+                new NeoDen4Protocol(controller, new TestSettings(50, 5000, 3));
+        long t = System.currentTimeMillis();
+        protocol.send(0x48, 0x05, 0x0d, new byte[8], 0x08, 0x4d);
+        t = System.currentTimeMillis() - t;
+        Assert.assertTrue("took " + t + " ms", t > 50);
+        Assert.assertEquals(30, controller.pollCount);
+    }
+
+    @Test
+    public void testSettingsAreReadForEachExchange() throws Exception {
+        LoopbackController controller = createMoveXyController();
+        controller.busyPolls.put(0x08, Integer.MAX_VALUE);
+        TestSettings settings = new TestSettings(1000, 5000, 3);
+        NeoDen4Protocol protocol = new NeoDen4Protocol(controller, settings);
+        settings.motionTimeoutMilliseconds = 100;
+        long t = System.currentTimeMillis();
+        try {
+            protocol.send(0x48, 0x05, 0x0d, new byte[8], 0x08, 0x4d);
+            Assert.fail("Expected polling a busy controller to time out.");
+        }
+        catch (Exception e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Timed out polling"));
+        }
+        t = System.currentTimeMillis() - t;
+        Assert.assertTrue("took " + t + " ms", t < 2000);
+    }
+
+    @Test
+    public void testReadRetriesChecksum() throws Exception {
+        LoopbackController controller = createReadController();
+        byte[] payload = {10, 20, 30, 40, 0, 0, 0, 0};
+        byte[] corrupt = frame(payload);
+        corrupt[2] ^= 0x01;
+        controller.readPackets.add(response(corrupt));
+        controller.readPackets.add(response(frame(payload)));
+        NeoDen4Protocol protocol =
+                new NeoDen4Protocol(controller, new TestSettings(1000, 1000, 3));
+
+        byte[] result = protocol.read(READ_COMMANDS, READ_ACKS);
+        Assert.assertArrayEquals(payload, result);
+        // The whole exchange was repeated for the retry.
+        Assert.assertEquals(Arrays.asList(0x40, 0x00, 0x80, 0x40, 0x00, 0x80), controller.bytes);
+    }
+
+    @Test(expected = NeoDen4Protocol.ChecksumException.class)
+    public void testReadGivesUp() throws Exception {
+        LoopbackController controller = new LoopbackController();
+        controller.responses.put(0x40, 0x0c);
+        controller.packetAfter = 0x40;
+        byte[] corrupt = frame(new byte[8]);
+        corrupt[8] ^= 0x01;
+        for (int i = 0; i < 3; i++) {
+            controller.readPackets.add(response(corrupt));
+        }
+        NeoDen4Protocol protocol =
+                new NeoDen4Protocol(controller, new TestSettings(1000, 1000, 2));
+        protocol.read(new int[] {0x40}, new int[] {0x0c});
+    }
+
+    /**
+     * A packet that arrives in parts, with reads timing out in between, is put back together.
+     */
+    @Test
+    public void testPartialPacket() throws Exception {
+        LoopbackController controller = createReadController();
+        byte[] payload = {1, 2, 3, 4, 5, 6, 7, 8};
+        controller.readPackets.add(response(frame(payload), new int[] {0, 5, 8}));
+        NeoDen4Protocol protocol =
+                new NeoDen4Protocol(controller, new TestSettings(1000, 1000, 3));
+
+        Assert.assertArrayEquals(payload, protocol.read(READ_COMMANDS, READ_ACKS));
+        Assert.assertEquals(Arrays.asList(0x40, 0x00, 0x80), controller.bytes);
+    }
+
+    /**
+     * Bytes left over from a bad response are discarded before the retry, so the retry reads its
+     * own response rather than one shifted by the leftovers.
+     */
+    @Test
+    public void testRetryResynchronizes() throws Exception {
+        LoopbackController controller = createReadController();
+        byte[] payload = {9, 8, 7, 6, 5, 4, 3, 2};
+        byte[] corrupt = frame(payload);
+        corrupt[0] ^= 0x01;
+        controller.readPackets.add(response(corrupt, new int[0], 0x55, 0xaa, 0x55));
+        controller.readPackets.add(response(frame(payload)));
+        NeoDen4Protocol protocol =
+                new NeoDen4Protocol(controller, new TestSettings(1000, 1000, 3));
+
+        Assert.assertArrayEquals(payload, protocol.read(READ_COMMANDS, READ_ACKS));
+        Assert.assertTrue(controller.output.isEmpty());
+    }
+
+    /**
+     * A response that doesn't arrive in time times out and the rest of it, arriving late, is
+     * discarded, so the next exchange isn't answered with it.
+     */
+    @Test
+    public void testPacketTimeout() throws Exception {
+        LoopbackController controller = createReadController();
+        byte[] payload = {1, 1, 2, 3, 5, 8, 13, 21};
+        byte[] frame = frame(payload);
+        int[] late = response(frame, new int[] {5});
+        late[5] = gap(200);
+        controller.readPackets.add(late);
+        NeoDen4Protocol protocol =
+                new NeoDen4Protocol(controller, new TestSettings(100, 1000, 3));
+        try {
+            protocol.read(READ_COMMANDS, READ_ACKS);
+            Assert.fail("Expected an incomplete response to time out.");
+        }
+        catch (Exception e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("received 5 of 9"));
+        }
+        Assert.assertTrue(controller.output.isEmpty());
+
+        controller.readPackets.add(response(frame));
+        Assert.assertArrayEquals(payload, protocol.read(READ_COMMANDS, READ_ACKS));
+    }
+}
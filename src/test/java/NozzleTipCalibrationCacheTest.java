@@ -0,0 +1,59 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.machine.reference.NozzleTipCalibrationCache;
+import org.openpnp.machine.reference.NozzleTipCalibrationCache.Entry;
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration.IncrementalRunoutFit;
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration.ModelBasedRunoutCameraOffsetCompensation;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+
+public class NozzleTipCalibrationCacheTest {
+    @Test
+    public void testRoundTrip() throws Exception {
+        File file = File.createTempFile("nozzle-tip-calibrations", ".xml");
+        file.delete();
+        file.deleteOnExit();
+
+        List<Location> locations = new ArrayList<>();
+        for (int angle = -180; angle < 180; angle += 60) {
+            double a = Math.toRadians(angle - 30);
+            locations.add(new Location(LengthUnit.Millimeters, 0.1 + 0.04 * Math.cos(a),
+                    -0.2 + 0.04 * Math.sin(a), 0, angle));
+        }
+        IncrementalRunoutFit fit = new IncrementalRunoutFit();
+        for (Location location : locations) {
+            fit.add(location);
+        }
+        Location cameraLocation = new Location(LengthUnit.Millimeters, 100, 50, -20, 0);
+        Location headOffsets = new Location(LengthUnit.Millimeters, -30, 5, 0, 0);
+
+        NozzleTipCalibrationCache cache = NozzleTipCalibrationCache.load(file);
+        Assert.assertNull(cache.getEntry("N1", "NT1"));
+        cache.putEntry(new Entry("N1", "NT1",
+                new ModelBasedRunoutCameraOffsetCompensation(locations), fit, cameraLocation, 0,
+                headOffsets));
+        Assert.assertTrue(file.exists());
+
+        Entry entry = NozzleTipCalibrationCache.load(file).getEntry("N1", "NT1");
+        Assert.assertNotNull(entry);
+        Assert.assertTrue(
+                entry.getRunoutCompensation() instanceof ModelBasedRunoutCameraOffsetCompensation);
+        Assert.assertEquals(0.1, entry.getCameraOffset().getX(), 1e-6);
+        Assert.assertEquals(-0.2, entry.getCameraOffset().getY(), 1e-6);
+        for (Location location : locations) {
+            Assert.assertEquals(0, entry.predict(location.getRotation()).getLinearDistanceTo(location),
+                    1e-6);
+        }
+        Assert.assertTrue(entry.isSameSetup(cameraLocation, 0, headOffsets));
+        Location movedCamera = cameraLocation.add(new Location(LengthUnit.Millimeters, 0.1, 0, 0, 0));
+        Assert.assertFalse(entry.isSameSetup(movedCamera, 0, headOffsets));
+        Assert.assertFalse(entry.isSameSetup(cameraLocation, 1, headOffsets));
+
+        cache.remove(null, "NT1");
+        Assert.assertNull(NozzleTipCalibrationCache.load(file).getEntry("N1", "NT1"));
+    }
+}
@@ -0,0 +1,135 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.machine.reference.ReferencePnpJobProcessor;
+import org.openpnp.machine.reference.ReferencePnpJobProcessor.JobOrderHint;
+import org.openpnp.machine.reference.ReferencePnpJobProcessor.SimplePnpJobPlanner;
+import org.openpnp.model.Board;
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Job;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.spi.Head;
+import org.openpnp.spi.Machine;
+import org.openpnp.spi.PnpJobPlanner;
+import org.openpnp.spi.PnpJobProcessor.JobPlacement;
+
+import com.google.common.io.Files;
+
+public class PlanAheadTest {
+    /**
+     * A planner that records the thread of every call, and can run something when it is called
+     * ahead, in the background.
+     */
+    static class RecordingPlanner implements PnpJobPlanner {
+        final PnpJobPlanner planner = new SimplePnpJobPlanner();
+        final List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        Runnable onPlanAhead;
+
+        @Override
+        public List<PlannedPlacement> plan(Head head, List<JobPlacement> placements) {
+            threads.add(Thread.currentThread().getName());
+            if (onPlanAhead != null && isPlanAhead(Thread.currentThread().getName())) {
+                onPlanAhead.run();
+            }
+            return planner.plan(head, placements);
+        }
+    }
+
+    private static boolean isPlanAhead(String thread) {
+        return thread.equals("ReferencePnpJobProcessor");
+    }
+
+    private Machine machine;
+    private ReferencePnpJobProcessor jobProcessor;
+    private RecordingPlanner planner;
+
+    @Before
+    public void setUp() throws Exception {
+        File workingDirectory = Files.createTempDir();
+        workingDirectory = new File(workingDirectory, ".openpnp");
+        FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/BasicJobTest/machine.xml"),
+                new File(workingDirectory, "machine.xml"));
+        FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/BasicJobTest/packages.xml"),
+                new File(workingDirectory, "packages.xml"));
+        FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/BasicJobTest/parts.xml"),
+                new File(workingDirectory, "parts.xml"));
+        Configuration.initialize(workingDirectory);
+        Configuration.get().load();
+
+        machine = Configuration.get().getMachine();
+        jobProcessor = (ReferencePnpJobProcessor) machine.getPnpJobProcessor();
+        planner = new RecordingPlanner();
+        jobProcessor.planner = planner;
+    }
+
+    /**
+     * Four placements on a head with two nozzles take two cycles.
+     */
+    private BoardLocation runJob() throws Exception {
+        Board board = new Board();
+        board.setName("test");
+        for (int i = 1; i <= 4; i++) {
+            board.addPlacement(BasicJobTest.createPlacement("R" + i, "R-0805-10K", 10 * i, 10, 0,
+                    0, Side.Top));
+        }
+        BoardLocation boardLocation = new BoardLocation(board);
+        boardLocation.setLocation(new Location(LengthUnit.Millimeters, 0, 0, 0, 0));
+        boardLocation.setSide(Side.Top);
+        Job job = new Job();
+        job.addBoardLocation(boardLocation);
+
+        machine.setEnabled(true);
+        jobProcessor.initialize(job);
+        while (jobProcessor.next());
+
+        for (int i = 1; i <= 4; i++) {
+            Assert.assertTrue("R" + i, boardLocation.getPlaced("R" + i));
+        }
+        return boardLocation;
+    }
+
+    private int count(boolean planAhead) {
+        int count = 0;
+        synchronized (planner.threads) {
+            for (String thread : planner.threads) {
+                if (isPlanAhead(thread) == planAhead) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The second cycle is planned in the background while the first one places, and the Plan
+     * step uses that plan instead of planning again. Nothing is planned ahead once no
+     * placements are left.
+     */
+    @Test
+    public void testPlanAheadIsUsed() throws Exception {
+        runJob();
+        Assert.assertEquals(planner.threads.toString(), 1, count(false));
+        Assert.assertEquals(planner.threads.toString(), 1, count(true));
+    }
+
+    /**
+     * A plan made ahead is not used if the job order changed while it was made.
+     */
+    @Test
+    public void testChangedJobOrderPlansAgain() throws Exception {
+        Assert.assertNotEquals(JobOrderHint.Part, jobProcessor.getJobOrder());
+        planner.onPlanAhead = () -> jobProcessor.setJobOrder(JobOrderHint.Part);
+        runJob();
+        Assert.assertEquals(planner.threads.toString(), 2, count(false));
+        Assert.assertEquals(planner.threads.toString(), 1, count(true));
+    }
+}
@@ -0,0 +1,138 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.machine.reference.ReferenceHead;
+import org.openpnp.machine.reference.ReferenceHeadMountable;
+import org.openpnp.machine.reference.ReferenceMachine;
+import org.openpnp.machine.reference.ReferenceNozzle;
+import org.openpnp.machine.reference.driver.test.TestDriver;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Length;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.util.MovableUtils;
+
+import com.google.common.io.Files;
+
+public class ReferenceHeadTest {
+    /**
+     * A TestDriver that records the moves it is asked to make, before it filters out the ones
+     * that don't change its location. The single moves a batch is made of are not recorded.
+     */
+    public static class RecordingDriver extends TestDriver {
+        final List<Map<ReferenceHeadMountable, Location>> batches = new ArrayList<>();
+        final List<ReferenceHeadMountable> moved = new ArrayList<>();
+        final List<Location> moves = new ArrayList<>();
+        private boolean inBatch;
+
+        @Override
+        public void moveTo(Map<ReferenceHeadMountable, Location> moves, double speed)
+                throws Exception {
+            batches.add(new LinkedHashMap<>(moves));
+            inBatch = true;
+            try {
+                super.moveTo(moves, speed);
+            }
+            finally {
+                inBatch = false;
+            }
+        }
+
+        @Override
+        public void moveTo(ReferenceHeadMountable hm, Location location, double speed)
+                throws Exception {
+            if (!inBatch) {
+                moved.add(hm);
+                moves.add(location);
+            }
+            super.moveTo(hm, location, speed);
+        }
+
+        void clear() {
+            batches.clear();
+            moved.clear();
+            moves.clear();
+        }
+    }
+
+    private ReferenceHead head;
+    private RecordingDriver driver;
+
+    @Before
+    public void setUp() throws Exception {
+        File workingDirectory = Files.createTempDir();
+        workingDirectory = new File(workingDirectory, ".openpnp");
+        FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/BasicJobTest/machine.xml"),
+                new File(workingDirectory, "machine.xml"));
+        FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/BasicJobTest/packages.xml"),
+                new File(workingDirectory, "packages.xml"));
+        FileUtils.copyURLToFile(ClassLoader.getSystemResource("config/BasicJobTest/parts.xml"),
+                new File(workingDirectory, "parts.xml"));
+        Configuration.initialize(workingDirectory);
+        Configuration.get().load();
+
+        ReferenceMachine machine = (ReferenceMachine) Configuration.get().getMachine();
+        driver = new RecordingDriver();
+        machine.setDriver(driver);
+        head = (ReferenceHead) machine.getHead("H1");
+    }
+
+    /**
+     * Every head mountable goes to its own safe Z in a single driver call, with nothing but Z.
+     */
+    @Test
+    public void testMoveToSafeZIsOneBatch() throws Exception {
+        ReferenceNozzle n1 = (ReferenceNozzle) head.getNozzle("N1");
+        n1.setSafeZ(new Length(5, LengthUnit.Millimeters));
+
+        head.moveToSafeZ();
+
+        Assert.assertEquals(1, driver.batches.size());
+        Map<ReferenceHeadMountable, Location> batch = driver.batches.get(0);
+        Assert.assertEquals(4, batch.size());
+        Assert.assertTrue(batch.containsKey(n1));
+        Assert.assertTrue(batch.containsKey(head.getNozzle("N2")));
+        Assert.assertTrue(batch.containsKey(head.getCamera("C1")));
+        Assert.assertTrue(batch.containsKey(head.getActuator("A1")));
+        for (Map.Entry<ReferenceHeadMountable, Location> move : batch.entrySet()) {
+            Location location = move.getValue();
+            Assert.assertTrue(Double.isNaN(location.getX()));
+            Assert.assertTrue(Double.isNaN(location.getY()));
+            Assert.assertTrue(Double.isNaN(location.getRotation()));
+            Assert.assertEquals(move.getKey() == n1 ? 5 : 0, location.getZ(), 1e-9);
+        }
+    }
+
+    /**
+     * A location without Z is reached with the safe Z batch and a single move in X, Y and C.
+     */
+    @Test
+    public void testMoveToLocationAtSafeZWithoutZ() throws Exception {
+        ReferenceNozzle n1 = (ReferenceNozzle) head.getNozzle("N1");
+
+        MovableUtils.moveToLocationAtSafeZ(n1,
+                new Location(LengthUnit.Millimeters, 10, 20, Double.NaN, 90));
+        Assert.assertEquals(1, driver.batches.size());
+        Assert.assertEquals(1, driver.moved.size());
+        Assert.assertSame(n1, driver.moved.get(0));
+        Location location = driver.moves.get(0);
+        Assert.assertEquals(10, location.getX(), 1e-9);
+        Assert.assertEquals(20, location.getY(), 1e-9);
+        Assert.assertEquals(90, location.getRotation(), 1e-9);
+
+        // With a Z there is one more move to lower the nozzle.
+        driver.clear();
+        MovableUtils.moveToLocationAtSafeZ(n1,
+                new Location(LengthUnit.Millimeters, 10, 20, -3, 90));
+        Assert.assertEquals(1, driver.batches.size());
+        Assert.assertEquals(2, driver.moved.size());
+        Assert.assertEquals(-3, driver.moves.get(1).getZ(), 1e-9);
+    }
+}
@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration;
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration.IncrementalRunoutFit;
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration.ModelBasedRunoutCompensation;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+
+public class ReferenceNozzleTipCalibrationTest {
+    private static List<Location> runout(double centerX, double centerY, double radius,
+            double phaseShift, int count) {
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double angle = -180 + i * 360.0 / count;
+            double a = Math.toRadians(angle - phaseShift);
+            // A little deterministic noise, so that the fit has something to average.
+            double noise = ((i * 7) % 5 - 2) * 0.0001;
+            locations.add(new Location(LengthUnit.Millimeters,
+                    centerX + radius * Math.cos(a) + noise, centerY + radius * Math.sin(a) - noise,
+                    0, angle));
+        }
+        return locations;
+    }
+
+    @Test
+    public void testIncrementalFitMatchesModel() {
+        List<Location> locations = runout(0.1, -0.05, 0.03, 20, 6);
+        ModelBasedRunoutCompensation model = new ModelBasedRunoutCompensation(locations);
+        IncrementalRunoutFit fit = new IncrementalRunoutFit();
+        for (Location location : locations) {
+            fit.add(location);
+        }
+        Location axisOffset = model.getAxisOffset();
+        Assert.assertEquals(axisOffset.getX(), fit.getCenterX(), 1e-9);
+        Assert.assertEquals(axisOffset.getY(), fit.getCenterY(), 1e-9);
+        Assert.assertEquals(model.getPhaseShift(), fit.getPhaseShift(), 1e-6);
+        for (double angle = -180; angle < 180; angle += 15) {
+            Location expected = model.getOffset(angle);
+            Location predicted = fit.predict(angle);
+            Assert.assertEquals(expected.getX(), predicted.getX(), 1e-9);
+            Assert.assertEquals(expected.getY(), predicted.getY(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testIncrementalFitConverges() {
+        // Spread measurements of a clean circle: after a few the model predicts the rest.
+        List<Location> locations = runout(0.2, 0.1, 0.05, -35, 12);
+        int[] order = ReferenceNozzleTipCalibration.getMeasurementOrder(12, true);
+        IncrementalRunoutFit fit = new IncrementalRunoutFit();
+        for (int i = 0; i < 4; i++) {
+            fit.add(locations.get(order[i]));
+        }
+        for (int i = 4; i < order.length; i++) {
+            Location measured = locations.get(order[i]);
+            Assert.assertTrue(fit.predict(measured.getRotation()).getLinearDistanceTo(measured) < 0.001);
+        }
+    }
+
+    @Test
+    public void testMeasurementOrder() {
+        Assert.assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5},
+                ReferenceNozzleTipCalibration.getMeasurementOrder(6, false));
+        Assert.assertArrayEquals(new int[] {0, 3, 1, 4, 2, 5},
+                ReferenceNozzleTipCalibration.getMeasurementOrder(6, true));
+        for (int count = 1; count < 40; count++) {
+            int[] order = ReferenceNozzleTipCalibration.getMeasurementOrder(count, true);
+            int[] sorted = order.clone();
+            Arrays.sort(sorted);
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals(i, sorted[i]);
+            }
+        }
+    }
+}
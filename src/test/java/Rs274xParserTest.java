@@ -0,0 +1,34 @@
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.gui.importer.rs274x.Rs274xParser;
+import org.openpnp.model.BoardPad;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Pad;
+
+public class Rs274xParserTest {
+    @Test
+    public void testFlashes() throws Exception {
+        String gerber = "G04 Solder paste*\r\n" + "%FSLAX24Y24*%\r\n" + "%MOIN*%\r\n"
+                + "%ADD10R,0.0500X0.0300*%\r\n" + "%ADD11C,0.0400*%\r\n" + "D10*\r\n"
+                + "X012345Y-006789D03*\r\n" + "X1000Y2000D03*\r\n" + "D11*\r\n"
+                + "X-15\r\nY25D03*\r\n" + "M02*\r\n";
+        List<BoardPad> pads = new Rs274xParser().parseSolderPastePads(new StringReader(gerber));
+
+        Assert.assertEquals(3, pads.size());
+        Assert.assertEquals("D10-000", pads.get(0).getName());
+        Assert.assertEquals(LengthUnit.Inches, pads.get(0).getLocation().getUnits());
+        Assert.assertEquals(1.234, pads.get(0).getLocation().getX(), 1e-12);
+        Assert.assertEquals(-0.678, pads.get(0).getLocation().getY(), 1e-12);
+        Assert.assertEquals(0.05, ((Pad.RoundRectangle) pads.get(0).getPad()).getWidth(), 1e-12);
+        Assert.assertEquals("D10-001", pads.get(1).getName());
+        Assert.assertEquals(0.1, pads.get(1).getLocation().getX(), 1e-12);
+        Assert.assertEquals(0.2, pads.get(1).getLocation().getY(), 1e-12);
+        Assert.assertEquals("D11-000", pads.get(2).getName());
+        Assert.assertEquals(-0.001, pads.get(2).getLocation().getX(), 1e-12);
+        Assert.assertEquals(0.002, pads.get(2).getLocation().getY(), 1e-12);
+        Assert.assertEquals(0.02, ((Pad.Circle) pads.get(2).getPad()).getRadius(), 1e-12);
+    }
+}
@@ -0,0 +1,44 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration.ModelBasedRunoutCompensation;
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration.RunoutCompensation;
+import org.openpnp.machine.reference.ReferenceNozzleTipCalibration.TableBasedRunoutCompensation;
+import org.openpnp.machine.reference.RunoutCompensationTable;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+
+public class RunoutCompensationTableTest {
+    private static List<Location> measurements() {
+        List<Location> locations = new ArrayList<>();
+        for (int angle = -180; angle < 180; angle += 30) {
+            double a = Math.toRadians(angle - 20);
+            locations.add(new Location(LengthUnit.Millimeters, 0.3 + 0.05 * Math.cos(a),
+                    -0.1 + 0.05 * Math.sin(a), 0, angle));
+        }
+        return locations;
+    }
+
+    private static void assertMatches(RunoutCompensation compensation, double range) {
+        RunoutCompensationTable table = new RunoutCompensationTable(compensation);
+        Assert.assertEquals(LengthUnit.Millimeters, table.getUnits());
+        for (double angle = -range; angle <= range; angle += 0.37) {
+            Location offset = compensation.getOffset(angle);
+            Assert.assertEquals(offset.getX(), table.getOffsetX(angle), 1e-6);
+            Assert.assertEquals(offset.getY(), table.getOffsetY(angle), 1e-6);
+        }
+    }
+
+    @Test
+    public void testModelBased() {
+        assertMatches(new ModelBasedRunoutCompensation(measurements()), 540);
+    }
+
+    @Test
+    public void testTableBased() {
+        // Only defined within a single turn.
+        assertMatches(new TableBasedRunoutCompensation(measurements()), 180);
+    }
+}
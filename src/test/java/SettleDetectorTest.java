@@ -0,0 +1,164 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.gui.support.Wizard;
+import org.openpnp.machine.reference.ReferenceCamera;
+import org.openpnp.model.Configuration;
+import org.openpnp.spi.PropertySheetHolder;
+import org.openpnp.spi.base.AbstractCamera.SettleTimeoutAction;
+import org.openpnp.vision.SettleDetector;
+
+public class SettleDetectorTest {
+    /**
+     * A camera that returns the given frames in order and then repeats the last one. Frames
+     * listed as stale are reported as captured before any settle started.
+     */
+    static class FrameCamera extends ReferenceCamera {
+        final List<BufferedImage> frames;
+        final List<BufferedImage> stale;
+        int index;
+
+        FrameCamera(List<BufferedImage> frames, BufferedImage... stale) {
+            this.frames = frames;
+            this.stale = Arrays.asList(stale);
+            // Auto settle with a threshold of 5.
+            setSettleTimeMs(-5);
+        }
+
+        @Override
+        public BufferedImage internalCapture() {
+            return frames.get(Math.min(index++, frames.size() - 1));
+        }
+
+        @Override
+        protected long getFrameTimestamp(BufferedImage image) {
+            return stale.contains(image) ? 0 : -1;
+        }
+
+        @Override
+        public Wizard getConfigurationWizard() {
+            return null;
+        }
+
+        @Override
+        public String getPropertySheetHolderTitle() {
+            return null;
+        }
+
+        @Override
+        public PropertySheetHolder[] getChildPropertySheetHolders() {
+            return null;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        File directory = Files.createTempDirectory("SettleDetectorTest").toFile();
+        Configuration.initialize(new File(directory, ".openpnp"));
+    }
+
+    /**
+     * Returns a gray frame with an optional brighter pixel at x, y.
+     */
+    private static BufferedImage frame(int gray, int x, int y, int value) {
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_3BYTE_BGR);
+        for (int i = 0; i < 32; i++) {
+            for (int j = 0; j < 32; j++) {
+                image.getRaster().setPixel(i, j, new int[] {gray, gray, gray});
+            }
+        }
+        if (value >= 0) {
+            image.getRaster().setPixel(x, y, new int[] {value, value, value});
+        }
+        return image;
+    }
+
+    private static BufferedImage frame(int gray) {
+        return frame(gray, 0, 0, -1);
+    }
+
+    @Test
+    public void testScore() throws Exception {
+        SettleDetector detector = new SettleDetector(1.0, 1);
+        Assert.assertEquals(-1, detector.score(frame(50)), 0);
+        Assert.assertEquals(0, detector.score(frame(50)), 0);
+        Assert.assertEquals(150, detector.score(frame(50, 0, 0, 200)), 0);
+        detector.reset();
+        Assert.assertEquals(-1, detector.score(frame(50)), 0);
+        detector.release();
+    }
+
+    @Test
+    public void testRoiAndDownscale() throws Exception {
+        // A change in the corner is outside the centered half of the frame.
+        SettleDetector detector = new SettleDetector(0.5, 1);
+        detector.score(frame(50));
+        Assert.assertEquals(0, detector.score(frame(50, 0, 0, 200)), 0);
+        Assert.assertEquals(150, detector.score(frame(50, 16, 16, 50 + 150)), 0);
+        detector.release();
+
+        // Downscaling averages a single pixel change with its neighbours.
+        detector = new SettleDetector(1.0, 4);
+        detector.score(frame(50));
+        double score = detector.score(frame(50, 16, 16, 200));
+        Assert.assertTrue("score " + score, score > 0 && score < 150);
+        detector.release();
+    }
+
+    /**
+     * Auto settle returns once a frame differs from the one before by less than the threshold,
+     * but not by nothing, which would be a duplicate frame.
+     */
+    @Test
+    public void testSettles() throws Exception {
+        FrameCamera camera = new FrameCamera(
+                Arrays.asList(frame(0), frame(100), frame(100), frame(100, 5, 5, 102)));
+        Assert.assertNotNull(camera.settleAndCapture());
+        Assert.assertEquals(1, camera.getSettleStatistics().getCount());
+        Assert.assertEquals(0, camera.getSettleStatistics().getTimeouts());
+        Assert.assertEquals(4, camera.getSettleStatistics().getAverageFrames(), 0);
+    }
+
+    /**
+     * Frames captured before the settle started are skipped, even if they look settled.
+     */
+    @Test
+    public void testStaleFramesSkipped() throws Exception {
+        BufferedImage stale1 = frame(0);
+        BufferedImage stale2 = frame(0, 5, 5, 2);
+        FrameCamera camera = new FrameCamera(
+                Arrays.asList(stale1, stale2, frame(100), frame(100, 5, 5, 102)), stale1,
+                stale2);
+        camera.settleAndCapture();
+        Assert.assertEquals(4, camera.getSettleStatistics().getAverageFrames(), 0);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        FrameCamera camera = new FrameCamera(Arrays.asList(frame(100)));
+        // Existing configurations keep waiting forever.
+        Assert.assertEquals(0, camera.getSettleTimeoutMs());
+
+        camera.setSettleTimeoutMs(200);
+        long t = System.currentTimeMillis();
+        Assert.assertNotNull(camera.settleAndCapture());
+        Assert.assertTrue(System.currentTimeMillis() - t >= 200);
+        Assert.assertEquals(1, camera.getSettleStatistics().getTimeouts());
+
+        camera.setSettleTimeoutAction(SettleTimeoutAction.Error);
+        try {
+            camera.settleAndCapture();
+            Assert.fail("Expected the settle to time out.");
+        }
+        catch (Exception e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("did not settle"));
+        }
+        Assert.assertEquals(2, camera.getSettleStatistics().getTimeouts());
+    }
+}
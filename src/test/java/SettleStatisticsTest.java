@@ -0,0 +1,43 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.openpnp.util.SettleStatistics;
+
+public class SettleStatisticsTest {
+    @Test
+    public void testRecord() {
+        SettleStatistics statistics = new SettleStatistics();
+        Assert.assertEquals(0, statistics.getAverageMs(), 0);
+        Assert.assertEquals(0, statistics.getAverageFrames(), 0);
+
+        statistics.record(100, 4, false);
+        statistics.record(300, 8, true);
+        statistics.record(200, 6, false);
+        Assert.assertEquals(3, statistics.getCount());
+        Assert.assertEquals(1, statistics.getTimeouts());
+        Assert.assertEquals(300, statistics.getMaxMs());
+        Assert.assertEquals(200, statistics.getLastMs());
+        Assert.assertEquals(200, statistics.getAverageMs(), 1e-9);
+        Assert.assertEquals(6, statistics.getAverageFrames(), 1e-9);
+        Assert.assertTrue(statistics.toString(), statistics.toString().contains("frames"));
+
+        statistics.reset();
+        Assert.assertEquals(0, statistics.getCount());
+        Assert.assertEquals(0, statistics.getTimeouts());
+        Assert.assertEquals(0, statistics.getMaxMs());
+    }
+
+    /**
+     * Waits that aren't measured in frames, like the adaptive vacuum dwell, leave the frames out.
+     */
+    @Test
+    public void testRecordWithoutFrames() {
+        SettleStatistics statistics = new SettleStatistics();
+        statistics.record(40, false);
+        statistics.record(80, true);
+        Assert.assertEquals(2, statistics.getCount());
+        Assert.assertEquals(1, statistics.getTimeouts());
+        Assert.assertEquals(60, statistics.getAverageMs(), 1e-9);
+        Assert.assertEquals(0, statistics.getAverageFrames(), 0);
+        Assert.assertFalse(statistics.toString(), statistics.toString().contains("frames"));
+    }
+}
@@ -241,6 +241,43 @@ public class Utils2DTest {
         System.out.println("test" + ++i);
         check(loc1, place);
     }
-}
 
+    /**
+     * Check that the cached transform tracks changes to the BoardLocation and board dimensions
+     * and gives the same results as calculating it from the board location each time.
+     * @throws Exception
+     */
+    @Test
+    public void testCalculateBoardPlacementLocationsCached() throws Exception {
+        Board board = new Board();
+        board.setDimensions(new Location(LengthUnit.Millimeters, 100, 50, 0, 0));
+        for (int i = 0; i < 100; i++) {
+            board.addPlacement(randomPlacement());
+        }
+
+        BoardLocation boardLocation = new BoardLocation(board);
+        boardLocation.setLocation(new Location(LengthUnit.Millimeters, 5, 15, -8, 0));
+        check(Utils2D.calculateBoardPlacementLocation(boardLocation,
+                new Location(LengthUnit.Millimeters, 55, 5, 0, 0)), 60, 20, -8, 0);
+
+        long version = boardLocation.getTransform().getVersion();
+        boardLocation.setSide(Side.Bottom);
+        Assert.assertTrue(boardLocation.getTransform().getVersion() > version);
+        check(Utils2D.calculateBoardPlacementLocation(boardLocation,
+                new Location(LengthUnit.Millimeters, 55, 5, 0, 0)), 5 + -55 + 100, 20, -8, 0);
+
+        version = boardLocation.getTransform().getVersion();
+        board.setDimensions(new Location(LengthUnit.Millimeters, 200, 50, 0, 0));
+        Assert.assertTrue(boardLocation.getTransform().getVersion() > version);
+        check(Utils2D.calculateBoardPlacementLocation(boardLocation,
+                new Location(LengthUnit.Millimeters, 55, 5, 0, 0)), 5 + -55 + 200, 20, -8, 0);
 
+        boardLocation.setLocation(randomLocation().derive(null, null, -8d, null));
+        for (Placement placement : board.getPlacements()) {
+            Location expected = Utils2D.calculateBoardPlacementLocation(boardLocation.getLocation(),
+                    boardLocation.getSide(), 200, placement.getLocation());
+            check(Utils2D.calculateBoardPlacementLocation(boardLocation, placement.getLocation()),
+                    expected);
+        }
+    }
+}